@@ -27,8 +27,10 @@ import org.apache.streampipes.dataformat.cbor.CborDataFormatFactory;
 import org.apache.streampipes.dataformat.fst.FstDataFormatFactory;
 import org.apache.streampipes.dataformat.json.JsonDataFormatFactory;
 import org.apache.streampipes.dataformat.smile.SmileDataFormatFactory;
+import org.apache.streampipes.messaging.inmemory.SpInMemoryProtocolFactory;
 import org.apache.streampipes.messaging.jms.SpJmsProtocolFactory;
 import org.apache.streampipes.messaging.kafka.SpKafkaProtocolFactory;
+import org.apache.streampipes.messaging.mmap.SpMmapProtocolFactory;
 
 import ${package}.config.Config;
 import ${package}.pe.processor.${packageName}.${classNamePrefix}Controller;
@@ -48,7 +50,9 @@ public class Init extends StandaloneModelSubmitter {
     DeclarersSingleton.getInstance().registerProtocols(
             new SpKafkaProtocolFactory(),
             new SpMqttProtocolFactory(),
-            new SpJmsProtocolFactory());
+            new SpJmsProtocolFactory(),
+            new SpInMemoryProtocolFactory(),
+            new SpMmapProtocolFactory());
 
     new Init().init(Config.INSTANCE);
   }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.commons.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads which run the processing loops of pipeline elements, e.g., the consumer
+ * threads of the messaging clients or the workers of execution stages.
+ *
+ * If the environment variable SP_PROCESSING_THREAD_MODE is set to "virtual" and the JVM supports
+ * virtual threads (JDK 21, or JDK 19/20 with preview features enabled), these threads are
+ * created as virtual threads, so that thousands of pipeline element instances can run in one
+ * container. Threads which block in broker client calls (e.g., the Kafka poll loop) should stay
+ * platform threads and hand events over to a processing thread, as such calls may pin the carrier
+ * thread. Otherwise, and on older JVMs, platform threads are created.
+ */
+public class ProcessingThreads {
+
+  public enum Mode {
+    PLATFORM,
+    VIRTUAL
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessingThreads.class);
+
+  private static final String MODE_ENV = "SP_PROCESSING_THREAD_MODE";
+
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_UNSTARTED;
+
+  private static final Mode MODE;
+
+  static {
+    Method ofVirtual = null;
+    Method builderName = null;
+    Method builderUnstarted = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builderName = builderClass.getMethod("name", String.class);
+      builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+      // fails if virtual threads are a disabled preview feature
+      ofVirtual.invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_UNSTARTED = builderUnstarted;
+    MODE = makeMode(System.getenv(MODE_ENV));
+  }
+
+  private static Mode makeMode(String configuredMode) {
+    if (configuredMode == null || !Mode.VIRTUAL.name().equalsIgnoreCase(configuredMode)) {
+      return Mode.PLATFORM;
+    } else if (!isVirtualThreadSupported()) {
+      LOG.warn("Virtual threads are not supported by this JVM, using platform threads instead");
+      return Mode.PLATFORM;
+    } else {
+      return Mode.VIRTUAL;
+    }
+  }
+
+  public static boolean isVirtualThreadSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  public static Mode getMode() {
+    return MODE;
+  }
+
+  /**
+   * Creates an unstarted thread of the configured mode.
+   *
+   * @param daemon whether a platform thread is created as daemon thread; virtual threads are
+   *               always daemon threads.
+   */
+  public static Thread newThread(String name, boolean daemon, Runnable task) {
+    return newThread(MODE, name, daemon, task);
+  }
+
+  public static Thread newThread(Mode mode, String name, boolean daemon, Runnable task) {
+    if (mode == Mode.VIRTUAL && isVirtualThreadSupported()) {
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+        return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException("Could not create virtual thread " + name, e);
+      }
+    } else {
+      Thread thread = new Thread(task, name);
+      thread.setDaemon(daemon);
+      return thread;
+    }
+  }
+}
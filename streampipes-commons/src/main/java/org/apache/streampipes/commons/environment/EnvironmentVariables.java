@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.commons.environment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Reads the settings of the extensions container which can be overridden by environment
+ * variables. Values which cannot be parsed or are out of range are logged and replaced by the
+ * default, so that a misconfigured variable does not prevent pipeline elements from starting.
+ */
+public class EnvironmentVariables {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EnvironmentVariables.class);
+
+  private EnvironmentVariables() {
+
+  }
+
+  public static String getString(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+  }
+
+  public static boolean getBoolean(String name, boolean defaultValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    } else if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+      return Boolean.parseBoolean(value);
+    } else {
+      return invalid(name, value, defaultValue, "true or false");
+    }
+  }
+
+  public static int getInt(String name, int defaultValue, int minValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      int result = Integer.parseInt(value);
+      if (result >= minValue) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    return invalid(name, value, defaultValue, "an integer of at least " + minValue);
+  }
+
+  public static long getLong(String name, long defaultValue, long minValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      long result = Long.parseLong(value);
+      if (result >= minValue) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    return invalid(name, value, defaultValue, "an integer of at least " + minValue);
+  }
+
+  public static double getDouble(String name, double defaultValue, double minValue,
+                                 double maxValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      double result = Double.parseDouble(value);
+      if (result >= minValue && result <= maxValue) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    return invalid(name, value, defaultValue, "a number between " + minValue + " and "
+            + maxValue);
+  }
+
+  public static <E extends Enum<E>> E getEnum(String name, Class<E> enumType, E defaultValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    for (E constant : enumType.getEnumConstants()) {
+      if (constant.name().equalsIgnoreCase(value)) {
+        return constant;
+      }
+    }
+    return invalid(name, value, defaultValue, "one of "
+            + Arrays.toString(enumType.getEnumConstants()));
+  }
+
+  private static <V> V invalid(String name, String value, V defaultValue, String expected) {
+    LOG.warn("Ignoring invalid value '{}' of environment variable {} (expected {}), using {}",
+            value, name, expected, defaultValue);
+    return defaultValue;
+  }
+}
@@ -43,6 +43,8 @@ public enum BackendConfig {
     config.register(BackendConfigKeys.JMS_PORT, 61616, "Port for backend service for active mq");
     config.register(BackendConfigKeys.MQTT_HOST, "activemq", "Hostname of mqtt service");
     config.register(BackendConfigKeys.MQTT_PORT, 1883, "Port of mqtt service");
+    config.register(BackendConfigKeys.MMAP_DIRECTORY, "/dev/shm/streampipes", "Directory of the " +
+            "memory-mapped ring buffers shared by extensions containers on the same host");
     config.register(BackendConfigKeys.KAFKA_HOST, "kafka", "Hostname for backend service for kafka");
     config.register(BackendConfigKeys.KAFKA_PORT, 9092, "Port for backend service for kafka");
     config.register(BackendConfigKeys.ZOOKEEPER_HOST, "zookeeper", "Hostname for backend service for zookeeper");
@@ -118,6 +120,10 @@ public enum BackendConfig {
     return config.getInteger(BackendConfigKeys.MQTT_PORT);
   }
 
+  public String getMmapDirectory() {
+    return config.getString(BackendConfigKeys.MMAP_DIRECTORY);
+  }
+
   public String getKafkaHost() {
     return config.getString(BackendConfigKeys.KAFKA_HOST);
   }
@@ -25,6 +25,7 @@ public class BackendConfigKeys {
   public static final String JMS_PORT = "SP_JMS_PORT";
   public static final String MQTT_HOST = "SP_MQTT_HOST";
   public static final String MQTT_PORT = "SP_MQTT_PORT";
+  public static final String MMAP_DIRECTORY = "SP_MMAP_DIRECTORY";
   public static final String KAFKA_HOST = "SP_KAFKA_HOST";
   public static final String KAFKA_PORT = "SP_KAFKA_PORT";
   public static final String ZOOKEEPER_HOST = "SP_ZOOKEEPER_HOST";
@@ -44,6 +44,10 @@ public class MessagingSettings {
         case "jms":
           protocolList = Arrays.asList(SpProtocol.JMS, SpProtocol.KAFKA, SpProtocol.MQTT);
           break;
+        case "mmap":
+          protocolList = Arrays.asList(SpProtocol.MMAP, SpProtocol.KAFKA, SpProtocol.MQTT,
+                  SpProtocol.JMS);
+          break;
         default:
           protocolList = Arrays.asList(SpProtocol.KAFKA, SpProtocol.MQTT, SpProtocol.JMS);
       }
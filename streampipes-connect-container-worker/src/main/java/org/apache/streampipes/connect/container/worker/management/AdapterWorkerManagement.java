@@ -20,6 +20,7 @@ package org.apache.streampipes.connect.container.worker.management;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
 import org.apache.streampipes.connect.RunningAdapterInstances;
 import org.apache.streampipes.connect.adapter.Adapter;
 import org.apache.streampipes.connect.adapter.exception.AdapterException;
@@ -123,7 +124,8 @@ public class AdapterWorkerManagement {
             }
         };
 
-        new Thread(r).start();
+        ProcessingThreads.newThread("sp-set-adapter-" + adapterSetDescription.getUri(), false, r)
+                .start();
     }
 
     public void stopSetAdapter (AdapterSetDescription adapterSetDescription) throws AdapterException {
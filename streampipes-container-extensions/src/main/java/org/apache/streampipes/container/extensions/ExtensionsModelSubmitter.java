@@ -31,8 +31,10 @@ import org.apache.streampipes.dataformat.cbor.CborDataFormatFactory;
 import org.apache.streampipes.dataformat.fst.FstDataFormatFactory;
 import org.apache.streampipes.dataformat.json.JsonDataFormatFactory;
 import org.apache.streampipes.dataformat.smile.SmileDataFormatFactory;
+import org.apache.streampipes.messaging.inmemory.SpInMemoryProtocolFactory;
 import org.apache.streampipes.messaging.jms.SpJmsProtocolFactory;
 import org.apache.streampipes.messaging.kafka.SpKafkaProtocolFactory;
+import org.apache.streampipes.messaging.mmap.SpMmapProtocolFactory;
 import org.apache.streampipes.messaging.mqtt.SpMqttProtocolFactory;
 import org.apache.streampipes.model.base.NamedStreamPipesEntity;
 import org.apache.streampipes.model.connect.adapter.AdapterDescription;
@@ -72,7 +74,9 @@ public abstract class ExtensionsModelSubmitter extends ModelSubmitter<Extensions
         DeclarersSingleton.getInstance().registerProtocols(
                 new SpKafkaProtocolFactory(),
                 new SpMqttProtocolFactory(),
-                new SpJmsProtocolFactory());
+                new SpJmsProtocolFactory(),
+                new SpInMemoryProtocolFactory(),
+                new SpMmapProtocolFactory());
 
         LOG.info("Starting StreamPipes Extensions Bundle");
         SpringApplication app = new SpringApplication(ExtensionsModelSubmitter.class);
@@ -31,6 +31,7 @@ public class PipelineElementContainerResourceConfig extends ResourceConfig {
     register(DataStreamPipelineElementResource.class);
     register(WelcomePage.class);
     register(PipelineTemplateResource.class);
+    register(MetricsResource.class);
 
     register(JacksonSerializationProvider.class);
   }
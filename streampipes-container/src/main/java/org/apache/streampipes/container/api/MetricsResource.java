@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.container.api;
+
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.ElementMetricsRegistry;
+import org.apache.streampipes.container.monitoring.MetricsTextFormat;
+import org.apache.streampipes.rest.shared.annotation.JacksonSerialized;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes throughput and latency metrics of the pipeline element instances running in this
+ * container.
+ */
+@Path("/metrics")
+public class MetricsResource {
+
+  /**
+   * @return the metrics of all instances in the Prometheus text format.
+   */
+  @GET
+  @Produces(MetricsTextFormat.CONTENT_TYPE)
+  public String getMetrics() {
+    return MetricsTextFormat.write(ElementMetricsRegistry.INSTANCE.getAll());
+  }
+
+  /**
+   * @return the metrics of all instances, or of the instance with the given element id.
+   */
+  @GET
+  @Path("/instances")
+  @Produces(MediaType.APPLICATION_JSON)
+  @JacksonSerialized
+  public List<Map<String, Object>> getInstanceMetrics(@QueryParam("elementId") String elementId) {
+    return ElementMetricsRegistry.INSTANCE
+            .getAll()
+            .stream()
+            .filter(m -> elementId == null || elementId.equals(m.getElementId()))
+            .map(ElementMetrics::toMap)
+            .collect(Collectors.toList());
+  }
+}
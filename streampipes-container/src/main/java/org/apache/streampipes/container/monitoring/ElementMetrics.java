@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.container.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency metrics of a running pipeline element instance. Durations are recorded
+ * by taking a sample start with {@link #startSample()} and passing it to {@link #record(Timer,
+ * long)} afterwards; both are no-ops for events which are not sampled.
+ */
+public class ElementMetrics {
+
+  public enum Timer {
+    /**
+     * Decoding the input payload.
+     */
+    DECODE("decode"),
+    /**
+     * Processing an event, including emitting its output events.
+     */
+    PROCESS("process"),
+    /**
+     * Encoding an output event.
+     */
+    ENCODE("encode"),
+    /**
+     * Waiting in the queue of an execution stage.
+     */
+    QUEUE_WAIT("queue_wait");
+
+    private final String metricName;
+
+    Timer(String metricName) {
+      this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+      return metricName;
+    }
+  }
+
+  public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  private final String elementId;
+  private final String name;
+  private final int sampleInterval;
+  private final long startTime = System.currentTimeMillis();
+
+  private final LongAdder eventsIn = new LongAdder();
+  private final LongAdder eventsOut = new LongAdder();
+  private final LongAdder shedEvents = new LongAdder();
+  private volatile boolean loadSheddingActive;
+  private final LatencyHistogram[] timers = new LatencyHistogram[Timer.values().length];
+  private final Set<QueueStatistics> queues = ConcurrentHashMap.newKeySet();
+
+  public ElementMetrics(String elementId, String name, MetricsSettings settings) {
+    this.elementId = elementId;
+    this.name = name;
+    this.sampleInterval = settings.getSampleInterval();
+    for (int i = 0; i < timers.length; i++) {
+      timers[i] = new LatencyHistogram();
+    }
+  }
+
+  public void countIn() {
+    eventsIn.increment();
+  }
+
+  public void countOut() {
+    eventsOut.increment();
+  }
+
+  /**
+   * Counts an input event which has been discarded by load shedding.
+   */
+  public void countShed() {
+    shedEvents.increment();
+  }
+
+  public void setLoadSheddingActive(boolean loadSheddingActive) {
+    this.loadSheddingActive = loadSheddingActive;
+  }
+
+  public boolean shouldSample() {
+    return sampleInterval == 1 || (sampleInterval > 1
+            && ThreadLocalRandom.current().nextInt(sampleInterval) == 0);
+  }
+
+  /**
+   * @return the current time in nanoseconds if the event is sampled, otherwise {@link
+   * #NOT_SAMPLED}.
+   */
+  public long startSample() {
+    return shouldSample() ? System.nanoTime() : NOT_SAMPLED;
+  }
+
+  /**
+   * Records the time elapsed since the sample start, if the event is sampled.
+   */
+  public void record(Timer timer, long sampleStart) {
+    if (sampleStart != NOT_SAMPLED) {
+      timers[timer.ordinal()].record(System.nanoTime() - sampleStart);
+    }
+  }
+
+  /**
+   * Records a duration which has already been measured, regardless of sampling.
+   */
+  public void recordNanos(Timer timer, long nanos) {
+    timers[timer.ordinal()].record(nanos);
+  }
+
+  public void addQueue(QueueStatistics queue) {
+    queues.add(queue);
+  }
+
+  public void removeQueue(QueueStatistics queue) {
+    queues.remove(queue);
+  }
+
+  public String getElementId() {
+    return elementId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getEventsIn() {
+    return eventsIn.sum();
+  }
+
+  public long getEventsOut() {
+    return eventsOut.sum();
+  }
+
+  public long getShedEvents() {
+    return shedEvents.sum();
+  }
+
+  public boolean isLoadSheddingActive() {
+    return loadSheddingActive;
+  }
+
+  /**
+   * @return the fraction of input events which have been discarded by load shedding.
+   */
+  public double getShedRatio() {
+    long shed = getShedEvents();
+    long total = shed + getEventsIn();
+    return total > 0 ? (double) shed / total : 0;
+  }
+
+  public LatencyHistogram getTimer(Timer timer) {
+    return timers[timer.ordinal()];
+  }
+
+  public long getQueueDepth() {
+    return queues.stream().mapToLong(QueueStatistics::getQueueDepth).sum();
+  }
+
+  public long getDroppedEvents() {
+    return queues.stream().mapToLong(QueueStatistics::getDroppedTasks).sum();
+  }
+
+  public double getUptimeSeconds() {
+    return (System.currentTimeMillis() - startTime) / 1000.0;
+  }
+
+  public static double[] getQuantiles() {
+    return QUANTILES.clone();
+  }
+
+  /**
+   * @return the current metrics as a map, with durations in milliseconds.
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    double uptime = getUptimeSeconds();
+    result.put("elementId", elementId);
+    result.put("name", name);
+    result.put("uptimeSeconds", uptime);
+    result.put("eventsIn", getEventsIn());
+    result.put("eventsOut", getEventsOut());
+    result.put("eventsInPerSecond", uptime > 0 ? getEventsIn() / uptime : 0);
+    result.put("eventsOutPerSecond", uptime > 0 ? getEventsOut() / uptime : 0);
+    result.put("queueDepth", getQueueDepth());
+    result.put("droppedEvents", getDroppedEvents());
+    result.put("loadSheddingActive", loadSheddingActive);
+    result.put("shedEvents", getShedEvents());
+    result.put("shedEventsPerSecond", uptime > 0 ? getShedEvents() / uptime : 0);
+    result.put("shedRatio", getShedRatio());
+    result.put("sampleInterval", sampleInterval);
+
+    Map<String, Object> latencies = new LinkedHashMap<>();
+    for (Timer timer : Timer.values()) {
+      LatencyHistogram histogram = getTimer(timer);
+      Map<String, Object> latency = new LinkedHashMap<>();
+      latency.put("samples", histogram.getCount());
+      latency.put("meanMs", histogram.getMean() / 1e6);
+      for (int i = 0; i < QUANTILES.length; i++) {
+        latency.put(QUANTILE_NAMES[i] + "Ms", histogram.getValueAtQuantile(QUANTILES[i]) / 1e6);
+      }
+      latency.put("maxMs", histogram.getMax() / 1e6);
+      latencies.put(timer.getMetricName(), latency);
+    }
+    result.put("latencies", latencies);
+    return result;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.container.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The metrics of all pipeline element instances running in this container, by element id.
+ */
+public enum ElementMetricsRegistry {
+  INSTANCE;
+
+  private final Map<String, ElementMetrics> metrics = new ConcurrentHashMap<>();
+
+  public void register(ElementMetrics elementMetrics) {
+    metrics.put(elementMetrics.getElementId(), elementMetrics);
+  }
+
+  public void unregister(ElementMetrics elementMetrics) {
+    metrics.remove(elementMetrics.getElementId(), elementMetrics);
+  }
+
+  public ElementMetrics get(String elementId) {
+    return metrics.get(elementId);
+  }
+
+  public List<ElementMetrics> getAll() {
+    return new ArrayList<>(metrics.values());
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.container.monitoring;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of the metrics recorded for running pipeline element instances.
+ *
+ * Event counts are always recorded; durations are measured for one in {@link
+ * #getSampleInterval()} events, so that the calls to the clock do not add noticeable overhead.
+ */
+public class MetricsSettings {
+
+  private static final String SAMPLE_INTERVAL_ENV = "SP_METRICS_SAMPLE_INTERVAL";
+
+  private static final int SAMPLE_INTERVAL_DEFAULT = 16;
+
+  private final int sampleInterval;
+
+  /**
+   * @param sampleInterval the number of events per measured event, or 0 to measure no durations.
+   */
+  public MetricsSettings(int sampleInterval) {
+    if (sampleInterval < 0) {
+      throw new IllegalArgumentException("Invalid metrics settings (sample interval="
+              + sampleInterval + ")");
+    }
+    this.sampleInterval = sampleInterval;
+  }
+
+  public static MetricsSettings fromDefault() {
+    return new MetricsSettings(EnvironmentVariables.getInt(SAMPLE_INTERVAL_ENV,
+            SAMPLE_INTERVAL_DEFAULT, 0));
+  }
+
+  public int getSampleInterval() {
+    return sampleInterval;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.container.monitoring;
+
+import java.util.Collection;
+
+/**
+ * Writes element metrics in the Prometheus text exposition format, so that they can be scraped
+ * by Prometheus or compatible agents. Latencies are exposed as summaries in seconds, whose count
+ * and sum refer to the sampled events.
+ */
+public class MetricsTextFormat {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final String PREFIX = "sp_element_";
+
+  public static String write(Collection<ElementMetrics> metrics) {
+    StringBuilder out = new StringBuilder();
+
+    writeHeader(out, "events_in_total", "counter", "Events received by the instance.");
+    metrics.forEach(m -> writeSample(out, "events_in_total", m, null, m.getEventsIn()));
+    writeHeader(out, "events_out_total", "counter", "Events emitted by the instance.");
+    metrics.forEach(m -> writeSample(out, "events_out_total", m, null, m.getEventsOut()));
+    writeHeader(out, "queue_depth", "gauge", "Events waiting in the queues of the instance.");
+    metrics.forEach(m -> writeSample(out, "queue_depth", m, null, m.getQueueDepth()));
+    writeHeader(out, "dropped_events_total", "counter", "Events discarded by overloaded queues.");
+    metrics.forEach(m -> writeSample(out, "dropped_events_total", m, null, m.getDroppedEvents()));
+    writeHeader(out, "shed_events_total", "counter", "Events discarded by load shedding.");
+    metrics.forEach(m -> writeSample(out, "shed_events_total", m, null, m.getShedEvents()));
+    writeHeader(out, "load_shedding_active", "gauge", "Whether the instance is shedding load.");
+    metrics.forEach(m -> writeSample(out, "load_shedding_active", m, null,
+            m.isLoadSheddingActive() ? 1 : 0));
+
+    double[] quantiles = ElementMetrics.getQuantiles();
+    for (ElementMetrics.Timer timer : ElementMetrics.Timer.values()) {
+      String name = timer.getMetricName() + "_seconds";
+      writeHeader(out, name, "summary", "Sampled " + timer.getMetricName().replace('_', ' ')
+              + " time.");
+      for (ElementMetrics m : metrics) {
+        LatencyHistogram histogram = m.getTimer(timer);
+        for (double quantile : quantiles) {
+          writeSample(out, name, m, Double.toString(quantile),
+                  toSeconds(histogram.getValueAtQuantile(quantile)));
+        }
+        writeSample(out, name + "_sum", m, null, toSeconds(histogram.getSum()));
+        writeSample(out, name + "_count", m, null, histogram.getCount());
+      }
+    }
+    return out.toString();
+  }
+
+  private static void writeHeader(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void writeSample(StringBuilder out, String name, ElementMetrics metrics,
+                                  String quantile, Object value) {
+    out.append(PREFIX).append(name).append("{element_id=\"").append(escape(metrics.getElementId()))
+            .append("\",name=\"").append(escape(metrics.getName())).append('"');
+    if (quantile != null) {
+      out.append(",quantile=\"").append(quantile).append('"');
+    }
+    out.append("} ").append(value).append('\n');
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / 1e9;
+  }
+
+  private static String escape(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.container.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TestLatencyHistogram {
+
+  private static final long MAX_TRACKABLE = (1L << 43) - 1;
+  private static final double MAX_RELATIVE_ERROR = 0.01;
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getValueAtQuantile(0.5));
+    assertEquals(0, histogram.getMean(), 0);
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 0; value < 128; value++) {
+      histogram.record(value);
+    }
+
+    for (int value = 0; value < 128; value++) {
+      assertEquals(value, histogram.getValueAtQuantile((value + 1) / 128.0));
+    }
+  }
+
+  @Test
+  public void testBucketBoundaries() {
+    for (int exponent = 7; exponent <= 42; exponent++) {
+      long powerOfTwo = 1L << exponent;
+      for (long value : new long[]{powerOfTwo - 1, powerOfTwo, powerOfTwo + 1,
+              powerOfTwo + (powerOfTwo >> 1)}) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        // a larger maximum, so that the bucket value is not capped
+        histogram.record(MAX_TRACKABLE);
+
+        assertWithinError(value, histogram.getValueAtQuantile(0.5));
+      }
+    }
+  }
+
+  @Test
+  public void testAdjacentSubBucketsAreDistinguished() {
+    assertNotEquals(valueAtMedian(128), valueAtMedian(130));
+    assertEquals(valueAtMedian(128), valueAtMedian(129));
+    assertNotEquals(valueAtMedian(1L << 20), valueAtMedian((1L << 20) + (1L << 14)));
+  }
+
+  @Test
+  public void testMaxTrackableValue() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(Long.MAX_VALUE);
+    histogram.record(MAX_TRACKABLE + 1);
+
+    assertEquals(MAX_TRACKABLE, histogram.getMax());
+    assertEquals(2 * MAX_TRACKABLE, histogram.getSum());
+    assertWithinError(MAX_TRACKABLE, histogram.getValueAtQuantile(1));
+  }
+
+  @Test
+  public void testNegativeValuesAreRecordedAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getValueAtQuantile(1));
+  }
+
+  @Test
+  public void testValueAtQuantileDoesNotExceedMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+
+    assertEquals(1000, histogram.getValueAtQuantile(1));
+  }
+
+  @Test
+  public void testPercentilesOfUniformValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    long[] values = new long[100000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (i + 1) * 1000L;
+      histogram.record(values[i]);
+    }
+
+    assertPercentiles(values, histogram);
+    assertEquals(values.length, histogram.getCount());
+    assertEquals(values[values.length - 1], histogram.getMax());
+    assertEquals((values.length + 1) * 500.0, histogram.getMean(), 0.001);
+  }
+
+  @Test
+  public void testPercentilesOfSkewedValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(42);
+    long[] values = new long[100000];
+    for (int i = 0; i < values.length; i++) {
+      // log-normal around 100 microseconds with a long tail
+      values[i] = (long) Math.exp(Math.log(100_000) + 1.5 * random.nextGaussian());
+      histogram.record(values[i]);
+    }
+
+    assertPercentiles(values, histogram);
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 1; i <= 10000; i++) {
+          histogram.record(i);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(40000, histogram.getCount());
+    assertEquals(4 * 10000L * 10001 / 2, histogram.getSum());
+    assertEquals(10000, histogram.getMax());
+    assertWithinError(5000, histogram.getValueAtQuantile(0.5));
+  }
+
+  private static long valueAtMedian(long value) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(value);
+    histogram.record(MAX_TRACKABLE);
+    return histogram.getValueAtQuantile(0.5);
+  }
+
+  private static void assertPercentiles(long[] values, LatencyHistogram histogram) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double quantile : new double[]{0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1}) {
+      long expected = sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+      assertWithinError(expected, histogram.getValueAtQuantile(quantile));
+    }
+  }
+
+  private static void assertWithinError(long expected, long actual) {
+    assertTrue("expected " + expected + " within 1%, was " + actual,
+            Math.abs(actual - expected) <= expected * MAX_RELATIVE_ERROR);
+  }
+}
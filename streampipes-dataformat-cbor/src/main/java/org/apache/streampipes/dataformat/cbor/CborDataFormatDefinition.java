@@ -21,13 +21,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
-import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+import org.apache.streampipes.dataformat.AppendableDataFormatDefinition;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
-public class CborDataFormatDefinition implements SpDataFormatDefinition {
+public class CborDataFormatDefinition implements AppendableDataFormatDefinition {
+
+  private static final int MAJOR_TYPE_MAP = 5;
+  private static final int MAJOR_TYPE_TAG = 6;
+  private static final int BREAK = 0xFF;
 
   private ObjectMapper objectMapper;
 
@@ -52,4 +57,113 @@ public class CborDataFormatDefinition implements SpDataFormatDefinition {
       throw new SpRuntimeException("Could not convert map data structure to JSON string");
     }
   }
+
+  /**
+   * Adds the encoded fields to the top-level map of the event, updating its length header or, for
+   * maps of indefinite length, inserting the fields before the break byte.
+   */
+  @Override
+  public byte[] appendFields(byte[] event, Map<String, Object> fields) throws SpRuntimeException {
+    MapHeader header = MapHeader.read(event);
+    if (header.indefinite && (event[event.length - 1] & 0xFF) != BREAK) {
+      throw new SpRuntimeException("Could not append fields, CBOR map is not terminated");
+    }
+    if (fields.isEmpty()) {
+      return event;
+    }
+
+    byte[] appended = fromMap(fields);
+    MapHeader appendedHeader = MapHeader.read(appended);
+    int appendedEnd = appendedHeader.indefinite ? appended.length - 1 : appended.length;
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(event.length + appended.length + 8);
+    if (header.indefinite) {
+      out.write(event, 0, event.length - 1);
+      out.write(appended, appendedHeader.bodyStart, appendedEnd - appendedHeader.bodyStart);
+      out.write(BREAK);
+    } else {
+      out.write(event, 0, header.start);
+      writeMapHeader(out, header.size + fields.size());
+      out.write(event, header.bodyStart, event.length - header.bodyStart);
+      out.write(appended, appendedHeader.bodyStart, appendedEnd - appendedHeader.bodyStart);
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeMapHeader(ByteArrayOutputStream out, long size) {
+    int type = MAJOR_TYPE_MAP << 5;
+    if (size < 24) {
+      out.write(type | (int) size);
+    } else if (size < 0x100) {
+      out.write(type | 24);
+      out.write((int) size);
+    } else if (size < 0x10000) {
+      out.write(type | 25);
+      writeBigEndian(out, size, 2);
+    } else {
+      out.write(type | 26);
+      writeBigEndian(out, size, 4);
+    }
+  }
+
+  private static void writeBigEndian(ByteArrayOutputStream out, long value, int bytes) {
+    for (int i = bytes - 1; i >= 0; i--) {
+      out.write((int) (value >>> (8 * i)) & 0xFF);
+    }
+  }
+
+  /**
+   * The header of the top-level map of an encoded event, following optional tags.
+   */
+  private static class MapHeader {
+
+    private int start;
+    private int bodyStart;
+    private long size;
+    private boolean indefinite;
+
+    static MapHeader read(byte[] event) throws SpRuntimeException {
+      MapHeader header = new MapHeader();
+      int position = 0;
+      while (position < event.length && (event[position] & 0xFF) >> 5 == MAJOR_TYPE_TAG) {
+        position += 1 + argumentLength(event[position] & 0x1F);
+      }
+      if (position >= event.length || (event[position] & 0xFF) >> 5 != MAJOR_TYPE_MAP) {
+        throw new SpRuntimeException("Could not append fields, event is not a CBOR map");
+      }
+
+      int info = event[position] & 0x1F;
+      header.start = position;
+      if (info == 31) {
+        header.indefinite = true;
+        header.bodyStart = position + 1;
+      } else {
+        int length = argumentLength(info);
+        if (position + length >= event.length) {
+          throw new SpRuntimeException("Could not append fields, CBOR map header is truncated");
+        }
+        header.size = length == 0 ? info : readBigEndian(event, position + 1, length);
+        header.bodyStart = position + 1 + length;
+      }
+      return header;
+    }
+
+    private static int argumentLength(int info) throws SpRuntimeException {
+      if (info < 24) {
+        return 0;
+      } else if (info <= 27) {
+        return 1 << (info - 24);
+      } else {
+        throw new SpRuntimeException("Could not append fields, unsupported CBOR header");
+      }
+    }
+
+    private static long readBigEndian(byte[] event, int position, int length) {
+      long value = 0;
+      for (int i = 0; i < length; i++) {
+        value = (value << 8) | (event[position + i] & 0xFF);
+      }
+      return value;
+    }
+  }
 }
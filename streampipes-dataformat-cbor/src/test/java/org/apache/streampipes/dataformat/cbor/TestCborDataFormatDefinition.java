@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.dataformat.cbor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestCborDataFormatDefinition {
+
+  private final CborDataFormatDefinition dataFormat = new CborDataFormatDefinition();
+
+  @Test
+  public void testAppendFields() {
+    Map<String, Object> event = new HashMap<>();
+    event.put("a", 1);
+    event.put("b", Arrays.asList("x", "y"));
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("c", 2.5);
+    fields.put("d", Collections.singletonMap("e", true));
+
+    byte[] result = dataFormat.appendFields(dataFormat.fromMap(event), fields);
+
+    Map<String, Object> expected = new HashMap<>(event);
+    expected.putAll(fields);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendFieldsGrowsMapHeader() {
+    // a map of definite length, 23 entries fit into the initial byte of the header while 24
+    // need an additional byte
+    byte[] event = new byte[1 + 23 * 3];
+    event[0] = (byte) 0xB7;
+    Map<String, Object> expected = new HashMap<>();
+    for (int i = 0; i < 23; i++) {
+      event[1 + i * 3] = 0x61;
+      event[2 + i * 3] = (byte) ('a' + i);
+      event[3 + i * 3] = (byte) i;
+      expected.put(String.valueOf((char) ('a' + i)), i);
+    }
+
+    byte[] result = dataFormat.appendFields(event, Collections.singletonMap("appended", "value"));
+
+    expected.put("appended", "value");
+    assertEquals(0xB8, result[0] & 0xFF);
+    assertEquals(24, result[1]);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendFieldsToIndefiniteMap() {
+    // {_ "a": 1}
+    byte[] event = {(byte) 0xBF, 0x61, 'a', 0x01, (byte) 0xFF};
+
+    byte[] result = dataFormat.appendFields(event, Collections.singletonMap("b", 2));
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("a", 1);
+    expected.put("b", 2);
+    assertEquals(0xFF, result[result.length - 1] & 0xFF);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendFieldsToTaggedMap() {
+    // self-described CBOR tag followed by {"a": 1}
+    byte[] event = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7, (byte) 0xA1, 0x61, 'a', 0x01};
+
+    byte[] result = dataFormat.appendFields(event, Collections.singletonMap("b", 2));
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("a", 1);
+    expected.put("b", 2);
+    assertEquals(0xA2, result[3] & 0xFF);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendNoFieldsReturnsEvent() {
+    byte[] event = dataFormat.fromMap(Collections.singletonMap("a", 1));
+
+    assertSame(event, dataFormat.appendFields(event, Collections.emptyMap()));
+  }
+
+  @Test(expected = SpRuntimeException.class)
+  public void testAppendFieldsToArrayFails() {
+    dataFormat.appendFields(new byte[]{(byte) 0x82, 0x01, 0x02}, Collections.singletonMap("a", 1));
+  }
+
+  @Test(expected = SpRuntimeException.class)
+  public void testAppendFieldsToUnterminatedMapFails() {
+    dataFormat.appendFields(new byte[]{(byte) 0xBF, 0x61, 'a', 0x01},
+            Collections.singletonMap("b", 2));
+  }
+
+  @Test(expected = SpRuntimeException.class)
+  public void testAppendFieldsToTruncatedHeaderFails() {
+    dataFormat.appendFields(new byte[]{(byte) 0xB8}, Collections.singletonMap("a", 1));
+  }
+}
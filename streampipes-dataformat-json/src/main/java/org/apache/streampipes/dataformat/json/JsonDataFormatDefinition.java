@@ -21,13 +21,13 @@ package org.apache.streampipes.dataformat.json;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
-import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+import org.apache.streampipes.dataformat.AppendableDataFormatDefinition;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
-public class JsonDataFormatDefinition implements SpDataFormatDefinition {
+public class JsonDataFormatDefinition implements AppendableDataFormatDefinition {
 
   private ObjectMapper objectMapper;
 
@@ -52,4 +52,41 @@ public class JsonDataFormatDefinition implements SpDataFormatDefinition {
       throw new SpRuntimeException("Could not convert map data structure to JSON string");
     }
   }
+
+  /**
+   * Inserts the encoded fields before the closing brace of the event object.
+   */
+  @Override
+  public byte[] appendFields(byte[] event, Map<String, Object> fields) throws SpRuntimeException {
+    int start = skipWhitespace(event, 0, 1);
+    int end = skipWhitespace(event, event.length - 1, -1);
+    if (start > end || event[start] != '{' || event[end] != '}') {
+      throw new SpRuntimeException("Could not append fields, event is not a JSON object");
+    }
+    if (fields.isEmpty()) {
+      return event;
+    }
+
+    byte[] appended = fromMap(fields);
+    boolean emptyObject = skipWhitespace(event, end - 1, -1) == start;
+    byte[] result = new byte[end + (emptyObject ? 0 : 1) + appended.length - 1];
+    System.arraycopy(event, 0, result, 0, end);
+    int position = end;
+    if (!emptyObject) {
+      result[position++] = ',';
+    }
+    System.arraycopy(appended, 1, result, position, appended.length - 1);
+    return result;
+  }
+
+  private static int skipWhitespace(byte[] event, int position, int step) {
+    while (position >= 0 && position < event.length && isWhitespace(event[position])) {
+      position += step;
+    }
+    return position;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
 }
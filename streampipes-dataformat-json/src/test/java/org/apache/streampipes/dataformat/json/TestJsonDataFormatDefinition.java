@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.dataformat.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestJsonDataFormatDefinition {
+
+  private final JsonDataFormatDefinition dataFormat = new JsonDataFormatDefinition();
+
+  @Test
+  public void testAppendFields() {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("c", "text");
+    fields.put("d", Collections.singletonMap("e", true));
+
+    byte[] result = dataFormat.appendFields(json("{\"a\":1,\"b\":[1,2]}"), fields);
+
+    Map<String, Object> expected = dataFormat.toMap(json("{\"a\":1,\"b\":[1,2]}"));
+    expected.putAll(fields);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendFieldsToEmptyObject() {
+    byte[] result = dataFormat.appendFields(json(" { \n } "),
+            Collections.singletonMap("a", 1));
+
+    assertEquals(Collections.singletonMap("a", 1), dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendFieldsIgnoresSurroundingWhitespace() {
+    byte[] result = dataFormat.appendFields(json("\r\n\t{\"a\": 1 }\n"),
+            Collections.singletonMap("b", 2));
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("a", 1);
+    expected.put("b", 2);
+    assertEquals(expected, dataFormat.toMap(result));
+  }
+
+  @Test
+  public void testAppendNoFieldsReturnsEvent() {
+    byte[] event = json("{\"a\":1}");
+
+    assertSame(event, dataFormat.appendFields(event, Collections.emptyMap()));
+  }
+
+  @Test(expected = SpRuntimeException.class)
+  public void testAppendFieldsToArrayFails() {
+    dataFormat.appendFields(json("[1,2]"), Collections.singletonMap("a", 1));
+  }
+
+  @Test(expected = SpRuntimeException.class)
+  public void testAppendFieldsToBlankEventFails() {
+    dataFormat.appendFields(json("  "), Collections.singletonMap("a", 1));
+  }
+
+  private static byte[] json(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.dataformat;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+
+import java.util.Map;
+
+/**
+ * A data format whose encoded events can be extended by further top-level fields without
+ * decoding and re-encoding the existing fields.
+ */
+public interface AppendableDataFormatDefinition extends SpDataFormatDefinition {
+
+  /**
+   * @param event  an encoded event.
+   * @param fields the fields to add, whose names must not exist in the event yet.
+   * @return the encoded event including the added fields.
+   * @throws SpRuntimeException if the event is not an encoded object.
+   */
+  byte[] appendFields(byte[] event, Map<String, Object> fields) throws SpRuntimeException;
+}
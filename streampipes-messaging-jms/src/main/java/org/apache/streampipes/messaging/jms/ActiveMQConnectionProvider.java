@@ -19,17 +19,31 @@
 package org.apache.streampipes.messaging.jms;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
+import javax.jms.Session;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Provides JMS sessions from a connection pool which is shared by all publishers and consumers
+ * of an extensions container. One connection is kept per broker url; each caller gets its own
+ * session, as sessions must not be used concurrently.
+ */
 public abstract class ActiveMQConnectionProvider {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ActiveMQConnectionProvider.class);
+
+    private static final Map<String, SharedConnection> sharedConnections = new HashMap<>();
+
+    protected ActiveMQSettings settings = ActiveMQSettings.fromDefault();
+
     protected Connection startJmsConnection(String url) {
         try {
-            ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(url);
-            connectionFactory.setAlwaysSyncSend(false);
-            Connection connect = connectionFactory.createConnection();
+            Connection connect = makeConnectionFactory(url).createConnection();
 
             connect.start();
             return connect;
@@ -37,4 +51,63 @@ public abstract class ActiveMQConnectionProvider {
             throw new AssertionError("Failed to establish the JMS-Connection!", e);
         }
     }
+
+    protected Session createSession(String url, boolean transacted, int acknowledgeMode) throws
+            JMSException {
+        Connection connection = acquireConnection(url);
+        try {
+            return connection.createSession(transacted, acknowledgeMode);
+        } catch (JMSException e) {
+            releaseConnection(url);
+            throw e;
+        }
+    }
+
+    protected void releaseConnection(String url) throws JMSException {
+        synchronized (sharedConnections) {
+            SharedConnection sharedConnection = sharedConnections.get(url);
+            if (sharedConnection != null && --sharedConnection.references == 0) {
+                sharedConnections.remove(url);
+                sharedConnection.connection.close();
+                LOG.info("Closed shared JMS connection to {}", url);
+            }
+        }
+    }
+
+    private Connection acquireConnection(String url) throws JMSException {
+        synchronized (sharedConnections) {
+            SharedConnection sharedConnection = sharedConnections.get(url);
+            if (sharedConnection == null) {
+                Connection connection = makeConnectionFactory(url).createConnection();
+                connection.start();
+                sharedConnection = new SharedConnection(connection);
+                sharedConnections.put(url, sharedConnection);
+                LOG.info("Opened shared JMS connection to {}", url);
+            }
+            sharedConnection.references++;
+            return sharedConnection.connection;
+        }
+    }
+
+    private ActiveMQConnectionFactory makeConnectionFactory(String url) {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(url);
+        connectionFactory.setAlwaysSyncSend(false);
+        connectionFactory.getPrefetchPolicy().setTopicPrefetch(settings.getPrefetch());
+        if (settings.isHighThroughput()) {
+            connectionFactory.setUseAsyncSend(true);
+            connectionFactory.setProducerWindowSize(settings.getProducerWindowSize());
+            connectionFactory.setOptimizeAcknowledge(true);
+        }
+        return connectionFactory;
+    }
+
+    private static class SharedConnection {
+
+        private final Connection connection;
+        private int references;
+
+        SharedConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
 }
@@ -24,59 +24,106 @@ import org.apache.streampipes.commons.exceptions.SpRuntimeException;
 import org.apache.streampipes.messaging.EventConsumer;
 import org.apache.streampipes.messaging.InternalEventProcessor;
 import org.apache.streampipes.model.grounding.JmsTransportProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.jms.BytesMessage;
+import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
 import javax.jms.Session;
 
+/**
+ * Consumes a JMS topic either as a plain topic subscriber (each consumer receives every
+ * message) or, if the protocol declares a consumer group, from the virtual topic queue of the
+ * group, so that messages are load-balanced across all consumers sharing the group. Publishers
+ * of a topic with a consumer group forward their messages to the virtual topic.
+ *
+ * With a consumer group, several sessions can receive messages of the queue concurrently; their
+ * delivery into the event processor is serialized.
+ */
 public class ActiveMQConsumer extends ActiveMQConnectionProvider implements
         EventConsumer<JmsTransportProtocol>,
         AutoCloseable, Serializable {
 
-  private Session session;
-  private MessageConsumer consumer;
+  private static final Logger LOG = LoggerFactory.getLogger(ActiveMQConsumer.class);
+
+  private String url;
+  private List<Session> sessions = new ArrayList<>();
+  private List<MessageConsumer> consumers = new ArrayList<>();
   private InternalEventProcessor<byte[]> eventProcessor;
+  private final Object deliveryLock = new Object();
 
   private Boolean connected = false;
 
-  private void initListener() {
-    try {
-      consumer.setMessageListener(message -> {
-        if (message instanceof BytesMessage) {
-          ByteSequence bs = ((ActiveMQBytesMessage) message).getContent();
+  private void initListener(MessageConsumer consumer) throws JMSException {
+    consumer.setMessageListener(message -> {
+      if (message instanceof BytesMessage) {
+        ByteSequence bs = ((ActiveMQBytesMessage) message).getContent();
+        synchronized (deliveryLock) {
           eventProcessor.onEvent(bs.getData());
         }
-
-      });
-    } catch (JMSException e) {
-      e.printStackTrace();
-    }
+      }
+    });
   }
 
   @Override
   public void connect(JmsTransportProtocol protocolSettings, InternalEventProcessor<byte[]>
           eventProcessor) throws SpRuntimeException {
-    String url = ActiveMQUtils.makeActiveMqUrl(protocolSettings);
+    this.url = ActiveMQUtils.makeActiveMqUrl(protocolSettings);
+    String topic = protocolSettings.getTopicDefinition().getActualTopicName();
+    String consumerGroup = protocolSettings.getConsumerGroup();
+    int consumerSessions = 1;
+    if (consumerGroup != null) {
+      consumerSessions = settings.getConsumerSessions();
+    } else if (settings.getConsumerSessions() > 1) {
+      // sessions of a plain topic subscriber would each receive every message
+      LOG.warn("Topic {} has no consumer group, using a single consumer session instead of {}",
+              topic, settings.getConsumerSessions());
+    }
 
     try {
       this.eventProcessor = eventProcessor;
-      session = startJmsConnection(url).createSession(false, Session.AUTO_ACKNOWLEDGE);
-      consumer = session.createConsumer(session.createTopic(protocolSettings.getTopicDefinition().getActualTopicName()));
-      initListener();
+      for (int i = 0; i < consumerSessions; i++) {
+        Session session = createSession(url, false, settings.isHighThroughput() ?
+                Session.DUPS_OK_ACKNOWLEDGE : Session.AUTO_ACKNOWLEDGE);
+        sessions.add(session);
+        MessageConsumer consumer = session.createConsumer(makeDestination(session, topic,
+                consumerGroup));
+        consumers.add(consumer);
+        initListener(consumer);
+      }
       this.connected = true;
     } catch (JMSException e) {
-      throw new SpRuntimeException("could not connect to activemq broker");
+      throw new SpRuntimeException("could not connect to activemq broker", e);
+    }
+  }
+
+  static Destination makeDestination(Session session, String topic, String consumerGroup) throws
+          JMSException {
+    if (consumerGroup != null) {
+      return session.createQueue(ActiveMQUtils.makeVirtualTopicQueueName(consumerGroup, topic));
+    } else {
+      return session.createTopic(topic);
     }
   }
 
   @Override
   public void disconnect() throws SpRuntimeException {
     try {
-      consumer.close();
-      session.close();
+      for (MessageConsumer consumer : consumers) {
+        consumer.close();
+      }
+      for (Session session : sessions) {
+        session.close();
+        releaseConnection(url);
+      }
+      consumers.clear();
+      sessions.clear();
       this.connected = false;
     } catch (JMSException e) {
       throw new SpRuntimeException("could not disconnect from activemq broker");
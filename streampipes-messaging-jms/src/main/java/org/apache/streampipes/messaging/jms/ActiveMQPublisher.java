@@ -18,7 +18,6 @@
 
 package org.apache.streampipes.messaging.jms;
 
-import org.apache.activemq.ActiveMQConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
@@ -27,22 +26,30 @@ import org.apache.streampipes.model.grounding.JmsTransportProtocol;
 import org.apache.streampipes.model.grounding.SimpleTopicDefinition;
 
 import javax.jms.BytesMessage;
-import javax.jms.Connection;
-import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
 import javax.jms.JMSException;
 import javax.jms.MessageProducer;
 import javax.jms.Session;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
-public class ActiveMQPublisher implements EventProducer<JmsTransportProtocol> {
+public class ActiveMQPublisher extends ActiveMQConnectionProvider implements
+        EventProducer<JmsTransportProtocol> {
 
   private static final Logger LOG = LoggerFactory.getLogger(ActiveMQPublisher.class);
 
-  private Connection connection;
+  private String url;
   private Session session;
   private MessageProducer producer;
 
+  private boolean transacted;
+  private int pendingMessages;
+  private long lastCommit;
+  private ScheduledExecutorService commitScheduler;
+
   private Boolean connected = false;
 
   public ActiveMQPublisher() {
@@ -81,13 +88,13 @@ public class ActiveMQPublisher implements EventProducer<JmsTransportProtocol> {
   @Override
   public void connect(JmsTransportProtocol protocolSettings) throws SpRuntimeException {
 
-    String url = ActiveMQUtils.makeActiveMqUrl(protocolSettings);
-    ConnectionFactory connectionFactory = new ActiveMQConnectionFactory(url);
+    this.url = ActiveMQUtils.makeActiveMqUrl(protocolSettings);
+    this.transacted = settings.isHighThroughput();
 
     boolean co = false;
     do {
       try {
-        this.connection = connectionFactory.createConnection();
+        this.session = createSession(url, transacted, Session.AUTO_ACKNOWLEDGE);
         co = true;
       } catch (JMSException e) {
         LOG.error("Trying to connect...", e);
@@ -95,13 +102,15 @@ public class ActiveMQPublisher implements EventProducer<JmsTransportProtocol> {
     } while (!co);
 
     try {
-      this.session = connection
-              .createSession(false, Session.AUTO_ACKNOWLEDGE);
-      this.producer = session.createProducer(session.createTopic(protocolSettings
-                      .getTopicDefinition()
-                      .getActualTopicName()));
+      String topic = protocolSettings.getTopicDefinition().getActualTopicName();
+      // consumers of a topic with a consumer group read from the queues of the virtual topic
+      this.producer = session.createProducer(session.createTopic(
+              protocolSettings.getConsumerGroup() != null ?
+                      ActiveMQUtils.makeCompositeTopicName(topic) : topic));
       this.producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
-      this.connection.start();
+      if (transacted) {
+        startCommitScheduler();
+      }
       this.connected = true;
     } catch (JMSException e) {
       throw new SpRuntimeException("could not connect to activemq broker. Broker: '" +
@@ -110,24 +119,116 @@ public class ActiveMQPublisher implements EventProducer<JmsTransportProtocol> {
 
   }
 
+  /**
+   * Commits batches which did not reach the batch size within the batch timeout, so that
+   * events are not delayed for longer than the timeout on slow streams.
+   */
+  private void startCommitScheduler() {
+    this.pendingMessages = 0;
+    this.lastCommit = System.currentTimeMillis();
+    this.commitScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "jms-batch-commit");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.commitScheduler.scheduleAtFixedRate(() -> {
+      synchronized (this) {
+        if (System.currentTimeMillis() - lastCommit >= settings.getBatchTimeoutMs()) {
+          commit();
+        }
+      }
+    }, settings.getBatchTimeoutMs(), settings.getBatchTimeoutMs(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * In high-throughput mode, a failed send rolls back the pending batch, so that a batch is
+   * either delivered completely or not at all.
+   *
+   * @throws SpRuntimeException if the message (and, in high-throughput mode, the pending batch)
+   *                            could not be sent.
+   */
   @Override
-  public void publish(byte[] event) {
-    BytesMessage message;
+  public synchronized void publish(byte[] event) {
     try {
-      message = session.createBytesMessage();
+      BytesMessage message = session.createBytesMessage();
       message.writeBytes(event);
       producer.send(message);
     } catch (JMSException e) {
-      e.printStackTrace();
+      if (transacted) {
+        int discardedMessages = pendingMessages + 1;
+        rollback();
+        throw new SpRuntimeException("Could not send message, rolled back batch of "
+                + discardedMessages + " messages", e);
+      }
+      throw new SpRuntimeException("Could not send message", e);
+    }
+    if (transacted && ++pendingMessages >= settings.getBatchSize()) {
+      commitOrThrow();
+    }
+  }
+
+  /**
+   * Sends the batch while holding the session once; in high-throughput mode, the batch is
+   * committed as a whole.
+   */
+  @Override
+  public synchronized void publish(List<byte[]> events) {
+    for (byte[] event : events) {
+      publish(event);
+    }
+    if (transacted) {
+      commitOrThrow();
+    }
+  }
+
+  private void commitOrThrow() {
+    if (pendingMessages > 0) {
+      int committedMessages = pendingMessages;
+      try {
+        session.commit();
+      } catch (JMSException e) {
+        rollback();
+        throw new SpRuntimeException("Could not commit batch of " + committedMessages
+                + " messages", e);
+      } finally {
+        pendingMessages = 0;
+      }
+    }
+    lastCommit = System.currentTimeMillis();
+  }
+
+  private void commit() {
+    try {
+      commitOrThrow();
+    } catch (SpRuntimeException e) {
+      LOG.error(e.getMessage(), e.getCause());
+    }
+  }
+
+  private void rollback() {
+    pendingMessages = 0;
+    lastCommit = System.currentTimeMillis();
+    try {
+      session.rollback();
+    } catch (JMSException e) {
+      LOG.error("Could not roll back batch", e);
     }
   }
 
   @Override
   public void disconnect() throws SpRuntimeException {
     try {
-      producer.close();
-      session.close();
-      connection.close();
+      if (commitScheduler != null) {
+        commitScheduler.shutdown();
+      }
+      synchronized (this) {
+        if (transacted) {
+          commit();
+        }
+        producer.close();
+        session.close();
+      }
+      releaseConnection(url);
       this.connected = false;
       //logger.info("ActiveMQ connection closed successfully.");
     } catch (JMSException e) {
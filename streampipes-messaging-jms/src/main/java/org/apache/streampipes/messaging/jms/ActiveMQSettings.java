@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.jms;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+import java.io.Serializable;
+
+/**
+ * Client-side settings of the ActiveMQ connection, publisher and consumer.
+ *
+ * In high-throughput mode, publishers send asynchronously and commit transacted batches,
+ * while consumers acknowledge lazily (DUPS_OK) and in optimized batches.
+ *
+ * The number of consumer sessions only applies to topics with a consumer group, see {@link
+ * ActiveMQConsumer}.
+ */
+public class ActiveMQSettings implements Serializable {
+
+  private static final String HIGH_THROUGHPUT_ENV = "SP_JMS_HIGH_THROUGHPUT";
+  private static final String BATCH_SIZE_ENV = "SP_JMS_BATCH_SIZE";
+  private static final String BATCH_TIMEOUT_MS_ENV = "SP_JMS_BATCH_TIMEOUT_MS";
+  private static final String PRODUCER_WINDOW_SIZE_ENV = "SP_JMS_PRODUCER_WINDOW_SIZE";
+  private static final String PREFETCH_ENV = "SP_JMS_PREFETCH";
+  private static final String CONSUMER_SESSIONS_ENV = "SP_JMS_CONSUMER_SESSIONS";
+
+  private static final int BATCH_SIZE_DEFAULT = 500;
+  private static final long BATCH_TIMEOUT_MS_DEFAULT = 20;
+  private static final int PRODUCER_WINDOW_SIZE_DEFAULT = 1024 * 1024;
+  private static final int PREFETCH_DEFAULT = 32766;
+  private static final int CONSUMER_SESSIONS_DEFAULT = 1;
+
+  private final boolean highThroughput;
+  private final int batchSize;
+  private final long batchTimeoutMs;
+  private final int producerWindowSize;
+  private final int prefetch;
+  private final int consumerSessions;
+
+  public ActiveMQSettings(boolean highThroughput,
+                          int batchSize,
+                          long batchTimeoutMs,
+                          int producerWindowSize,
+                          int prefetch,
+                          int consumerSessions) {
+    this.highThroughput = highThroughput;
+    this.batchSize = batchSize;
+    this.batchTimeoutMs = batchTimeoutMs;
+    this.producerWindowSize = producerWindowSize;
+    this.prefetch = prefetch;
+    this.consumerSessions = consumerSessions;
+  }
+
+  public static ActiveMQSettings fromDefault() {
+    return new ActiveMQSettings(
+            EnvironmentVariables.getBoolean(HIGH_THROUGHPUT_ENV, false),
+            EnvironmentVariables.getInt(BATCH_SIZE_ENV, BATCH_SIZE_DEFAULT, 1),
+            EnvironmentVariables.getLong(BATCH_TIMEOUT_MS_ENV, BATCH_TIMEOUT_MS_DEFAULT, 1),
+            EnvironmentVariables.getInt(PRODUCER_WINDOW_SIZE_ENV, PRODUCER_WINDOW_SIZE_DEFAULT, 0),
+            EnvironmentVariables.getInt(PREFETCH_ENV, PREFETCH_DEFAULT, 0),
+            EnvironmentVariables.getInt(CONSUMER_SESSIONS_ENV, CONSUMER_SESSIONS_DEFAULT, 1));
+  }
+
+  public boolean isHighThroughput() {
+    return highThroughput;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public long getBatchTimeoutMs() {
+    return batchTimeoutMs;
+  }
+
+  public int getProducerWindowSize() {
+    return producerWindowSize;
+  }
+
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  public int getConsumerSessions() {
+    return consumerSessions;
+  }
+}
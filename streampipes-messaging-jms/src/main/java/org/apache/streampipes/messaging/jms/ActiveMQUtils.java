@@ -22,8 +22,26 @@ public class ActiveMQUtils {
 
     private static final String TCP_PROTOCOL = "tcp://";
     private static final String COLON = ":";
+    private static final String COMMA = ",";
+
+    // matches the default virtual topic configuration of the ActiveMQ broker
+    private static final String VIRTUAL_TOPIC_PREFIX = "VirtualTopic.";
+    private static final String VIRTUAL_TOPIC_CONSUMER_PREFIX = "Consumer.";
 
     public static String makeActiveMqUrl(JmsTransportProtocol protocol) {
         return TCP_PROTOCOL + protocol.getBrokerHostname() + COLON + protocol.getPort();
     }
+
+    /**
+     * Composite destination which delivers a message both to the plain topic (for broadcast
+     * subscribers) and to the virtual topic (for load-balanced consumer groups).
+     */
+    public static String makeCompositeTopicName(String topic) {
+        return topic + COMMA + VIRTUAL_TOPIC_PREFIX + topic;
+    }
+
+    public static String makeVirtualTopicQueueName(String consumerGroup, String topic) {
+        return VIRTUAL_TOPIC_CONSUMER_PREFIX + consumerGroup.replaceAll("\\.", "_") + "."
+                + VIRTUAL_TOPIC_PREFIX + topic;
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.jms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestActiveMQConsumerGroups {
+
+  @Test
+  public void testPublishersForwardToVirtualTopic() {
+    assertEquals("sensor.temperature,VirtualTopic.sensor.temperature",
+            ActiveMQUtils.makeCompositeTopicName("sensor.temperature"));
+  }
+
+  @Test
+  public void testVirtualTopicQueueName() {
+    // dots of the group would be taken as separator of the virtual topic prefix
+    assertEquals("Consumer.group_1.VirtualTopic.sensor.temperature",
+            ActiveMQUtils.makeVirtualTopicQueueName("group.1", "sensor.temperature"));
+  }
+
+  @Test
+  public void testConsumerWithoutGroupSubscribesToTopic() throws JMSException {
+    List<String> calls = new ArrayList<>();
+
+    ActiveMQConsumer.makeDestination(recordingSession(calls), "sensor", null);
+
+    assertEquals(1, calls.size());
+    assertEquals("createTopic:sensor", calls.get(0));
+  }
+
+  @Test
+  public void testConsumerWithGroupReadsVirtualTopicQueue() throws JMSException {
+    List<String> calls = new ArrayList<>();
+
+    ActiveMQConsumer.makeDestination(recordingSession(calls), "sensor", "group");
+
+    assertEquals(1, calls.size());
+    assertEquals("createQueue:Consumer.group.VirtualTopic.sensor", calls.get(0));
+  }
+
+  private Session recordingSession(List<String> calls) {
+    return (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{Session.class}, (proxy, method, args) -> {
+              calls.add(method.getName() + ":" + args[0]);
+              return null;
+            });
+  }
+}
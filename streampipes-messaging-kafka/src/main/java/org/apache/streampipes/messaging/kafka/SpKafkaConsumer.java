@@ -19,25 +19,41 @@
 package org.apache.streampipes.messaging.kafka;
 
 import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.BufferingConsumer;
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
 import org.apache.streampipes.messaging.EventConsumer;
 import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.messaging.LagAwareConsumer;
 import org.apache.streampipes.messaging.kafka.config.ConsumerConfigFactory;
+import org.apache.streampipes.messaging.kafka.config.FlowControlSettings;
 import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
 import org.apache.streampipes.model.grounding.SimpleTopicDefinition;
 import org.apache.streampipes.model.grounding.WildcardTopicDefinition;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 public class SpKafkaConsumer implements EventConsumer<KafkaTransportProtocol>, Runnable,
-        Serializable {
+        CheckpointAwareConsumer, LagAwareConsumer, BufferingConsumer, Serializable {
 
   private String topic;
   private InternalEventProcessor<byte[]> eventProcessor;
@@ -45,14 +61,44 @@ public class SpKafkaConsumer implements EventConsumer<KafkaTransportProtocol>, R
   private String username;
   private String password;
   private volatile boolean isRunning;
+  private volatile boolean paused;
   private Boolean patternTopic = false;
 
+  private FlowControlSettings flowControlSettings;
+  private transient BlockingQueue<ConsumerRecord<String, byte[]>> eventQueue;
+  private transient Thread pollThread;
+  private transient Thread processingThread;
+
+  // only offsets of processed records are committed, as polled records may still be queued;
+  // with checkpoint commits, only offsets of processed and checkpointed records are committed
+  private volatile boolean checkpointCommits;
+  private final Map<TopicPartition, Long> processedOffsets = new ConcurrentHashMap<>();
+  private long lastCommit;
+  private final AtomicReference<Map<TopicPartition, OffsetAndMetadata>> pendingCommit =
+          new AtomicReference<>();
+
+  // the lag is only queried from the brokers once it has been requested
+  private volatile boolean lagRequested;
+  private volatile long brokerLag;
+  private long lastLagRefresh;
+
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+  private static final Duration LAG_REFRESH_TIMEOUT = Duration.ofSeconds(1);
+  private static final long LAG_REFRESH_INTERVAL_MS = 1000;
+  private static final long QUEUE_POLL_TIMEOUT_MS = 100;
+  private static final long COMMIT_INTERVAL_MS = 5000;
+  private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
   private static final Logger LOG = LoggerFactory.getLogger(SpKafkaConsumer.class);
 
   public SpKafkaConsumer() {
 
   }
 
+  public SpKafkaConsumer(FlowControlSettings flowControlSettings) {
+    this.flowControlSettings = flowControlSettings;
+  }
+
   public SpKafkaConsumer(KafkaTransportProtocol protocol, String topic, InternalEventProcessor<byte[]> eventProcessor) {
       this.protocol = protocol;
       this.username = null;
@@ -97,33 +143,340 @@ public class SpKafkaConsumer implements EventConsumer<KafkaTransportProtocol>, R
     else {
       props = makeProperties(protocol);
     }
-    KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(props);
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    if (flowControlSettings == null) {
+      flowControlSettings = FlowControlSettings.fromDefault();
+    }
+    eventQueue = new ArrayBlockingQueue<>(flowControlSettings.getQueueCapacity());
+    paused = false;
+    processingThread = ProcessingThreads.newThread("sp-kafka-processing-" + topic, false,
+            new ProcessingThread());
+    processingThread.start();
+
+    // records which did not fit into the queue; bounded by a single poll since all
+    // partitions are paused as long as this backlog is not empty
+    Deque<ConsumerRecord<String, byte[]>> backlog = new ArrayDeque<>();
+
+    Consumer<String, byte[]> consumer = createConsumer(props);
     if (!patternTopic) {
-      consumer.subscribe(Collections.singletonList(topic));
+      consumer.subscribe(Collections.singletonList(topic), new RebalanceListener(consumer,
+              backlog));
     } else {
       topic = replaceWildcardWithPatternFormat(topic);
-      consumer.subscribe(Pattern.compile(topic), new ConsumerRebalanceListener() {
-        @Override
-        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
-          // TODO
-        }
-
-        @Override
-        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
-          // TODO
-        }
-      });
+      consumer.subscribe(Pattern.compile(topic), new RebalanceListener(consumer, backlog));
     }
     while (isRunning) {
-      ConsumerRecords<String, byte[]> records = consumer.poll(100);
+      ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
       for (ConsumerRecord<String, byte[]> record : records) {
-        eventProcessor.onEvent(record.value());
+        backlog.add(record);
       }
+      drainBacklog(backlog);
+      applyFlowControl(consumer, backlog);
+      commitOffsets(consumer, false);
+      refreshLag(consumer);
     }
+    // records which are still queued are not committed and thus re-read after a restart
+    awaitTermination(processingThread);
+    commitOffsets(consumer, true);
     LOG.info("Closing Kafka Consumer.");
     consumer.close();
   }
 
+  Consumer<String, byte[]> createConsumer(Properties props) {
+    return new KafkaConsumer<>(props);
+  }
+
+  /**
+   * Commits offsets on the poll thread, as the Kafka consumer must not be accessed
+   * concurrently: the offsets of the latest persisted checkpoint if checkpoint commits are
+   * enabled, otherwise the offsets following the processed records in a fixed interval. Only
+   * offsets of partitions which are still assigned are committed.
+   */
+  private void commitOffsets(Consumer<String, byte[]> consumer, boolean synchronous) {
+    Map<TopicPartition, OffsetAndMetadata> offsets;
+    if (checkpointCommits) {
+      offsets = pendingCommit.getAndSet(null);
+      if (offsets != null) {
+        offsets.keySet().retainAll(consumer.assignment());
+      }
+    } else {
+      long now = System.currentTimeMillis();
+      if (!synchronous && now - lastCommit < COMMIT_INTERVAL_MS) {
+        return;
+      }
+      lastCommit = now;
+      offsets = getProcessedOffsets(consumer.assignment());
+    }
+    if (offsets == null || offsets.isEmpty()) {
+      return;
+    }
+    try {
+      if (synchronous) {
+        consumer.commitSync(offsets);
+      } else {
+        consumer.commitAsync(offsets, (committedOffsets, e) -> {
+          if (e != null) {
+            LOG.warn("Kafka consumer: Could not commit offsets " + committedOffsets, e);
+          }
+        });
+      }
+    } catch (KafkaException e) {
+      LOG.warn("Kafka consumer: Could not commit offsets " + offsets, e);
+    }
+  }
+
+  private Map<TopicPartition, OffsetAndMetadata> getProcessedOffsets(
+          Collection<TopicPartition> partitions) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition partition : partitions) {
+      Long offset = processedOffsets.get(partition);
+      if (offset != null) {
+        offsets.put(partition, new OffsetAndMetadata(offset));
+      }
+    }
+    return offsets;
+  }
+
+  private void awaitTermination(Thread thread) {
+    if (thread == null || thread == Thread.currentThread()) {
+      return;
+    }
+    try {
+      thread.join(SHUTDOWN_TIMEOUT_MS);
+      if (thread.isAlive()) {
+        LOG.warn("Kafka consumer: Thread {} of topic {} did not terminate within {} ms",
+                thread.getName(), topic, SHUTDOWN_TIMEOUT_MS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Periodically determines the number of records between the fetch positions and the ends of
+   * the assigned partitions, on the poll thread as the Kafka consumer must not be accessed
+   * concurrently.
+   */
+  private void refreshLag(Consumer<String, byte[]> consumer) {
+    long now = System.currentTimeMillis();
+    if (!lagRequested || now - lastLagRefresh < LAG_REFRESH_INTERVAL_MS) {
+      return;
+    }
+    lastLagRefresh = now;
+    try {
+      long lag = 0;
+      for (Map.Entry<TopicPartition, Long> endOffset : consumer.endOffsets(consumer.assignment(),
+              LAG_REFRESH_TIMEOUT).entrySet()) {
+        lag += Math.max(0, endOffset.getValue() - consumer.position(endOffset.getKey(),
+                LAG_REFRESH_TIMEOUT));
+      }
+      brokerLag = lag;
+    } catch (KafkaException e) {
+      LOG.debug("Kafka consumer: Could not determine lag of topic " + topic, e);
+    }
+  }
+
+  private void drainBacklog(Deque<ConsumerRecord<String, byte[]>> backlog) {
+    while (!backlog.isEmpty() && eventQueue.offer(backlog.peek())) {
+      backlog.poll();
+    }
+  }
+
+  /**
+   * Pauses all assigned partitions once the hand-off queue reaches the high watermark and
+   * resumes them when the queue falls below the low watermark. The consumer keeps polling
+   * while paused, so that group membership is retained and no rebalance is triggered.
+   */
+  private void applyFlowControl(Consumer<String, byte[]> consumer,
+                                Deque<ConsumerRecord<String, byte[]>> backlog) {
+    int queueDepth = eventQueue.size();
+    if (!backlog.isEmpty() || queueDepth >= flowControlSettings.getHighWatermark()) {
+      if (!paused) {
+        LOG.info("Kafka consumer: Pausing topic {} (queue depth={})", topic, queueDepth);
+        paused = true;
+      }
+      // re-apply on every iteration as partitions assigned after a rebalance are not paused
+      consumer.pause(consumer.assignment());
+    } else if (paused && queueDepth <= flowControlSettings.getLowWatermark()) {
+      LOG.info("Kafka consumer: Resuming topic {} (queue depth={})", topic, queueDepth);
+      consumer.resume(consumer.paused());
+      paused = false;
+    }
+  }
+
+  /**
+   * With the cooperative assignor, only partitions which actually move to another member are
+   * passed to the callbacks, so that all other partitions continue to be consumed during a
+   * rebalance.
+   */
+  private class RebalanceListener implements ConsumerRebalanceListener {
+
+    private final Consumer<String, byte[]> consumer;
+    private final Deque<ConsumerRecord<String, byte[]>> backlog;
+
+    RebalanceListener(Consumer<String, byte[]> consumer,
+                      Deque<ConsumerRecord<String, byte[]>> backlog) {
+      this.consumer = consumer;
+      this.backlog = backlog;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      if (partitions.isEmpty()) {
+        return;
+      }
+      LOG.info("Kafka consumer: Partitions revoked from topic {}: {}", topic, partitions);
+      // records which have not been processed yet are left to the new owner
+      discardRecords(partitions);
+      if (!checkpointCommits) {
+        // the position is ahead of records which are still queued or being processed, so the
+        // new owner resumes from the offsets following the processed records; with checkpoint
+        // commits, it resumes from the offsets of the latest checkpoint instead
+        Map<TopicPartition, OffsetAndMetadata> offsets = getProcessedOffsets(partitions);
+        try {
+          if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+          }
+        } catch (KafkaException e) {
+          LOG.warn("Kafka consumer: Could not commit offsets of revoked partitions " + partitions,
+                  e);
+        }
+      }
+      processedOffsets.keySet().removeAll(partitions);
+    }
+
+    private void discardRecords(Collection<TopicPartition> partitions) {
+      backlog.removeIf(record -> isContained(record, partitions));
+      eventQueue.removeIf(record -> isContained(record, partitions));
+    }
+
+    private boolean isContained(ConsumerRecord<String, byte[]> record,
+                                Collection<TopicPartition> partitions) {
+      return partitions.contains(new TopicPartition(record.topic(), record.partition()));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      if (partitions.isEmpty()) {
+        return;
+      }
+      LOG.info("Kafka consumer: Partitions assigned from topic {}: {}", topic, partitions);
+      // discards offsets of records from a previous assignment completed after the revocation
+      processedOffsets.keySet().removeAll(partitions);
+      if (paused) {
+        consumer.pause(partitions);
+      }
+    }
+
+    /**
+     * Called instead of {@link #onPartitionsRevoked(Collection)} if the partitions are already
+     * owned by another member, e.g., after a session timeout, so that their records are
+     * discarded without committing offsets.
+     */
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+      if (partitions.isEmpty()) {
+        return;
+      }
+      LOG.warn("Kafka consumer: Partitions lost from topic {}: {}", topic, partitions);
+      discardRecords(partitions);
+      processedOffsets.keySet().removeAll(partitions);
+    }
+  }
+
+  private class ProcessingThread implements Runnable {
+
+    @Override
+    public void run() {
+      while (isRunning) {
+        try {
+          ConsumerRecord<String, byte[]> record = eventQueue.poll(QUEUE_POLL_TIMEOUT_MS,
+                  TimeUnit.MILLISECONDS);
+          if (record != null) {
+            try {
+              eventProcessor.onEvent(record.value());
+            } finally {
+              processedOffsets.put(new TopicPartition(record.topic(), record.partition()),
+                      record.offset() + 1);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (RuntimeException e) {
+          LOG.error("Kafka consumer: Could not process event from topic " + topic, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of events which have been polled from Kafka, but not yet processed.
+   */
+  @Override
+  public int getQueueDepth() {
+    return eventQueue != null ? eventQueue.size() : 0;
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    if (flowControlSettings == null) {
+      flowControlSettings = FlowControlSettings.fromDefault();
+    }
+    return flowControlSettings.getQueueCapacity();
+  }
+
+  public boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * @return the number of records which have not been fetched yet, as of the last refresh, plus
+   * the number of fetched records which have not been processed yet.
+   */
+  @Override
+  public long getLag() {
+    lagRequested = true;
+    return brokerLag + getQueueDepth();
+  }
+
+  @Override
+  public boolean enableCheckpointCommits() {
+    if (isRunning) {
+      return false;
+    }
+    this.checkpointCommits = true;
+    return true;
+  }
+
+  @Override
+  public void disableCheckpointCommits() {
+    this.checkpointCommits = false;
+    pendingCommit.set(null);
+  }
+
+  @Override
+  public Map<String, Long> markCheckpoint() {
+    Map<String, Long> positions = new HashMap<>();
+    processedOffsets.forEach((partition, offset) -> positions.put(partition.topic() + ":"
+            + partition.partition(), offset));
+    return positions;
+  }
+
+  @Override
+  public void commitCheckpoint(Map<String, Long> positions) {
+    if (!checkpointCommits) {
+      return;
+    }
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    positions.forEach((position, offset) -> {
+      int separator = position.lastIndexOf(':');
+      offsets.put(new TopicPartition(position.substring(0, separator),
+              Integer.parseInt(position.substring(separator + 1))), new OffsetAndMetadata(offset));
+    });
+    pendingCommit.set(offsets);
+  }
+
   private String replaceWildcardWithPatternFormat(String topic) {
     topic = topic.replaceAll("\\.", "\\\\.");
     return topic.replaceAll("\\*", ".*");
@@ -150,15 +503,22 @@ public class SpKafkaConsumer implements EventConsumer<KafkaTransportProtocol>, R
     this.topic = protocol.getTopicDefinition().getActualTopicName();
     this.isRunning = true;
 
-    Thread thread = new Thread(this);
-    thread.start();
+    // the poll loop stays a platform thread, as the Kafka client blocks in poll()
+    pollThread = new Thread(this);
+    pollThread.start();
   }
 
+  /**
+   * Stops consuming and waits until the processing thread has completed its current event and
+   * the offsets of all processed events have been committed.
+   */
   @Override
   public void disconnect() throws SpRuntimeException {
     LOG.info("Kafka consumer: Disconnecting from " + topic);
     this.isRunning = false;
-
+    if (Thread.currentThread() != processingThread) {
+      awaitTermination(pollThread);
+    }
   }
 
   @Override
@@ -20,6 +20,7 @@ package org.apache.streampipes.messaging.kafka.config;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.KafkaClient;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.security.auth.SecurityProtocol;
 import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
@@ -38,6 +39,8 @@ public class ConsumerConfigFactory extends AbstractConfigFactory {
   private static final String VALUE_DESERIALIZER_CLASS_CONFIG_DEFAULT = "org.apache.kafka.common" +
           ".serialization.ByteArrayDeserializer";
   private static final String SASL_MECHANISM = "PLAIN";
+  private static final String PARTITION_ASSIGNMENT_STRATEGY_CONFIG_DEFAULT =
+          CooperativeStickyAssignor.class.getName();
 
   public ConsumerConfigFactory(KafkaTransportProtocol protocol) {
     super(protocol);
@@ -58,6 +61,11 @@ public class ConsumerConfigFactory extends AbstractConfigFactory {
     props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, KEY_DESERIALIZER_CLASS_CONFIG_DEFAULT);
     props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, VALUE_DESERIALIZER_CLASS_CONFIG_DEFAULT);
     props.put(ConsumerConfig.CLIENT_ID_CONFIG, UUID.randomUUID().toString());
+    props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+            PARTITION_ASSIGNMENT_STRATEGY_CONFIG_DEFAULT);
+    if (protocol.getGroupInstanceId() != null) {
+      props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, protocol.getGroupInstanceId());
+    }
 
     return props;
   }
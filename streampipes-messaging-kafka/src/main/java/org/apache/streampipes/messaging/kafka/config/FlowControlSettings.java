@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.kafka.config;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+
+/**
+ * Settings of the bounded hand-off queue between the Kafka poll thread and the processing
+ * thread of a {@link org.apache.streampipes.messaging.kafka.SpKafkaConsumer}.
+ */
+public class FlowControlSettings implements Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FlowControlSettings.class);
+
+  private static final String QUEUE_CAPACITY_ENV = "SP_KAFKA_CONSUMER_QUEUE_CAPACITY";
+  private static final String HIGH_WATERMARK_ENV = "SP_KAFKA_CONSUMER_QUEUE_HIGH_WATERMARK";
+  private static final String LOW_WATERMARK_ENV = "SP_KAFKA_CONSUMER_QUEUE_LOW_WATERMARK";
+
+  private static final int QUEUE_CAPACITY_DEFAULT = 10000;
+  private static final double HIGH_WATERMARK_RATIO_DEFAULT = 0.8;
+  private static final double LOW_WATERMARK_RATIO_DEFAULT = 0.2;
+
+  private final int queueCapacity;
+  private final int highWatermark;
+  private final int lowWatermark;
+
+  public FlowControlSettings(int queueCapacity, int highWatermark, int lowWatermark) {
+    if (queueCapacity <= 0 || highWatermark > queueCapacity || lowWatermark >= highWatermark
+            || lowWatermark < 0) {
+      throw new IllegalArgumentException("Invalid flow control settings (capacity=" + queueCapacity
+              + ", high=" + highWatermark + ", low=" + lowWatermark + ")");
+    }
+    this.queueCapacity = queueCapacity;
+    this.highWatermark = highWatermark;
+    this.lowWatermark = lowWatermark;
+  }
+
+  public static FlowControlSettings fromDefault() {
+    int capacity = EnvironmentVariables.getInt(QUEUE_CAPACITY_ENV, QUEUE_CAPACITY_DEFAULT, 1);
+    return withinCapacity(capacity,
+            EnvironmentVariables.getInt(HIGH_WATERMARK_ENV, defaultHighWatermark(capacity), 1),
+            EnvironmentVariables.getInt(LOW_WATERMARK_ENV, defaultLowWatermark(capacity), 0));
+  }
+
+  /**
+   * Creates settings from watermarks which may not fit the capacity, as each of them is
+   * configured separately: the high watermark is limited to the capacity, and a low watermark
+   * which is not below the high watermark is replaced by the default.
+   */
+  static FlowControlSettings withinCapacity(int queueCapacity, int highWatermark,
+                                            int lowWatermark) {
+    int high = Math.min(Math.max(highWatermark, 1), queueCapacity);
+    if (high != highWatermark) {
+      LOG.warn("High watermark {} does not fit the queue capacity {}, using {}", highWatermark,
+              queueCapacity, high);
+    }
+    int low = lowWatermark;
+    if (low < 0 || low >= high) {
+      low = Math.min(defaultLowWatermark(queueCapacity), high - 1);
+      LOG.warn("Low watermark {} is not below the high watermark {}, using {}", lowWatermark,
+              high, low);
+    }
+    return new FlowControlSettings(queueCapacity, high, low);
+  }
+
+  private static int defaultHighWatermark(int queueCapacity) {
+    return Math.max(1, (int) (queueCapacity * HIGH_WATERMARK_RATIO_DEFAULT));
+  }
+
+  private static int defaultLowWatermark(int queueCapacity) {
+    return (int) (queueCapacity * LOW_WATERMARK_RATIO_DEFAULT);
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public int getHighWatermark() {
+    return highWatermark;
+  }
+
+  public int getLowWatermark() {
+    return lowWatermark;
+  }
+}
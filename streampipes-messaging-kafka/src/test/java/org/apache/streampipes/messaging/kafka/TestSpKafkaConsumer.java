@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.streampipes.messaging.kafka.config.FlowControlSettings;
+import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+public class TestSpKafkaConsumer {
+
+  private static final String TOPIC = "topic";
+  private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+  private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+  private final ListenerCapturingConsumer mockConsumer = new ListenerCapturingConsumer();
+  private final List<String> processed = new CopyOnWriteArrayList<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Test
+  public void testPausesAndResumesPartitions() throws Exception {
+    SpKafkaConsumer consumer = connect(new FlowControlSettings(4, 3, 1));
+    assign(PARTITION_0);
+    addRecords(PARTITION_0, 10);
+
+    await(() -> consumer.isPaused() && mockConsumer.paused().contains(PARTITION_0));
+    assertEquals(4, consumer.getQueueDepth());
+
+    release.countDown();
+    await(() -> processed.size() == 10);
+    await(() -> !consumer.isPaused() && mockConsumer.paused().isEmpty());
+    consumer.disconnect();
+
+    assertEquals(10, committedOffset(PARTITION_0).longValue());
+  }
+
+  @Test
+  public void testCommitsProcessedOffsetsOfRevokedPartitions() throws Exception {
+    SpKafkaConsumer consumer = connect(new FlowControlSettings(100, 80, 20));
+    release.countDown();
+    assign(PARTITION_0, PARTITION_1);
+    addRecords(PARTITION_0, 3);
+    addRecords(PARTITION_1, 5);
+    await(() -> processed.size() == 8);
+
+    mockConsumer.schedulePollTask(() -> {
+      mockConsumer.listener.onPartitionsRevoked(Collections.singletonList(PARTITION_1));
+      mockConsumer.rebalance(Collections.singletonList(PARTITION_0));
+    });
+    await(() -> committedOffset(PARTITION_1) != null);
+    consumer.disconnect();
+
+    assertEquals(5, committedOffset(PARTITION_1).longValue());
+    assertEquals(3, committedOffset(PARTITION_0).longValue());
+  }
+
+  @Test
+  public void testDiscardsRecordsOfLostPartitions() throws Exception {
+    SpKafkaConsumer consumer = connect(new FlowControlSettings(100, 80, 20));
+    assign(PARTITION_0, PARTITION_1);
+    addRecords(PARTITION_0, 5);
+    addRecords(PARTITION_1, 5);
+    // the first record is being processed, all others are queued
+    await(() -> processed.size() == 1 && consumer.getQueueDepth() == 9);
+
+    CountDownLatch lost = new CountDownLatch(1);
+    mockConsumer.schedulePollTask(() -> {
+      mockConsumer.listener.onPartitionsLost(Collections.singletonList(PARTITION_1));
+      mockConsumer.rebalance(Collections.singletonList(PARTITION_0));
+      lost.countDown();
+    });
+    lost.await();
+    release.countDown();
+    await(() -> consumer.getQueueDepth() == 0);
+    consumer.disconnect();
+
+    for (String record : processed) {
+      assertTrue(record, record.startsWith("0-") || record.equals("1-0"));
+    }
+    assertEquals(5, processed.stream().filter(record -> record.startsWith("0-")).count());
+    assertEquals(5, committedOffset(PARTITION_0).longValue());
+    assertNull(committedOffset(PARTITION_1));
+  }
+
+  @Test
+  public void testCommitsProcessedOffsetsAfterCheckpointCommitsAreDisabled() throws Exception {
+    SpKafkaConsumer consumer = makeConsumer(new FlowControlSettings(100, 80, 20));
+    assertTrue(consumer.enableCheckpointCommits());
+    connect(consumer);
+    release.countDown();
+    assign(PARTITION_0);
+    addRecords(PARTITION_0, 3);
+    await(() -> processed.size() == 3);
+
+    consumer.commitCheckpoint(Collections.singletonMap(TOPIC + ":0", 1L));
+    consumer.disableCheckpointCommits();
+    consumer.commitCheckpoint(Collections.singletonMap(TOPIC + ":0", 2L));
+    consumer.disconnect();
+
+    assertEquals(3, committedOffset(PARTITION_0).longValue());
+  }
+
+  private SpKafkaConsumer connect(FlowControlSettings settings) {
+    return connect(makeConsumer(settings));
+  }
+
+  private SpKafkaConsumer makeConsumer(FlowControlSettings settings) {
+    return new SpKafkaConsumer(settings) {
+      @Override
+      Consumer<String, byte[]> createConsumer(Properties props) {
+        return mockConsumer;
+      }
+    };
+  }
+
+  private SpKafkaConsumer connect(SpKafkaConsumer consumer) {
+    consumer.connect(new KafkaTransportProtocol("localhost", 9092, TOPIC), event -> {
+      processed.add(new String(event, StandardCharsets.UTF_8));
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    return consumer;
+  }
+
+  private void assign(TopicPartition... partitions) {
+    mockConsumer.schedulePollTask(() -> {
+      Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+      for (TopicPartition partition : partitions) {
+        beginningOffsets.put(partition, 0L);
+      }
+      mockConsumer.rebalance(Arrays.asList(partitions));
+      mockConsumer.updateBeginningOffsets(beginningOffsets);
+      mockConsumer.listener.onPartitionsAssigned(Arrays.asList(partitions));
+    });
+  }
+
+  private void addRecords(TopicPartition partition, int count) {
+    mockConsumer.schedulePollTask(() -> {
+      for (int offset = 0; offset < count; offset++) {
+        mockConsumer.addRecord(new ConsumerRecord<>(TOPIC, partition.partition(), offset, null,
+                (partition.partition() + "-" + offset).getBytes(StandardCharsets.UTF_8)));
+      }
+    });
+  }
+
+  private Long committedOffset(TopicPartition partition) {
+    return mockConsumer.committedOffsets.get(partition);
+  }
+
+  private void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertFalse("Timed out waiting for condition", System.currentTimeMillis() > deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Keeps the listener and the committed offsets, which remain accessible after the consumer
+   * has been closed.
+   */
+  private static class ListenerCapturingConsumer extends MockConsumer<String, byte[]> {
+
+    private final Map<TopicPartition, Long> committedOffsets = new ConcurrentHashMap<>();
+    private volatile ConsumerRebalanceListener listener;
+
+    ListenerCapturingConsumer() {
+      super(OffsetResetStrategy.EARLIEST);
+    }
+
+    @Override
+    public synchronized void subscribe(Collection<String> topics,
+                                       ConsumerRebalanceListener listener) {
+      this.listener = listener;
+      super.subscribe(topics, listener);
+    }
+
+    @Override
+    public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+      offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+      super.commitSync(offsets);
+    }
+
+    @Override
+    public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                         OffsetCommitCallback callback) {
+      offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+      super.commitAsync(offsets, callback);
+    }
+  }
+}
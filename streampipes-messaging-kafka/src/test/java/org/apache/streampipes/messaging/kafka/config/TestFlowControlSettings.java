@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.kafka.config;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestFlowControlSettings {
+
+  @Test
+  public void testConsistentWatermarksAreKept() {
+    assertSettings(FlowControlSettings.withinCapacity(100, 80, 20), 100, 80, 20);
+  }
+
+  @Test
+  public void testCapacityOfOne() {
+    assertSettings(FlowControlSettings.withinCapacity(1, 0, 0), 1, 1, 0);
+  }
+
+  @Test
+  public void testHighWatermarkIsLimitedToCapacity() {
+    assertSettings(FlowControlSettings.withinCapacity(100, 500, 20), 100, 100, 20);
+  }
+
+  @Test
+  public void testLowWatermarkAboveHighWatermarkFallsBack() {
+    assertSettings(FlowControlSettings.withinCapacity(100, 10, 20), 100, 10, 9);
+    assertSettings(FlowControlSettings.withinCapacity(100, 50, 50), 100, 50, 20);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInconsistentWatermarksAreRejectedByConstructor() {
+    new FlowControlSettings(100, 10, 20);
+  }
+
+  private void assertSettings(FlowControlSettings settings, int capacity, int high, int low) {
+    assertEquals(capacity, settings.getQueueCapacity());
+    assertEquals(high, settings.getHighWatermark());
+    assertEquals(low, settings.getLowWatermark());
+  }
+}
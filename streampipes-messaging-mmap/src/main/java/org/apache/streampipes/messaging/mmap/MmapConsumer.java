@@ -0,0 +1,109 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mmap;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.EventConsumer;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads events from the ring buffer file of the topic, starting with the events published after
+ * the consumer has connected. Consumers poll the file and back off up to the configured idle
+ * time while no events arrive.
+ */
+public class MmapConsumer implements EventConsumer<MmapTransportProtocol>, Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MmapConsumer.class);
+
+  private static final int SPIN_TRIES = 100;
+
+  private final MmapSettings settings = MmapSettings.fromDefault();
+  private transient MmapRingBuffer ringBuffer;
+  private transient Thread consumerThread;
+  private volatile Boolean connected = false;
+
+  @Override
+  public void connect(MmapTransportProtocol protocolSettings,
+                      InternalEventProcessor<byte[]> eventProcessor) throws SpRuntimeException {
+    try {
+      this.ringBuffer = MmapRingBuffer.open(MmapSettings.getFile(protocolSettings),
+              settings.getBufferSize(protocolSettings));
+    } catch (IOException e) {
+      throw new SpRuntimeException(e);
+    }
+    this.connected = true;
+    this.consumerThread = new Thread(() -> consume(eventProcessor),
+            "sp-mmap-" + protocolSettings.getTopicDefinition().getActualTopicName());
+    this.consumerThread.setDaemon(true);
+    this.consumerThread.start();
+  }
+
+  private void consume(InternalEventProcessor<byte[]> eventProcessor) {
+    MmapRingBuffer.ReadStatistics statistics = new MmapRingBuffer.ReadStatistics();
+    long maxIdleNanos = TimeUnit.MICROSECONDS.toNanos(settings.getMaxIdleMicros());
+    long position = ringBuffer.getPublishedPosition();
+    long idleNanos = 0;
+    int idleTries = 0;
+    long overruns = 0;
+
+    while (connected) {
+      long next = ringBuffer.read(position, eventProcessor, statistics);
+      if (statistics.overruns > overruns) {
+        LOG.warn("Consumer fell behind by more than the ring buffer size, {} overruns so far",
+                statistics.overruns);
+        overruns = statistics.overruns;
+      }
+      if (next != position) {
+        position = next;
+        idleTries = 0;
+        idleNanos = 0;
+      } else if (++idleTries < SPIN_TRIES) {
+        Thread.yield();
+      } else {
+        idleNanos = Math.min(maxIdleNanos, Math.max(1000, idleNanos * 2));
+        LockSupport.parkNanos(idleNanos);
+      }
+    }
+
+    try {
+      ringBuffer.close();
+    } catch (IOException e) {
+      LOG.warn("Could not close ring buffer", e);
+    }
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    this.connected = false;
+    if (consumerThread != null) {
+      LockSupport.unpark(consumerThread);
+    }
+  }
+
+  @Override
+  public Boolean isConnected() {
+    return connected;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mmap;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.EventProducer;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
+
+import java.io.IOException;
+
+/**
+ * Appends events to the ring buffer file of the topic. There can only be one publisher per
+ * topic on a host; connecting a second one fails.
+ */
+public class MmapPublisher implements EventProducer<MmapTransportProtocol> {
+
+  private final MmapSettings settings = MmapSettings.fromDefault();
+  private transient MmapRingBuffer ringBuffer;
+  private volatile Boolean connected = false;
+
+  @Override
+  public void connect(MmapTransportProtocol protocolSettings) throws SpRuntimeException {
+    try {
+      this.ringBuffer = MmapRingBuffer.open(MmapSettings.getFile(protocolSettings),
+              settings.getBufferSize(protocolSettings));
+      if (!ringBuffer.acquireProducer()) {
+        ringBuffer.close();
+        throw new SpRuntimeException("Another publisher is already connected to "
+                + MmapSettings.getFile(protocolSettings));
+      }
+      this.connected = true;
+    } catch (IOException e) {
+      throw new SpRuntimeException(e);
+    }
+  }
+
+  @Override
+  public synchronized void publish(byte[] event) {
+    if (connected) {
+      ringBuffer.append(event);
+    }
+  }
+
+  @Override
+  public synchronized void disconnect() throws SpRuntimeException {
+    if (connected) {
+      this.connected = false;
+      try {
+        ringBuffer.close();
+      } catch (IOException e) {
+        throw new SpRuntimeException(e);
+      }
+    }
+  }
+
+  @Override
+  public Boolean isConnected() {
+    return connected;
+  }
+}
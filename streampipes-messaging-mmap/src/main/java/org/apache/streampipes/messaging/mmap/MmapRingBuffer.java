@@ -0,0 +1,376 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mmap;
+
+import org.apache.streampipes.messaging.InternalEventProcessor;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A single-producer, multi-consumer ring buffer in a memory-mapped file.
+ *
+ * The file starts with a header page holding the buffer capacity and two byte positions which
+ * only ever grow: the write limit, which the producer raises before it writes a record, and the
+ * published position, which it raises after the record is complete. Records are stored as a
+ * length field followed by the payload and are aligned to 8 bytes; a record never wraps around
+ * the end of the buffer, the remaining space is skipped with a padding record instead.
+ *
+ * Consumers keep their own position and never block the producer. A consumer that falls behind
+ * by more than the capacity detects that its data has been overwritten by comparing its position
+ * with the write limit, skips to the latest published position and counts the lost events.
+ *
+ * Every publisher and consumer of the file holds a shared lock on the header, one per process.
+ * The process that releases the last lock truncates and deletes the file, so that the memory of
+ * a topic is freed once all pipeline elements using it have disconnected.
+ */
+class MmapRingBuffer implements AutoCloseable {
+
+  private static final int MAGIC = 0x53504d52;
+  private static final int HEADER_SIZE = 4096;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int WRITE_LIMIT_OFFSET = 128;
+  private static final int PUBLISHED_OFFSET = 256;
+  private static final int PRODUCER_LOCK_OFFSET = 0;
+  private static final int REFERENCE_LOCK_OFFSET = 1;
+
+  private static final int RECORD_HEADER_SIZE = 4;
+  private static final int ALIGNMENT = 8;
+  private static final int PADDING = -1;
+
+  private static final Map<Path, FileReference> REFERENCES = new HashMap<>();
+
+  private final Path path;
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  private final long headerAddress;
+  private final long dataAddress;
+  private final int capacity;
+  private final int mask;
+  private FileLock producerLock;
+
+  private MmapRingBuffer(Path path, RandomAccessFile file, MappedByteBuffer buffer) {
+    this.path = path;
+    this.file = file;
+    this.buffer = buffer;
+    this.headerAddress = UnsafeAccess.address(buffer);
+    this.dataAddress = headerAddress + HEADER_SIZE;
+    this.capacity = UnsafeAccess.getIntVolatile(headerAddress + CAPACITY_OFFSET);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Opens the ring buffer file or creates it with the given capacity (rounded up to a power of
+   * two). If the file already exists, its capacity is used.
+   */
+  static MmapRingBuffer open(Path path, int capacity) throws IOException {
+    acquireReference(path, roundToPowerOfTwo(Math.max(capacity, HEADER_SIZE)));
+    try {
+      RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+      try {
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                file.length());
+        if (UnsafeAccess.getIntVolatile(UnsafeAccess.address(buffer) + MAGIC_OFFSET) != MAGIC) {
+          throw new IOException("Not a ring buffer file: " + path);
+        }
+        return new MmapRingBuffer(path, file, buffer);
+      } catch (IOException | RuntimeException e) {
+        file.close();
+        throw e;
+      }
+    } catch (IOException | RuntimeException e) {
+      releaseReference(path);
+      throw e;
+    }
+  }
+
+  private static void acquireReference(Path path, int capacity) throws IOException {
+    synchronized (REFERENCES) {
+      FileReference reference = REFERENCES.get(path);
+      if (reference == null) {
+        reference = FileReference.acquire(path, capacity);
+        REFERENCES.put(path, reference);
+      }
+      reference.count++;
+    }
+  }
+
+  private static void releaseReference(Path path) throws IOException {
+    synchronized (REFERENCES) {
+      FileReference reference = REFERENCES.get(path);
+      if (reference != null && --reference.count == 0) {
+        REFERENCES.remove(path);
+        reference.release(path);
+      }
+    }
+  }
+
+  /**
+   * Initializes the file under a temporary name and links it into place, so that other
+   * processes either see no file or a completely initialized one.
+   */
+  private static void create(Path path, int capacity) throws IOException {
+    Files.createDirectories(path.getParent());
+    Path tmp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try (RandomAccessFile file = new RandomAccessFile(tmp.toFile(), "rw")) {
+      file.setLength((long) HEADER_SIZE + capacity);
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+              HEADER_SIZE);
+      buffer.order(ByteOrder.nativeOrder());
+      buffer.putInt(CAPACITY_OFFSET, capacity);
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      buffer.force();
+      UnsafeAccess.unmap(buffer);
+    }
+    try {
+      Files.createLink(path, tmp);
+    } catch (FileAlreadyExistsException e) {
+      // created concurrently by another process
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Claims the producer role of this ring buffer. Only one producer per file is allowed, across
+   * all processes of the host.
+   *
+   * @return false if another producer holds the ring buffer.
+   */
+  boolean acquireProducer() throws IOException {
+    try {
+      producerLock = file.getChannel().tryLock(PRODUCER_LOCK_OFFSET, 1, false);
+    } catch (OverlappingFileLockException e) {
+      return false;
+    }
+    if (producerLock != null) {
+      // a previous producer may have crashed after raising the write limit
+      UnsafeAccess.putLongOrdered(headerAddress + WRITE_LIMIT_OFFSET, getPublishedPosition());
+    }
+    return producerLock != null;
+  }
+
+  int getMaxPayloadSize() {
+    return capacity / 2 - RECORD_HEADER_SIZE;
+  }
+
+  /**
+   * Appends a record. Must only be called by the thread holding the producer role.
+   */
+  void append(byte[] payload) {
+    if (payload.length > getMaxPayloadSize()) {
+      throw new IllegalArgumentException("Event of " + payload.length + " bytes exceeds the "
+              + "maximum size of " + getMaxPayloadSize() + " bytes");
+    }
+    long position = getPublishedPosition();
+    int recordSize = align(RECORD_HEADER_SIZE + payload.length);
+    int index = (int) (position & mask);
+
+    if (index + recordSize > capacity) {
+      int remaining = capacity - index;
+      UnsafeAccess.putLongOrdered(headerAddress + WRITE_LIMIT_OFFSET, position + remaining);
+      UnsafeAccess.putInt(dataAddress + index, PADDING);
+      position += remaining;
+      UnsafeAccess.putLongOrdered(headerAddress + PUBLISHED_OFFSET, position);
+      index = 0;
+    }
+
+    UnsafeAccess.putLongOrdered(headerAddress + WRITE_LIMIT_OFFSET, position + recordSize);
+    UnsafeAccess.storeFence();
+    UnsafeAccess.putInt(dataAddress + index, payload.length);
+    UnsafeAccess.copyToMemory(payload, dataAddress + index + RECORD_HEADER_SIZE);
+    UnsafeAccess.putLongOrdered(headerAddress + PUBLISHED_OFFSET, position + recordSize);
+  }
+
+  long getPublishedPosition() {
+    return UnsafeAccess.getLongVolatile(headerAddress + PUBLISHED_OFFSET);
+  }
+
+  private long getWriteLimit() {
+    return UnsafeAccess.getLongVolatile(headerAddress + WRITE_LIMIT_OFFSET);
+  }
+
+  /**
+   * Passes all records published after the given position to the event processor.
+   *
+   * @return the position after the last record read, to be passed to the next call.
+   */
+  long read(long position, InternalEventProcessor<byte[]> eventProcessor, ReadStatistics
+          statistics) {
+    long published = getPublishedPosition();
+    while (position < published) {
+      if (published - position > capacity) {
+        statistics.overruns++;
+        return published;
+      }
+      int index = (int) (position & mask);
+      int length = UnsafeAccess.getInt(dataAddress + index);
+      if (length == PADDING) {
+        position += capacity - index;
+        continue;
+      }
+      // after an overrun, the length may have been read from the middle of a newer record
+      if (length < 0 || length > getMaxPayloadSize()
+              || index + RECORD_HEADER_SIZE + length > capacity) {
+        statistics.overruns++;
+        return getPublishedPosition();
+      }
+      byte[] payload = new byte[length];
+      UnsafeAccess.copyFromMemory(dataAddress + index + RECORD_HEADER_SIZE, payload);
+      UnsafeAccess.loadFence();
+      if (getWriteLimit() - position > capacity) {
+        statistics.overruns++;
+        return getPublishedPosition();
+      }
+      position += align(RECORD_HEADER_SIZE + length);
+      statistics.events++;
+      eventProcessor.onEvent(payload);
+    }
+    return position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (producerLock != null) {
+        producerLock.release();
+      }
+    } finally {
+      UnsafeAccess.unmap(buffer);
+      try {
+        file.close();
+      } finally {
+        releaseReference(path);
+      }
+    }
+  }
+
+  private static int align(int size) {
+    return (size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  private static int roundToPowerOfTwo(int value) {
+    int highestBit = Integer.highestOneBit(value);
+    return highestBit == value ? value : highestBit << 1;
+  }
+
+  /**
+   * The shared lock of this process on a ring buffer file, counting the publishers and consumers
+   * of the process which use it.
+   */
+  private static class FileReference {
+
+    private final RandomAccessFile file;
+    private final FileLock lock;
+    private int count;
+
+    private FileReference(RandomAccessFile file, FileLock lock) {
+      this.file = file;
+      this.lock = lock;
+    }
+
+    static FileReference acquire(Path path, int capacity) throws IOException {
+      while (true) {
+        if (!Files.exists(path)) {
+          create(path, capacity);
+        }
+        Object fileKey = fileKey(path);
+        RandomAccessFile file;
+        try {
+          file = new RandomAccessFile(path.toFile(), "rw");
+        } catch (FileNotFoundException e) {
+          // deleted concurrently by the last process releasing it
+          continue;
+        }
+        try {
+          FileLock lock = file.getChannel().lock(REFERENCE_LOCK_OFFSET, 1, true);
+          if (file.length() > 0) {
+            return new FileReference(file, lock);
+          }
+          // truncated by the last process releasing it, which deletes it next
+          lock.release();
+          deleteIfStale(path, fileKey, file);
+          file.close();
+        } catch (IOException | RuntimeException e) {
+          file.close();
+          throw e;
+        }
+      }
+    }
+
+    /**
+     * A process that crashed between truncating and deleting the file leaves an empty file
+     * behind, which would never be recreated. It is deleted once no other process holds a lock on
+     * it, as long as the path still refers to the same file.
+     */
+    private static void deleteIfStale(Path path, Object fileKey, RandomAccessFile file)
+            throws IOException {
+      FileLock exclusiveLock = file.getChannel().tryLock(REFERENCE_LOCK_OFFSET, 1, false);
+      if (exclusiveLock != null) {
+        try {
+          if (file.length() == 0 && fileKey != null && fileKey.equals(fileKey(path))) {
+            Files.deleteIfExists(path);
+          }
+        } finally {
+          exclusiveLock.release();
+        }
+      }
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+      try {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+    }
+
+    void release(Path path) throws IOException {
+      try {
+        lock.release();
+        FileLock exclusiveLock = file.getChannel().tryLock(REFERENCE_LOCK_OFFSET, 1, false);
+        if (exclusiveLock != null) {
+          file.setLength(0);
+          Files.deleteIfExists(path);
+          exclusiveLock.release();
+        }
+      } finally {
+        file.close();
+      }
+    }
+  }
+
+  static class ReadStatistics {
+    long events;
+    long overruns;
+  }
+}
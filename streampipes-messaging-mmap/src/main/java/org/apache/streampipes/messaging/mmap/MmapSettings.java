@@ -0,0 +1,68 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mmap;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
+
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Client-side settings of memory-mapped publishers and consumers.
+ */
+public class MmapSettings implements Serializable {
+
+  private static final String BUFFER_SIZE_ENV = "SP_MMAP_BUFFER_SIZE";
+  private static final String MAX_IDLE_MICROS_ENV = "SP_MMAP_MAX_IDLE_MICROS";
+
+  // together with the header page, fits into the default 64 MB /dev/shm of Docker containers
+  private static final int BUFFER_SIZE_DEFAULT = 32 * 1024 * 1024;
+  private static final long MAX_IDLE_MICROS_DEFAULT = 1000;
+  private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+  private static final String FILE_SUFFIX = ".ring";
+
+  private final int bufferSize;
+  private final long maxIdleMicros;
+
+  public MmapSettings(int bufferSize, long maxIdleMicros) {
+    this.bufferSize = bufferSize;
+    this.maxIdleMicros = maxIdleMicros;
+  }
+
+  public static MmapSettings fromDefault() {
+    return new MmapSettings(
+            EnvironmentVariables.getInt(BUFFER_SIZE_ENV, BUFFER_SIZE_DEFAULT, MIN_BUFFER_SIZE),
+            EnvironmentVariables.getLong(MAX_IDLE_MICROS_ENV, MAX_IDLE_MICROS_DEFAULT, 0));
+  }
+
+  public int getBufferSize(MmapTransportProtocol protocol) {
+    return protocol.getBufferSize() != null ? protocol.getBufferSize() : bufferSize;
+  }
+
+  public long getMaxIdleMicros() {
+    return maxIdleMicros;
+  }
+
+  public static Path getFile(MmapTransportProtocol protocol) {
+    String topic = protocol.getTopicDefinition().getActualTopicName();
+    return Paths.get(protocol.getDirectory(), topic.replaceAll("[^a-zA-Z0-9._-]", "_")
+            + FILE_SUFFIX);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mmap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Ordered and volatile access to memory-mapped files, which {@link java.nio.ByteBuffer} does not
+ * provide on Java 8.
+ *
+ * The ring buffer is shared between processes, so its positions must be published with release
+ * semantics and read with acquire semantics. On the Java 8 source level of this project, the only
+ * way to do that on off-heap memory is {@code sun.misc.Unsafe}; {@code VarHandle} requires Java 9.
+ * This is the only class which uses it. It names the type in a single declaration and loads it
+ * reflectively otherwise, so that the compiler warns about the internal API only once.
+ */
+final class UnsafeAccess {
+
+  private static final sun.misc.Unsafe UNSAFE;
+  private static final long BYTE_ARRAY_OFFSET;
+  private static final long ADDRESS_OFFSET;
+
+  static {
+    try {
+      Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      unsafeField.setAccessible(true);
+      UNSAFE = cast(unsafeField.get(null));
+      BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+      ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private UnsafeAccess() {
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T cast(Object object) {
+    return (T) object;
+  }
+
+  static long address(MappedByteBuffer buffer) {
+    return UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+  }
+
+  static int getInt(long address) {
+    return UNSAFE.getInt(address);
+  }
+
+  static void putInt(long address, int value) {
+    UNSAFE.putInt(address, value);
+  }
+
+  static int getIntVolatile(long address) {
+    return UNSAFE.getIntVolatile(null, address);
+  }
+
+  static long getLongVolatile(long address) {
+    return UNSAFE.getLongVolatile(null, address);
+  }
+
+  /**
+   * Stores the value with release semantics: earlier writes are visible before it.
+   */
+  static void putLongOrdered(long address, long value) {
+    UNSAFE.putOrderedLong(null, address, value);
+  }
+
+  static void storeFence() {
+    UNSAFE.storeFence();
+  }
+
+  static void loadFence() {
+    UNSAFE.loadFence();
+  }
+
+  static void copyToMemory(byte[] source, long address) {
+    UNSAFE.copyMemory(source, BYTE_ARRAY_OFFSET, null, address, source.length);
+  }
+
+  static void copyFromMemory(long address, byte[] target) {
+    UNSAFE.copyMemory(null, address, target, BYTE_ARRAY_OFFSET, target.length);
+  }
+
+  /**
+   * Unmaps the buffer immediately instead of waiting for garbage collection. Only supported on
+   * Java 9 or later; on Java 8 the mapping is released by the garbage collector.
+   */
+  static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method invokeCleaner = UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+      invokeCleaner.invoke(UNSAFE, buffer);
+    } catch (ReflectiveOperationException e) {
+      // Java 8
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.mmap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestMmapRingBuffer {
+
+  private static final int CAPACITY = 4096;
+
+  private Path directory;
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("sp-mmap");
+    path = directory.resolve("topic");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void testReadAppendedRecords() throws IOException {
+    try (MmapRingBuffer ringBuffer = MmapRingBuffer.open(path, CAPACITY)) {
+      assertTrue(ringBuffer.acquireProducer());
+      ringBuffer.append(bytes("a"));
+      ringBuffer.append(bytes("bc"));
+      ringBuffer.append(new byte[0]);
+
+      List<byte[]> events = new ArrayList<>();
+      MmapRingBuffer.ReadStatistics statistics = new MmapRingBuffer.ReadStatistics();
+      long position = ringBuffer.read(0, events::add, statistics);
+
+      assertEquals(ringBuffer.getPublishedPosition(), position);
+      assertEquals(3, statistics.events);
+      assertEquals(0, statistics.overruns);
+      assertArrayEquals(bytes("a"), events.get(0));
+      assertArrayEquals(bytes("bc"), events.get(1));
+      assertArrayEquals(new byte[0], events.get(2));
+    }
+  }
+
+  @Test
+  public void testReadAcrossEndOfBuffer() throws IOException {
+    try (MmapRingBuffer ringBuffer = MmapRingBuffer.open(path, CAPACITY)) {
+      assertTrue(ringBuffer.acquireProducer());
+      byte[] payload = new byte[1000];
+      MmapRingBuffer.ReadStatistics statistics = new MmapRingBuffer.ReadStatistics();
+      long position = 0;
+      for (int i = 0; i < 10; i++) {
+        payload[0] = (byte) i;
+        ringBuffer.append(payload);
+        List<byte[]> events = new ArrayList<>();
+        position = ringBuffer.read(position, events::add, statistics);
+        assertEquals(1, events.size());
+        assertEquals(i, events.get(0)[0]);
+      }
+      assertEquals(10, statistics.events);
+      assertEquals(0, statistics.overruns);
+    }
+  }
+
+  @Test
+  public void testOverrunSkipsToPublishedPosition() throws IOException {
+    try (MmapRingBuffer ringBuffer = MmapRingBuffer.open(path, CAPACITY)) {
+      assertTrue(ringBuffer.acquireProducer());
+      for (int i = 0; i < 10; i++) {
+        ringBuffer.append(new byte[1000]);
+      }
+
+      List<byte[]> events = new ArrayList<>();
+      MmapRingBuffer.ReadStatistics statistics = new MmapRingBuffer.ReadStatistics();
+      long position = ringBuffer.read(0, events::add, statistics);
+
+      assertEquals(ringBuffer.getPublishedPosition(), position);
+      assertEquals(1, statistics.overruns);
+      assertTrue(events.isEmpty());
+    }
+  }
+
+  @Test
+  public void testSingleProducer() throws IOException {
+    try (MmapRingBuffer first = MmapRingBuffer.open(path, CAPACITY);
+         MmapRingBuffer second = MmapRingBuffer.open(path, CAPACITY)) {
+      assertTrue(first.acquireProducer());
+      assertFalse(second.acquireProducer());
+    }
+  }
+
+  @Test
+  public void testLastReferenceDeletesFile() throws IOException {
+    MmapRingBuffer first = MmapRingBuffer.open(path, CAPACITY);
+    MmapRingBuffer second = MmapRingBuffer.open(path, CAPACITY);
+    first.close();
+    assertTrue(Files.exists(path));
+    second.close();
+    assertFalse(Files.exists(path));
+  }
+
+  @Test(timeout = 10000)
+  public void testRecreateEmptyFileLeftByCrashedProcess() throws IOException {
+    Files.createFile(path);
+
+    try (MmapRingBuffer ringBuffer = MmapRingBuffer.open(path, CAPACITY)) {
+      assertTrue(Files.size(path) > 0);
+      assertTrue(ringBuffer.acquireProducer());
+      ringBuffer.append(bytes("a"));
+
+      List<byte[]> events = new ArrayList<>();
+      ringBuffer.read(0, events::add, new MmapRingBuffer.ReadStatistics());
+      assertEquals(1, events.size());
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
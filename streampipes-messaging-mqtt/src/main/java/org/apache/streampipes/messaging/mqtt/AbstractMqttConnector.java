@@ -17,23 +17,48 @@
 package org.apache.streampipes.messaging.mqtt;
 
 import org.apache.streampipes.model.grounding.MqttTransportProtocol;
-import org.fusesource.mqtt.client.BlockingConnection;
+import org.fusesource.mqtt.client.CallbackConnection;
 import org.fusesource.mqtt.client.MQTT;
+import org.fusesource.mqtt.client.Promise;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class of MQTT publishers and consumers which uses the non-blocking callback API of
+ * the MQTT client. All operations on the connection are executed on its dispatch queue.
+ */
 public class AbstractMqttConnector {
 
+  private static final long CONNECT_TIMEOUT_SECONDS = 30;
+
   protected MQTT mqtt;
-  protected BlockingConnection connection;
-  protected Boolean connected = false;
+  protected CallbackConnection connection;
+  protected MqttSettings settings = MqttSettings.fromDefault();
+  protected volatile Boolean connected = false;
 
   protected void createBrokerConnection(MqttTransportProtocol protocolSettings) throws Exception {
     this.mqtt = new MQTT();
     this.mqtt.setHost(makeBrokerUrl(protocolSettings));
-    this.connection = mqtt.blockingConnection();
-    this.connection.connect();
+    this.connection = mqtt.callbackConnection();
+    configureConnection(connection);
+    Promise<Void> connectPromise = new Promise<>();
+    connection.getDispatchQueue().execute(() -> connection.connect(connectPromise));
+    connectPromise.await(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     this.connected = true;
   }
 
+  /**
+   * Hook to register a listener before the connection is established.
+   */
+  protected void configureConnection(CallbackConnection connection) {
+  }
+
+  protected void closeBrokerConnection() throws Exception {
+    Promise<Void> disconnectPromise = new Promise<>();
+    connection.getDispatchQueue().execute(() -> connection.disconnect(disconnectPromise));
+    disconnectPromise.await(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
   private String makeBrokerUrl(MqttTransportProtocol protocolSettings) {
     return "tcp://" + protocolSettings.getBrokerHostname() + ":" + protocolSettings.getPort();
   }
@@ -20,59 +20,80 @@ import org.apache.streampipes.commons.exceptions.SpRuntimeException;
 import org.apache.streampipes.messaging.EventConsumer;
 import org.apache.streampipes.messaging.InternalEventProcessor;
 import org.apache.streampipes.model.grounding.MqttTransportProtocol;
-import org.fusesource.mqtt.client.Message;
-import org.fusesource.mqtt.client.QoS;
-import org.fusesource.mqtt.client.Topic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
-public class MqttConsumer extends AbstractMqttConnector implements
+/**
+ * Consumes a MQTT topic with one or more broker connections.
+ *
+ * Only if a consumer group is set, each connection subscribes to the shared subscription
+ * {@code $share/<group>/<topic>}, so that the broker load-balances messages across all
+ * connections of all consumers of the group. Shared subscriptions are part of MQTT 5 and not
+ * supported by all brokers, so a group must be configured explicitly; without a group, a single
+ * connection subscribes to the plain topic.
+ *
+ * The delivery of events received by several connections into the event processor is
+ * serialized.
+ */
+public class MqttConsumer implements
         EventConsumer<MqttTransportProtocol>,
         AutoCloseable, Serializable {
 
-  @Override
-  public void connect(MqttTransportProtocol protocolSettings, InternalEventProcessor<byte[]> eventProcessor) throws SpRuntimeException {
-    try {
-      this.createBrokerConnection(protocolSettings);
-      Topic[] topics = {new Topic(protocolSettings.getTopicDefinition().getActualTopicName(), QoS.AT_LEAST_ONCE)};
-      connection.subscribe(topics);
-      new Thread(new ConsumerThread(eventProcessor)).start();
-
-    } catch (Exception e) {
-      throw new SpRuntimeException(e);
-    }
-  }
+  private static final Logger LOG = LoggerFactory.getLogger(MqttConsumer.class);
 
-  private class ConsumerThread implements Runnable {
+  private static final String SHARED_SUBSCRIPTION_PREFIX = "$share/";
+  private static final String SLASH = "/";
 
-    private final InternalEventProcessor<byte[]> eventProcessor;
+  private final MqttSettings settings = MqttSettings.fromDefault();
+  private final List<MqttSubscription> subscriptions = new ArrayList<>();
+  private volatile Boolean connected = false;
 
-    public ConsumerThread(InternalEventProcessor<byte[]> eventProcessor) {
-      this.eventProcessor = eventProcessor;
+  @Override
+  public void connect(MqttTransportProtocol protocolSettings, InternalEventProcessor<byte[]> eventProcessor) throws SpRuntimeException {
+    String topic = protocolSettings.getTopicDefinition().getActualTopicName();
+    String consumerGroup = protocolSettings.getConsumerGroup();
+    int consumerConnections = 1;
+    if (consumerGroup != null) {
+      consumerConnections = settings.getConsumerConnections();
+    } else if (settings.getConsumerConnections() > 1) {
+      // connections subscribed to the plain topic would each receive every message
+      LOG.warn("Topic {} has no consumer group, using a single connection instead of {}", topic,
+              settings.getConsumerConnections());
     }
+    String topicFilter = makeTopicFilter(topic, consumerGroup);
+    InternalEventProcessor<byte[]> serializedProcessor = consumerConnections > 1 ?
+            new SerializedEventProcessor(eventProcessor) : eventProcessor;
 
-    @Override
-    public void run() {
-      try {
-        while (connected) {
-          Message message = connection.receive();
-          byte[] payload = message.getPayload();
-          eventProcessor.onEvent(payload);
-          message.ack();
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
+    try {
+      for (int i = 0; i < consumerConnections; i++) {
+        MqttSubscription subscription = new MqttSubscription();
+        subscriptions.add(subscription);
+        subscription.connect(protocolSettings, topicFilter, serializedProcessor);
       }
+      this.connected = true;
+    } catch (SpRuntimeException e) {
+      disconnect();
+      throw e;
     }
   }
 
+  static String makeTopicFilter(String topic, String consumerGroup) {
+    return consumerGroup != null ? SHARED_SUBSCRIPTION_PREFIX + consumerGroup + SLASH + topic :
+            topic;
+  }
+
   @Override
   public void disconnect() throws SpRuntimeException {
     try {
-      this.connection.disconnect();
-    } catch (Exception e) {
-      throw new SpRuntimeException(e);
+      for (MqttSubscription subscription : subscriptions) {
+        subscription.disconnect();
+      }
     } finally {
+      subscriptions.clear();
       this.connected = false;
     }
   }
@@ -86,4 +107,18 @@ public class MqttConsumer extends AbstractMqttConnector implements
   public void close() throws Exception {
     disconnect();
   }
+
+  static class SerializedEventProcessor implements InternalEventProcessor<byte[]> {
+
+    private final InternalEventProcessor<byte[]> eventProcessor;
+
+    SerializedEventProcessor(InternalEventProcessor<byte[]> eventProcessor) {
+      this.eventProcessor = eventProcessor;
+    }
+
+    @Override
+    public synchronized void onEvent(byte[] event) {
+      eventProcessor.onEvent(event);
+    }
+  }
 }
@@ -19,21 +19,36 @@ package org.apache.streampipes.messaging.mqtt;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
 import org.apache.streampipes.messaging.EventProducer;
 import org.apache.streampipes.model.grounding.MqttTransportProtocol;
+import org.fusesource.mqtt.client.Callback;
 import org.fusesource.mqtt.client.QoS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes events without waiting for the acknowledgement of the previous event. The number
+ * of unacknowledged publishes is limited by the in-flight window; once the window is full,
+ * {@link #publish(byte[])} blocks until the broker acknowledges earlier events.
+ */
 public class MqttPublisher extends AbstractMqttConnector implements EventProducer<MqttTransportProtocol> {
 
   private static final Logger LOG = LoggerFactory.getLogger(MqttPublisher.class);
 
+  private static final long DRAIN_TIMEOUT_SECONDS = 10;
+
   private String currentTopic;
+  private QoS qos;
+  private Semaphore inflight;
 
   @Override
   public void connect(MqttTransportProtocol protocolSettings) throws SpRuntimeException {
+    this.qos = MqttSettings.getQos(protocolSettings);
     try {
       this.createBrokerConnection(protocolSettings);
       this.currentTopic = protocolSettings.getTopicDefinition().getActualTopicName();
+      this.inflight = new Semaphore(settings.getMaxInflight());
     } catch (Exception e) {
       throw new SpRuntimeException(e);
     }
@@ -43,10 +58,22 @@ public class MqttPublisher extends AbstractMqttConnector implements EventProduce
   public void publish(byte[] event) {
     if (connected && currentTopic != null) {
       try {
-        this.connection.publish(currentTopic, event, QoS.AT_LEAST_ONCE, false);
-      } catch (Exception e) {
-        // TODO exception handling once system-wide logging is implemented
-        LOG.error(e.getMessage());
+        inflight.acquire();
+        connection.getDispatchQueue().execute(() ->
+                connection.publish(currentTopic, event, qos, false, new Callback<Void>() {
+                  @Override
+                  public void onSuccess(Void value) {
+                    inflight.release();
+                  }
+
+                  @Override
+                  public void onFailure(Throwable value) {
+                    inflight.release();
+                    LOG.error("Could not publish event to topic " + currentTopic, value);
+                  }
+                }));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
     }
   }
@@ -54,7 +81,11 @@ public class MqttPublisher extends AbstractMqttConnector implements EventProduce
   @Override
   public void disconnect() throws SpRuntimeException {
     try {
-      this.connection.disconnect();
+      // wait until all in-flight events have been acknowledged
+      if (inflight.tryAcquire(settings.getMaxInflight(), DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        inflight.release(settings.getMaxInflight());
+      }
+      this.closeBrokerConnection();
     } catch (Exception e) {
       e.printStackTrace();
     } finally {
@@ -0,0 +1,95 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mqtt;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.model.grounding.MqttTransportProtocol;
+import org.fusesource.mqtt.client.QoS;
+
+import java.io.Serializable;
+
+/**
+ * Client-side settings of MQTT publishers and consumers.
+ */
+public class MqttSettings implements Serializable {
+
+  private static final String MAX_INFLIGHT_ENV = "SP_MQTT_MAX_INFLIGHT";
+  private static final String ACK_BATCH_SIZE_ENV = "SP_MQTT_ACK_BATCH_SIZE";
+  private static final String CONSUMER_QUEUE_CAPACITY_ENV = "SP_MQTT_CONSUMER_QUEUE_CAPACITY";
+  private static final String CONSUMER_CONNECTIONS_ENV = "SP_MQTT_CONSUMER_CONNECTIONS";
+
+  private static final int MAX_INFLIGHT_DEFAULT = 1000;
+  private static final int ACK_BATCH_SIZE_DEFAULT = 100;
+  private static final int CONSUMER_QUEUE_CAPACITY_DEFAULT = 10000;
+  private static final int CONSUMER_CONNECTIONS_DEFAULT = 1;
+
+  private static final QoS QOS_DEFAULT = QoS.AT_LEAST_ONCE;
+
+  private final int maxInflight;
+  private final int ackBatchSize;
+  private final int consumerQueueCapacity;
+  private final int consumerConnections;
+
+  public MqttSettings(int maxInflight,
+                      int ackBatchSize,
+                      int consumerQueueCapacity,
+                      int consumerConnections) {
+    this.maxInflight = maxInflight;
+    this.ackBatchSize = ackBatchSize;
+    this.consumerQueueCapacity = consumerQueueCapacity;
+    this.consumerConnections = consumerConnections;
+  }
+
+  public static MqttSettings fromDefault() {
+    return new MqttSettings(
+            EnvironmentVariables.getInt(MAX_INFLIGHT_ENV, MAX_INFLIGHT_DEFAULT, 1),
+            EnvironmentVariables.getInt(ACK_BATCH_SIZE_ENV, ACK_BATCH_SIZE_DEFAULT, 1),
+            EnvironmentVariables.getInt(CONSUMER_QUEUE_CAPACITY_ENV,
+                    CONSUMER_QUEUE_CAPACITY_DEFAULT, 1),
+            EnvironmentVariables.getInt(CONSUMER_CONNECTIONS_ENV, CONSUMER_CONNECTIONS_DEFAULT, 1));
+  }
+
+  /**
+   * @throws SpRuntimeException if the protocol declares a QoS level other than 0, 1 or 2.
+   */
+  public static QoS getQos(MqttTransportProtocol protocol) throws SpRuntimeException {
+    Integer qos = protocol.getQos();
+    if (qos == null) {
+      return QOS_DEFAULT;
+    } else if (qos < 0 || qos >= QoS.values().length) {
+      throw new SpRuntimeException("Invalid MQTT QoS level " + qos + ", expected 0, 1 or 2");
+    }
+    return QoS.values()[qos];
+  }
+
+  public int getMaxInflight() {
+    return maxInflight;
+  }
+
+  public int getAckBatchSize() {
+    return ackBatchSize;
+  }
+
+  public int getConsumerQueueCapacity() {
+    return consumerQueueCapacity;
+  }
+
+  public int getConsumerConnections() {
+    return consumerConnections;
+  }
+}
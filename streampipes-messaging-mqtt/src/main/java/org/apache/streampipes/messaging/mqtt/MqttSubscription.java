@@ -0,0 +1,182 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.messaging.mqtt;
+
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.model.grounding.MqttTransportProtocol;
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.UTF8Buffer;
+import org.fusesource.mqtt.client.CallbackConnection;
+import org.fusesource.mqtt.client.Listener;
+import org.fusesource.mqtt.client.Promise;
+import org.fusesource.mqtt.client.Topic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single broker connection of a {@link MqttConsumer}, subscribed to either the plain topic or
+ * a shared subscription of the topic.
+ */
+class MqttSubscription extends AbstractMqttConnector implements Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MqttSubscription.class);
+
+  private static final long SUBSCRIBE_TIMEOUT_SECONDS = 30;
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+  private final AtomicBoolean suspended = new AtomicBoolean(false);
+
+  void connect(MqttTransportProtocol protocolSettings,
+               String topicFilter,
+               InternalEventProcessor<byte[]> eventProcessor) throws SpRuntimeException {
+    Topic[] topics = {new Topic(topicFilter, MqttSettings.getQos(protocolSettings))};
+    try {
+      this.createBrokerConnection(protocolSettings);
+      Promise<byte[]> subscribed = new Promise<>();
+      connection.getDispatchQueue().execute(() -> connection.subscribe(topics, subscribed));
+      subscribed.await(SUBSCRIBE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      ProcessingThreads.newThread("sp-mqtt-consumer-" + topicFilter, false,
+              new ConsumerThread(topicFilter, eventProcessor)).start();
+
+    } catch (Exception e) {
+      throw new SpRuntimeException(e);
+    }
+  }
+
+  /**
+   * Received messages are handed over to the consumer thread, so that the dispatch queue of
+   * the connection is never blocked by event processing. If the consumer thread falls behind,
+   * reading from the socket is suspended until the queue is half empty again.
+   */
+  @Override
+  protected void configureConnection(CallbackConnection connection) {
+    connection.listener(new Listener() {
+      @Override
+      public void onConnected() {
+      }
+
+      @Override
+      public void onDisconnected() {
+      }
+
+      @Override
+      public void onPublish(UTF8Buffer topic, Buffer body, Runnable ack) {
+        deliveries.add(new Delivery(body.toByteArray(), ack));
+        if (deliveries.size() >= settings.getConsumerQueueCapacity()
+                && suspended.compareAndSet(false, true)) {
+          connection.suspend();
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable value) {
+        LOG.error("MQTT connection failed", value);
+      }
+    });
+  }
+
+  private static class Delivery {
+
+    private final byte[] payload;
+    private final Runnable ack;
+
+    Delivery(byte[] payload, Runnable ack) {
+      this.payload = payload;
+      this.ack = ack;
+    }
+  }
+
+  private class ConsumerThread implements Runnable {
+
+    private final String topicFilter;
+    private final InternalEventProcessor<byte[]> eventProcessor;
+    private final List<Runnable> pendingAcks;
+
+    public ConsumerThread(String topicFilter, InternalEventProcessor<byte[]> eventProcessor) {
+      this.topicFilter = topicFilter;
+      this.eventProcessor = eventProcessor;
+      this.pendingAcks = new ArrayList<>();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (connected) {
+          Delivery delivery = deliveries.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+          if (delivery != null) {
+            process(delivery);
+          }
+          if (pendingAcks.size() >= settings.getAckBatchSize()
+                  || (!pendingAcks.isEmpty() && deliveries.isEmpty())) {
+            flushAcks();
+          }
+          if (suspended.get() && deliveries.size() <= settings.getConsumerQueueCapacity() / 2
+                  && suspended.compareAndSet(true, false)) {
+            connection.getDispatchQueue().execute(connection::resume);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Failed events are acknowledged as well, as a redelivery would fail again.
+     */
+    private void process(Delivery delivery) {
+      try {
+        eventProcessor.onEvent(delivery.payload);
+      } catch (RuntimeException e) {
+        LOG.error("Could not process event from MQTT topic " + topicFilter, e);
+      } finally {
+        pendingAcks.add(delivery.ack);
+      }
+    }
+
+    /**
+     * Sends all pending acknowledgements with a single task on the dispatch queue instead of
+     * one round trip per message.
+     */
+    private void flushAcks() {
+      List<Runnable> acks = new ArrayList<>(pendingAcks);
+      pendingAcks.clear();
+      connection.getDispatchQueue().execute(() -> acks.forEach(Runnable::run));
+    }
+  }
+
+  void disconnect() throws SpRuntimeException {
+    try {
+      this.connected = false;
+      this.closeBrokerConnection();
+    } catch (Exception e) {
+      throw new SpRuntimeException(e);
+    } finally {
+      this.connected = false;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.mqtt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestMqttConsumer {
+
+  @Test
+  public void testTopicFilterWithoutGroup() {
+    assertEquals("sensor/temperature", MqttConsumer.makeTopicFilter("sensor/temperature", null));
+  }
+
+  @Test
+  public void testSharedSubscriptionWithGroup() {
+    assertEquals("$share/group/sensor/temperature",
+            MqttConsumer.makeTopicFilter("sensor/temperature", "group"));
+  }
+
+  @Test
+  public void testDeliveryOfSeveralConnectionsIsSerialized() throws InterruptedException {
+    AtomicInteger concurrent = new AtomicInteger();
+    AtomicInteger maxConcurrent = new AtomicInteger();
+    MqttConsumer.SerializedEventProcessor processor =
+            new MqttConsumer.SerializedEventProcessor(event -> {
+              maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+              Thread.yield();
+              concurrent.decrementAndGet();
+            });
+
+    ExecutorService connections = Executors.newFixedThreadPool(4);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < 4; i++) {
+      connections.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int j = 0; j < 10000; j++) {
+          processor.onEvent(new byte[0]);
+        }
+      });
+    }
+    start.countDown();
+    connections.shutdown();
+
+    assertTrue(connections.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(1, maxConcurrent.get());
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging;
+
+import java.util.Map;
+
+/**
+ * An event consumer which defers committing its read positions to the checkpoints of the
+ * consuming pipeline element, so that positions are only committed once the state covering
+ * the consumed events has been persisted. Restarts then resume from the position of the
+ * restored state instead of re-reading or skipping events.
+ */
+public interface CheckpointAwareConsumer {
+
+  /**
+   * Defers commits of read positions to checkpoints. Must be called before connecting.
+   *
+   * @return false if the consumer is already connected.
+   */
+  boolean enableCheckpointCommits();
+
+  /**
+   * Returns to committing the positions of processed events, e.g., once further pipeline
+   * elements share the consumer whose processing is not covered by the checkpoints. Positions
+   * passed to {@link #commitCheckpoint(Map)} afterwards are ignored.
+   */
+  void disableCheckpointCommits();
+
+  /**
+   * @return the positions following the last event whose processing has completed, by source
+   * (e.g., topic partition).
+   */
+  Map<String, Long> markCheckpoint();
+
+  /**
+   * Commits positions previously returned by {@link #markCheckpoint()}, after the checkpoint
+   * has been persisted.
+   */
+  void commitCheckpoint(Map<String, Long> positions);
+}
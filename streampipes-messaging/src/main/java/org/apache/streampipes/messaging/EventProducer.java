@@ -22,6 +22,7 @@ import org.apache.streampipes.commons.exceptions.SpRuntimeException;
 import org.apache.streampipes.model.grounding.TransportProtocol;
 
 import java.io.Serializable;
+import java.util.List;
 
 public interface EventProducer<TP extends TransportProtocol> extends Serializable {
 
@@ -29,6 +30,16 @@ public interface EventProducer<TP extends TransportProtocol> extends Serializabl
 
     void publish(byte[] event);
 
+    /**
+     * Publishes a batch of events. Producers which can send a batch more efficiently than
+     * single events should override this method.
+     */
+    default void publish(List<byte[]> events) {
+        for (byte[] event : events) {
+            publish(event);
+        }
+    }
+
     void disconnect() throws SpRuntimeException;
 
     Boolean isConnected();
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.inmemory;
+
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A named topic inside the JVM. Published events are put into a bounded {@link InMemoryQueue}
+ * and delivered to all subscribers by a dedicated dispatcher thread, so that publishers are
+ * decoupled from the processing time of subscribers. Events are passed by reference and must not
+ * be modified after they have been published.
+ *
+ * If the queue is full, {@link #publish(Object)} blocks until the dispatcher has caught up. Events
+ * published while there are no subscribers are discarded, as with a broker topic. The dispatcher
+ * parks while the queue is empty and is woken up by the next publish.
+ *
+ * Alternatively, {@link #deliver(Object)} passes an event to the subscribers on the calling
+ * thread; the dispatcher thread is only started once an event is published through the queue.
+ */
+public class InMemoryChannel<T> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InMemoryChannel.class);
+
+  private final String name;
+  private final InMemoryQueue<T> queue;
+  private final List<InternalEventProcessor<T>> subscribers = new CopyOnWriteArrayList<>();
+
+  private final ReentrantLock fullLock = new ReentrantLock();
+  private final Condition notFull = fullLock.newCondition();
+  private volatile int blockedPublishers;
+
+  private volatile boolean running;
+  private volatile boolean dispatcherIdle;
+  private boolean stopped;
+  private volatile Thread dispatcher;
+  int references;
+
+  public InMemoryChannel(String name, int capacity) {
+    this.name = name;
+    this.queue = new InMemoryQueue<>(capacity);
+  }
+
+  public void publish(T event) {
+    if (subscribers.isEmpty()) {
+      return;
+    }
+    if (!running) {
+      start();
+    }
+    if (!queue.offer(event) && !awaitOffer(event)) {
+      return;
+    }
+    Thread current = dispatcher;
+    if (dispatcherIdle && current != null) {
+      LockSupport.unpark(current);
+    }
+  }
+
+  /**
+   * Delivers the event to all subscribers on the calling thread, bypassing the queue.
+   */
+  public void deliver(T event) {
+    notifySubscribers(event);
+  }
+
+  public void subscribe(InternalEventProcessor<T> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  public void unsubscribe(InternalEventProcessor<T> subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  private synchronized void start() {
+    if (!running && !stopped) {
+      running = true;
+      dispatcher = new Thread(this::dispatch, "sp-in-memory-" + name);
+      dispatcher.setDaemon(true);
+      dispatcher.start();
+    }
+  }
+
+  synchronized void stop() {
+    stopped = true;
+    running = false;
+    if (dispatcher != null) {
+      LockSupport.unpark(dispatcher);
+      dispatcher = null;
+    }
+    signalPublishers();
+  }
+
+  private boolean awaitOffer(T event) {
+    fullLock.lock();
+    try {
+      blockedPublishers++;
+      while (!queue.offer(event)) {
+        if (!running) {
+          return false;
+        }
+        notFull.await();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      blockedPublishers--;
+      fullLock.unlock();
+    }
+  }
+
+  private void signalPublishers() {
+    fullLock.lock();
+    try {
+      notFull.signalAll();
+    } finally {
+      fullLock.unlock();
+    }
+  }
+
+  private void dispatch() {
+    while (running) {
+      T event = queue.poll();
+      if (event == null) {
+        dispatcherIdle = true;
+        // re-check after announcing the idle state, so that a concurrent publish cannot be missed
+        if (queue.size() == 0 && running) {
+          LockSupport.park(this);
+        }
+        dispatcherIdle = false;
+      } else {
+        if (blockedPublishers > 0) {
+          signalPublishers();
+        }
+        notifySubscribers(event);
+      }
+    }
+  }
+
+  private void notifySubscribers(T event) {
+    for (InternalEventProcessor<T> subscriber : subscribers) {
+      try {
+        subscriber.onEvent(event);
+      } catch (RuntimeException e) {
+        LOG.error("Subscriber of in-memory topic {} failed to process event", name, e);
+      }
+    }
+  }
+}
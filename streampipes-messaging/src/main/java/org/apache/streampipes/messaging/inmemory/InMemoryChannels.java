@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.inmemory;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the {@link InMemoryChannel}s of this JVM. Channels are identified by topic name and
+ * payload type and are reference-counted: a channel is created when the first publisher or
+ * consumer acquires it and stopped when the last one releases it.
+ *
+ * The queue capacity of new channels can be set with the environment variable
+ * {@code SP_IN_MEMORY_QUEUE_CAPACITY}.
+ */
+public class InMemoryChannels {
+
+  private static final String QUEUE_CAPACITY_ENV = "SP_IN_MEMORY_QUEUE_CAPACITY";
+  private static final int QUEUE_CAPACITY_DEFAULT = 8192;
+
+  private static final Map<String, InMemoryChannel<?>> channels = new HashMap<>();
+
+  @SuppressWarnings("unchecked")
+  public static <T> InMemoryChannel<T> acquire(String topic, Class<? super T> payloadType) {
+    synchronized (channels) {
+      InMemoryChannel<?> channel = channels.computeIfAbsent(makeKey(topic, payloadType),
+              key -> new InMemoryChannel<>(topic, getQueueCapacity()));
+      channel.references++;
+      return (InMemoryChannel<T>) channel;
+    }
+  }
+
+  public static void release(String topic, Class<?> payloadType) {
+    synchronized (channels) {
+      String key = makeKey(topic, payloadType);
+      InMemoryChannel<?> channel = channels.get(key);
+      if (channel != null && --channel.references == 0) {
+        channels.remove(key);
+        channel.stop();
+      }
+    }
+  }
+
+  private static String makeKey(String topic, Class<?> payloadType) {
+    return payloadType.getName() + ":" + topic;
+  }
+
+  private static int getQueueCapacity() {
+    return EnvironmentVariables.getInt(QUEUE_CAPACITY_ENV, QUEUE_CAPACITY_DEFAULT, 1);
+  }
+}
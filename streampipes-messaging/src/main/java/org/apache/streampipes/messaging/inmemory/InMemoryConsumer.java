@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.inmemory;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.EventConsumer;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
+
+import java.io.Serializable;
+
+public class InMemoryConsumer implements EventConsumer<InMemoryTransportProtocol>, Serializable {
+
+  private String topic;
+  private transient InMemoryChannel<byte[]> channel;
+  private transient InternalEventProcessor<byte[]> eventProcessor;
+  private volatile Boolean connected = false;
+
+  @Override
+  public void connect(InMemoryTransportProtocol protocolSettings,
+                      InternalEventProcessor<byte[]> eventProcessor) throws SpRuntimeException {
+    this.topic = protocolSettings.getTopicDefinition().getActualTopicName();
+    this.eventProcessor = eventProcessor;
+    this.channel = InMemoryChannels.acquire(topic, byte[].class);
+    this.channel.subscribe(eventProcessor);
+    this.connected = true;
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    if (connected) {
+      this.connected = false;
+      channel.unsubscribe(eventProcessor);
+      InMemoryChannels.release(topic, byte[].class);
+    }
+  }
+
+  @Override
+  public Boolean isConnected() {
+    return connected;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.messaging.inmemory;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.EventProducer;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
+
+public class InMemoryPublisher implements EventProducer<InMemoryTransportProtocol> {
+
+  private String topic;
+  private transient InMemoryChannel<byte[]> channel;
+  private volatile Boolean connected = false;
+
+  @Override
+  public void connect(InMemoryTransportProtocol protocolSettings) throws SpRuntimeException {
+    this.topic = protocolSettings.getTopicDefinition().getActualTopicName();
+    this.channel = InMemoryChannels.acquire(topic, byte[].class);
+    this.connected = true;
+  }
+
+  @Override
+  public void publish(byte[] event) {
+    if (connected) {
+      channel.publish(event);
+    }
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    if (connected) {
+      this.connected = false;
+      InMemoryChannels.release(topic, byte[].class);
+    }
+  }
+
+  @Override
+  public Boolean isConnected() {
+    return connected;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestInMemoryChannel {
+
+  @Test
+  public void testPublishDeliversInOrder() throws InterruptedException {
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 4);
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    channel.subscribe(received::add);
+
+    // more events than the capacity, so that publishers block until the dispatcher catches up
+    for (int i = 0; i < 1000; i++) {
+      channel.publish(i);
+    }
+    await(() -> received.size() == 1000);
+    channel.stop();
+
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, received.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testDispatcherWakesUpAfterIdling() throws InterruptedException {
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 4);
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    channel.subscribe(received::add);
+
+    for (int i = 0; i < 5; i++) {
+      channel.publish(i);
+      int expected = i + 1;
+      await(() -> received.size() == expected);
+      // lets the dispatcher park before the next event is published
+      Thread.sleep(20);
+    }
+    channel.stop();
+  }
+
+  @Test
+  public void testConcurrentPublishersWithSlowSubscriber() throws Exception {
+    int publishers = 4;
+    int eventsPerPublisher = 2000;
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 2);
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    channel.subscribe(event -> {
+      if (event % 100 == 0) {
+        Thread.yield();
+      }
+      received.add(event);
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(publishers);
+    List<Future<?>> tasks = new ArrayList<>();
+    for (int p = 0; p < publishers; p++) {
+      int first = p * eventsPerPublisher;
+      tasks.add(executor.submit(() -> {
+        for (int i = first; i < first + eventsPerPublisher; i++) {
+          channel.publish(i);
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      task.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+    await(() -> received.size() == publishers * eventsPerPublisher);
+    channel.stop();
+
+    assertEquals(publishers * eventsPerPublisher, received.stream().distinct().count());
+  }
+
+  @Test
+  public void testDeliverRunsOnCallingThread() {
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 4);
+    List<Thread> threads = new ArrayList<>();
+    channel.subscribe(event -> threads.add(Thread.currentThread()));
+
+    channel.deliver(1);
+
+    assertEquals(1, threads.size());
+    assertSame(Thread.currentThread(), threads.get(0));
+  }
+
+  @Test
+  public void testEventsWithoutSubscribersAreDiscarded() {
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 4);
+
+    channel.publish(1);
+
+    assertEquals(0, channel.getQueueDepth());
+  }
+
+  @Test
+  public void testStopReleasesBlockedPublishers() throws Exception {
+    InMemoryChannel<Integer> channel = new InMemoryChannel<>("test", 1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    channel.subscribe(event -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    channel.publish(1);
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    channel.publish(2);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    // the queue is full and the subscriber is blocked, so this publisher waits
+    Future<?> publisher = executor.submit(() -> channel.publish(3));
+    Thread.sleep(50);
+
+    channel.stop();
+    publisher.get(5, TimeUnit.SECONDS);
+    release.countDown();
+    executor.shutdown();
+  }
+
+  private void await(Condition condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.isMet()) {
+      assertTrue("Timed out waiting for condition", System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  private interface Condition {
+    boolean isMet();
+  }
+}
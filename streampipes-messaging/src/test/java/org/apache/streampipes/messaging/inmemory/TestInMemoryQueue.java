@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.messaging.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class TestInMemoryQueue {
+
+  @Test
+  public void testCapacityIsRoundedToPowerOfTwo() {
+    assertEquals(1, new InMemoryQueue<>(1).getCapacity());
+    assertEquals(8, new InMemoryQueue<>(5).getCapacity());
+    assertEquals(8, new InMemoryQueue<>(8).getCapacity());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsInvalidCapacity() {
+    new InMemoryQueue<>(0);
+  }
+
+  @Test
+  public void testOfferFailsWhenFullAndPollWhenEmpty() {
+    InMemoryQueue<Integer> queue = new InMemoryQueue<>(2);
+
+    assertNull(queue.poll());
+    assertTrue(queue.offer(1));
+    assertTrue(queue.offer(2));
+    assertFalse(queue.offer(3));
+    assertEquals(2, queue.size());
+    assertEquals(1, queue.poll().intValue());
+    assertTrue(queue.offer(3));
+  }
+
+  @Test
+  public void testWrapAroundKeepsOrder() {
+    InMemoryQueue<Integer> queue = new InMemoryQueue<>(4);
+    int next = 0;
+    int expected = 0;
+    // many laps over the ring with varying fill levels
+    for (int lap = 0; lap < 1000; lap++) {
+      int count = 1 + lap % 4;
+      for (int i = 0; i < count; i++) {
+        assertTrue(queue.offer(next++));
+      }
+      for (int i = 0; i < count; i++) {
+        assertEquals(expected++, queue.poll().intValue());
+      }
+      assertNull(queue.poll());
+      assertEquals(0, queue.size());
+    }
+  }
+
+  @Test
+  public void testConcurrentOfferAndPoll() throws Exception {
+    int producers = 4;
+    int consumers = 4;
+    int itemsPerProducer = 20000;
+    InMemoryQueue<Integer> queue = new InMemoryQueue<>(64);
+    AtomicIntegerArray received = new AtomicIntegerArray(producers * itemsPerProducer);
+    AtomicBoolean producing = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+
+    List<Future<?>> producerTasks = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int first = p * itemsPerProducer;
+      producerTasks.add(executor.submit(() -> {
+        for (int i = first; i < first + itemsPerProducer; i++) {
+          while (!queue.offer(i)) {
+            Thread.yield();
+          }
+        }
+      }));
+    }
+    List<Future<?>> consumerTasks = new ArrayList<>();
+    for (int c = 0; c < consumers; c++) {
+      consumerTasks.add(executor.submit(() -> {
+        while (producing.get() || queue.size() > 0) {
+          Integer item = queue.poll();
+          if (item != null) {
+            received.incrementAndGet(item);
+          } else {
+            Thread.yield();
+          }
+        }
+      }));
+    }
+    for (Future<?> task : producerTasks) {
+      task.get(30, TimeUnit.SECONDS);
+    }
+    producing.set(false);
+    for (Future<?> task : consumerTasks) {
+      task.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    for (int i = 0; i < received.length(); i++) {
+      assertEquals("Item " + i, 1, received.get(i));
+    }
+    assertNull(queue.poll());
+  }
+}
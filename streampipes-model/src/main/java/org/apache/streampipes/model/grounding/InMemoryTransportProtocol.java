@@ -0,0 +1,66 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.model.grounding;
+
+import io.fogsy.empire.annotations.RdfProperty;
+import io.fogsy.empire.annotations.RdfsClass;
+import org.apache.streampipes.vocabulary.StreamPipes;
+
+import javax.persistence.Entity;
+
+/**
+ * Transport protocol for pipeline elements running in the same extensions container. Events are
+ * handed over through an in-memory queue of the container instead of a message broker, so the
+ * broker hostname is not used.
+ */
+@RdfsClass(StreamPipes.IN_MEMORY_TRANSPORT_PROTOCOL)
+@Entity
+public class InMemoryTransportProtocol extends TransportProtocol {
+
+  @RdfProperty(StreamPipes.IS_FUSED)
+  private boolean fused;
+
+  public InMemoryTransportProtocol(String topicName) {
+    super(null, new SimpleTopicDefinition(topicName));
+  }
+
+  public InMemoryTransportProtocol(String topicName, boolean fused) {
+    this(topicName);
+    this.fused = fused;
+  }
+
+  public InMemoryTransportProtocol(InMemoryTransportProtocol other) {
+    super(other);
+    this.fused = other.isFused();
+  }
+
+  public InMemoryTransportProtocol() {
+    super();
+  }
+
+  /**
+   * A fused topic connects two elements of a linear chain: events are passed on synchronously
+   * by the thread which processed them in the upstream element, without a queue in between.
+   */
+  public boolean isFused() {
+    return fused;
+  }
+
+  public void setFused(boolean fused) {
+    this.fused = fused;
+  }
+}
@@ -32,6 +32,9 @@ public class JmsTransportProtocol extends TransportProtocol {
 	
 	@RdfProperty(StreamPipes.JMS_PORT)
 	private int port;
+
+	@RdfProperty(StreamPipes.JMS_CONSUMER_GROUP)
+	private String consumerGroup;
 	
 	public JmsTransportProtocol(String uri, int port, String topicName)
 	{
@@ -43,6 +46,7 @@ public class JmsTransportProtocol extends TransportProtocol {
 	{
 		super(other);
 		this.port = other.getPort();
+		this.consumerGroup = other.getConsumerGroup();
 	}
 	
 	public JmsTransportProtocol() 
@@ -58,6 +62,22 @@ public class JmsTransportProtocol extends TransportProtocol {
 		this.port = port;
 	}
 
+	public String getConsumerGroup() {
+		return consumerGroup;
+	}
+
+	/**
+	 * Lets consumers of the topic share its messages instead of each receiving a copy. Must be
+	 * set on the grounding of the stream, as publishers then forward messages to the ActiveMQ
+	 * virtual topic from which the consumers of the group read.
+	 *
+	 * The pipeline management does not set a group, as it starts a single instance of each
+	 * pipeline element, so the group is only used by groundings which declare it explicitly.
+	 */
+	public void setConsumerGroup(String consumerGroup) {
+		this.consumerGroup = consumerGroup;
+	}
+
 	@Override
 	public String toString() {
 		return getBrokerHostname() + ":" + getPort();
@@ -60,6 +60,9 @@ public class KafkaTransportProtocol extends TransportProtocol {
   @RdfProperty(StreamPipes.KAFKA_GROUP_ID)
   private String groupId;
 
+  @RdfProperty(StreamPipes.KAFKA_GROUP_INSTANCE_ID)
+  private String groupInstanceId;
+
   public KafkaTransportProtocol(String kafkaHost, int kafkaPort, String topic) {
     super(kafkaHost, new SimpleTopicDefinition(topic));
     this.zookeeperHost = kafkaHost;
@@ -82,6 +85,7 @@ public class KafkaTransportProtocol extends TransportProtocol {
     this.acks = other.getAcks();
     this.batchSize = other.getBatchSize();
     this.groupId = other.getGroupId();
+    this.groupInstanceId = other.getGroupInstanceId();
     this.lingerMs = other.getLingerMs();
     this.maxRequestSize = other.getMaxRequestSize();
     this.messageMaxBytes = other.getMessageMaxBytes();
@@ -175,6 +179,14 @@ public class KafkaTransportProtocol extends TransportProtocol {
     this.groupId = groupId;
   }
 
+  public String getGroupInstanceId() {
+    return groupInstanceId;
+  }
+
+  public void setGroupInstanceId(String groupInstanceId) {
+    this.groupInstanceId = groupInstanceId;
+  }
+
   public String getMaxRequestSize() {
     return maxRequestSize;
   }
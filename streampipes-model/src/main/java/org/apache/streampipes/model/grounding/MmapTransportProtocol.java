@@ -0,0 +1,82 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.apache.streampipes.model.grounding;
+
+import io.fogsy.empire.annotations.RdfProperty;
+import io.fogsy.empire.annotations.RdfsClass;
+import org.apache.streampipes.vocabulary.StreamPipes;
+
+import javax.persistence.Entity;
+
+/**
+ * Transport protocol for extensions containers on the same host. Each topic is a ring buffer in a
+ * memory-mapped file of the shared directory, so no broker process is needed. The buffer size
+ * bounds how far a consumer may lag behind before it misses events.
+ */
+@RdfsClass(StreamPipes.MMAP_TRANSPORT_PROTOCOL)
+@Entity
+public class MmapTransportProtocol extends TransportProtocol {
+
+  @RdfProperty(StreamPipes.HAS_MMAP_DIRECTORY)
+  private String directory;
+
+  @RdfProperty(StreamPipes.HAS_MMAP_BUFFER_SIZE)
+  private Integer bufferSize;
+
+  public MmapTransportProtocol(String directory, String topicName)
+  {
+    super(null, new SimpleTopicDefinition(topicName));
+    this.directory = directory;
+  }
+
+  public MmapTransportProtocol(MmapTransportProtocol other)
+  {
+    super(other);
+    this.directory = other.getDirectory();
+    this.bufferSize = other.getBufferSize();
+  }
+
+  public MmapTransportProtocol()
+  {
+    super();
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the size of the ring buffer in bytes or null if the default size of the messaging
+   * layer should be used.
+   */
+  public Integer getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(Integer bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  @Override
+  public String toString() {
+    return getDirectory();
+  }
+}
@@ -29,6 +29,12 @@ public class MqttTransportProtocol extends TransportProtocol {
   @RdfProperty(StreamPipes.HAS_MQTT_PORT)
   private int port;
 
+  @RdfProperty(StreamPipes.HAS_MQTT_QOS)
+  private Integer qos;
+
+  @RdfProperty(StreamPipes.HAS_MQTT_CONSUMER_GROUP)
+  private String consumerGroup;
+
   public MqttTransportProtocol(String hostname, int port, String topicName)
   {
     super(hostname, new SimpleTopicDefinition(topicName));
@@ -39,6 +45,8 @@ public class MqttTransportProtocol extends TransportProtocol {
   {
     super(other);
     this.port = other.getPort();
+    this.qos = other.getQos();
+    this.consumerGroup = other.getConsumerGroup();
   }
 
   public MqttTransportProtocol()
@@ -54,6 +62,32 @@ public class MqttTransportProtocol extends TransportProtocol {
     this.port = port;
   }
 
+  /**
+   * @return the MQTT quality of service level (0, 1 or 2) used for this stream or null if the
+   * default level of the messaging layer should be used.
+   */
+  public Integer getQos() {
+    return qos;
+  }
+
+  public void setQos(Integer qos) {
+    this.qos = qos;
+  }
+
+  /**
+   * @return the name of the shared subscription group or null if every consumer should
+   * receive all messages of the topic. The pipeline management does not set a group, as it
+   * starts a single instance of each pipeline element, so the group is only used by groundings
+   * which declare it explicitly.
+   */
+  public String getConsumerGroup() {
+    return consumerGroup;
+  }
+
+  public void setConsumerGroup(String consumerGroup) {
+    this.consumerGroup = consumerGroup;
+  }
+
   @Override
   public String toString() {
     return getBrokerHostname() + ":" + getPort();
@@ -34,6 +34,8 @@ import javax.persistence.*;
 				@JsonSubTypes.Type(JmsTransportProtocol.class),
 				@JsonSubTypes.Type(KafkaTransportProtocol.class),
 				@JsonSubTypes.Type(MqttTransportProtocol.class),
+				@JsonSubTypes.Type(InMemoryTransportProtocol.class),
+				@JsonSubTypes.Type(MmapTransportProtocol.class),
 })
 public abstract class TransportProtocol extends UnnamedStreamPipesEntity {
 	
@@ -51,7 +51,15 @@ public class EventConverter {
     return toMap(false);
   }
 
-  private Object makeEntry(AbstractField value, Boolean renameProperties) {
+  /**
+   * @return the value of the field as contained in the input event map, i.e., with nested
+   * fields and lists converted to maps and lists of raw values.
+   */
+  public static Object toInputValue(AbstractField field) {
+    return makeEntry(field, false);
+  }
+
+  private static Object makeEntry(AbstractField value, Boolean renameProperties) {
     if (PrimitiveField.class.isInstance(value)) {
       return value.getRawValue();
     } else if (ListField.class.isInstance(value)) {
@@ -69,7 +77,7 @@ public class EventConverter {
     }
   }
 
-  private String getValue(AbstractField field, Boolean renameProperties) {
+  private static String getValue(AbstractField field, Boolean renameProperties) {
     return renameProperties ? field.getFieldNameOut() : field.getFieldNameIn();
   }
 }
@@ -132,6 +132,10 @@ public class Cloner {
       return new JmsTransportProtocol((JmsTransportProtocol) protocol);
     } else if (protocol instanceof MqttTransportProtocol) {
       return new MqttTransportProtocol((MqttTransportProtocol) protocol);
+    } else if (protocol instanceof InMemoryTransportProtocol) {
+      return new InMemoryTransportProtocol((InMemoryTransportProtocol) protocol);
+    } else if (protocol instanceof MmapTransportProtocol) {
+      return new MmapTransportProtocol((MmapTransportProtocol) protocol);
     } else {
       LOG.error("Could not clone protocol of type {}", protocol.getClass().getCanonicalName());
       return protocol;
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.performance.tests.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.EventConsumer;
+import org.apache.streampipes.messaging.EventProducer;
+import org.apache.streampipes.messaging.kafka.SpKafkaConsumer;
+import org.apache.streampipes.messaging.kafka.SpKafkaProducer;
+import org.apache.streampipes.messaging.mmap.MmapConsumer;
+import org.apache.streampipes.messaging.mmap.MmapPublisher;
+import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
+import org.apache.streampipes.model.grounding.TransportProtocol;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput and end-to-end latency of the memory-mapped transport with the Kafka
+ * transport. Producer and consumer run in the same JVM, so that the send time can be carried in
+ * the payload as {@link System#nanoTime()}.
+ *
+ * Arguments: number of events, payload size in bytes, mmap directory and optionally the Kafka
+ * broker as host:port. Without a Kafka broker, only the memory-mapped transport is measured.
+ */
+public class MmapTransportTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MmapTransportTest.class);
+
+  private static final long KAFKA_ASSIGNMENT_WAIT_MS = 5000;
+  private static final long RECEIVE_TIMEOUT_SECONDS = 120;
+  private static final long MAX_BUFFER_SIZE = 1 << 30;
+
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int payloadSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+    String directory = args.length > 2 ? args[2] : "/dev/shm/streampipes-perf";
+    String topic = "org.apache.streampipes.perf." + UUID.randomUUID().toString();
+
+    MmapTransportProtocol mmapProtocol = new MmapTransportProtocol(directory, topic);
+    mmapProtocol.setBufferSize((int) Math.min(MAX_BUFFER_SIZE, (long) eventCount * (payloadSize
+            + Long.BYTES)));
+    run("mmap", mmapProtocol, new MmapPublisher(), new MmapConsumer(), eventCount, payloadSize, 0);
+
+    if (args.length > 3) {
+      String[] kafkaUrl = args[3].split(":");
+      run("kafka", new KafkaTransportProtocol(kafkaUrl[0], Integer.parseInt(kafkaUrl[1]), topic),
+              new SpKafkaProducer(), new SpKafkaConsumer(), eventCount, payloadSize,
+              KAFKA_ASSIGNMENT_WAIT_MS);
+    }
+  }
+
+  private static <T extends TransportProtocol> void run(String name,
+                                                        T protocol,
+                                                        EventProducer<T> producer,
+                                                        EventConsumer<T> consumer,
+                                                        int eventCount,
+                                                        int payloadSize,
+                                                        long assignmentWaitMs)
+          throws SpRuntimeException, InterruptedException {
+    long[] latencies = new long[eventCount];
+    AtomicInteger received = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(1);
+
+    consumer.connect(protocol, event -> {
+      int index = received.getAndIncrement();
+      if (index < eventCount) {
+        latencies[index] = System.nanoTime() - ByteBuffer.wrap(event).getLong();
+        if (index == eventCount - 1) {
+          done.countDown();
+        }
+      }
+    });
+    producer.connect(protocol);
+    Thread.sleep(assignmentWaitMs);
+
+    LOG.info("{}: publishing {} events of {} bytes", name, eventCount, payloadSize);
+    long startTime = System.nanoTime();
+    for (int i = 0; i < eventCount; i++) {
+      ByteBuffer payload = ByteBuffer.allocate(Math.max(payloadSize, Long.BYTES));
+      payload.putLong(System.nanoTime());
+      producer.publish(payload.array());
+    }
+    boolean complete = done.await(RECEIVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    long totalTime = System.nanoTime() - startTime;
+
+    consumer.disconnect();
+    producer.disconnect();
+
+    int count = Math.min(received.get(), eventCount);
+    if (!complete) {
+      LOG.warn("{}: received only {} of {} events", name, count, eventCount);
+    }
+    long[] sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+
+    LOG.info("{}: throughput {} events/s", name, count * TimeUnit.SECONDS.toNanos(1) / totalTime);
+    LOG.info("{}: latency p50 {} us, p99 {} us, p99.9 {} us, max {} us", name,
+            percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+            percentile(sorted, 1.0));
+  }
+
+  private static long percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.performance.tests.threading;
+
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many pipeline element instances a container can host with platform and with
+ * virtual processing threads. Each simulated instance has a bounded input queue and a
+ * processing thread created by {@link ProcessingThreads}, like the workers of the execution
+ * stage or the consumer threads of the messaging clients.
+ *
+ * For each mode, the instances are started, the memory and thread usage is logged, a number of
+ * events is sent to every instance and the throughput is measured. Virtual threads require Java
+ * 21 or later; on older JVMs, only platform threads are measured.
+ *
+ * Arguments: number of instances, events per instance and optionally the mode to measure. The
+ * resident memory of a process rarely shrinks, so compare the memory of both modes in separate
+ * runs with a mode argument; the heap usage includes the stacks of parked virtual threads.
+ */
+public class ProcessingThreadDensityTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessingThreadDensityTest.class);
+
+  private static final int QUEUE_CAPACITY = 16;
+  private static final long RECEIVE_TIMEOUT_SECONDS = 300;
+  private static final byte[] STOP = new byte[0];
+
+  public static void main(String[] args) throws Exception {
+    int instanceCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int eventsPerInstance = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    ProcessingThreads.Mode mode = args.length > 2 ? ProcessingThreads.Mode.valueOf(
+            args[2].toUpperCase()) : null;
+
+    if (mode != ProcessingThreads.Mode.VIRTUAL) {
+      run(ProcessingThreads.Mode.PLATFORM, instanceCount, eventsPerInstance);
+    }
+    if (mode != ProcessingThreads.Mode.PLATFORM) {
+      if (ProcessingThreads.isVirtualThreadSupported()) {
+        run(ProcessingThreads.Mode.VIRTUAL, instanceCount, eventsPerInstance);
+      } else {
+        LOG.info("Virtual threads are not supported by this JVM, skipping");
+      }
+    }
+  }
+
+  private static void run(ProcessingThreads.Mode mode, int instanceCount, int eventsPerInstance)
+          throws InterruptedException {
+    System.gc();
+    long rssBefore = getResidentSetSize();
+    long heapBefore = getUsedHeap();
+    int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+    CountDownLatch received = new CountDownLatch(instanceCount * eventsPerInstance);
+    List<BlockingQueue<byte[]>> queues = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+
+    long startTime = System.nanoTime();
+    try {
+      for (int i = 0; i < instanceCount; i++) {
+        BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Thread thread = ProcessingThreads.newThread(mode, "sp-density-" + i, true, () ->
+                process(queue, received));
+        thread.start();
+        queues.add(queue);
+        threads.add(thread);
+      }
+    } catch (OutOfMemoryError e) {
+      LOG.info("{}: could only start {} of {} instances: {}", mode, queues.size(),
+              instanceCount, e.getMessage());
+      stop(queues, threads);
+      return;
+    }
+    long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+    System.gc();
+    long rssAfter = getResidentSetSize();
+    long heapAfter = getUsedHeap();
+    int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+    LOG.info("{}: started {} instances in {} ms, platform threads {} -> {}, resident memory {} "
+                    + "-> {} MB ({} KB per instance), heap {} -> {} MB ({} KB per instance)", mode,
+            instanceCount, startupMillis, threadsBefore, threadsAfter, rssBefore / 1024 / 1024,
+            rssAfter / 1024 / 1024, rssBefore >= 0 ? (rssAfter - rssBefore) / 1024 / instanceCount
+                    : -1, heapBefore / 1024 / 1024, heapAfter / 1024 / 1024,
+            (heapAfter - heapBefore) / 1024 / instanceCount);
+
+    byte[] event = new byte[64];
+    long sendTime = System.nanoTime();
+    for (int i = 0; i < eventsPerInstance; i++) {
+      for (BlockingQueue<byte[]> queue : queues) {
+        queue.put(event);
+      }
+    }
+    boolean complete = received.await(RECEIVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    double seconds = (System.nanoTime() - sendTime) / 1e9;
+    LOG.info("{}: processed {} events in {} s ({} events/s){}", mode,
+            (long) instanceCount * eventsPerInstance - received.getCount(),
+            String.format("%.2f", seconds),
+            String.format("%.0f", (instanceCount * eventsPerInstance - received.getCount())
+                    / seconds), complete ? "" : ", timed out");
+
+    stop(queues, threads);
+  }
+
+  private static void process(BlockingQueue<byte[]> queue, CountDownLatch received) {
+    try {
+      while (queue.take() != STOP) {
+        received.countDown();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void stop(List<BlockingQueue<byte[]>> queues, List<Thread> threads) throws
+          InterruptedException {
+    for (BlockingQueue<byte[]> queue : queues) {
+      queue.put(STOP);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  private static long getUsedHeap() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * @return the resident set size of this process in bytes, or -1 if it is not available.
+   */
+  private static long getResidentSetSize() {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/self/status"),
+              StandardCharsets.UTF_8)) {
+        if (line.startsWith("VmRSS:")) {
+          return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // not running on Linux
+    }
+    return -1;
+  }
+}
@@ -24,13 +24,18 @@ import org.apache.streampipes.manager.util.TopicGenerator;
 import org.apache.streampipes.model.base.InvocableStreamPipesEntity;
 import org.apache.streampipes.model.base.NamedStreamPipesEntity;
 import org.apache.streampipes.model.SpDataStream;
+import org.apache.streampipes.model.graph.DataProcessorInvocation;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
 import org.apache.streampipes.model.grounding.JmsTransportProtocol;
 import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
 import org.apache.streampipes.model.grounding.MqttTransportProtocol;
 import org.apache.streampipes.model.grounding.TransportProtocol;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 public class ProtocolSelector extends GroundingSelector {
 
@@ -49,6 +54,8 @@ public class ProtocolSelector extends GroundingSelector {
             return ((SpDataStream) source)
                     .getEventGrounding()
                     .getTransportProtocol();
+        } else if (supportsProtocol(InMemoryTransportProtocol.class) && isColocated()) {
+            return inMemoryTopic();
         } else {
             for(SpProtocol prioritizedProtocol: prioritizedProtocols) {
                 if (prioritizedProtocol.getProtocolClass().equals(KafkaTransportProtocol.class.getCanonicalName()) &&
@@ -61,12 +68,39 @@ public class ProtocolSelector extends GroundingSelector {
                 } else if (prioritizedProtocol.getProtocolClass().equals(MqttTransportProtocol.class.getCanonicalName()) &&
                         supportsProtocol(MqttTransportProtocol.class)) {
                     return mqttTopic();
+                } else if (prioritizedProtocol.getProtocolClass().equals(MmapTransportProtocol.class.getCanonicalName()) &&
+                        supportsProtocol(MmapTransportProtocol.class) && isSameHost()) {
+                    return mmapTopic();
                 }
             }
         }
         return kafkaTopic();
     }
 
+    /**
+     * The in-memory protocol is only chosen for elements that opted in via
+     * {@code SupportedProtocols.inMemory()}, so pipelines of other elements are not affected.
+     */
+    private TransportProtocol inMemoryTopic() {
+        return new InMemoryTransportProtocol(outputTopic, isLinearChain());
+    }
+
+    /**
+     * Checks whether the source is a data processor whose output is only consumed by a single
+     * element with no other input, so that both can be fused into one task.
+     */
+    private boolean isLinearChain() {
+        if (!(source instanceof DataProcessorInvocation) || targets.size() != 1) {
+            return false;
+        }
+        InvocableStreamPipesEntity target = targets.iterator().next();
+        return target.getInputStreams() != null && target.getInputStreams().size() == 1;
+    }
+
+    private TransportProtocol mmapTopic() {
+        return new MmapTransportProtocol(BackendConfig.INSTANCE.getMmapDirectory(), outputTopic);
+    }
+
     private TransportProtocol mqttTopic() {
         return new MqttTransportProtocol(BackendConfig.INSTANCE.getMqttHost(),
                 BackendConfig.INSTANCE.getMqttPort(),
@@ -88,6 +122,43 @@ public class ProtocolSelector extends GroundingSelector {
     }
 
 
+    /**
+     * Checks whether the source and all targets are served by the same extensions container,
+     * which is identified by the host and port of the element URIs.
+     */
+    private boolean isColocated() {
+        return allMatch(URI::getAuthority);
+    }
+
+    /**
+     * Checks whether the source and all targets are served by containers on the same host, which
+     * is required to share a memory-mapped file. The host is taken from the element URIs, so
+     * containers that are registered under different host names are never considered co-located.
+     */
+    private boolean isSameHost() {
+        return allMatch(URI::getHost);
+    }
+
+    private boolean allMatch(Function<URI, String> location) {
+        List<InvocableStreamPipesEntity> elements = buildInvocables();
+        String sourceLocation = getLocation(elements.get(0), location);
+
+        return sourceLocation != null && elements
+                .stream()
+                .allMatch(e -> sourceLocation.equals(getLocation(e, location)));
+    }
+
+    private String getLocation(InvocableStreamPipesEntity element, Function<URI, String> location) {
+        if (element.getBelongsTo() == null) {
+            return null;
+        }
+        try {
+            return location.apply(URI.create(element.getBelongsTo()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public <T extends TransportProtocol> boolean supportsProtocol(Class<T> protocol) {
         List<InvocableStreamPipesEntity> elements = buildInvocables();
 
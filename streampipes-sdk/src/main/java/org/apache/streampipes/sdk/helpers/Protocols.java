@@ -72,4 +72,15 @@ public class Protocols {
   public static MqttTransportProtocol mqtt(String mqttHost, Integer mqttPort, String topic) {
     return new MqttTransportProtocol(mqttHost, mqttPort, topic);
   }
+
+  /**
+   * Defines a memory-mapped ring buffer as the transport protocol used by a data stream at runtime.
+   * @param directory The directory shared by all extensions containers on the host
+   * @param topic The topic identifier
+   * @return The {@link org.apache.streampipes.model.grounding.MmapTransportProtocol} containing the directory and
+   * topic where data arrives.
+   */
+  public static MmapTransportProtocol mmap(String directory, String topic) {
+    return new MmapTransportProtocol(directory, topic);
+  }
 }
@@ -18,8 +18,10 @@
 
 package org.apache.streampipes.sdk.helpers;
 
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
 import org.apache.streampipes.model.grounding.JmsTransportProtocol;
 import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
+import org.apache.streampipes.model.grounding.MmapTransportProtocol;
 import org.apache.streampipes.model.grounding.MqttTransportProtocol;
 
 public class SupportedProtocols {
@@ -51,4 +53,27 @@ public class SupportedProtocols {
     return new MqttTransportProtocol();
   }
 
+  /**
+   * Defines that a pipeline element (data processor or data sink) supports receiving events from another pipeline
+   * element running in the same extensions container without a broker. The pipeline manager only selects this
+   * protocol if all connected pipeline elements support it and run in the same container.
+   *
+   * The in-memory protocol is opt-in: pipeline elements must declare it explicitly in addition to a broker protocol,
+   * and elements that do not declare it keep exchanging events through the broker. Fusing linear chains of
+   * processors into a single task is only possible on top of this protocol.
+   * @return The {@link org.apache.streampipes.model.grounding.InMemoryTransportProtocol}.
+   */
+  public static InMemoryTransportProtocol inMemory() {
+    return new InMemoryTransportProtocol();
+  }
+
+  /**
+   * Defines that a pipeline element (data processor or data sink) supports processing messages arriving from a
+   * memory-mapped ring buffer shared by extensions containers on the same host.
+   * @return The {@link org.apache.streampipes.model.grounding.MmapTransportProtocol}.
+   */
+  public static MmapTransportProtocol mmap() {
+    return new MmapTransportProtocol();
+  }
+
 }
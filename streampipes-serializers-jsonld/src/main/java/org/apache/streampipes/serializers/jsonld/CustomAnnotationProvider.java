@@ -126,6 +126,8 @@ public class CustomAnnotationProvider implements EmpireAnnotationProvider {
             JmsTransportProtocol.class,
             KafkaTransportProtocol.class,
             MqttTransportProtocol.class,
+            InMemoryTransportProtocol.class,
+            MmapTransportProtocol.class,
             TransportProtocol.class,
             DomainStaticProperty.class,
             SupportedProperty.class,
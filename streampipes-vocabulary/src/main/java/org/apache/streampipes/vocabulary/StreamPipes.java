@@ -112,6 +112,8 @@ public class StreamPipes {
   public static final String JMS_TRANSPORT_PROTOCOL = NS + "JmsTransportProtocol";
   public static final String KAFKA_TRANSPORT_PROTOCOL = NS + "KafkaTransportProtocol";
   public static final String MQTT_TRANSPORT_PROTOCOL = NS + "MqttTransportProtocol";
+  public static final String IN_MEMORY_TRANSPORT_PROTOCOL = NS + "InMemoryTransportProtocol";
+  public static final String MMAP_TRANSPORT_PROTOCOL = NS + "MmapTransportProtocol";
   public static final String TRANSPORT_FORMAT = NS + "TransportFormat";
   public static final String TRANSPORT_PROTOCOL = NS + "TransportProtocol";
 
@@ -144,7 +146,13 @@ public class StreamPipes {
   public static final String HAS_TRANSPORT_PROTOCOL = NS + "hasTransportProtocol";
   public static final String HAS_TRANSPORT_FORMAT = NS + "hasTransportFormat";
   public static final String JMS_PORT = NS + "jmsPort";
+  public static final String JMS_CONSUMER_GROUP = NS + "jmsConsumerGroup";
   public static final String HAS_MQTT_PORT = NS + "hasMqttPort";
+  public static final String HAS_MQTT_QOS = NS + "hasMqttQos";
+  public static final String HAS_MQTT_CONSUMER_GROUP = NS + "hasMqttConsumerGroup";
+  public static final String HAS_MMAP_DIRECTORY = NS + "hasMmapDirectory";
+  public static final String HAS_MMAP_BUFFER_SIZE = NS + "hasMmapBufferSize";
+  public static final String IS_FUSED = NS + "isFused";
 
   public static final String ZOOKEEPER_HOST = NS + "zookeeperHost";
   public static final String ZOOKEEPER_PORT = NS + "zookeeperPort";
@@ -162,6 +170,7 @@ public class StreamPipes {
   public static final String KAFKA_BATCH_SIZE = NS + "kafkaBatchSize";
   public static final String KAFKA_OFFSET = NS + "kafkaOffset";
   public static final String KAFKA_GROUP_ID = NS + "kafkaGroupId";
+  public static final String KAFKA_GROUP_INSTANCE_ID = NS + "kafkaGroupInstanceId";
   public static final String KAFKA_MAX_REQUEST_SIZE = NS + "kafkaMaxRequestSize";
 
   public static final String ERROR_TOPIC = NS + "errorTopic";
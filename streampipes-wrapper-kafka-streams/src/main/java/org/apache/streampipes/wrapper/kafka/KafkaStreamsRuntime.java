@@ -17,6 +17,7 @@
  */
 package org.apache.streampipes.wrapper.kafka;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StreamsConfig;
@@ -48,6 +49,9 @@ public abstract class KafkaStreamsRuntime<RP extends RuntimeParams<B, I, RC>, B
     config.put(StreamsConfig.APPLICATION_ID_CONFIG, gneerateApplicationId(runtimeParams.getBindingParams()
             .getGraph()
             .getElementId()));
+    // static membership: a restart of this instance rejoins the group without a rebalance
+    config.put(StreamsConfig.consumerPrefix(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG),
+            gneerateApplicationId(runtimeParams.getBindingParams().getGraph().getElementId()));
     config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, getKafkaUrl(runtimeParams.getBindingParams().getGraph()
             .getInputStreams().get(0)));
     config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass());
@@ -18,6 +18,7 @@
 package org.apache.streampipes.wrapper.siddhi;
 
 import org.apache.streampipes.wrapper.siddhi.definition.SiddhiDefinition;
+import org.apache.streampipes.wrapper.siddhi.input.SiddhiInputConfig;
 import org.apache.streampipes.wrapper.siddhi.output.SiddhiOutputConfig;
 import org.apache.streampipes.wrapper.siddhi.query.SiddhiQuery;
 
@@ -29,10 +30,12 @@ public class SiddhiAppConfig {
   private List<String> queries;
   private List<String> definitions;
   private SiddhiOutputConfig outputConfig;
+  private SiddhiInputConfig inputConfig;
 
   public SiddhiAppConfig() {
     this.queries = new ArrayList<>();
     this.definitions = new ArrayList<>();
+    this.inputConfig = new SiddhiInputConfig();
   }
 
   public void addDefinition(SiddhiDefinition definition) {
@@ -67,4 +70,12 @@ public class SiddhiAppConfig {
     this.outputConfig = outputConfig;
   }
 
+  public SiddhiInputConfig getInputConfig() {
+    return inputConfig;
+  }
+
+  public void setInputConfig(SiddhiInputConfig inputConfig) {
+    this.inputConfig = inputConfig;
+  }
+
 }
@@ -54,6 +54,31 @@ public class SiddhiAppConfigBuilder {
     return this;
   }
 
+  /**
+   * Sends events to Siddhi in micro-batches of up to maxBatchSize events, which are sent at the
+   * latest maxBatchDelayMs after their first event has been received.
+   */
+  public SiddhiAppConfigBuilder withInputBatching(int maxBatchSize, long maxBatchDelayMs) {
+    this.siddhiAppConfig.setInputConfig(this.siddhiAppConfig.getInputConfig()
+            .withBatching(maxBatchSize, maxBatchDelayMs));
+    return this;
+  }
+
+  /**
+   * Declares the input streams as asynchronous, so that events are processed by the given
+   * number of Siddhi worker threads instead of the thread which receives them.
+   */
+  public SiddhiAppConfigBuilder withAsyncInputStreams(int bufferSize, int workers) {
+    return withAsyncInputStreams(bufferSize, workers, 0);
+  }
+
+  public SiddhiAppConfigBuilder withAsyncInputStreams(int bufferSize, int workers,
+                                                      int maxBatchSize) {
+    this.siddhiAppConfig.setInputConfig(this.siddhiAppConfig.getInputConfig()
+            .withAsyncStreams(bufferSize, workers, maxBatchSize));
+    return this;
+  }
+
   public SiddhiAppConfig build() {
     return this.siddhiAppConfig;
   }
@@ -19,10 +19,15 @@ package org.apache.streampipes.wrapper.siddhi.engine;
 
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.stream.output.StreamCallback;
 import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.definition.StreamDefinition;
+import org.apache.streampipes.model.constants.PropertySelectorConstants;
+import org.apache.streampipes.model.runtime.EventConverter;
+import org.apache.streampipes.model.runtime.field.AbstractField;
+import org.apache.streampipes.model.runtime.field.PrimitiveField;
 import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
 import org.apache.streampipes.wrapper.params.binding.EventProcessorBindingParams;
 import org.apache.streampipes.wrapper.routing.SpOutputCollector;
@@ -30,30 +35,44 @@ import org.apache.streampipes.wrapper.siddhi.engine.callback.SiddhiDebugCallback
 import org.apache.streampipes.wrapper.siddhi.engine.callback.SiddhiOutputStreamCallback;
 import org.apache.streampipes.wrapper.siddhi.engine.callback.SiddhiOutputStreamDebugCallback;
 import org.apache.streampipes.wrapper.siddhi.engine.generator.SiddhiInvocationConfigGenerator;
+import org.apache.streampipes.wrapper.siddhi.input.SiddhiInputConfig;
 import org.apache.streampipes.wrapper.siddhi.manager.SpSiddhiManager;
 import org.apache.streampipes.wrapper.siddhi.model.EventPropertyDef;
 import org.apache.streampipes.wrapper.siddhi.utils.SiddhiUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class SiddhiEngine {
 
   private static final Logger LOG = LoggerFactory.getLogger(SiddhiEngine.class);
 
   private SiddhiAppRuntime siddhiAppRuntime;
-  private final Map<String, InputHandler> siddhiInputHandlers;
-  private Map<String, List<EventPropertyDef>> typeInfo;
+  private final Map<String, InputMapping> inputMappings;
+
+  // micro-batch of events in the order of arrival, each with the mapping of its input stream
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition bufferChanged = lock.newCondition();
+  private SiddhiInputConfig inputConfig;
+  private InputMapping[] bufferedMappings;
+  private Event[] bufferedEvents;
+  private int bufferedCount;
+  private long firstBufferedAt;
+  private Thread flushThread;
+  private volatile boolean running;
 
   private Boolean debugMode;
   private SiddhiDebugCallback debugCallback;
 
   public SiddhiEngine() {
-    this.siddhiInputHandlers = new HashMap<>();
+    this.inputMappings = new HashMap<>();
     this.debugMode = false;
   }
 
@@ -68,7 +87,8 @@ public class SiddhiEngine {
                                EventProcessorRuntimeContext runtimeContext) {
 
     EventProcessorBindingParams params = settings.getSiddhiProcessorParams().getParams();
-    this.typeInfo = settings.getSiddhiProcessorParams().getEventTypeInfo();
+    Map<String, List<EventPropertyDef>> typeInfo = settings.getSiddhiProcessorParams()
+            .getEventTypeInfo();
     SiddhiManager siddhiManager = SpSiddhiManager.INSTANCE.getSiddhiManager();
 
     //this.timestampField = removeStreamIdFromTimestamp(setTimestamp(parameters));
@@ -78,7 +98,8 @@ public class SiddhiEngine {
             .getInEventTypes()
             .forEach((key, value) -> {
               String preparedKey = SiddhiUtils.prepareName(key);
-              siddhiInputHandlers.put(key, siddhiAppRuntime.getInputHandler(preparedKey));
+              inputMappings.put(key, new InputMapping(siddhiAppRuntime.getInputHandler(preparedKey),
+                      typeInfo.get(key)));
             });
 
     StreamCallback callback;
@@ -96,28 +117,181 @@ public class SiddhiEngine {
     System.out.println(SiddhiUtils.getPreparedOutputTopicName(params));
     siddhiAppRuntime.addCallback(SiddhiUtils.getPreparedOutputTopicName(params), callback);
     siddhiAppRuntime.start();
+
+    this.inputConfig = settings.getSiddhiAppConfig().getInputConfig();
+    if (inputConfig.isBatching()) {
+      startBatching();
+    }
+  }
+
+  private void startBatching() {
+    this.bufferedMappings = new InputMapping[inputConfig.getMaxBatchSize()];
+    this.bufferedEvents = new Event[inputConfig.getMaxBatchSize()];
+    this.running = true;
+    this.flushThread = new Thread(this::lingerLoop, "sp-siddhi-flush");
+    this.flushThread.setDaemon(true);
+    this.flushThread.start();
   }
 
   public void processEvent(org.apache.streampipes.model.runtime.Event event) {
+    InputMapping inputMapping = inputMappings.get(event.getSourceInfo().getSourceId());
+    if (bufferedEvents != null) {
+      buffer(inputMapping, new Event(System.currentTimeMillis(), inputMapping.toObjArr(event)));
+      return;
+    }
     try {
-      String sourceId = event.getSourceInfo().getSourceId();
-      InputHandler inputHandler = siddhiInputHandlers.get(sourceId);
-      List<String> eventKeys = this.typeInfo
-              .get(sourceId)
-              .stream()
-              .map(EventPropertyDef::getFieldName)
-              .collect(Collectors.toList());
-
-      inputHandler.send(SiddhiUtils.toObjArr(eventKeys, event.getRaw()));
+      inputMapping.inputHandler.send(inputMapping.toObjArr(event));
     } catch (InterruptedException e) {
       e.printStackTrace();
     }
   }
 
   public void shutdownEngine() {
+    if (bufferedEvents != null) {
+      stopBatching();
+    }
     this.siddhiAppRuntime.shutdown();
   }
 
+  private void buffer(InputMapping inputMapping, Event event) {
+    lock.lock();
+    try {
+      if (bufferedCount == 0) {
+        firstBufferedAt = System.nanoTime();
+        bufferChanged.signal();
+      }
+      bufferedMappings[bufferedCount] = inputMapping;
+      bufferedEvents[bufferedCount++] = event;
+      if (bufferedCount == bufferedEvents.length) {
+        flush();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops the flush thread and sends the remaining events.
+   */
+  private void stopBatching() {
+    running = false;
+    lock.lock();
+    try {
+      bufferChanged.signal();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      flushThread.join(inputConfig.getMaxBatchDelayMs() * 2 + 1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    lock.lock();
+    try {
+      flush();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void lingerLoop() {
+    lock.lock();
+    try {
+      while (running) {
+        if (bufferedCount == 0) {
+          bufferChanged.await();
+          continue;
+        }
+        long remaining = firstBufferedAt + TimeUnit.MILLISECONDS.toNanos(
+                inputConfig.getMaxBatchDelayMs()) - System.nanoTime();
+        if (remaining > 0) {
+          bufferChanged.awaitNanos(remaining);
+        } else {
+          flush();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sends the buffered events, each run of consecutive events of the same input stream as one
+   * batch, so that the order of events across input streams is retained. Must be called while
+   * holding the lock.
+   */
+  private void flush() {
+    int start = 0;
+    try {
+      for (int i = 1; i <= bufferedCount; i++) {
+        if (i == bufferedCount || bufferedMappings[i] != bufferedMappings[start]) {
+          bufferedMappings[start].inputHandler.send(Arrays.copyOfRange(bufferedEvents, start, i));
+          start = i;
+        }
+      }
+    } catch (InterruptedException e) {
+      LOG.warn("Interrupted while sending a batch, discarding {} events", bufferedCount - start);
+      Thread.currentThread().interrupt();
+    } finally {
+      Arrays.fill(bufferedMappings, 0, bufferedCount, null);
+      Arrays.fill(bufferedEvents, 0, bufferedCount, null);
+      bufferedCount = 0;
+    }
+  }
+
+  /**
+   * Fills the attributes of a Siddhi input stream directly from the fields of an event, in the
+   * order of the stream definition, instead of converting the event to a map first. The field
+   * selectors are resolved once per source, as the selector prefix is only known from the
+   * first event. Each event gets its own array, as Siddhi keeps references to it in windows and
+   * asynchronous junctions.
+   */
+  private static class InputMapping {
+
+    private final InputHandler inputHandler;
+    private final String[] fieldNames;
+    private String[] selectors;
+
+    InputMapping(InputHandler inputHandler, List<EventPropertyDef> eventProperties) {
+      this.inputHandler = inputHandler;
+      this.fieldNames = new String[eventProperties.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = eventProperties.get(i).getFieldName();
+      }
+    }
+
+    Object[] toObjArr(org.apache.streampipes.model.runtime.Event event) {
+      Map<String, AbstractField> fields = event.getFields();
+      String[] currentSelectors = getSelectors(event);
+      Object[] result = new Object[currentSelectors.length];
+      for (int i = 0; i < currentSelectors.length; i++) {
+        AbstractField field = fields.get(currentSelectors[i]);
+        if (field instanceof PrimitiveField) {
+          result[i] = field.getRawValue();
+        } else if (field != null) {
+          result[i] = EventConverter.toInputValue(field);
+        }
+      }
+      return result;
+    }
+
+    private String[] getSelectors(org.apache.streampipes.model.runtime.Event event) {
+      String[] currentSelectors = selectors;
+      if (currentSelectors == null) {
+        String selectorPrefix = event.getSourceInfo().getSelectorPrefix()
+                + PropertySelectorConstants.PROPERTY_DELIMITER;
+        currentSelectors = new String[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+          currentSelectors[i] = selectorPrefix + fieldNames[i];
+        }
+        selectors = currentSelectors;
+      }
+      return currentSelectors;
+    }
+  }
+
 //  public void setSortedEventKeys(List<String> sortedEventKeys) {
 //    String streamId = (String) this.listOfEventKeys.keySet().toArray()[0];    // only reliable if there is only one stream, else use changeEventKeys() to respective streamId
 //    changeEventKeys(streamId, sortedEventKeys);
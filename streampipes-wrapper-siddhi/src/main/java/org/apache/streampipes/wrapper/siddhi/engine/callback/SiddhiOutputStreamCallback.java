@@ -20,6 +20,8 @@ package org.apache.streampipes.wrapper.siddhi.engine.callback;
 import io.siddhi.core.event.Event;
 import io.siddhi.core.stream.output.StreamCallback;
 import io.siddhi.query.api.definition.Attribute;
+import org.apache.streampipes.model.constants.PropertySelectorConstants;
+import org.apache.streampipes.model.output.PropertyRenameRule;
 import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
 import org.apache.streampipes.wrapper.routing.SpOutputCollector;
 import org.apache.streampipes.wrapper.siddhi.output.SiddhiListOutputConfig;
@@ -27,9 +29,21 @@ import org.apache.streampipes.wrapper.siddhi.output.SiddhiOutputConfig;
 import org.apache.streampipes.wrapper.siddhi.output.SiddhiOutputType;
 import org.apache.streampipes.wrapper.siddhi.utils.SiddhiUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Passes the output events of a Siddhi app to the output collector. The output runtime names of
+ * the attributes, including renames of the output strategy, are computed once, so that the data
+ * of each Siddhi event is written directly into the output map. If rename rules refer to nested
+ * properties, events are converted through {@link org.apache.streampipes.model.runtime.Event}
+ * instead, which applies them.
+ */
 public class SiddhiOutputStreamCallback extends StreamCallback {
 
   private SpOutputCollector collector;
@@ -38,6 +52,12 @@ public class SiddhiOutputStreamCallback extends StreamCallback {
 
   private List<Attribute> streamAttributes;
 
+  // output runtime names by attribute position, without and with renames
+  private final String[] outputKeys;
+  private final String[] outputNames;
+  private final String listFieldName;
+  private final boolean directOutput;
+
   public SiddhiOutputStreamCallback(SpOutputCollector collector,
                                     EventProcessorRuntimeContext runtimeContext,
                                     List<Attribute> streamAttributes,
@@ -46,6 +66,60 @@ public class SiddhiOutputStreamCallback extends StreamCallback {
     this.runtimeContext = runtimeContext;
     this.streamAttributes = streamAttributes;
     this.outputConfig = outputConfig;
+
+    List<PropertyRenameRule> renameRules = runtimeContext.getOutputSchemaInfo().getRenameRules();
+    String selectorPrefix = runtimeContext.getOutputSourceInfo().getSelectorPrefix()
+            + PropertySelectorConstants.PROPERTY_DELIMITER;
+    Set<String> selectors = new HashSet<>();
+    this.outputKeys = new String[streamAttributes.size()];
+    this.outputNames = new String[streamAttributes.size()];
+    for (int i = 0; i < outputKeys.length; i++) {
+      outputKeys[i] = SiddhiUtils.toOutputKey(streamAttributes.get(i).getName());
+      outputNames[i] = rename(selectorPrefix + outputKeys[i], outputKeys[i], renameRules);
+    }
+    if (outputConfig.getSiddhiOutputType() == SiddhiOutputType.LIST) {
+      String listField = ((SiddhiListOutputConfig) outputConfig).getListFieldName();
+      this.listFieldName = rename(selectorPrefix + listField, listField, renameRules);
+      selectors.add(selectorPrefix + listField);
+    } else {
+      this.listFieldName = null;
+      for (String outputKey : outputKeys) {
+        selectors.add(selectorPrefix + outputKey);
+      }
+    }
+    this.directOutput = renameRules.stream().allMatch(r -> selectors.contains(r.getRuntimeId()));
+  }
+
+  private static String rename(String selector, String runtimeName,
+                               List<PropertyRenameRule> renameRules) {
+    return renameRules
+            .stream()
+            .filter(r -> r.getRuntimeId().equals(selector))
+            .findFirst()
+            .map(PropertyRenameRule::getNewRuntimeName)
+            .orElse(runtimeName);
+  }
+
+  private Map<String, Object> toOutputMap(Object[] data, String[] names) {
+    Map<String, Object> outMap = new HashMap<>((int) (names.length / 0.75f) + 1);
+    for (int i = 0; i < names.length; i++) {
+      outMap.put(names[i], data[i]);
+    }
+    return outMap;
+  }
+
+  /**
+   * Writes the events of a batch as rows of the list field, with the attribute names of each
+   * row resolved by position.
+   */
+  private void collectList(Event[] events) {
+    List<Map<String, Object>> rows = new ArrayList<>(events.length);
+    for (Event event : events) {
+      rows.add(toOutputMap(event.getData(), outputKeys));
+    }
+    Map<String, Object> outMap = new HashMap<>();
+    outMap.put(listFieldName, rows);
+    collector.collectRaw(outMap);
   }
 
   private void sendEvents(List<Event> events) {
@@ -68,9 +142,17 @@ public class SiddhiOutputStreamCallback extends StreamCallback {
     if (inEvents.length > 0) {
       if (this.outputConfig.getSiddhiOutputType() == SiddhiOutputType.FIRST) {
         Event lastEvent = inEvents[inEvents.length - 1];
-        sendEvent(lastEvent);
+        if (directOutput) {
+          collector.collectRaw(toOutputMap(lastEvent.getData(), outputNames));
+        } else {
+          sendEvent(lastEvent);
+        }
       } else if (this.outputConfig.getSiddhiOutputType() == SiddhiOutputType.LIST) {
-        sendEvents(Arrays.asList(inEvents));
+        if (directOutput) {
+          collectList(inEvents);
+        } else {
+          sendEvents(Arrays.asList(inEvents));
+        }
       }
     }
   }
@@ -60,6 +60,11 @@ public class SiddhiAppGenerator<B extends EventProcessorBindingParams> {
       joiner.add(typeInfo.getSelectorPrefix() + typeInfo.getFieldName() + " " + typeInfo.getFieldType());
     });
 
+    if (siddhiAppConfig.getInputConfig().isAsync()) {
+      this.siddhiAppString
+              .append(siddhiAppConfig.getInputConfig().toAsyncAnnotation())
+              .append("\n");
+    }
     this.siddhiAppString
             .append(defineStreamPrefix)
             .append("(")
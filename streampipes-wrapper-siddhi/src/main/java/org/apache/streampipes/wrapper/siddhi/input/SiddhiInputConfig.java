@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.siddhi.input;
+
+/**
+ * Configures how events are passed to the input streams of a Siddhi app. By default, each event
+ * is sent on its own and processed synchronously on the thread which receives it.
+ *
+ * With batching, events are buffered and sent as micro-batches of up to maxBatchSize events,
+ * at the latest maxBatchDelayMs after the first buffered event. With asynchronous input streams,
+ * the input streams are declared with an @Async annotation, so that events are put into a
+ * buffer of bufferSize events and processed by the given number of Siddhi worker threads. The
+ * order of output events is then no longer guaranteed if more than one worker is used.
+ */
+public class SiddhiInputConfig {
+
+  private final int maxBatchSize;
+  private final long maxBatchDelayMs;
+  private final int asyncBufferSize;
+  private final int asyncWorkers;
+  private final int asyncMaxBatchSize;
+
+  public SiddhiInputConfig() {
+    this(1, 0, 0, 0, 0);
+  }
+
+  private SiddhiInputConfig(int maxBatchSize,
+                            long maxBatchDelayMs,
+                            int asyncBufferSize,
+                            int asyncWorkers,
+                            int asyncMaxBatchSize) {
+    if (maxBatchSize <= 0 || maxBatchDelayMs < 0 || asyncBufferSize < 0 || asyncWorkers < 0
+            || asyncMaxBatchSize < 0 || (asyncBufferSize > 0 && asyncWorkers == 0)) {
+      throw new IllegalArgumentException("Invalid Siddhi input config (batch size="
+              + maxBatchSize + ", batch delay=" + maxBatchDelayMs + ", async buffer size="
+              + asyncBufferSize + ", async workers=" + asyncWorkers + ")");
+    }
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchDelayMs = maxBatchDelayMs;
+    this.asyncBufferSize = asyncBufferSize;
+    this.asyncWorkers = asyncWorkers;
+    this.asyncMaxBatchSize = asyncMaxBatchSize;
+  }
+
+  public SiddhiInputConfig withBatching(int maxBatchSize, long maxBatchDelayMs) {
+    return new SiddhiInputConfig(maxBatchSize, maxBatchDelayMs, asyncBufferSize, asyncWorkers,
+            asyncMaxBatchSize);
+  }
+
+  /**
+   * @param asyncMaxBatchSize the maximum number of events a worker processes at once, or 0 for
+   *                          the default of Siddhi.
+   */
+  public SiddhiInputConfig withAsyncStreams(int bufferSize, int workers, int asyncMaxBatchSize) {
+    return new SiddhiInputConfig(maxBatchSize, maxBatchDelayMs, bufferSize, workers,
+            asyncMaxBatchSize);
+  }
+
+  public boolean isBatching() {
+    return maxBatchSize > 1;
+  }
+
+  public boolean isAsync() {
+    return asyncBufferSize > 0;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public long getMaxBatchDelayMs() {
+    return maxBatchDelayMs;
+  }
+
+  public int getAsyncBufferSize() {
+    return asyncBufferSize;
+  }
+
+  public int getAsyncWorkers() {
+    return asyncWorkers;
+  }
+
+  public int getAsyncMaxBatchSize() {
+    return asyncMaxBatchSize;
+  }
+
+  /**
+   * @return the annotation which declares an input stream as asynchronous.
+   */
+  public String toAsyncAnnotation() {
+    StringBuilder annotation = new StringBuilder("@Async(buffer.size='")
+            .append(asyncBufferSize)
+            .append("', workers='")
+            .append(asyncWorkers)
+            .append("'");
+    if (asyncMaxBatchSize > 0) {
+      annotation.append(", batch.size.max='").append(asyncMaxBatchSize).append("'");
+    }
+    return annotation.append(")").toString();
+  }
+}
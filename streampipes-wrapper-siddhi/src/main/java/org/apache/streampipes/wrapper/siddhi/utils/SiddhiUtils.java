@@ -60,17 +60,23 @@ public class SiddhiUtils {
     Map<String, Object> outMap = new HashMap<>();
 
     for (int i = 0; i < streamAttributes.size(); i++) {
-      String outputKey = streamAttributes.get(i).getName();
-      if (outputKey.startsWith(SiddhiConstants.FIRST_STREAM_PREFIX) ||
-              outputKey.startsWith(SiddhiConstants.SECOND_STREAM_PREFIX)) {
-        outputKey = outputKey.substring(2);
-      }
-      outMap.put(outputKey, event.getData(i));
+      outMap.put(toOutputKey(streamAttributes.get(i).getName()), event.getData(i));
     }
 
     return outMap;
   }
 
+  /**
+   * @return the runtime name of an output attribute, without the prefix of its input stream.
+   */
+  public static String toOutputKey(String attributeName) {
+    if (attributeName.startsWith(SiddhiConstants.FIRST_STREAM_PREFIX) ||
+            attributeName.startsWith(SiddhiConstants.SECOND_STREAM_PREFIX)) {
+      return attributeName.substring(2);
+    }
+    return attributeName;
+  }
+
   public static Object[] toObjArr(List<String> eventKeys, Map<String, Object> event) {
     Object[] result = new Object[eventKeys.size()];
     for (int i = 0; i < eventKeys.size(); i++) {
@@ -20,6 +20,7 @@ package org.apache.streampipes.wrapper.standalone;
 import org.apache.streampipes.model.base.InvocableStreamPipesEntity;
 import org.apache.streampipes.wrapper.params.binding.BindingParams;
 import org.apache.streampipes.wrapper.runtime.PipelineElement;
+import org.apache.streampipes.wrapper.standalone.routing.LoadSheddingSettings;
 
 import java.util.function.Supplier;
 
@@ -29,6 +30,7 @@ public class AbstractConfiguredPipelineElement<I extends InvocableStreamPipesEnt
 
   private B bindingParams;
   private Supplier<T> engineSupplier;
+  private LoadSheddingSettings loadSheddingSettings;
 
   public AbstractConfiguredPipelineElement(B bindingParams,
                                           Supplier<T> engineSupplier) {
@@ -43,4 +45,20 @@ public class AbstractConfiguredPipelineElement<I extends InvocableStreamPipesEnt
   public Supplier<T> getEngineSupplier() {
     return engineSupplier;
   }
+
+  /**
+   * @return the load shedding settings of this pipeline element, or null to use the defaults of
+   * the extensions container.
+   */
+  public LoadSheddingSettings getLoadSheddingSettings() {
+    return loadSheddingSettings;
+  }
+
+  /**
+   * Configures how input events of this pipeline element are discarded while it is overloaded,
+   * e.g., to keep dashboards fed with recent events instead of complete, but stale ones.
+   */
+  public void setLoadSheddingSettings(LoadSheddingSettings loadSheddingSettings) {
+    this.loadSheddingSettings = loadSheddingSettings;
+  }
 }
@@ -27,7 +27,29 @@ import java.util.function.Supplier;
 public class ConfiguredEventProcessor<B extends EventProcessorBindingParams>
         extends AbstractConfiguredPipelineElement<DataProcessorInvocation, B, EventProcessor<B>> {
 
+  private String partitionKeyMapping;
+
   public ConfiguredEventProcessor(B bindingParams, Supplier<EventProcessor<B>> engineSupplier) {
     super(bindingParams, engineSupplier);
   }
+
+  /**
+   * Configures keyed parallel execution: several engine instances are created from the supplier
+   * and each event is processed by the instance its partition key is assigned to, so that events
+   * with the same key are processed in order by the same instance. The number of instances is
+   * set by SP_PROCESSING_KEYED_PARALLELISM (1 by default); processors with more than one input
+   * stream always use a single instance.
+   *
+   * @param partitionKeyMapping the internal name of the mapping property which selects the
+   *                            partition key.
+   */
+  public ConfiguredEventProcessor(B bindingParams, Supplier<EventProcessor<B>> engineSupplier,
+                                  String partitionKeyMapping) {
+    super(bindingParams, engineSupplier);
+    this.partitionKeyMapping = partitionKeyMapping;
+  }
+
+  public String getPartitionKeyMapping() {
+    return partitionKeyMapping;
+  }
 }
@@ -38,7 +38,18 @@ public abstract class StandaloneEventProcessingDeclarer<B extends
     EventProcessorRuntimeParams<B> runtimeParams = new EventProcessorRuntimeParams<>
             (configuredEngine.getBindingParams(), false);
 
-    return new StandaloneEventProcessorRuntime<>(configuredEngine.getEngineSupplier(),
-            runtimeParams);
+    StandaloneEventProcessorRuntime<B> runtime;
+    if (configuredEngine.getPartitionKeyMapping() != null) {
+      runtime = new StandaloneEventProcessorRuntime<>(configuredEngine.getEngineSupplier(),
+              runtimeParams, extractor.mappingPropertyValue(configuredEngine
+              .getPartitionKeyMapping()));
+    } else {
+      runtime = new StandaloneEventProcessorRuntime<>(configuredEngine.getEngineSupplier(),
+              runtimeParams);
+    }
+    if (configuredEngine.getLoadSheddingSettings() != null) {
+      runtime.setLoadSheddingSettings(configuredEngine.getLoadSheddingSettings());
+    }
+    return runtime;
   }
 }
@@ -37,7 +37,12 @@ public abstract class StandaloneEventSinkDeclarer<B extends
     EventSinkRuntimeParams<B> runtimeParams = new EventSinkRuntimeParams<>
             (configuredEngine.getBindingParams(), false);
 
-    return new StandaloneEventSinkRuntime<>(configuredEngine.getEngineSupplier(), runtimeParams);
+    StandaloneEventSinkRuntime<B> runtime = new StandaloneEventSinkRuntime<>(configuredEngine
+            .getEngineSupplier(), runtimeParams);
+    if (configuredEngine.getLoadSheddingSettings() != null) {
+      runtime.setLoadSheddingSettings(configuredEngine.getLoadSheddingSettings());
+    }
+    return runtime;
   }
 
   public abstract ConfiguredEventSink<B> onInvocation(DataSinkInvocation graph, DataSinkParameterExtractor extractor);
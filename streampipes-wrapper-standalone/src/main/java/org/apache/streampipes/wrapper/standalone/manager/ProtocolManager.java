@@ -21,8 +21,11 @@ package org.apache.streampipes.wrapper.standalone.manager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
 import org.apache.streampipes.model.grounding.TransportFormat;
 import org.apache.streampipes.model.grounding.TransportProtocol;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneInMemoryInputCollector;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneInMemoryOutputCollector;
 import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpInputCollector;
 import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpOutputCollector;
 
@@ -81,6 +84,10 @@ public class ProtocolManager {
            TransportFormat format, Boolean
                    singletonEngine) throws
           SpRuntimeException {
+    if (protocol instanceof InMemoryTransportProtocol) {
+      return new StandaloneInMemoryInputCollector((InMemoryTransportProtocol) protocol, format,
+              singletonEngine);
+    }
     return new StandaloneSpInputCollector<>(protocol, format, singletonEngine);
   }
 
@@ -88,6 +95,9 @@ public class ProtocolManager {
                                                                                                 protocol, TransportFormat format)
           throws
           SpRuntimeException {
+    if (protocol instanceof InMemoryTransportProtocol) {
+      return new StandaloneInMemoryOutputCollector((InMemoryTransportProtocol) protocol, format);
+    }
     return new StandaloneSpOutputCollector<>(protocol, format);
   }
 
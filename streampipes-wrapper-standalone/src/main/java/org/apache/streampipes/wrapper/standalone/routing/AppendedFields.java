@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventConverter;
+import org.apache.streampipes.model.runtime.field.AbstractField;
+import org.apache.streampipes.model.runtime.field.ListField;
+import org.apache.streampipes.model.runtime.field.NestedField;
+import org.apache.streampipes.model.runtime.field.PrimitiveField;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Determines the fields an output event appends to the input event it was derived from. Input
+ * fields count as unchanged if they hold the very values decoded from the input payload, so that
+ * the check does not need to compare values.
+ */
+class AppendedFields {
+
+  /**
+   * @return the appended fields by output name, or null if a field of the input event has been
+   * removed, renamed or changed, or if an appended field has the name of an input field.
+   */
+  static Map<String, Object> find(Event event, Map<String, Object> inputEvent) {
+    Map<String, AbstractField> appendedFields = null;
+    int unchangedFields = 0;
+    for (Map.Entry<String, AbstractField> entry : event.getFields().entrySet()) {
+      AbstractField<?> field = entry.getValue();
+      String name = field.getFieldNameIn();
+      if (inputEvent.containsKey(name) && isUnchanged(field, inputEvent.get(name))) {
+        unchangedFields++;
+      } else if (inputEvent.containsKey(field.getFieldNameOut())) {
+        return null;
+      } else {
+        if (appendedFields == null) {
+          appendedFields = new HashMap<>();
+        }
+        appendedFields.put(entry.getKey(), field);
+      }
+    }
+
+    if (unchangedFields != inputEvent.size()) {
+      return null;
+    }
+    return appendedFields == null ? Collections.emptyMap() :
+            new EventConverter(new Event(appendedFields, null, null)).toMap();
+  }
+
+  private static boolean isUnchanged(AbstractField<?> field, Object inputValue) {
+    if (!field.getFieldNameOut().equals(field.getFieldNameIn())) {
+      return false;
+    } else if (field instanceof PrimitiveField) {
+      return field.getRawValue() == inputValue;
+    } else if (field instanceof ListField) {
+      return inputValue instanceof List && isUnchanged(((ListField) field).getRawValue(),
+              (List<?>) inputValue);
+    } else if (field instanceof NestedField) {
+      return inputValue instanceof Map && isUnchanged(((NestedField) field).getRawValue(),
+              (Map<?, ?>) inputValue);
+    }
+    return false;
+  }
+
+  private static boolean isUnchanged(List<AbstractField> items, List<?> inputValues) {
+    if (items.size() != inputValues.size()) {
+      return false;
+    }
+    for (int i = 0; i < items.size(); i++) {
+      if (!isUnchanged(items.get(i), inputValues.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isUnchanged(Map<String, AbstractField> fields, Map<?, ?> inputValues) {
+    if (fields.size() != inputValues.size()) {
+      return false;
+    }
+    for (AbstractField<?> field : fields.values()) {
+      String name = field.getFieldNameIn();
+      if (!inputValues.containsKey(name) || !isUnchanged(field, inputValues.get(name))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
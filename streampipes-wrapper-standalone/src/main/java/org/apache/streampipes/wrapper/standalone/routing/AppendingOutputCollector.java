@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.routing.SpOutputCollector;
+
+import java.util.Map;
+
+/**
+ * The output collector passed to a processor with an append output strategy for a single input
+ * event. Collected events are published by splicing their appended fields into the payload of the
+ * input event where possible, see {@link StandaloneSpOutputCollector#collectAppended}.
+ */
+public class AppendingOutputCollector implements SpOutputCollector {
+
+  private final StandaloneSpOutputCollector<?> outputCollector;
+  private final Map<String, Object> inputEvent;
+  private final byte[] inputPayload;
+  private final SpDataFormatDefinition inputFormat;
+
+  public AppendingOutputCollector(StandaloneSpOutputCollector<?> outputCollector,
+                                  Map<String, Object> inputEvent,
+                                  byte[] inputPayload,
+                                  SpDataFormatDefinition inputFormat) {
+    this.outputCollector = outputCollector;
+    this.inputEvent = inputEvent;
+    this.inputPayload = inputPayload;
+    this.inputFormat = inputFormat;
+  }
+
+  @Override
+  public void collect(Event event) {
+    outputCollector.collectAppended(event, inputEvent, inputPayload, inputFormat);
+  }
+
+  @Override
+  public void collectRaw(Map<String, Object> outputEvent) {
+    outputCollector.collectRaw(outputEvent);
+  }
+
+  @Override
+  public void registerConsumer(String routeId,
+                               InternalEventProcessor<Map<String, Object>> consumer) {
+    outputCollector.registerConsumer(routeId, consumer);
+  }
+
+  @Override
+  public void unregisterConsumer(String routeId) {
+    outputCollector.unregisterConsumer(routeId);
+  }
+
+  @Override
+  public void connect() throws SpRuntimeException {
+    outputCollector.connect();
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    outputCollector.disconnect();
+  }
+}
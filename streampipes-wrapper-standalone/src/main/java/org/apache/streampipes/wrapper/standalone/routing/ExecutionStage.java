@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.QueueStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples a pipeline element instance from the thread of the messaging consumer. Tasks are
+ * put into a bounded queue and executed in order by a dedicated worker thread; if the queue is
+ * full, the {@link ExecutionStageSettings.OverflowPolicy} decides whether the caller waits or
+ * events are discarded.
+ *
+ * The current queue depth, the time tasks spend in the queue and the number of discarded events
+ * are tracked, so that an overloaded instance becomes visible.
+ */
+public class ExecutionStage implements QueueStatistics, Executor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutionStage.class);
+
+  private static final long STOP_TIMEOUT_MS = 5000;
+  private static final long DROP_LOG_INTERVAL_MS = 10000;
+
+  private final String name;
+  private final ExecutionStageSettings settings;
+  private final BlockingQueue<QueuedTask> queue;
+
+  private final AtomicLong executedTasks = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong droppedTasks = new AtomicLong();
+  private volatile long maxWaitNanos;
+  private volatile long lastWaitNanos;
+  private final AtomicLong overflowCount = new AtomicLong();
+  private long lastDropLogTime;
+
+  private volatile ElementMetrics metrics;
+
+  private volatile boolean running;
+  private volatile Thread worker;
+
+  public ExecutionStage(String name, ExecutionStageSettings settings) {
+    this.name = name;
+    this.settings = settings;
+    this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+  }
+
+  public synchronized void start() {
+    if (!running) {
+      running = true;
+      worker = ProcessingThreads.newThread("sp-worker-" + name, true, this::work);
+      worker.start();
+    }
+  }
+
+  /**
+   * Reports the queue state and sampled queue wait times to the metrics of the consuming
+   * instance.
+   */
+  public void setMetrics(ElementMetrics metrics) {
+    this.metrics = metrics;
+    if (metrics != null) {
+      metrics.addQueue(this);
+    }
+  }
+
+  /**
+   * Stops the worker after the current task; queued tasks are discarded.
+   */
+  public void stop() {
+    Thread currentWorker;
+    synchronized (this) {
+      running = false;
+      currentWorker = worker;
+      worker = null;
+    }
+    if (currentWorker != null) {
+      currentWorker.interrupt();
+      if (currentWorker != Thread.currentThread()) {
+        try {
+          currentWorker.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    queue.clear();
+    if (metrics != null) {
+      metrics.removeQueue(this);
+    }
+  }
+
+  /**
+   * Queues the task without waiting or discarding other tasks, e.g., for timer callbacks which
+   * must not block the shared timer thread.
+   *
+   * @throws RejectedExecutionException if the stage is stopped or its queue is full.
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (!running || !queue.offer(new QueuedTask(task))) {
+      throw new RejectedExecutionException("Execution stage " + name + " cannot accept tasks");
+    }
+  }
+
+  public void submit(Runnable task) {
+    QueuedTask queuedTask = new QueuedTask(task);
+    if (queue.offer(queuedTask)) {
+      return;
+    }
+    switch (settings.getOverflowPolicy()) {
+      case BLOCK:
+        boolean queued = false;
+        try {
+          while (running && !queued) {
+            // wait until the worker has caught up
+            queued = queue.offer(queuedTask, 100, TimeUnit.MILLISECONDS);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+          // the stage was stopped or the caller interrupted while waiting
+          onDropped();
+        }
+        break;
+      case SAMPLE:
+        if (overflowCount.incrementAndGet() % settings.getSampleInterval() != 0) {
+          onDropped();
+          break;
+        }
+        // the sampled event replaces the oldest queued event
+      case DROP_OLDEST:
+        while (!queue.offer(queuedTask)) {
+          if (queue.poll() != null) {
+            onDropped();
+          }
+        }
+        break;
+    }
+  }
+
+  private void onDropped() {
+    long dropped = droppedTasks.incrementAndGet();
+    long now = System.currentTimeMillis();
+    if (now - lastDropLogTime > DROP_LOG_INTERVAL_MS) {
+      lastDropLogTime = now;
+      LOG.warn("Execution stage {} is overloaded, {} events discarded so far (policy {})", name,
+              dropped, settings.getOverflowPolicy());
+    }
+  }
+
+  private void work() {
+    Thread currentThread = Thread.currentThread();
+    while (isWorker(currentThread)) {
+      try {
+        QueuedTask queuedTask = queue.take();
+        long waitNanos = System.nanoTime() - queuedTask.enqueueTime;
+        lastWaitNanos = waitNanos;
+        if (waitNanos > maxWaitNanos) {
+          maxWaitNanos = waitNanos;
+        }
+        totalWaitNanos.addAndGet(waitNanos);
+        executedTasks.incrementAndGet();
+        ElementMetrics currentMetrics = metrics;
+        if (currentMetrics != null && currentMetrics.shouldSample()) {
+          currentMetrics.recordNanos(ElementMetrics.Timer.QUEUE_WAIT, waitNanos);
+        }
+        queuedTask.task.run();
+      } catch (InterruptedException e) {
+        if (!isWorker(currentThread)) {
+          currentThread.interrupt();
+          break;
+        }
+        // only stop() ends the worker, an interrupt raised elsewhere (e.g., by a task) is ignored
+        LOG.debug("Worker of execution stage {} interrupted while running", name);
+      } catch (RuntimeException e) {
+        LOG.error("Task of execution stage {} failed", name, e);
+      }
+    }
+  }
+
+  /**
+   * A worker that is still finishing its task after a timed out stop() must not take tasks of
+   * the worker started afterwards.
+   */
+  private boolean isWorker(Thread thread) {
+    return running && worker == thread;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  public int getQueueCapacity() {
+    return settings.getQueueCapacity();
+  }
+
+  public long getExecutedTasks() {
+    return executedTasks.get();
+  }
+
+  @Override
+  public long getDroppedTasks() {
+    return droppedTasks.get();
+  }
+
+  /**
+   * @return the time the most recently executed task waited in the queue, in milliseconds.
+   */
+  public double getLastWaitMillis() {
+    return lastWaitNanos / 1e6;
+  }
+
+  public double getAverageWaitMillis() {
+    long executed = executedTasks.get();
+    return executed > 0 ? totalWaitNanos.get() / 1e6 / executed : 0;
+  }
+
+  public double getMaxWaitMillis() {
+    return maxWaitNanos / 1e6;
+  }
+
+  private static class QueuedTask {
+
+    private final Runnable task;
+    private final long enqueueTime;
+
+    QueuedTask(Runnable task) {
+      this.task = task;
+      this.enqueueTime = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of the execution stage between an input collector and its pipeline element
+ * instances. The stage is disabled by default, i.e., events are processed on the thread of the
+ * messaging consumer.
+ */
+public class ExecutionStageSettings {
+
+  public enum OverflowPolicy {
+    /**
+     * Blocks the messaging consumer until the worker has caught up.
+     */
+    BLOCK,
+    /**
+     * Discards the oldest queued event to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * While the queue is full, only admits every n-th event (replacing the oldest queued event)
+     * and discards the others.
+     */
+    SAMPLE
+  }
+
+  private static final String QUEUE_CAPACITY_ENV = "SP_PROCESSING_QUEUE_CAPACITY";
+  private static final String OVERFLOW_POLICY_ENV = "SP_PROCESSING_OVERFLOW_POLICY";
+  private static final String SAMPLE_INTERVAL_ENV = "SP_PROCESSING_SAMPLE_INTERVAL";
+
+  private static final int QUEUE_CAPACITY_DEFAULT = 0;
+  private static final OverflowPolicy OVERFLOW_POLICY_DEFAULT = OverflowPolicy.BLOCK;
+  private static final int SAMPLE_INTERVAL_DEFAULT = 10;
+
+  private final int queueCapacity;
+  private final OverflowPolicy overflowPolicy;
+  private final int sampleInterval;
+
+  public ExecutionStageSettings(int queueCapacity,
+                                OverflowPolicy overflowPolicy,
+                                int sampleInterval) {
+    if (queueCapacity < 0 || sampleInterval <= 0) {
+      throw new IllegalArgumentException("Invalid execution stage settings (capacity="
+              + queueCapacity + ", sample interval=" + sampleInterval + ")");
+    }
+    this.queueCapacity = queueCapacity;
+    this.overflowPolicy = overflowPolicy;
+    this.sampleInterval = sampleInterval;
+  }
+
+  public static ExecutionStageSettings fromDefault() {
+    return new ExecutionStageSettings(
+            EnvironmentVariables.getInt(QUEUE_CAPACITY_ENV, QUEUE_CAPACITY_DEFAULT, 0),
+            EnvironmentVariables.getEnum(OVERFLOW_POLICY_ENV, OverflowPolicy.class,
+                    OVERFLOW_POLICY_DEFAULT),
+            EnvironmentVariables.getInt(SAMPLE_INTERVAL_ENV, SAMPLE_INTERVAL_DEFAULT, 1));
+  }
+
+  public ExecutionStageSettings withQueueCapacity(int queueCapacity) {
+    return new ExecutionStageSettings(queueCapacity, overflowPolicy, sampleInterval);
+  }
+
+  public boolean isEnabled() {
+    return queueCapacity > 0;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public int getSampleInterval() {
+    return sampleInterval;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Worker pool of an input collector, on which the pipeline element instances consuming its topic
+ * process an event in parallel. The calling thread takes part in processing and returns once all
+ * instances are done, so events are still processed in order by each instance and the messaging
+ * consumer is slowed down by the slowest instance.
+ *
+ * The pool is created with the first event that is fanned out and shut down together with the
+ * input collector; afterwards, instances process events one after another on the calling thread.
+ */
+class FanOutExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FanOutExecutor.class);
+
+  private final String name;
+  private final FanOutSettings settings;
+
+  private ExecutorService executorService;
+  private boolean shutdown;
+
+  FanOutExecutor(String name, FanOutSettings settings) {
+    this.name = name;
+    this.settings = settings;
+  }
+
+  <C> void invokeAll(Map<String, C> consumers, BiConsumer<String, C> action) {
+    List<Map.Entry<String, C>> entries = new ArrayList<>(consumers.entrySet());
+    ExecutorService executor = entries.size() < 2 || !settings.isEnabled() ? null :
+            getExecutorService();
+    if (executor == null) {
+      entries.forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+      return;
+    }
+
+    CountDownLatch latch = new CountDownLatch(entries.size() - 1);
+    for (Map.Entry<String, C> entry : entries.subList(1, entries.size())) {
+      Runnable task = () -> {
+        try {
+          action.accept(entry.getKey(), entry.getValue());
+        } catch (RuntimeException e) {
+          LOG.error("Instance {} failed to process event of {}", entry.getKey(), name, e);
+        } finally {
+          latch.countDown();
+        }
+      };
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        // shut down concurrently
+        task.run();
+      }
+    }
+
+    Map.Entry<String, C> first = entries.get(0);
+    try {
+      action.accept(first.getKey(), first.getValue());
+    } finally {
+      awaitUninterruptibly(latch);
+    }
+  }
+
+  /**
+   * Stops the worker threads once the tasks that are already running are done.
+   */
+  synchronized void shutdown() {
+    shutdown = true;
+    if (executorService != null) {
+      executorService.shutdown();
+      executorService = null;
+    }
+  }
+
+  private synchronized ExecutorService getExecutorService() {
+    if (executorService == null && !shutdown) {
+      executorService = Executors.newFixedThreadPool(settings.getParallelism() - 1,
+              new FanOutThreadFactory(name));
+    }
+    return executorService;
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class FanOutThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    FanOutThreadFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "sp-fan-out-" + name + "-"
+              + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
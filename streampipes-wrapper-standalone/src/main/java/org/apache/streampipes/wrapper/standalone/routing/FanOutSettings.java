@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of the parallel processing of an event by the pipeline element instances consuming
+ * the same topic. Fan-out is disabled by default, i.e., the instances process an event one after
+ * another on the thread of the messaging consumer.
+ */
+public class FanOutSettings {
+
+  private static final String PARALLELISM_ENV = "SP_PROCESSING_FAN_OUT_PARALLELISM";
+
+  private static final int PARALLELISM_DEFAULT = 1;
+
+  private final int parallelism;
+
+  public FanOutSettings(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Fan-out parallelism must be positive, was "
+              + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  public static FanOutSettings fromDefault() {
+    return new FanOutSettings(
+            EnvironmentVariables.getInt(PARALLELISM_ENV, PARALLELISM_DEFAULT, 1));
+  }
+
+  public boolean isEnabled() {
+    return parallelism > 1;
+  }
+
+  /**
+   * Number of threads, including the thread of the messaging consumer, on which the instances
+   * sharing an input topic process an event in parallel if no execution stage is configured.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.QueueStatistics;
+import org.apache.streampipes.messaging.LagAwareConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Discards input events of a pipeline element instance according to its load shedding policy
+ * while the instance is overloaded. Shedding is activated once the depth of the queue in front of
+ * the instance or the lag of the messaging consumer reaches its threshold, and deactivated once
+ * both have fallen below half of their thresholds.
+ */
+class LoadShedder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadShedder.class);
+
+  private static final double DEACTIVATION_RATIO = 0.5;
+  private static final Object NULL_KEY = new Object();
+
+  private final String name;
+  private final LoadSheddingSettings settings;
+  private final QueueStatistics queue;
+  private final LagAwareConsumer lagAwareConsumer;
+  private final ElementMetrics metrics;
+  private final int queueThreshold;
+  private final long lagThreshold;
+
+  // the token of the most recent pending event of each key, see admitLatest
+  private final Map<Object, Object> latestByKey = new ConcurrentHashMap<>();
+  private final AtomicLong shedEvents = new AtomicLong();
+  private volatile boolean active;
+  private long shedEventsOnActivation;
+
+  /**
+   * @param queue            the queue in front of the instance, i.e., its execution stage or the
+   *                         hand-off queue of the messaging consumer, or null.
+   * @param queueCapacity    the capacity of the queue.
+   * @param lagAwareConsumer the messaging consumer if it reports its lag, or null.
+   * @param metrics          the metrics of the instance, or null.
+   */
+  LoadShedder(String name,
+              LoadSheddingSettings settings,
+              QueueStatistics queue,
+              int queueCapacity,
+              LagAwareConsumer lagAwareConsumer,
+              ElementMetrics metrics) {
+    this.name = name;
+    this.settings = settings;
+    this.queue = queue;
+    this.lagAwareConsumer = lagAwareConsumer;
+    this.metrics = metrics;
+    this.queueThreshold = queue != null && queueCapacity > 0 && settings.getQueueThreshold() > 0
+            ? Math.max(1, (int) Math.ceil(queueCapacity * settings.getQueueThreshold())) : 0;
+    this.lagThreshold = lagAwareConsumer != null ? settings.getLagThreshold() : 0;
+  }
+
+  /**
+   * @return false if the instance provides none of the signals its thresholds refer to.
+   */
+  boolean hasOverloadSignal() {
+    return queueThreshold > 0 || lagThreshold > 0;
+  }
+
+  /**
+   * @return the task to dispatch, which may check again whether the event is shed when it is
+   * executed, or null if the event is shed.
+   */
+  Runnable admit(SharedEvent event, Runnable task) {
+    if (!updateActive()) {
+      return task;
+    }
+    try {
+      switch (settings.getPolicy()) {
+        case SAMPLE:
+          return admitIf(ThreadLocalRandom.current().nextDouble() < settings.getSampleRate(),
+                  task);
+        case PRIORITY:
+          return admitIf(getPriority(event.get()) >= settings.getMinPriority(), task);
+        case LATEST_BY_KEY:
+          return admitLatest(getKey(event.get()), task);
+        default:
+          return task;
+      }
+    } catch (SpRuntimeException e) {
+      // the event cannot be decoded, which is reported when it is processed
+      return task;
+    }
+  }
+
+  private Runnable admitIf(boolean admitted, Runnable task) {
+    if (admitted) {
+      return task;
+    }
+    onShed();
+    return null;
+  }
+
+  /**
+   * Lets each pending event of a key supersede the previous ones: when a queued event is
+   * executed, it is only processed if no event with the same key has been admitted since.
+   * Superseded events still pass through the queue, but are discarded without being processed,
+   * so that the queue drains quickly and keys never get stuck if a queued event is dropped.
+   */
+  private Runnable admitLatest(Object key, Runnable task) {
+    Object token = new Object();
+    latestByKey.put(key, token);
+    return () -> {
+      if (latestByKey.remove(key, token)) {
+        task.run();
+      } else {
+        onShed();
+      }
+    };
+  }
+
+  private Object getKey(Map<String, Object> rawEvent) {
+    Object key = rawEvent.get(settings.getField());
+    return key != null ? key : NULL_KEY;
+  }
+
+  /**
+   * @return the numeric value of the priority field; events without a numeric priority have the
+   * lowest priority.
+   */
+  private double getPriority(Map<String, Object> rawEvent) {
+    Object priority = rawEvent.get(settings.getField());
+    if (priority instanceof Number) {
+      return ((Number) priority).doubleValue();
+    } else if (priority instanceof String) {
+      try {
+        return Double.parseDouble((String) priority);
+      } catch (NumberFormatException e) {
+        return Double.NEGATIVE_INFINITY;
+      }
+    }
+    return Double.NEGATIVE_INFINITY;
+  }
+
+  private void onShed() {
+    shedEvents.incrementAndGet();
+    if (metrics != null) {
+      metrics.countShed();
+    }
+  }
+
+  private boolean updateActive() {
+    boolean currentlyActive = active;
+    if (currentlyActive != exceedsThresholds(currentlyActive ? DEACTIVATION_RATIO : 1)) {
+      synchronized (this) {
+        if (active == currentlyActive) {
+          setActive(!currentlyActive);
+        }
+      }
+    }
+    return active;
+  }
+
+  private boolean exceedsThresholds(double ratio) {
+    return (queueThreshold > 0 && queue.getQueueDepth() >= queueThreshold * ratio)
+            || (lagThreshold > 0 && lagAwareConsumer.getLag() >= lagThreshold * ratio);
+  }
+
+  private void setActive(boolean active) {
+    this.active = active;
+    if (metrics != null) {
+      metrics.setLoadSheddingActive(active);
+    }
+    long shed = shedEvents.get();
+    if (active) {
+      shedEventsOnActivation = shed;
+      LOG.warn("Instance {} is overloaded, shedding load (policy {}, queue depth={}, lag={})",
+              name, settings.getPolicy(), getQueueDepth(), getLag());
+    } else {
+      LOG.info("Instance {} has recovered, {} events shed while overloaded", name,
+              shed - shedEventsOnActivation);
+    }
+  }
+
+  private int getQueueDepth() {
+    return queue != null ? queue.getQueueDepth() : 0;
+  }
+
+  private long getLag() {
+    return lagAwareConsumer != null ? lagAwareConsumer.getLag() : 0;
+  }
+}
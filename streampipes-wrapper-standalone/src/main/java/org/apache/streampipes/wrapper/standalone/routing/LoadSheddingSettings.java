@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Settings of the load shedding of a pipeline element instance. While the instance is
+ * overloaded, i.e., the queue in front of it or the lag of its messaging consumer exceeds a
+ * threshold, input events are discarded according to the policy, so that the
+ * processed events stay recent. Shedding is disabled by default.
+ */
+public class LoadSheddingSettings {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadSheddingSettings.class);
+
+  public enum Policy {
+    /**
+     * Never discards events.
+     */
+    NONE,
+    /**
+     * Keeps a random sample of the events.
+     */
+    SAMPLE,
+    /**
+     * Only keeps the most recent pending event of each key. Requires an execution stage, as
+     * events are otherwise processed as soon as they arrive.
+     */
+    LATEST_BY_KEY,
+    /**
+     * Only keeps events whose numeric priority is at least the minimum priority.
+     */
+    PRIORITY
+  }
+
+  private static final String POLICY_ENV = "SP_LOAD_SHEDDING_POLICY";
+  private static final String QUEUE_THRESHOLD_ENV = "SP_LOAD_SHEDDING_QUEUE_THRESHOLD";
+  private static final String LAG_THRESHOLD_ENV = "SP_LOAD_SHEDDING_LAG_THRESHOLD";
+  private static final String SAMPLE_RATE_ENV = "SP_LOAD_SHEDDING_SAMPLE_RATE";
+  private static final String FIELD_ENV = "SP_LOAD_SHEDDING_FIELD";
+  private static final String MIN_PRIORITY_ENV = "SP_LOAD_SHEDDING_MIN_PRIORITY";
+
+  private static final Policy POLICY_DEFAULT = Policy.NONE;
+  private static final double QUEUE_THRESHOLD_DEFAULT = 0.8;
+  private static final long LAG_THRESHOLD_DEFAULT = 10000;
+  private static final double SAMPLE_RATE_DEFAULT = 0.1;
+  private static final double MIN_PRIORITY_DEFAULT = 0;
+
+  private final Policy policy;
+  private final double queueThreshold;
+  private final long lagThreshold;
+  private final double sampleRate;
+  private final String field;
+  private final double minPriority;
+
+  /**
+   * @param queueThreshold the fill ratio of the queue in front of the instance above which it is
+   *                       overloaded; 0 ignores the queue. This is the queue of the execution
+   *                       stage if one is configured, otherwise the hand-off queue of the
+   *                       messaging consumer.
+   * @param lagThreshold   the consumer lag in events above which the instance is overloaded; 0
+   *                       ignores the lag.
+   * @param sampleRate     the fraction of events kept by {@link Policy#SAMPLE}.
+   * @param field          the runtime name of the key or priority field.
+   * @param minPriority    the minimum priority of events kept by {@link Policy#PRIORITY}.
+   */
+  public LoadSheddingSettings(Policy policy,
+                              double queueThreshold,
+                              long lagThreshold,
+                              double sampleRate,
+                              String field,
+                              double minPriority) {
+    if (queueThreshold < 0 || queueThreshold > 1 || lagThreshold < 0 || sampleRate < 0
+            || sampleRate > 1 || ((policy == Policy.LATEST_BY_KEY || policy == Policy.PRIORITY)
+            && field == null)) {
+      throw new IllegalArgumentException("Invalid load shedding settings (policy=" + policy
+              + ", queue threshold=" + queueThreshold + ", lag threshold=" + lagThreshold
+              + ", sample rate=" + sampleRate + ", field=" + field + ")");
+    }
+    this.policy = policy;
+    this.queueThreshold = queueThreshold;
+    this.lagThreshold = lagThreshold;
+    this.sampleRate = sampleRate;
+    this.field = field;
+    this.minPriority = minPriority;
+  }
+
+  public static LoadSheddingSettings fromDefault() {
+    Policy policy = EnvironmentVariables.getEnum(POLICY_ENV, Policy.class, POLICY_DEFAULT);
+    String field = EnvironmentVariables.getString(FIELD_ENV, null);
+    if ((policy == Policy.LATEST_BY_KEY || policy == Policy.PRIORITY) && field == null) {
+      LOG.warn("Load shedding policy {} requires {} to be set, disabling load shedding", policy,
+              FIELD_ENV);
+      policy = Policy.NONE;
+    }
+    return new LoadSheddingSettings(policy,
+            EnvironmentVariables.getDouble(QUEUE_THRESHOLD_ENV, QUEUE_THRESHOLD_DEFAULT, 0, 1),
+            EnvironmentVariables.getLong(LAG_THRESHOLD_ENV, LAG_THRESHOLD_DEFAULT, 0),
+            EnvironmentVariables.getDouble(SAMPLE_RATE_ENV, SAMPLE_RATE_DEFAULT, 0, 1),
+            field,
+            EnvironmentVariables.getDouble(MIN_PRIORITY_ENV, MIN_PRIORITY_DEFAULT,
+                    -Double.MAX_VALUE, Double.MAX_VALUE));
+  }
+
+  public static LoadSheddingSettings sample(double sampleRate) {
+    return new LoadSheddingSettings(Policy.SAMPLE, QUEUE_THRESHOLD_DEFAULT, LAG_THRESHOLD_DEFAULT,
+            sampleRate, null, MIN_PRIORITY_DEFAULT);
+  }
+
+  public static LoadSheddingSettings latestByKey(String keyField) {
+    return new LoadSheddingSettings(Policy.LATEST_BY_KEY, QUEUE_THRESHOLD_DEFAULT,
+            LAG_THRESHOLD_DEFAULT, SAMPLE_RATE_DEFAULT, keyField, MIN_PRIORITY_DEFAULT);
+  }
+
+  public static LoadSheddingSettings priority(String priorityField, double minPriority) {
+    return new LoadSheddingSettings(Policy.PRIORITY, QUEUE_THRESHOLD_DEFAULT,
+            LAG_THRESHOLD_DEFAULT, SAMPLE_RATE_DEFAULT, priorityField, minPriority);
+  }
+
+  public LoadSheddingSettings withThresholds(double queueThreshold, long lagThreshold) {
+    return new LoadSheddingSettings(policy, queueThreshold, lagThreshold, sampleRate, field,
+            minPriority);
+  }
+
+  public boolean isEnabled() {
+    return policy != Policy.NONE && (queueThreshold > 0 || lagThreshold > 0);
+  }
+
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  public double getQueueThreshold() {
+    return queueThreshold;
+  }
+
+  public long getLagThreshold() {
+    return lagThreshold;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public double getMinPriority() {
+    return minPriority;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of the micro-batching output collector. Batching is disabled by default, i.e., events
+ * are published synchronously by the processing thread. If a batch size is set, encoded events
+ * are buffered and published by a dedicated thread once the batch is full, the batch reaches its
+ * maximum size in bytes, or the linger time of the first event has elapsed.
+ */
+public class OutputBatchSettings {
+
+  private static final String BATCH_SIZE_ENV = "SP_OUTPUT_BATCH_SIZE";
+  private static final String BATCH_BYTES_ENV = "SP_OUTPUT_BATCH_BYTES";
+  private static final String LINGER_MS_ENV = "SP_OUTPUT_LINGER_MS";
+  private static final String BUFFER_CAPACITY_ENV = "SP_OUTPUT_BUFFER_CAPACITY";
+
+  private static final int BATCH_SIZE_DEFAULT = 0;
+  private static final int BATCH_BYTES_DEFAULT = 1024 * 1024;
+  private static final int LINGER_MS_DEFAULT = 5;
+  private static final int BUFFER_CAPACITY_DEFAULT = 10000;
+
+  private final int batchSize;
+  private final int batchBytes;
+  private final int lingerMs;
+  private final int bufferCapacity;
+
+  public OutputBatchSettings(int batchSize, int batchBytes, int lingerMs, int bufferCapacity) {
+    if (batchSize < 0 || batchBytes <= 0 || lingerMs < 0 || bufferCapacity <= 0) {
+      throw new IllegalArgumentException("Invalid output batch settings (size=" + batchSize
+              + ", bytes=" + batchBytes + ", linger=" + lingerMs + ", capacity=" + bufferCapacity
+              + ")");
+    }
+    this.batchSize = batchSize;
+    this.batchBytes = batchBytes;
+    this.lingerMs = lingerMs;
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  public static OutputBatchSettings fromDefault() {
+    return new OutputBatchSettings(
+            EnvironmentVariables.getInt(BATCH_SIZE_ENV, BATCH_SIZE_DEFAULT, 0),
+            EnvironmentVariables.getInt(BATCH_BYTES_ENV, BATCH_BYTES_DEFAULT, 1),
+            EnvironmentVariables.getInt(LINGER_MS_ENV, LINGER_MS_DEFAULT, 0),
+            EnvironmentVariables.getInt(BUFFER_CAPACITY_ENV, BUFFER_CAPACITY_DEFAULT, 1));
+  }
+
+  public boolean isEnabled() {
+    return batchSize > 0;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getBatchBytes() {
+    return batchBytes;
+  }
+
+  public int getLingerMs() {
+    return lingerMs;
+  }
+
+  /**
+   * Maximum number of buffered events; if the buffer is full, the processing thread waits until
+   * the publisher thread has caught up.
+   */
+  public int getBufferCapacity() {
+    return bufferCapacity;
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.concurrent.ProcessingThreads;
+import org.apache.streampipes.messaging.EventProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers encoded events of an output collector and publishes them in batches on a dedicated
+ * thread, so that publishing does not add to the processing time of each event.
+ *
+ * The buffer and the running state are guarded by the same lock. Stopping the batcher publishes
+ * the remaining buffered events while holding it, and events added afterwards are published
+ * directly on the calling thread, so no event is lost or overtaken while the batcher stops.
+ */
+public class OutputBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OutputBatcher.class);
+
+  private static final long STOP_TIMEOUT_MS = 10000;
+
+  private final String name;
+  private final EventProducer<?> producer;
+  private final OutputBatchSettings settings;
+  private final Queue<byte[]> buffer = new ArrayDeque<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Condition publisherDone = lock.newCondition();
+
+  private boolean running;
+  private boolean publishing;
+  private boolean abandoned;
+  private Thread publisher;
+
+  public OutputBatcher(String name, EventProducer<?> producer, OutputBatchSettings settings) {
+    this.name = name;
+    this.producer = producer;
+    this.settings = settings;
+  }
+
+  public void start() {
+    lock.lock();
+    try {
+      if (!running && !publishing) {
+        running = true;
+        publishing = true;
+        abandoned = false;
+        publisher = ProcessingThreads.newThread("sp-publisher-" + name, true, this::publish);
+        publisher.start();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds an event to the buffer, waiting if the buffer is full. Once the batcher is stopped, the
+   * event is published directly after the remaining buffered events.
+   */
+  public void add(byte[] event) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (running && buffer.size() >= settings.getBufferCapacity()) {
+        notFull.await();
+      }
+      if (running) {
+        buffer.add(event);
+        notEmpty.signal();
+        return;
+      }
+      while (publishing && !abandoned) {
+        // stop() is waiting for the batch in flight
+        publisherDone.await();
+      }
+      if (abandoned) {
+        LOG.warn("Discarding event of {}, the publisher did not stop", name);
+        return;
+      }
+      flush();
+      publishBatch(Collections.singletonList(event));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops the publisher thread and publishes all buffered events.
+   */
+  public void stop() {
+    Thread currentPublisher;
+    lock.lock();
+    try {
+      running = false;
+      currentPublisher = publisher;
+      publisher = null;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (currentPublisher != null && currentPublisher != Thread.currentThread()) {
+      try {
+        currentPublisher.join(STOP_TIMEOUT_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    lock.lock();
+    try {
+      if (publishing) {
+        abandoned = true;
+        publisherDone.signalAll();
+        LOG.warn("Discarding {} buffered events of {}, the publisher did not stop", buffer.size(),
+                name);
+        buffer.clear();
+      } else {
+        flush();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getBufferedEvents() {
+    lock.lock();
+    try {
+      return buffer.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void publish() {
+    List<byte[]> batch = new ArrayList<>(settings.getBatchSize());
+    try {
+      while (nextBatch(batch)) {
+        publishBatch(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.lock();
+      try {
+        publishing = false;
+        publisherDone.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Waits for the next batch, which is complete once it reaches the batch size or byte limit or
+   * the linger time has passed.
+   *
+   * @return false once the batcher is stopped; the remaining events are published by stop().
+   */
+  private boolean nextBatch(List<byte[]> batch) throws InterruptedException {
+    lock.lock();
+    try {
+      while (running && buffer.isEmpty()) {
+        notEmpty.await();
+      }
+      if (!running) {
+        return false;
+      }
+      long batchBytes = drainTo(batch, 0);
+      long remainingNanos = TimeUnit.MILLISECONDS.toNanos(settings.getLingerMs());
+      while (running && remainingNanos > 0 && !isComplete(batch, batchBytes)) {
+        remainingNanos = notEmpty.awaitNanos(remainingNanos);
+        batchBytes = drainTo(batch, batchBytes);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Publishes all buffered events; must be called with the lock held, after the publisher
+   * thread has finished.
+   */
+  private void flush() {
+    List<byte[]> batch = new ArrayList<>(settings.getBatchSize());
+    while (!buffer.isEmpty()) {
+      drainTo(batch, 0);
+      publishBatch(batch);
+      batch.clear();
+    }
+  }
+
+  private long drainTo(List<byte[]> batch, long batchBytes) {
+    while (!buffer.isEmpty() && !isComplete(batch, batchBytes)) {
+      byte[] next = buffer.poll();
+      batch.add(next);
+      batchBytes += next.length;
+    }
+    notFull.signalAll();
+    return batchBytes;
+  }
+
+  private boolean isComplete(List<byte[]> batch, long batchBytes) {
+    return batch.size() >= settings.getBatchSize() || batchBytes >= settings.getBatchBytes();
+  }
+
+  private void publishBatch(List<byte[]> batch) {
+    try {
+      producer.publish(batch);
+    } catch (RuntimeException e) {
+      LOG.error("Could not publish batch of " + batch.size() + " events of " + name, e);
+    }
+  }
+}
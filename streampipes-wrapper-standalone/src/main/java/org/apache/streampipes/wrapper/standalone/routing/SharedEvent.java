@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A raw event which is shared by all pipeline element instances consuming the same topic. The
+ * payload is decoded at most once, by the first instance that needs it, and the result is
+ * exposed as an unmodifiable map. Every instance builds its own {@link
+ * org.apache.streampipes.model.runtime.Event} from this map, so changes an instance makes to its
+ * event never affect the other instances, while decoded values are not copied.
+ */
+class SharedEvent {
+
+  private final byte[] payload;
+  private final SpDataFormatDefinition dataFormatDefinition;
+
+  private volatile Map<String, Object> decoded;
+  private SpRuntimeException decodeError;
+
+  SharedEvent(byte[] payload, SpDataFormatDefinition dataFormatDefinition) {
+    this.payload = payload;
+    this.dataFormatDefinition = dataFormatDefinition;
+  }
+
+  Map<String, Object> get() throws SpRuntimeException {
+    Map<String, Object> result = decoded;
+    if (result == null) {
+      synchronized (this) {
+        if (decodeError != null) {
+          throw decodeError;
+        }
+        result = decoded;
+        if (result == null) {
+          try {
+            result = Collections.unmodifiableMap(dataFormatDefinition.toMap(payload));
+          } catch (SpRuntimeException e) {
+            decodeError = e;
+            throw e;
+          }
+          decoded = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  byte[] getPayload() {
+    return payload;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.messaging.inmemory.InMemoryChannel;
+import org.apache.streampipes.messaging.inmemory.InMemoryChannels;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
+import org.apache.streampipes.model.grounding.TransportFormat;
+import org.apache.streampipes.wrapper.routing.RawDataProcessor;
+import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+
+import java.util.Map;
+
+/**
+ * Receives events from a pipeline element in the same JVM. Events arrive as already converted
+ * maps, so no data format is involved; each consumer builds its own event from the shared map.
+ */
+public class StandaloneInMemoryInputCollector extends
+        StandaloneSpInputCollector<InMemoryTransportProtocol> {
+
+  private final InternalEventProcessor<Map<String, Object>> subscriber = this::onEvent;
+  private InMemoryChannel<Map<String, Object>> channel;
+
+  public StandaloneInMemoryInputCollector(InMemoryTransportProtocol protocol,
+                                          TransportFormat format,
+                                          Boolean singletonEngine) throws SpRuntimeException {
+    super(protocol, format, singletonEngine);
+  }
+
+  private void onEvent(Map<String, Object> event) {
+    forEachConsumer((routeId, consumer) -> dispatch(routeId, () -> send(consumer, event)));
+  }
+
+  private void send(RawDataProcessor rawDataProcessor, Map<String, Object> event) {
+    try {
+      rawDataProcessor.process(event, getTopic());
+    } catch (SpRuntimeException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public void connect() throws SpRuntimeException {
+    if (channel == null) {
+      channel = InMemoryChannels.acquire(getTopic(), Map.class);
+      channel.subscribe(subscriber);
+    }
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    if (channel != null && consumers.size() == 0) {
+      channel.unsubscribe(subscriber);
+      InMemoryChannels.release(getTopic(), Map.class);
+      channel = null;
+      shutdownFanOut();
+      ProtocolManager.removeInputCollector(transportProtocol);
+    }
+  }
+}
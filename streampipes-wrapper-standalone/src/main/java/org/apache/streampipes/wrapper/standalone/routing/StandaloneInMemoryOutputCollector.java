@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.inmemory.InMemoryChannel;
+import org.apache.streampipes.messaging.inmemory.InMemoryChannels;
+import org.apache.streampipes.model.grounding.InMemoryTransportProtocol;
+import org.apache.streampipes.model.grounding.TransportFormat;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventConverter;
+import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands events over to pipeline elements in the same JVM without serializing them. The event is
+ * converted to its map representation when it is collected, and raw output maps are copied, so
+ * that the engine may reuse or modify the event or map afterwards without affecting events which
+ * have already been handed over.
+ *
+ * If the topic is fused, i.e., it connects two elements of a linear chain, the downstream
+ * element processes the event on the calling thread, so that the chain runs as one task.
+ */
+public class StandaloneInMemoryOutputCollector extends
+        StandaloneSpOutputCollector<InMemoryTransportProtocol> {
+
+  private InMemoryChannel<Map<String, Object>> channel;
+
+  public StandaloneInMemoryOutputCollector(InMemoryTransportProtocol protocol,
+                                           TransportFormat format) throws SpRuntimeException {
+    super(protocol, format);
+  }
+
+  @Override
+  public void collect(Event event) {
+    if (channel != null) {
+      long sampleStart = startSample();
+      Map<String, Object> outEvent = Collections.unmodifiableMap(new EventConverter(event).toMap());
+      recordEncoded(sampleStart);
+      deliver(outEvent);
+    }
+  }
+
+  @Override
+  public void collectRaw(Map<String, Object> outputEvent) {
+    if (channel != null) {
+      long sampleStart = startSample();
+      Map<String, Object> outEvent = Collections.unmodifiableMap(copyMap(outputEvent));
+      recordEncoded(sampleStart);
+      deliver(outEvent);
+    }
+  }
+
+  private static Map<String, Object> copyMap(Map<?, ?> map) {
+    Map<String, Object> copy = new HashMap<>(map.size() * 4 / 3 + 1);
+    map.forEach((key, value) -> copy.put((String) key, copyValue(value)));
+    return copy;
+  }
+
+  private static Object copyValue(Object value) {
+    if (value instanceof Map) {
+      return copyMap((Map<?, ?>) value);
+    } else if (value instanceof List) {
+      List<Object> copy = new ArrayList<>(((List<?>) value).size());
+      for (Object item : (List<?>) value) {
+        copy.add(copyValue(item));
+      }
+      return copy;
+    }
+    return value;
+  }
+
+  private void deliver(Map<String, Object> outEvent) {
+    if (transportProtocol.isFused()) {
+      channel.deliver(outEvent);
+    } else {
+      channel.publish(outEvent);
+    }
+  }
+
+  /**
+   * Events are not encoded, so there is no payload to append fields to.
+   */
+  @Override
+  public boolean supportsAppendedFields() {
+    return false;
+  }
+
+  @Override
+  public void connect() throws SpRuntimeException {
+    if (channel == null) {
+      channel = InMemoryChannels.acquire(getTopic(), Map.class);
+    }
+  }
+
+  @Override
+  public void disconnect() throws SpRuntimeException {
+    if (channel != null) {
+      InMemoryChannels.release(getTopic(), Map.class);
+      channel = null;
+      ProtocolManager.removeOutputCollector(transportProtocol);
+    }
+  }
+}
@@ -19,44 +19,225 @@
 package org.apache.streampipes.wrapper.standalone.routing;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.QueueStatistics;
+import org.apache.streampipes.messaging.BufferingConsumer;
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
+import org.apache.streampipes.messaging.EventConsumer;
 import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.messaging.LagAwareConsumer;
 import org.apache.streampipes.model.grounding.TransportFormat;
 import org.apache.streampipes.model.grounding.TransportProtocol;
 import org.apache.streampipes.wrapper.routing.RawDataProcessor;
 import org.apache.streampipes.wrapper.routing.SpInputCollector;
 import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 public class StandaloneSpInputCollector<T extends TransportProtocol> extends
         StandaloneSpCollector<T, RawDataProcessor>
         implements
         InternalEventProcessor<byte[]>, SpInputCollector {
 
+  private static final Logger LOG = LoggerFactory.getLogger(StandaloneSpInputCollector.class);
+
   private Boolean singletonEngine;
 
+  private final ExecutionStageSettings executionStageSettings = ExecutionStageSettings.fromDefault();
+  private final FanOutExecutor fanOutExecutor;
+  private final Map<String, ExecutionStage> executionStages = new ConcurrentHashMap<>();
+  private final Map<String, LoadShedder> loadShedders = new ConcurrentHashMap<>();
+  private final Map<String, QueueStatistics> consumerQueues = new ConcurrentHashMap<>();
+  private volatile boolean checkpointCommits;
 
   public StandaloneSpInputCollector(T protocol, TransportFormat format,
                                     Boolean singletonEngine) throws SpRuntimeException {
     super(protocol, format);
     this.singletonEngine = singletonEngine;
+    this.fanOutExecutor = new FanOutExecutor(getTopic(), FanOutSettings.fromDefault());
   }
 
   @Override
   public void onEvent(byte[] event) {
+    SharedEvent sharedEvent = new SharedEvent(event, dataFormatDefinition);
+    forEachConsumer((routeId, consumer) -> {
+      Runnable task = () -> send(consumer, sharedEvent);
+      LoadShedder loadShedder = loadShedders.get(routeId);
+      if (loadShedder != null) {
+        task = loadShedder.admit(sharedEvent, task);
+      }
+      if (task != null) {
+        dispatch(routeId, task);
+      }
+    });
+  }
+
+  /**
+   * Applies the action to all consumers of this collector. If several instances consume the
+   * topic, no execution stages are configured and a fan-out parallelism is set, the action is
+   * applied in parallel on the fan-out pool of this collector.
+   */
+  protected void forEachConsumer(BiConsumer<String, RawDataProcessor> action) {
     if (singletonEngine) {
-     send(consumers.get(consumers.keySet().toArray()[0]), event);
+      String routeId = (String) consumers.keySet().toArray()[0];
+      action.accept(routeId, consumers.get(routeId));
+    } else if (executionStages.isEmpty()) {
+      fanOutExecutor.invokeAll(consumers, action);
+    } else {
+      consumers.forEach(action);
+    }
+  }
+
+  /**
+   * Stops the fan-out threads of this collector once its last consumer has been unregistered.
+   */
+  protected void shutdownFanOut() {
+    fanOutExecutor.shutdown();
+  }
+
+  /**
+   * Runs the task on the execution stage of the route if one is configured, otherwise on the
+   * calling thread of the messaging consumer.
+   */
+  protected void dispatch(String routeId, Runnable task) {
+    ExecutionStage executionStage = executionStages.get(routeId);
+    if (executionStage != null) {
+      executionStage.submit(task);
     } else {
-      consumers.forEach((key, value) -> send(value, event));
+      task.run();
     }
   }
 
-  private void send(RawDataProcessor rawDataProcessor, byte[] event) {
+  private void send(RawDataProcessor rawDataProcessor, SharedEvent event) {
     try {
-      rawDataProcessor.process(dataFormatDefinition.toMap(event), getTopic());
+      ElementMetrics metrics = rawDataProcessor.getMetrics();
+      long sampleStart = metrics != null ? metrics.startSample() : ElementMetrics.NOT_SAMPLED;
+      Map<String, Object> rawEvent = event.get();
+      if (metrics != null) {
+        metrics.record(ElementMetrics.Timer.DECODE, sampleStart);
+      }
+      rawDataProcessor.process(rawEvent, getTopic(), event.getPayload(), dataFormatDefinition);
     } catch (SpRuntimeException e) {
       e.printStackTrace();
     }
   }
 
+  /**
+   * Registers a further instance consuming the topic of this collector. If checkpoint commits
+   * have been enabled for the first instance, they are disabled, as the checkpoints of that
+   * instance do not cover the events processed by the new one.
+   */
+  @Override
+  public synchronized void registerConsumer(String routeId, RawDataProcessor consumer) {
+    if (checkpointCommits && !consumers.containsKey(routeId)) {
+      LOG.warn("Topic {} is shared by several instances, committing the positions of processed "
+              + "events instead of checkpoints", getTopic());
+      ((CheckpointAwareConsumer) protocolDefinition.getConsumer()).disableCheckpointCommits();
+      checkpointCommits = false;
+    }
+    if (executionStageSettings.isEnabled()) {
+      ExecutionStage executionStage = new ExecutionStage(routeId, executionStageSettings);
+      executionStage.setMetrics(consumer.getMetrics());
+      executionStages.put(routeId, executionStage);
+      executionStage.start();
+    }
+    EventConsumer<T> messagingConsumer = protocolDefinition.getConsumer();
+    if (consumer.getMetrics() != null && messagingConsumer instanceof BufferingConsumer) {
+      QueueStatistics consumerQueue = new ConsumerQueueStatistics(
+              (BufferingConsumer) messagingConsumer);
+      consumerQueues.put(routeId, consumerQueue);
+      consumer.getMetrics().addQueue(consumerQueue);
+    }
+    super.registerConsumer(routeId, consumer);
+  }
+
+  @Override
+  public void unregisterConsumer(String routeId) {
+    RawDataProcessor consumer = consumers.get(routeId);
+    QueueStatistics consumerQueue = consumerQueues.remove(routeId);
+    if (consumer != null && consumer.getMetrics() != null && consumerQueue != null) {
+      consumer.getMetrics().removeQueue(consumerQueue);
+    }
+    super.unregisterConsumer(routeId);
+    loadShedders.remove(routeId);
+    ExecutionStage executionStage = executionStages.remove(routeId);
+    if (executionStage != null) {
+      executionStage.stop();
+    }
+  }
+
+  /**
+   * Lets the checkpoints of the only consumer of this collector drive the commits of the
+   * messaging consumer. This is only possible if events are processed synchronously, i.e.,
+   * without execution stage, and the messaging consumer is not connected yet. Checkpoint commits
+   * are disabled again once a further consumer is registered.
+   *
+   * @return the messaging consumer if checkpoint commits have been enabled.
+   */
+  public synchronized Optional<CheckpointAwareConsumer> enableCheckpointCommits() {
+    EventConsumer<T> consumer = protocolDefinition.getConsumer();
+    if (consumer instanceof CheckpointAwareConsumer && consumers.size() == 1
+            && executionStages.isEmpty() && !consumer.isConnected()
+            && ((CheckpointAwareConsumer) consumer).enableCheckpointCommits()) {
+      checkpointCommits = true;
+      return Optional.of((CheckpointAwareConsumer) consumer);
+    }
+    return Optional.empty();
+  }
+
+  public boolean isCheckpointCommitsEnabled() {
+    return checkpointCommits;
+  }
+
+  /**
+   * Lets the consumer of the route shed load while the queue in front of it or the lag of the
+   * messaging consumer of this collector exceeds the thresholds of the settings. The queue is the
+   * execution stage of the route if one is configured, otherwise the hand-off queue of the
+   * messaging consumer.
+   */
+  public void enableLoadShedding(String routeId, LoadSheddingSettings settings) {
+    RawDataProcessor consumer = consumers.get(routeId);
+    if (!settings.isEnabled() || consumer == null) {
+      return;
+    }
+    ExecutionStage executionStage = executionStages.get(routeId);
+    if (settings.getPolicy() == LoadSheddingSettings.Policy.LATEST_BY_KEY
+            && executionStage == null) {
+      LOG.warn("Load shedding policy {} of {} requires an execution stage, disabling load "
+              + "shedding", settings.getPolicy(), routeId);
+      return;
+    }
+    EventConsumer<T> messagingConsumer = protocolDefinition.getConsumer();
+    QueueStatistics queue = null;
+    int queueCapacity = 0;
+    if (executionStage != null) {
+      queue = executionStage;
+      queueCapacity = executionStage.getQueueCapacity();
+    } else if (messagingConsumer instanceof BufferingConsumer) {
+      queue = new ConsumerQueueStatistics((BufferingConsumer) messagingConsumer);
+      queueCapacity = ((BufferingConsumer) messagingConsumer).getQueueCapacity();
+    }
+    ElementMetrics metrics = consumer.getMetrics();
+    LoadShedder loadShedder = new LoadShedder(metrics != null ? metrics.getElementId() : routeId,
+            settings, queue, queueCapacity, messagingConsumer instanceof LagAwareConsumer
+            ? (LagAwareConsumer) messagingConsumer : null, metrics);
+    if (!loadShedder.hasOverloadSignal()) {
+      LOG.warn("Neither the queue depth nor the consumer lag of {} can be observed, disabling "
+              + "load shedding", routeId);
+      return;
+    }
+    loadShedders.put(routeId, loadShedder);
+  }
+
+  public Optional<ExecutionStage> getExecutionStage(String routeId) {
+    return Optional.ofNullable(executionStages.get(routeId));
+  }
+
   @Override
   public void connect() throws SpRuntimeException {
     if (!protocolDefinition.getConsumer().isConnected()) {
@@ -69,8 +250,32 @@ public class StandaloneSpInputCollector<T extends TransportProtocol> extends
     if (protocolDefinition.getConsumer().isConnected()) {
       if (consumers.size() == 0) {
         protocolDefinition.getConsumer().disconnect();
+        shutdownFanOut();
         ProtocolManager.removeInputCollector(transportProtocol);
       }
     }
   }
+
+  /**
+   * Reports the events received, but not yet processed by the messaging consumer with the
+   * metrics of each instance consuming its topic.
+   */
+  private static class ConsumerQueueStatistics implements QueueStatistics {
+
+    private final BufferingConsumer consumer;
+
+    ConsumerQueueStatistics(BufferingConsumer consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public int getQueueDepth() {
+      return consumer.getQueueDepth();
+    }
+
+    @Override
+    public long getDroppedTasks() {
+      return 0;
+    }
+  }
 }
@@ -19,6 +19,9 @@
 package org.apache.streampipes.wrapper.standalone.routing;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.dataformat.AppendableDataFormatDefinition;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
 import org.apache.streampipes.messaging.InternalEventProcessor;
 import org.apache.streampipes.model.grounding.TransportFormat;
 import org.apache.streampipes.model.grounding.TransportProtocol;
@@ -26,6 +29,8 @@ import org.apache.streampipes.model.runtime.Event;
 import org.apache.streampipes.model.runtime.EventConverter;
 import org.apache.streampipes.wrapper.routing.SpOutputCollector;
 import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 
@@ -33,17 +38,117 @@ public class StandaloneSpOutputCollector<T extends TransportProtocol> extends
         StandaloneSpCollector<T, InternalEventProcessor<Map<String,
                 Object>>> implements SpOutputCollector {
 
+  private static final Logger LOG = LoggerFactory.getLogger(StandaloneSpOutputCollector.class);
+
+  private final OutputBatchSettings outputBatchSettings = OutputBatchSettings.fromDefault();
+  private volatile OutputBatcher outputBatcher;
+  private volatile ElementMetrics metrics;
+  private final Object publishLock = new Object();
 
   public StandaloneSpOutputCollector(T protocol, TransportFormat format) throws SpRuntimeException {
    super(protocol, format);
   }
 
   public void collect(Event event) {
-    Map<String, Object> outEvent = new EventConverter(event).toMap();
+    long sampleStart = startSample();
+    try {
+      publish(encode(event), sampleStart);
+    } catch (SpRuntimeException e) {
+      LOG.error("Could not publish event to topic " + getTopic(), e);
+    }
+  }
+
+  @Override
+  public void collectRaw(Map<String, Object> outputEvent) {
+    long sampleStart = startSample();
+    try {
+      publish(dataFormatDefinition.fromMap(outputEvent), sampleStart);
+    } catch (SpRuntimeException e) {
+      LOG.error("Could not publish event to topic " + getTopic(), e);
+    }
+  }
+
+  /**
+   * Publishes an event which may have been derived from an input event by appending fields. If
+   * all fields of the input event are still present and unchanged, only the appended fields are
+   * encoded and spliced into the payload of the input event; otherwise, the event is encoded as a
+   * whole.
+   *
+   * @param inputEvent   the decoded input event.
+   * @param inputPayload the payload the input event was decoded from.
+   * @param inputFormat  the data format of the payload.
+   */
+  public void collectAppended(Event event, Map<String, Object> inputEvent, byte[] inputPayload,
+                              SpDataFormatDefinition inputFormat) {
+    long sampleStart = startSample();
+    try {
+      publish(encodeAppended(event, inputEvent, inputPayload, inputFormat), sampleStart);
+    } catch (SpRuntimeException e) {
+      LOG.error("Could not publish event to topic " + getTopic(), e);
+    }
+  }
+
+  public boolean supportsAppendedFields() {
+    return dataFormatDefinition instanceof AppendableDataFormatDefinition;
+  }
+
+  /**
+   * Records the time spent on encoding and the number of emitted events to the metrics of the
+   * instance producing this output.
+   */
+  public void setMetrics(ElementMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  protected long startSample() {
+    ElementMetrics currentMetrics = metrics;
+    return currentMetrics != null ? currentMetrics.startSample() : ElementMetrics.NOT_SAMPLED;
+  }
+
+  protected void recordEncoded(long sampleStart) {
+    ElementMetrics currentMetrics = metrics;
+    if (currentMetrics != null) {
+      currentMetrics.record(ElementMetrics.Timer.ENCODE, sampleStart);
+      currentMetrics.countOut();
+    }
+  }
+
+  private byte[] encode(Event event) throws SpRuntimeException {
+    return dataFormatDefinition.fromMap(new EventConverter(event).toMap());
+  }
+
+  private byte[] encodeAppended(Event event, Map<String, Object> inputEvent, byte[] inputPayload,
+                                SpDataFormatDefinition inputFormat) throws SpRuntimeException {
+    Map<String, Object> appendedFields = inputFormat.getClass() == dataFormatDefinition.getClass()
+            ? AppendedFields.find(event, inputEvent) : null;
+    if (appendedFields == null) {
+      return encode(event);
+    }
+    try {
+      return ((AppendableDataFormatDefinition) dataFormatDefinition).appendFields(inputPayload,
+              appendedFields);
+    } catch (SpRuntimeException e) {
+      LOG.debug("Could not append fields to input payload, encoding the whole event", e);
+      return encode(event);
+    }
+  }
+
+  private void publish(byte[] payload, long sampleStart) {
+    recordEncoded(sampleStart);
     try {
-      protocolDefinition.getProducer().publish(dataFormatDefinition.fromMap(outEvent));
+      OutputBatcher batcher = outputBatcher;
+      if (batcher != null) {
+        batcher.add(payload);
+      } else {
+        // the engines of a keyed processor collect concurrently, producers are not thread-safe
+        synchronized (publishLock) {
+          protocolDefinition.getProducer().publish(payload);
+        }
+      }
     } catch (SpRuntimeException e) {
-      e.printStackTrace();
+      LOG.error("Could not publish event to topic " + getTopic(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -51,12 +156,21 @@ public class StandaloneSpOutputCollector<T extends TransportProtocol> extends
   public void connect() throws SpRuntimeException {
     if (!protocolDefinition.getProducer().isConnected()) {
       protocolDefinition.getProducer().connect(transportProtocol);
+      if (outputBatchSettings.isEnabled()) {
+        outputBatcher = new OutputBatcher(getTopic(), protocolDefinition.getProducer(),
+                outputBatchSettings);
+        outputBatcher.start();
+      }
     }
   }
 
   @Override
   public void disconnect() throws SpRuntimeException {
     if (protocolDefinition.getProducer().isConnected()) {
+      if (outputBatcher != null) {
+        outputBatcher.stop();
+        outputBatcher = null;
+      }
       protocolDefinition.getProducer().disconnect();
       ProtocolManager.removeOutputCollector(transportProtocol);
     }
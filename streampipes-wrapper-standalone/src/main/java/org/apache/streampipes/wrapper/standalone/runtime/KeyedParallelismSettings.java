@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.streampipes.wrapper.standalone.runtime;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of the keyed parallel execution of data processors which declare a partition key.
+ * Keyed parallelism is disabled by default, i.e., a single engine processes all events.
+ */
+public class KeyedParallelismSettings {
+
+  private static final String PARALLELISM_ENV = "SP_PROCESSING_KEYED_PARALLELISM";
+
+  private static final int PARALLELISM_DEFAULT = 1;
+
+  private final int parallelism;
+
+  public KeyedParallelismSettings(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Keyed parallelism must be positive, was "
+              + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  public static KeyedParallelismSettings fromDefault() {
+    return new KeyedParallelismSettings(
+            EnvironmentVariables.getInt(PARALLELISM_ENV, PARALLELISM_DEFAULT, 1));
+  }
+
+  /**
+   * Number of engine instances of a data processor which declares a partition key.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+}
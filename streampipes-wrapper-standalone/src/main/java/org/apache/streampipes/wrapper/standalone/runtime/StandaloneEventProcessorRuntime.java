@@ -19,25 +19,170 @@
 package org.apache.streampipes.wrapper.standalone.runtime;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.ElementMetricsRegistry;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
 import org.apache.streampipes.model.graph.DataProcessorInvocation;
+import org.apache.streampipes.model.output.AppendOutputStrategy;
+import org.apache.streampipes.model.output.OutputStrategy;
+import org.apache.streampipes.model.runtime.Event;
 import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
+import org.apache.streampipes.wrapper.context.SpEventProcessorRuntimeContext;
 import org.apache.streampipes.wrapper.params.binding.EventProcessorBindingParams;
 import org.apache.streampipes.wrapper.params.runtime.EventProcessorRuntimeParams;
 import org.apache.streampipes.wrapper.routing.SpInputCollector;
 import org.apache.streampipes.wrapper.routing.SpOutputCollector;
 import org.apache.streampipes.wrapper.runtime.EventProcessor;
 import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+import org.apache.streampipes.wrapper.standalone.routing.AppendingOutputCollector;
+import org.apache.streampipes.wrapper.standalone.routing.ExecutionStage;
+import org.apache.streampipes.wrapper.standalone.routing.ExecutionStageSettings;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpInputCollector;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpOutputCollector;
+import org.apache.streampipes.wrapper.state.StateBackend;
+import org.apache.streampipes.wrapper.state.StateSettings;
+import org.apache.streampipes.wrapper.timer.SpTimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 public class StandaloneEventProcessorRuntime<B extends EventProcessorBindingParams> extends
         StandalonePipelineElementRuntime<B, DataProcessorInvocation,
                 EventProcessorRuntimeParams<B>, EventProcessorRuntimeContext, EventProcessor<B>> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(StandaloneEventProcessorRuntime.class);
+
+  private static final int KEYED_QUEUE_CAPACITY_DEFAULT = 1024;
+
+  private final String partitionKeySelector;
+  private final List<EventProcessor<B>> engines;
+  private final List<EventProcessorRuntimeContext> runtimeContexts;
+  private final SpTimerService[] timerServices;
+  private final List<ExecutionStage> keyedStages;
+  private final StateSettings stateSettings = StateSettings.fromDefault();
+  private final List<StateCheckpointer> checkpointers = new ArrayList<>();
+  private final boolean appendOutputStrategy = hasAppendOutputStrategy();
+
   public StandaloneEventProcessorRuntime(Supplier<EventProcessor<B>> supplier,
                                          EventProcessorRuntimeParams<B> params) {
     super(supplier, params);
+    this.partitionKeySelector = null;
+    this.engines = Collections.singletonList(engine);
+    this.runtimeContexts = Collections.singletonList(params.getRuntimeContext());
+    this.timerServices = new SpTimerService[1];
+    this.keyedStages = Collections.emptyList();
+    setUpState();
+  }
+
+  /**
+   * Creates a runtime which processes events in parallel on several engine instances. Events
+   * are assigned to an instance by the hash of the partition key and processed in order by a
+   * dedicated worker thread of this instance; events without a value for the key are processed by
+   * the first instance.
+   *
+   * Keyed parallel execution is only used for processors with a single input stream, as events
+   * of different streams with the same key could otherwise end up on different instances.
+   *
+   * @param partitionKeySelector the selector of the partition key field.
+   */
+  public StandaloneEventProcessorRuntime(Supplier<EventProcessor<B>> supplier,
+                                         EventProcessorRuntimeParams<B> params,
+                                         String partitionKeySelector) {
+    super(supplier, params);
+    ExecutionStageSettings settings = ExecutionStageSettings.fromDefault();
+    List<EventProcessor<B>> keyedEngines = new ArrayList<>();
+    keyedEngines.add(engine);
+    for (int i = 1; i < getKeyedParallelism(); i++) {
+      EventProcessor<B> keyedEngine = supplier.get();
+      if (keyedEngines.stream().anyMatch(e -> e == keyedEngine)) {
+        LOG.warn("Engine supplier of {} does not create new instances, disabling keyed parallel "
+                + "execution", params.getBindingParams().getGraph().getElementId());
+        keyedEngines = Collections.singletonList(engine);
+        break;
+      }
+      keyedEngines.add(keyedEngine);
+    }
+
+    this.engines = keyedEngines;
+    this.runtimeContexts = new ArrayList<>();
+    runtimeContexts.add(params.getRuntimeContext());
+    for (int i = 1; i < engines.size(); i++) {
+      runtimeContexts.add(params.createRuntimeContext());
+    }
+    this.timerServices = new SpTimerService[engines.size()];
+    if (engines.size() > 1) {
+      ExecutionStageSettings stageSettings = settings.isEnabled() ? settings :
+              settings.withQueueCapacity(KEYED_QUEUE_CAPACITY_DEFAULT);
+      this.partitionKeySelector = partitionKeySelector;
+      this.keyedStages = new ArrayList<>();
+      for (int i = 0; i < engines.size(); i++) {
+        keyedStages.add(new ExecutionStage(instanceId + "-" + i, stageSettings));
+      }
+    } else {
+      this.partitionKeySelector = null;
+      this.keyedStages = Collections.emptyList();
+    }
+    setUpState();
+  }
+
+  private int getKeyedParallelism() {
+    int parallelism = KeyedParallelismSettings.fromDefault().getParallelism();
+    List<?> inputStreams = params.getBindingParams().getGraph().getInputStreams();
+    if (parallelism > 1 && (inputStreams == null || inputStreams.size() != 1)) {
+      LOG.warn("Keyed parallel execution of {} requires a single input stream, using a single "
+              + "engine", params.getBindingParams().getGraph().getElementId());
+      return 1;
+    }
+    return parallelism;
+  }
+
+  /**
+   * Lets each engine open a state backend in the state directory, named after the element id
+   * (and the engine index in keyed mode) so that it is restored on restart, and checkpoints it
+   * periodically. State of instances which were not checkpointed within the retention period is
+   * removed.
+   */
+  private void setUpState() {
+    if (!stateSettings.isCheckpointingEnabled()) {
+      return;
+    }
+    String elementId = params.getBindingParams().getGraph().getElementId();
+    useStableGroupIds();
+    stateSettings.removeExpiredState();
+    for (int i = 0; i < runtimeContexts.size(); i++) {
+      EventProcessorRuntimeContext runtimeContext = runtimeContexts.get(i);
+      if (runtimeContext instanceof SpEventProcessorRuntimeContext) {
+        String instanceName = engines.size() > 1 ? elementId + "-" + i : elementId;
+        SpEventProcessorRuntimeContext spRuntimeContext =
+                (SpEventProcessorRuntimeContext) runtimeContext;
+        spRuntimeContext.setStateBackendSupplier(() -> openStateBackend(instanceName));
+        checkpointers.add(new StateCheckpointer(instanceName, spRuntimeContext,
+                spRuntimeContext.getTimerService(), stateSettings));
+      }
+    }
+  }
+
+  private boolean hasAppendOutputStrategy() {
+    List<OutputStrategy> outputStrategies = params.getBindingParams().getGraph()
+            .getOutputStrategies();
+    return outputStrategies != null && outputStrategies.size() == 1
+            && outputStrategies.get(0) instanceof AppendOutputStrategy;
+  }
+
+  private StateBackend openStateBackend(String instanceName) {
+    try {
+      return stateSettings.openBackend(instanceName);
+    } catch (IOException e) {
+      throw new SpRuntimeException(e);
+    }
   }
 
 
@@ -50,22 +195,195 @@ public class StandaloneEventProcessorRuntime<B extends EventProcessorBindingPara
   @Override
   public void discardRuntime() throws SpRuntimeException {
     getInputCollectors().forEach(is -> is.unregisterConsumer(instanceId));
+    keyedStages.forEach(ExecutionStage::stop);
+    checkpointers.forEach(StateCheckpointer::stop);
     discardEngine();
     postDiscard();
+    ElementMetricsRegistry.INSTANCE.unregister(metrics);
+  }
+
+  @Override
+  public void discardEngine() throws SpRuntimeException {
+    for (EventProcessor<B> keyedEngine : engines) {
+      keyedEngine.onDetach();
+    }
+    for (int i = 0; i < runtimeContexts.size(); i++) {
+      getCreatedTimerService(i).ifPresent(SpTimerService::close);
+    }
   }
 
   @Override
   public void process(Map<String, Object> rawEvent, String sourceInfo) throws SpRuntimeException {
-    getEngine().onEvent(params.makeEvent(rawEvent, sourceInfo), getOutputCollector());
+    process(rawEvent, sourceInfo, getOutputCollector());
+  }
+
+  /**
+   * For processors with an append output strategy, lets the output collector reuse the payload of
+   * the input event, so that only appended fields need to be encoded.
+   */
+  @Override
+  public void process(Map<String, Object> rawEvent, String sourceInfo, byte[] payload,
+                      SpDataFormatDefinition dataFormatDefinition) throws SpRuntimeException {
+    SpOutputCollector outputCollector = getOutputCollector();
+    if (appendOutputStrategy && outputCollector instanceof StandaloneSpOutputCollector
+            && ((StandaloneSpOutputCollector<?>) outputCollector).supportsAppendedFields()) {
+      outputCollector = new AppendingOutputCollector(
+              (StandaloneSpOutputCollector<?>) outputCollector, rawEvent, payload,
+              dataFormatDefinition);
+    }
+    process(rawEvent, sourceInfo, outputCollector);
+  }
+
+  private void process(Map<String, Object> rawEvent, String sourceInfo,
+                       SpOutputCollector outputCollector) throws SpRuntimeException {
+    metrics.countIn();
+    if (keyedStages.isEmpty()) {
+      onEvent(0, params.makeEvent(rawEvent, sourceInfo), outputCollector);
+    } else {
+      Event event = params.makeEvent(rawEvent, sourceInfo);
+      int partition = getPartition(event);
+      keyedStages.get(partition).submit(() -> {
+        try {
+          onEvent(partition, event, outputCollector);
+        } catch (SpRuntimeException e) {
+          LOG.error("Engine {} of {} failed to process event", partition, instanceId, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Passes the event to the given engine. If the engine has registered processing-time timers,
+   * their callbacks are excluded while the event is processed and due timers are fired before.
+   */
+  private void onEvent(int index, Event event, SpOutputCollector outputCollector) throws
+          SpRuntimeException {
+    SpTimerService timerService = timerServices[index];
+    long sampleStart = metrics.startSample();
+    if (timerService != null && timerService.hasProcessingTimeTimers()) {
+      timerService.beginProcessing();
+      try {
+        engines.get(index).onEvent(event, outputCollector);
+      } finally {
+        timerService.endProcessing();
+      }
+    } else {
+      try {
+        engines.get(index).onEvent(event, outputCollector);
+      } finally {
+        // the engine may have created the timer service or registered timers while processing
+        timerService = getTimerService(index);
+        if (timerService != null) {
+          timerService.startPendingTicker();
+        }
+      }
+    }
+    metrics.record(ElementMetrics.Timer.PROCESS, sampleStart);
+  }
+
+  /**
+   * @return the timer service of the given engine, or null if the engine has not created it so
+   * far. Only called by the thread processing the events of the engine.
+   */
+  private SpTimerService getTimerService(int index) {
+    SpTimerService timerService = timerServices[index];
+    if (timerService == null) {
+      timerService = getCreatedTimerService(index).orElse(null);
+      timerServices[index] = timerService;
+    }
+    return timerService;
+  }
+
+  private Optional<SpTimerService> getCreatedTimerService(int index) {
+    EventProcessorRuntimeContext runtimeContext = runtimeContexts.get(index);
+    return runtimeContext instanceof SpEventProcessorRuntimeContext
+            ? ((SpEventProcessorRuntimeContext) runtimeContext).getCreatedTimerService()
+            : Optional.empty();
+  }
+
+  private int getPartition(Event event) {
+    Object key;
+    try {
+      key = event.getFieldBySelector(partitionKeySelector).getRawValue();
+    } catch (IllegalArgumentException e) {
+      key = null;
+    }
+    int hash = Objects.hashCode(key);
+    return Math.floorMod(hash ^ (hash >>> 16), engines.size());
   }
 
   @Override
   public void bindRuntime() throws SpRuntimeException {
+    ElementMetricsRegistry.INSTANCE.register(metrics);
+    SpOutputCollector outputCollector = getOutputCollector();
+    if (outputCollector instanceof StandaloneSpOutputCollector) {
+      ((StandaloneSpOutputCollector<?>) outputCollector).setMetrics(metrics);
+    }
     bindEngine();
+    keyedStages.forEach(stage -> stage.setMetrics(metrics));
+    keyedStages.forEach(ExecutionStage::start);
     getInputCollectors().forEach(is -> is.registerConsumer(instanceId, this));
+    setTimerExecutors();
+    enableCheckpointCommits();
+    enableLoadShedding();
+    checkpointers.forEach(StateCheckpointer::start);
+    startPendingTickers();
     prepareRuntime();
   }
 
+  /**
+   * Lets processing-time timers which become due while an engine is idle fire on the execution
+   * stage processing the events of the engine, if there is one.
+   */
+  private void setTimerExecutors() {
+    for (int i = 0; i < runtimeContexts.size(); i++) {
+      EventProcessorRuntimeContext runtimeContext = runtimeContexts.get(i);
+      if (runtimeContext instanceof SpEventProcessorRuntimeContext) {
+        getTimerExecutor(i).ifPresent(((SpEventProcessorRuntimeContext) runtimeContext)
+                ::setTimerExecutor);
+      }
+    }
+  }
+
+  /**
+   * Starts ticking for processing-time timers registered by the engines on invocation or by the
+   * checkpointers, which were registered outside of event processing.
+   */
+  private void startPendingTickers() {
+    for (int i = 0; i < runtimeContexts.size(); i++) {
+      getCreatedTimerService(i).ifPresent(SpTimerService::startPendingTicker);
+    }
+  }
+
+  private Optional<ExecutionStage> getTimerExecutor(int index) {
+    if (!keyedStages.isEmpty()) {
+      return Optional.of(keyedStages.get(index));
+    }
+    return getInputCollectors()
+            .stream()
+            .filter(StandaloneSpInputCollector.class::isInstance)
+            .map(is -> ((StandaloneSpInputCollector<?>) is).getExecutionStage(instanceId))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .findFirst();
+  }
+
+  /**
+   * Lets the checkpoints commit the read positions of the messaging consumers, which is only
+   * possible if a single engine processes the events synchronously.
+   */
+  private void enableCheckpointCommits() throws SpRuntimeException {
+    if (engines.size() != 1 || checkpointers.isEmpty()) {
+      return;
+    }
+    for (SpInputCollector inputCollector : getInputCollectors()) {
+      if (inputCollector instanceof StandaloneSpInputCollector) {
+        ((StandaloneSpInputCollector<?>) inputCollector).enableCheckpointCommits()
+                .ifPresent(checkpointers.get(0)::addConsumer);
+      }
+    }
+  }
+
   @Override
   public void prepareRuntime() throws SpRuntimeException {
     for (SpInputCollector spInputCollector : getInputCollectors()) {
@@ -86,7 +404,10 @@ public class StandaloneEventProcessorRuntime<B extends EventProcessorBindingPara
 
   @Override
   public void bindEngine() throws SpRuntimeException {
-    engine.onInvocation(params.getBindingParams(), getOutputCollector() , params.getRuntimeContext());
+    for (int i = 0; i < engines.size(); i++) {
+      engines.get(i).onInvocation(params.getBindingParams(), getOutputCollector(),
+              runtimeContexts.get(i));
+    }
   }
 
 }
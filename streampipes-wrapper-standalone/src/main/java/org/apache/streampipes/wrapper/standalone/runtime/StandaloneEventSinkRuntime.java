@@ -19,12 +19,16 @@
 package org.apache.streampipes.wrapper.standalone.runtime;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.ElementMetricsRegistry;
 import org.apache.streampipes.model.graph.DataSinkInvocation;
 import org.apache.streampipes.wrapper.context.EventSinkRuntimeContext;
 import org.apache.streampipes.wrapper.params.binding.EventSinkBindingParams;
 import org.apache.streampipes.wrapper.params.runtime.EventSinkRuntimeParams;
 import org.apache.streampipes.wrapper.routing.SpInputCollector;
+import org.apache.streampipes.wrapper.runtime.BatchingEventSinkAdapter;
 import org.apache.streampipes.wrapper.runtime.EventSink;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpInputCollector;
 
 import java.util.Map;
 import java.util.function.Supplier;
@@ -43,20 +47,43 @@ public class StandaloneEventSinkRuntime<B extends EventSinkBindingParams> extend
     getInputCollectors().forEach(is -> is.unregisterConsumer(instanceId));
     discardEngine();
     postDiscard();
+    ElementMetricsRegistry.INSTANCE.unregister(metrics);
   }
 
   @Override
   public void process(Map rawEvent, String sourceInfo) throws SpRuntimeException {
+    metrics.countIn();
+    long sampleStart = metrics.startSample();
     getEngine().onEvent(params.makeEvent(rawEvent, sourceInfo));
+    metrics.record(ElementMetrics.Timer.PROCESS, sampleStart);
   }
 
   @Override
   public void bindRuntime() throws SpRuntimeException {
+    ElementMetricsRegistry.INSTANCE.register(metrics);
     bindEngine();
     getInputCollectors().forEach(is -> is.registerConsumer(instanceId, this));
+    enableBatchCommits();
+    enableLoadShedding();
     prepareRuntime();
   }
 
+  /**
+   * Lets a batching sink commit the read positions of the messaging consumers once a batch has
+   * been written.
+   */
+  private void enableBatchCommits() throws SpRuntimeException {
+    if (!(engine instanceof BatchingEventSinkAdapter)) {
+      return;
+    }
+    for (SpInputCollector inputCollector : getInputCollectors()) {
+      if (inputCollector instanceof StandaloneSpInputCollector) {
+        ((StandaloneSpInputCollector<?>) inputCollector).enableCheckpointCommits()
+                .ifPresent(((BatchingEventSinkAdapter<?>) engine)::addCommitConsumer);
+      }
+    }
+  }
+
   @Override
   public void prepareRuntime() throws SpRuntimeException {
     for (SpInputCollector spInputCollector : getInputCollectors()) {
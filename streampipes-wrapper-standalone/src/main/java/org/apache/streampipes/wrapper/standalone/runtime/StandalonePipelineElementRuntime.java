@@ -18,8 +18,12 @@
 package org.apache.streampipes.wrapper.standalone.runtime;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.MetricsSettings;
 import org.apache.streampipes.model.SpDataStream;
 import org.apache.streampipes.model.base.InvocableStreamPipesEntity;
+import org.apache.streampipes.model.grounding.KafkaTransportProtocol;
+import org.apache.streampipes.model.grounding.TransportProtocol;
 import org.apache.streampipes.wrapper.context.RuntimeContext;
 import org.apache.streampipes.wrapper.params.binding.BindingParams;
 import org.apache.streampipes.wrapper.params.runtime.RuntimeParams;
@@ -28,6 +32,8 @@ import org.apache.streampipes.wrapper.routing.SpInputCollector;
 import org.apache.streampipes.wrapper.runtime.PipelineElement;
 import org.apache.streampipes.wrapper.runtime.PipelineElementRuntime;
 import org.apache.streampipes.wrapper.standalone.manager.ProtocolManager;
+import org.apache.streampipes.wrapper.standalone.routing.LoadSheddingSettings;
+import org.apache.streampipes.wrapper.standalone.routing.StandaloneSpInputCollector;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,17 +48,66 @@ public abstract class StandalonePipelineElementRuntime<B extends BindingParams<I
 
   protected RP params;
   protected final P engine;
+  protected final ElementMetrics metrics;
+  private LoadSheddingSettings loadSheddingSettings = LoadSheddingSettings.fromDefault();
 
   public StandalonePipelineElementRuntime(Supplier<P> supplier, RP runtimeParams) {
     super();
     this.engine = supplier.get();
     this.params = runtimeParams;
+    this.metrics = new ElementMetrics(runtimeParams.getBindingParams().getGraph().getElementId(),
+            runtimeParams.getBindingParams().getGraph().getName(), MetricsSettings.fromDefault());
+  }
+
+  /**
+   * Replaces the Kafka consumer groups, which are generated for each start of the pipeline, by
+   * groups derived from the element id, which is stable across restarts, so that a restarted
+   * instance resumes from the committed offsets. Enables static group membership as well, so
+   * that a restart does not trigger a rebalance of these groups. Must be called before the
+   * input collectors are created.
+   */
+  protected void useStableGroupIds() {
+    String elementId = params.getBindingParams().getGraph().getElementId()
+            .replaceAll("[^a-zA-Z0-9._-]", "-");
+    List<SpDataStream> inputStreams = params.getBindingParams().getGraph().getInputStreams();
+    for (int i = 0; i < inputStreams.size(); i++) {
+      TransportProtocol protocol = inputStreams.get(i).getEventGrounding().getTransportProtocol();
+      if (protocol instanceof KafkaTransportProtocol) {
+        ((KafkaTransportProtocol) protocol).setGroupId(elementId + "-" + i);
+        ((KafkaTransportProtocol) protocol).setGroupInstanceId(elementId);
+      }
+    }
   }
 
   public P getEngine() {
     return engine;
   }
 
+  @Override
+  public ElementMetrics getMetrics() {
+    return metrics;
+  }
+
+  public void setLoadSheddingSettings(LoadSheddingSettings loadSheddingSettings) {
+    this.loadSheddingSettings = loadSheddingSettings;
+  }
+
+  /**
+   * Lets the input collectors discard events of this instance while it is overloaded. Must be
+   * called after the instance has been registered as consumer.
+   */
+  protected void enableLoadShedding() throws SpRuntimeException {
+    if (!loadSheddingSettings.isEnabled()) {
+      return;
+    }
+    for (SpInputCollector inputCollector : getInputCollectors()) {
+      if (inputCollector instanceof StandaloneSpInputCollector) {
+        ((StandaloneSpInputCollector<?>) inputCollector).enableLoadShedding(instanceId,
+                loadSheddingSettings);
+      }
+    }
+  }
+
   public void discardEngine() throws SpRuntimeException {
     engine.onDetach();
   }
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.runtime;
+
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
+import org.apache.streampipes.wrapper.context.SpEventProcessorRuntimeContext;
+import org.apache.streampipes.wrapper.state.StateBackend;
+import org.apache.streampipes.wrapper.state.StateSettings;
+import org.apache.streampipes.wrapper.state.StateSnapshot;
+import org.apache.streampipes.wrapper.timer.SpTimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Periodically checkpoints the state backend of an engine, using a processing-time timer so that
+ * the snapshot is taken while no event is processed. Snapshots are persisted on a shared
+ * checkpoint thread; afterwards, the read positions captured with the snapshot are committed to
+ * the messaging consumers, if these support checkpoint commits.
+ *
+ * Positions are captured before the snapshot is taken, so a restart may process few events
+ * twice, but never skips events (at-least-once). This requires that the restarted instance uses
+ * the same consumer groups, see {@link StandaloneEventProcessorRuntime}.
+ */
+class StateCheckpointer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StateCheckpointer.class);
+
+  private static final String TIMER_KEY = "sp-checkpoint";
+
+  private static final ExecutorService PERSIST_EXECUTOR = Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "sp-state-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final String instanceName;
+  private final SpEventProcessorRuntimeContext runtimeContext;
+  private final SpTimerService timerService;
+  private final StateSettings settings;
+  private final List<CheckpointAwareConsumer> consumers = new ArrayList<>();
+
+  private long nextCheckpointId = -1;
+  private long scheduledTime;
+  private Future<?> inFlight;
+
+  StateCheckpointer(String instanceName,
+                    SpEventProcessorRuntimeContext runtimeContext,
+                    SpTimerService timerService,
+                    StateSettings settings) {
+    this.instanceName = instanceName;
+    this.runtimeContext = runtimeContext;
+    this.timerService = timerService;
+    this.settings = settings;
+  }
+
+  void addConsumer(CheckpointAwareConsumer consumer) {
+    consumers.add(consumer);
+  }
+
+  void start() {
+    if (settings.isCheckpointingEnabled()) {
+      schedule();
+    }
+  }
+
+  /**
+   * Stops periodic checkpoints, takes a final checkpoint synchronously and closes the state
+   * backend.
+   */
+  void stop() {
+    timerService.beginProcessing();
+    try {
+      timerService.deleteProcessingTimeTimer(TIMER_KEY, scheduledTime);
+      if (settings.isCheckpointingEnabled()) {
+        checkpoint(true);
+      }
+      Optional<StateBackend> stateBackend = runtimeContext.getOpenedStateBackend();
+      if (stateBackend.isPresent()) {
+        stateBackend.get().close();
+      }
+    } catch (IOException e) {
+      LOG.error("Could not close state backend of " + instanceName, e);
+    } finally {
+      timerService.endProcessing();
+    }
+  }
+
+  private void schedule() {
+    scheduledTime = timerService.currentProcessingTime() + settings.getCheckpointIntervalMs();
+    timerService.registerProcessingTimeTimer(TIMER_KEY, scheduledTime, (key, timestamp) -> {
+      checkpoint(false);
+      schedule();
+    });
+  }
+
+  private void checkpoint(boolean synchronous) {
+    if (inFlight != null && !inFlight.isDone()) {
+      if (!synchronous) {
+        LOG.warn("Skipping checkpoint of {}, the previous checkpoint is still being persisted",
+                instanceName);
+        return;
+      }
+      awaitInFlight();
+    }
+
+    List<Map<String, Long>> positions = new ArrayList<>();
+    consumers.forEach(consumer -> positions.add(consumer.markCheckpoint()));
+    Optional<StateBackend> stateBackend = runtimeContext.getOpenedStateBackend();
+    StateSnapshot snapshot;
+    try {
+      snapshot = stateBackend.isPresent() ? stateBackend.get().snapshot(nextCheckpointId()) :
+              null;
+    } catch (IOException e) {
+      LOG.error("Could not take checkpoint of " + instanceName, e);
+      return;
+    }
+
+    Runnable persist = () -> {
+      try {
+        if (snapshot != null) {
+          snapshot.persist();
+        }
+        for (int i = 0; i < consumers.size(); i++) {
+          consumers.get(i).commitCheckpoint(positions.get(i));
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.error("Could not persist checkpoint of " + instanceName, e);
+      }
+    };
+    if (synchronous) {
+      persist.run();
+    } else {
+      inFlight = PERSIST_EXECUTOR.submit(persist);
+    }
+  }
+
+  private long nextCheckpointId() {
+    if (nextCheckpointId < 0) {
+      nextCheckpointId = runtimeContext.getStateBackend().getRestoredCheckpointId() + 1;
+    }
+    return nextCheckpointId++;
+  }
+
+  private void awaitInFlight() {
+    try {
+      inFlight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOG.error("Could not persist checkpoint of " + instanceName, e.getCause());
+    }
+  }
+}
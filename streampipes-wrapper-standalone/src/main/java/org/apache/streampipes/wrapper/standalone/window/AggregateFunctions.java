@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import java.util.function.Supplier;
+
+/**
+ * Incremental aggregate functions with constant-size state, except for percentiles, whose state
+ * is bounded by the value range and the accuracy of the {@link QuantileSketch}.
+ */
+public class AggregateFunctions {
+
+  private static final double PERCENTILE_ACCURACY_DEFAULT = 0.01;
+
+  private AggregateFunctions() {
+
+  }
+
+  public static AggregateFunction sum() {
+    return of("sum", SumAccumulator::new);
+  }
+
+  public static AggregateFunction count() {
+    return of("count", CountAccumulator::new);
+  }
+
+  public static AggregateFunction min() {
+    return of("min", MinAccumulator::new);
+  }
+
+  public static AggregateFunction max() {
+    return of("max", MaxAccumulator::new);
+  }
+
+  public static AggregateFunction mean() {
+    return of("mean", MeanAccumulator::new);
+  }
+
+  /**
+   * @return the population variance.
+   */
+  public static AggregateFunction variance() {
+    return of("variance", VarianceAccumulator::new);
+  }
+
+  /**
+   * @param percentile the percentile between 0 and 100, e.g., 50 for the median.
+   */
+  public static AggregateFunction percentile(double percentile) {
+    return percentile(percentile, PERCENTILE_ACCURACY_DEFAULT);
+  }
+
+  /**
+   * @param percentile       the percentile between 0 and 100, e.g., 50 for the median.
+   * @param relativeAccuracy the maximum relative error of the result, e.g., 0.01 for 1%.
+   */
+  public static AggregateFunction percentile(double percentile, double relativeAccuracy) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100, got "
+              + percentile);
+    }
+    // validates the accuracy
+    new QuantileSketch(relativeAccuracy);
+    return of("p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) :
+            String.valueOf(percentile)), () -> new PercentileAccumulator(percentile / 100,
+            relativeAccuracy));
+  }
+
+  private static AggregateFunction of(String name, Supplier<DoubleAccumulator> supplier) {
+    return new AggregateFunction() {
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public DoubleAccumulator createAccumulator() {
+        return supplier.get();
+      }
+    };
+  }
+
+  private static class SumAccumulator extends DoubleAccumulator {
+
+    private double sum;
+
+    @Override
+    public void add(double value) {
+      sum += value;
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      sum += ((SumAccumulator) other).sum;
+    }
+
+    @Override
+    public double getResult() {
+      return sum;
+    }
+  }
+
+  private static class CountAccumulator extends DoubleAccumulator {
+
+    private long count;
+
+    @Override
+    public void add(double value) {
+      count++;
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      count += ((CountAccumulator) other).count;
+    }
+
+    @Override
+    public double getResult() {
+      return count;
+    }
+  }
+
+  private static class MinAccumulator extends DoubleAccumulator {
+
+    private double min = Double.NaN;
+
+    @Override
+    public void add(double value) {
+      if (Double.isNaN(min) || value < min) {
+        min = value;
+      }
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      double otherMin = ((MinAccumulator) other).min;
+      if (!Double.isNaN(otherMin)) {
+        add(otherMin);
+      }
+    }
+
+    @Override
+    public double getResult() {
+      return min;
+    }
+  }
+
+  private static class MaxAccumulator extends DoubleAccumulator {
+
+    private double max = Double.NaN;
+
+    @Override
+    public void add(double value) {
+      if (Double.isNaN(max) || value > max) {
+        max = value;
+      }
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      double otherMax = ((MaxAccumulator) other).max;
+      if (!Double.isNaN(otherMax)) {
+        add(otherMax);
+      }
+    }
+
+    @Override
+    public double getResult() {
+      return max;
+    }
+  }
+
+  private static class MeanAccumulator extends DoubleAccumulator {
+
+    private double sum;
+    private long count;
+
+    @Override
+    public void add(double value) {
+      sum += value;
+      count++;
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      MeanAccumulator otherMean = (MeanAccumulator) other;
+      sum += otherMean.sum;
+      count += otherMean.count;
+    }
+
+    @Override
+    public double getResult() {
+      return count > 0 ? sum / count : Double.NaN;
+    }
+  }
+
+  /**
+   * Welford's online algorithm, merged as described by Chan et al.
+   */
+  private static class VarianceAccumulator extends DoubleAccumulator {
+
+    private long count;
+    private double mean;
+    private double m2;
+
+    @Override
+    public void add(double value) {
+      count++;
+      double delta = value - mean;
+      mean += delta / count;
+      m2 += delta * (value - mean);
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      VarianceAccumulator otherVariance = (VarianceAccumulator) other;
+      if (otherVariance.count == 0) {
+        return;
+      }
+      long total = count + otherVariance.count;
+      double delta = otherVariance.mean - mean;
+      mean += delta * otherVariance.count / total;
+      m2 += otherVariance.m2 + delta * delta * count * otherVariance.count / total;
+      count = total;
+    }
+
+    @Override
+    public double getResult() {
+      return count > 0 ? m2 / count : Double.NaN;
+    }
+  }
+
+  private static class PercentileAccumulator extends DoubleAccumulator {
+
+    private final double quantile;
+    private final QuantileSketch sketch;
+
+    PercentileAccumulator(double quantile, double relativeAccuracy) {
+      this.quantile = quantile;
+      this.sketch = new QuantileSketch(relativeAccuracy);
+    }
+
+    @Override
+    public void add(double value) {
+      sketch.add(value);
+    }
+
+    @Override
+    public void merge(DoubleAccumulator other) {
+      sketch.merge(((PercentileAccumulator) other).sketch);
+    }
+
+    @Override
+    public double getResult() {
+      return sketch.getQuantile(quantile);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+/**
+ * The mutable state of an incremental aggregate over double values. Accumulators of the same
+ * {@link AggregateFunction} can be merged, which allows sliding windows to share the
+ * accumulators of their panes.
+ */
+public abstract class DoubleAccumulator {
+
+  public abstract void add(double value);
+
+  /**
+   * Adds the state of another accumulator created by the same aggregate function.
+   */
+  public abstract void merge(DoubleAccumulator other);
+
+  /**
+   * @return the aggregated value or NaN if the aggregate is undefined, e.g., the minimum of no
+   * values.
+   */
+  public abstract double getResult();
+}
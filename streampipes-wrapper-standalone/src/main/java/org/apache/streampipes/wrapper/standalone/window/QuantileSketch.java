@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import java.util.Arrays;
+
+/**
+ * A mergeable quantile sketch with relative accuracy, following the DDSketch approach: values
+ * are counted in logarithmically sized buckets, so that each estimated quantile is within the
+ * given relative error of the exact value. The number of buckets only depends on the range of
+ * the values, not on their count.
+ */
+public class QuantileSketch {
+
+  private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+  private final double relativeAccuracy;
+  private final double gamma;
+  private final double logGamma;
+
+  private final Buckets positive = new Buckets();
+  private final Buckets negative = new Buckets();
+  private long zeroCount;
+  private long count;
+
+  public QuantileSketch(double relativeAccuracy) {
+    if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+      throw new IllegalArgumentException("Relative accuracy must be between 0 and 1, got "
+              + relativeAccuracy);
+    }
+    this.relativeAccuracy = relativeAccuracy;
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.logGamma = Math.log(gamma);
+  }
+
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (value > MIN_INDEXABLE_VALUE) {
+      positive.increment(index(value), 1);
+    } else if (value < -MIN_INDEXABLE_VALUE) {
+      negative.increment(index(-value), 1);
+    } else {
+      zeroCount++;
+    }
+    count++;
+  }
+
+  public void merge(QuantileSketch other) {
+    if (other.relativeAccuracy != relativeAccuracy) {
+      throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+    }
+    positive.merge(other.positive);
+    negative.merge(other.negative);
+    zeroCount += other.zeroCount;
+    count += other.count;
+  }
+
+  /**
+   * @param quantile the quantile between 0 and 1.
+   * @return the estimated quantile or NaN if the sketch is empty.
+   */
+  public double getQuantile(double quantile) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    long rank = (long) (quantile * (count - 1));
+    long seen = 0;
+    for (int i = negative.counts.length - 1; i >= 0; i--) {
+      seen += negative.counts[i];
+      if (seen > rank) {
+        return -value(negative.offset + i);
+      }
+    }
+    seen += zeroCount;
+    if (seen > rank) {
+      return 0;
+    }
+    for (int i = 0; i < positive.counts.length; i++) {
+      seen += positive.counts[i];
+      if (seen > rank) {
+        return value(positive.offset + i);
+      }
+    }
+    return value(positive.offset + positive.counts.length - 1);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  private int index(double value) {
+    return (int) Math.ceil(Math.log(value) / logGamma);
+  }
+
+  private double value(int index) {
+    return 2 * Math.pow(gamma, index) / (gamma + 1);
+  }
+
+  /**
+   * Dense bucket counts, covering the range of indexes seen so far.
+   */
+  private static class Buckets {
+
+    private long[] counts = new long[0];
+    private int offset;
+
+    void increment(int index, long increment) {
+      if (counts.length == 0) {
+        counts = new long[8];
+        offset = index;
+      } else if (index < offset) {
+        int shift = offset - index;
+        long[] grown = new long[Math.max(counts.length + shift, counts.length * 2)];
+        int newOffset = offset - (grown.length - counts.length);
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+      } else if (index >= offset + counts.length) {
+        counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length * 2));
+      }
+      counts[index - offset] += increment;
+    }
+
+    void merge(Buckets other) {
+      for (int i = 0; i < other.counts.length; i++) {
+        if (other.counts[i] != 0) {
+          increment(other.offset + i, other.counts[i]);
+        }
+      }
+    }
+  }
+}
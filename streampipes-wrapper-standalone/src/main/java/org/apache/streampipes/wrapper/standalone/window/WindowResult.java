@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WindowResult {
+
+  private final String key;
+  private final long start;
+  private final long end;
+  private final List<AggregateFunction> functions;
+  private final double[] values;
+
+  WindowResult(String key, long start, long end, List<AggregateFunction> functions,
+               double[] values) {
+    this.key = key;
+    this.start = start;
+    this.end = end;
+    this.functions = functions;
+    this.values = values;
+  }
+
+  /**
+   * @return the key of the window or null if the aggregation is not keyed.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return the start of the window (inclusive).
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * @return the end of the window (exclusive).
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  /**
+   * @return the value of the aggregate function at the given index of the aggregation.
+   */
+  public double getValue(int index) {
+    return values[index];
+  }
+
+  public double[] getValues() {
+    return Arrays.copyOf(values, values.length);
+  }
+
+  /**
+   * @return the values by the names of their aggregate functions.
+   */
+  public Map<String, Double> getValuesByName() {
+    Map<String, Double> valuesByName = new LinkedHashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      valuesByName.put(functions.get(i).getName(), values[i]);
+    }
+    return valuesByName;
+  }
+
+  @Override
+  public String toString() {
+    return "WindowResult{key=" + key + ", start=" + start + ", end=" + end + ", values="
+            + getValuesByName() + "}";
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+/**
+ * Describes event-time windows: tumbling and sliding windows are aligned to the epoch, session
+ * windows close after a gap without events of the same key. All durations are given in the unit
+ * of the event timestamps, usually milliseconds.
+ */
+public class WindowSpec {
+
+  public enum Type {
+    TUMBLING, SLIDING, SESSION
+  }
+
+  private final Type type;
+  private final long size;
+  private final long slide;
+  private final long gap;
+
+  private WindowSpec(Type type, long size, long slide, long gap) {
+    this.type = type;
+    this.size = size;
+    this.slide = slide;
+    this.gap = gap;
+  }
+
+  public static WindowSpec tumbling(long size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Window size must be positive, got " + size);
+    }
+    return new WindowSpec(Type.TUMBLING, size, size, 0);
+  }
+
+  public static WindowSpec sliding(long size, long slide) {
+    if (size <= 0 || slide <= 0 || slide > size) {
+      throw new IllegalArgumentException("Invalid sliding window (size=" + size + ", slide="
+              + slide + ")");
+    }
+    return new WindowSpec(Type.SLIDING, size, slide, 0);
+  }
+
+  public static WindowSpec session(long gap) {
+    if (gap <= 0) {
+      throw new IllegalArgumentException("Session gap must be positive, got " + gap);
+    }
+    return new WindowSpec(Type.SESSION, 0, 0, gap);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getSlide() {
+    return slide;
+  }
+
+  public long getGap() {
+    return gap;
+  }
+
+  /**
+   * @return the length of the panes that tumbling and sliding windows are composed of, i.e., the
+   * greatest common divisor of size and slide.
+   */
+  long getPaneSize() {
+    long a = size;
+    long b = slide;
+    while (b != 0) {
+      long t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally aggregates keyed values over event-time windows.
+ *
+ * Tumbling and sliding windows are composed of panes of gcd(size, slide): each value is only
+ * added to the accumulators of its pane, and a window is evaluated by merging the accumulators
+ * of its panes when the watermark passes the end of the window. Session windows keep one set of
+ * accumulators per session. The state is thus bounded by the number of open panes or sessions,
+ * independent of the number of events.
+ *
+ * Values whose windows have all been emitted already are dropped. The aggregator is not
+ * thread-safe and is meant to be used from the processing thread of a pipeline element.
+ */
+public class WindowedAggregator {
+
+  private final WindowSpec window;
+  private final List<AggregateFunction> functions;
+  private final Consumer<WindowResult> resultConsumer;
+  private final long paneSize;
+
+  private final Map<String, KeyState> states = new HashMap<>();
+  private final PriorityQueue<ScheduledEmission> emissions =
+          new PriorityQueue<>(Comparator.comparingLong(emission -> emission.time));
+
+  private long watermark = Long.MIN_VALUE;
+  private long droppedLateValues;
+  private int openPanes;
+
+  public WindowedAggregator(WindowSpec window,
+                            List<AggregateFunction> functions,
+                            Consumer<WindowResult> resultConsumer) {
+    if (functions.isEmpty()) {
+      throw new IllegalArgumentException("At least one aggregate function is required");
+    }
+    this.window = window;
+    this.functions = Collections.unmodifiableList(new ArrayList<>(functions));
+    this.resultConsumer = resultConsumer;
+    this.paneSize = window.getType() == WindowSpec.Type.SESSION ? 0 : window.getPaneSize();
+  }
+
+  /**
+   * @param key       the key of the value, or null for non-keyed aggregations.
+   * @param timestamp the event time of the value.
+   */
+  public void add(String key, long timestamp, double value) {
+    if (isLate(timestamp)) {
+      droppedLateValues++;
+      return;
+    }
+    KeyState state = states.computeIfAbsent(key, KeyState::new);
+    if (window.getType() == WindowSpec.Type.SESSION) {
+      addToSession(state, timestamp, value);
+    } else {
+      addToPane(state, timestamp, value);
+    }
+    schedule(state);
+  }
+
+  /**
+   * Advances the watermark and emits all windows whose end is not after the new watermark.
+   * Watermarks which are not after the current one are ignored.
+   */
+  public void advanceWatermark(long watermark) {
+    if (watermark <= this.watermark) {
+      return;
+    }
+    this.watermark = watermark;
+    while (!emissions.isEmpty() && emissions.peek().time <= watermark) {
+      ScheduledEmission emission = emissions.poll();
+      KeyState state = emission.state;
+      if (state.scheduledEmission != emission.time || states.get(state.key) != state) {
+        continue;
+      }
+      state.scheduledEmission = Long.MAX_VALUE;
+      if (window.getType() == WindowSpec.Type.SESSION) {
+        emitSessions(state);
+      } else {
+        emitPaneWindows(state);
+      }
+      if (state.panes.isEmpty()) {
+        states.remove(state.key);
+      } else {
+        schedule(state);
+      }
+    }
+  }
+
+  public long getWatermark() {
+    return watermark;
+  }
+
+  public long getDroppedLateValues() {
+    return droppedLateValues;
+  }
+
+  /**
+   * @return the number of panes (or sessions) currently kept over all keys.
+   */
+  public int getOpenPanes() {
+    return openPanes;
+  }
+
+  private boolean isLate(long timestamp) {
+    if (watermark == Long.MIN_VALUE) {
+      return false;
+    }
+    long lastEnd = window.getType() == WindowSpec.Type.SESSION ? timestamp + window.getGap() :
+            Math.floorDiv(timestamp, window.getSlide()) * window.getSlide() + window.getSize();
+    return lastEnd - 1 <= watermark;
+  }
+
+  private void addToPane(KeyState state, long timestamp, double value) {
+    long paneStart = Math.floorDiv(timestamp, paneSize) * paneSize;
+    Pane pane = state.panes.get(paneStart);
+    if (pane == null) {
+      pane = new Pane(paneStart, paneStart + paneSize, createAccumulators());
+      state.panes.put(paneStart, pane);
+      openPanes++;
+    }
+    pane.add(value);
+    if (watermark != Long.MIN_VALUE) {
+      // windows which have already passed the watermark are not emitted anymore
+      long slide = window.getSlide();
+      long firstOpenEnd = (Math.floorDiv(watermark + 1 - window.getSize(), slide) + 1) * slide
+              + window.getSize();
+      state.nextWindowEnd = Math.max(state.nextWindowEnd, firstOpenEnd);
+    }
+  }
+
+  private void addToSession(KeyState state, long timestamp, double value) {
+    long end = timestamp + window.getGap();
+    Pane merged = null;
+    Long from = state.panes.floorKey(timestamp);
+    Iterator<Pane> sessions = (from == null ? state.panes : state.panes.tailMap(from, true))
+            .values().iterator();
+    while (sessions.hasNext()) {
+      Pane session = sessions.next();
+      if (session.start >= end) {
+        break;
+      }
+      if (session.end <= timestamp) {
+        continue;
+      }
+      if (merged == null) {
+        merged = session;
+      } else {
+        merged.merge(session);
+        sessions.remove();
+        openPanes--;
+      }
+    }
+
+    if (merged == null) {
+      merged = new Pane(timestamp, end, createAccumulators());
+      state.panes.put(timestamp, merged);
+      openPanes++;
+    } else if (timestamp < merged.start) {
+      state.panes.remove(merged.start);
+      merged.start = timestamp;
+      state.panes.put(timestamp, merged);
+    }
+    merged.end = Math.max(merged.end, end);
+    merged.add(value);
+  }
+
+  private void emitPaneWindows(KeyState state) {
+    long size = window.getSize();
+    long slide = window.getSlide();
+    while (!state.panes.isEmpty()) {
+      long end = Math.max(state.nextWindowEnd, firstWindowEnd(state.panes.firstKey()));
+      if (end - 1 > watermark) {
+        break;
+      }
+      DoubleAccumulator[] accumulators = createAccumulators();
+      for (Pane pane : state.panes.subMap(end - size, end).values()) {
+        for (int i = 0; i < accumulators.length; i++) {
+          accumulators[i].merge(pane.accumulators[i]);
+        }
+      }
+      emit(state.key, end - size, end, accumulators);
+
+      state.nextWindowEnd = end + slide;
+      NavigableMap<Long, Pane> expiredPanes = state.panes.headMap(end + slide - size, false);
+      openPanes -= expiredPanes.size();
+      expiredPanes.clear();
+    }
+  }
+
+  private void emitSessions(KeyState state) {
+    while (!state.panes.isEmpty()) {
+      Pane session = state.panes.firstEntry().getValue();
+      if (session.end - 1 > watermark) {
+        break;
+      }
+      emit(state.key, session.start, session.end, session.accumulators);
+      state.panes.pollFirstEntry();
+      openPanes--;
+    }
+  }
+
+  /**
+   * @return the end of the first window which contains the pane starting at the given time.
+   */
+  private long firstWindowEnd(long paneStart) {
+    long slide = window.getSlide();
+    return (Math.floorDiv(paneStart - window.getSize(), slide) + 1) * slide + window.getSize();
+  }
+
+  private void schedule(KeyState state) {
+    if (state.panes.isEmpty()) {
+      return;
+    }
+    long time = window.getType() == WindowSpec.Type.SESSION ?
+            state.panes.firstEntry().getValue().end - 1 :
+            Math.max(state.nextWindowEnd, firstWindowEnd(state.panes.firstKey())) - 1;
+    if (time < state.scheduledEmission) {
+      state.scheduledEmission = time;
+      emissions.add(new ScheduledEmission(time, state));
+    }
+  }
+
+  private void emit(String key, long start, long end, DoubleAccumulator[] accumulators) {
+    double[] values = new double[accumulators.length];
+    for (int i = 0; i < accumulators.length; i++) {
+      values[i] = accumulators[i].getResult();
+    }
+    resultConsumer.accept(new WindowResult(key, start, end, functions, values));
+  }
+
+  private DoubleAccumulator[] createAccumulators() {
+    DoubleAccumulator[] accumulators = new DoubleAccumulator[functions.size()];
+    for (int i = 0; i < accumulators.length; i++) {
+      accumulators[i] = functions.get(i).createAccumulator();
+    }
+    return accumulators;
+  }
+
+  private static class KeyState {
+
+    private final String key;
+    private final TreeMap<Long, Pane> panes = new TreeMap<>();
+    private long nextWindowEnd = Long.MIN_VALUE;
+    private long scheduledEmission = Long.MAX_VALUE;
+
+    KeyState(String key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * A pane of a tumbling or sliding window, or a session.
+   */
+  private static class Pane {
+
+    private long start;
+    private long end;
+    private final DoubleAccumulator[] accumulators;
+
+    Pane(long start, long end, DoubleAccumulator[] accumulators) {
+      this.start = start;
+      this.end = end;
+      this.accumulators = accumulators;
+    }
+
+    void add(double value) {
+      for (DoubleAccumulator accumulator : accumulators) {
+        accumulator.add(value);
+      }
+    }
+
+    void merge(Pane other) {
+      end = Math.max(end, other.end);
+      for (int i = 0; i < accumulators.length; i++) {
+        accumulators[i].merge(other.accumulators[i]);
+      }
+    }
+  }
+
+  private static class ScheduledEmission {
+
+    private final long time;
+    private final KeyState state;
+
+    ScheduledEmission(long time, KeyState state) {
+      this.time = time;
+      this.state = state;
+    }
+  }
+}
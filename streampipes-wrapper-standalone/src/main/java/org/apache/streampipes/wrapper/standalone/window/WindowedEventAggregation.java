@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.timer.TimerService;
+
+/**
+ * Feeds events into a {@link WindowedAggregator}, reading the event time from a timestamp
+ * mapping property. The watermark follows the highest timestamp seen so far, lagging behind by
+ * the maximum out-of-orderness.
+ *
+ * As the watermark only moves with new events, the last windows would stay open while the stream
+ * is idle. With {@link #enableIdleWatermarks(TimerService, long)}, a processing-time timer also
+ * advances the watermark by the processing time elapsed since the last event.
+ */
+public class WindowedEventAggregation {
+
+  private static final String IDLE_TIMER_KEY = "idle-watermark";
+
+  private final WindowedAggregator aggregator;
+  private final String timestampSelector;
+  private final String valueSelector;
+  private final String keySelector;
+  private final long maxOutOfOrderness;
+
+  private long maxTimestamp = Long.MIN_VALUE;
+
+  private TimerService timerService;
+  private long idleInterval;
+  private long lastEventTime;
+  private long idleTimerTime;
+
+  /**
+   * @param keySelector       the selector of the key field, or null for non-keyed aggregations.
+   * @param maxOutOfOrderness the time events may arrive after events with a later timestamp
+   *                          without being dropped.
+   */
+  public WindowedEventAggregation(WindowedAggregator aggregator,
+                                  String timestampSelector,
+                                  String valueSelector,
+                                  String keySelector,
+                                  long maxOutOfOrderness) {
+    if (maxOutOfOrderness < 0) {
+      throw new IllegalArgumentException("Out-of-orderness must not be negative, got "
+              + maxOutOfOrderness);
+    }
+    this.aggregator = aggregator;
+    this.timestampSelector = timestampSelector;
+    this.valueSelector = valueSelector;
+    this.keySelector = keySelector;
+    this.maxOutOfOrderness = maxOutOfOrderness;
+  }
+
+  public void onEvent(Event event) {
+    long timestamp = toLong(event.getFieldBySelector(timestampSelector).getRawValue());
+    double value = toDouble(event.getFieldBySelector(valueSelector).getRawValue());
+    String key = keySelector != null ?
+            String.valueOf(event.getFieldBySelector(keySelector).getRawValue()) : null;
+
+    if (timerService != null) {
+      lastEventTime = timerService.currentProcessingTime();
+    }
+    aggregator.add(key, timestamp, value);
+    if (timestamp > maxTimestamp) {
+      maxTimestamp = timestamp;
+      aggregator.advanceWatermark(timestamp - maxOutOfOrderness - 1);
+    }
+  }
+
+  /**
+   * Checks every interval of processing time whether events have arrived. If not, the watermark
+   * is advanced as if the event time had progressed with the processing time since the last
+   * event, so that windows are emitted although the stream has stopped. Event timestamps must
+   * therefore be given in milliseconds. Events arriving after such an idle period are dropped if
+   * their windows have already been emitted.
+   *
+   * @param timerService the timer service of the pipeline element instance, whose callbacks are
+   *                     never called concurrently with {@link #onEvent(Event)}.
+   * @param interval     the interval in milliseconds.
+   */
+  public void enableIdleWatermarks(TimerService timerService, long interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Idle interval must be positive, got " + interval);
+    }
+    disableIdleWatermarks();
+    this.timerService = timerService;
+    this.idleInterval = interval;
+    this.lastEventTime = timerService.currentProcessingTime();
+    scheduleIdleTimer(lastEventTime + interval);
+  }
+
+  public void disableIdleWatermarks() {
+    if (timerService != null) {
+      timerService.deleteProcessingTimeTimer(IDLE_TIMER_KEY, idleTimerTime);
+      timerService = null;
+    }
+  }
+
+  private void scheduleIdleTimer(long time) {
+    idleTimerTime = time;
+    timerService.registerProcessingTimeTimer(IDLE_TIMER_KEY, time,
+            (key, timestamp) -> onIdleTimer());
+  }
+
+  private void onIdleTimer() {
+    if (timerService == null) {
+      return;
+    }
+    long now = timerService.currentProcessingTime();
+    long idleTime = now - lastEventTime;
+    if (maxTimestamp != Long.MIN_VALUE && idleTime >= idleInterval) {
+      aggregator.advanceWatermark(maxTimestamp + idleTime - maxOutOfOrderness - 1);
+    }
+    scheduleIdleTimer(now + idleInterval);
+  }
+
+  public WindowedAggregator getAggregator() {
+    return aggregator;
+  }
+
+  private long toLong(Object value) {
+    return value instanceof Number ? ((Number) value).longValue() :
+            Long.parseLong(String.valueOf(value));
+  }
+
+  private double toDouble(Object value) {
+    return value instanceof Number ? ((Number) value).doubleValue() :
+            Double.parseDouble(String.valueOf(value));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestAppendedFields {
+
+  @Test
+  public void testFindAppendedFields() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.addField("d", 4.5);
+    event.addField("e", "text");
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("d", 4.5);
+    expected.put("e", "text");
+    assertEquals(expected, AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testFindNoAppendedFields() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+
+    Map<String, Object> appendedFields = AppendedFields.find(event, inputEvent);
+
+    assertTrue(appendedFields != null && appendedFields.isEmpty());
+  }
+
+  @Test
+  public void testRemovedFieldIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.removeFieldBySelector("o::a");
+    event.addField("d", 4.5);
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testChangedFieldIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.updateFieldBySelector("o::a", "changed");
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testEqualValueIsNotUnchanged() {
+    // unchanged fields are detected by identity, an equal value may have been computed
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.updateFieldBySelector("o::a", new String("value"));
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testFieldNamedLikeInputFieldIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.addField("a", "duplicate");
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testChangedNestedFieldIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    Map<String, Object> nested = new HashMap<>();
+    nested.put("x", 1000);
+    inputEvent.put("c", nested);
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testChangedListIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    inputEvent.put("b", new ArrayList<>(Collections.singletonList(1)));
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  @Test
+  public void testRenamedFieldIsNotAppended() {
+    Map<String, Object> inputEvent = makeInputEvent();
+    Event event = EventFactory.fromMap(inputEvent);
+    event.getFieldByRuntimeName("a").rename("renamed");
+
+    assertNull(AppendedFields.find(event, inputEvent));
+  }
+
+  private Map<String, Object> makeInputEvent() {
+    Map<String, Object> nested = new HashMap<>();
+    nested.put("x", 1000);
+    nested.put("y", "nested");
+    Map<String, Object> inputEvent = new HashMap<>();
+    inputEvent.put("a", "value");
+    inputEvent.put("b", new ArrayList<>(Arrays.asList(1000, 2000)));
+    inputEvent.put("c", nested);
+    return inputEvent;
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class TestExecutionStage {
+
+  private ExecutionStage stage;
+
+  @After
+  public void tearDown() {
+    if (stage != null) {
+      stage.stop();
+    }
+  }
+
+  @Test
+  public void testExecuteInOrder() throws InterruptedException {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 100; i++) {
+      int value = i;
+      stage.submit(() -> executed.add(value));
+    }
+    awaitExecuted(100);
+
+    assertEquals(100, executed.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, (int) executed.get(i));
+    }
+    assertEquals(0, stage.getDroppedTasks());
+  }
+
+  @Test
+  public void testWorkerSurvivesInterruptByTask() throws InterruptedException {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    CountDownLatch executed = new CountDownLatch(1);
+
+    stage.submit(() -> Thread.currentThread().interrupt());
+    awaitExecuted(1);
+    stage.submit(executed::countDown);
+
+    assertTrue(executed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFailingTaskDoesNotStopWorker() throws InterruptedException {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    CountDownLatch executed = new CountDownLatch(1);
+
+    stage.submit(() -> {
+      throw new IllegalStateException("test");
+    });
+    stage.submit(executed::countDown);
+
+    assertTrue(executed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testBlockWaitsForWorker() throws InterruptedException {
+    stage = makeStage(1, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    CountDownLatch release = new CountDownLatch(1);
+    stage.submit(() -> await(release));
+    stage.submit(() -> { });
+
+    Thread publisher = new Thread(() -> stage.submit(() -> { }));
+    publisher.start();
+    publisher.join(200);
+    assertTrue(publisher.isAlive());
+
+    release.countDown();
+    publisher.join(5000);
+    awaitExecuted(3);
+    assertEquals(0, stage.getDroppedTasks());
+  }
+
+  @Test
+  public void testDropOldest() throws InterruptedException {
+    stage = makeStage(2, ExecutionStageSettings.OverflowPolicy.DROP_OLDEST);
+    List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 5; i++) {
+      int value = i;
+      stage.submit(() -> executed.add(value));
+    }
+    assertEquals(2, stage.getQueueDepth());
+    assertEquals(3, stage.getDroppedTasks());
+
+    stage.start();
+    awaitExecuted(2);
+    assertEquals(Arrays.asList(3, 4), executed);
+  }
+
+  @Test
+  public void testSample() throws InterruptedException {
+    stage = new ExecutionStage("test", new ExecutionStageSettings(1,
+            ExecutionStageSettings.OverflowPolicy.SAMPLE, 2));
+    List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 5; i++) {
+      int value = i;
+      stage.submit(() -> executed.add(value));
+    }
+    // every second overflowing event replaces the queued one, the others are discarded
+    assertEquals(1, stage.getQueueDepth());
+    assertEquals(4, stage.getDroppedTasks());
+
+    stage.start();
+    awaitExecuted(1);
+    assertEquals(Collections.singletonList(4), executed);
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void testExecuteRejectedWhenStopped() {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.execute(() -> { });
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void testExecuteRejectedWhenFull() {
+    stage = makeStage(1, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      stage.execute(() -> await(release));
+      stage.execute(() -> { });
+      stage.execute(() -> { });
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testStopDiscardsQueuedTasks() throws InterruptedException {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    stage.submit(() -> {
+      started.countDown();
+      await(release);
+    });
+    stage.submit(() -> { });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    release.countDown();
+    stage.stop();
+
+    assertEquals(0, stage.getQueueDepth());
+    assertTrue(stage.getExecutedTasks() <= 2);
+  }
+
+  @Test
+  public void testRestart() throws InterruptedException {
+    stage = makeStage(4, ExecutionStageSettings.OverflowPolicy.BLOCK);
+    stage.start();
+    stage.stop();
+    stage.start();
+    CountDownLatch executed = new CountDownLatch(1);
+
+    stage.submit(executed::countDown);
+
+    assertTrue(executed.await(5, TimeUnit.SECONDS));
+  }
+
+  private ExecutionStage makeStage(int capacity, ExecutionStageSettings.OverflowPolicy policy) {
+    return new ExecutionStage("test", new ExecutionStageSettings(capacity, policy, 10));
+  }
+
+  private void awaitExecuted(long tasks) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (stage.getExecutedTasks() < tasks && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(tasks, stage.getExecutedTasks());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
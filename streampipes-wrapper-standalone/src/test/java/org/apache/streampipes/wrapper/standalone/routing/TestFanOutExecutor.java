@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class TestFanOutExecutor {
+
+  private FanOutExecutor executor;
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testInstancesProcessInParallel() {
+    executor = new FanOutExecutor("test", new FanOutSettings(3));
+    CyclicBarrier barrier = new CyclicBarrier(3);
+    Map<String, Thread> threads = new ConcurrentHashMap<>();
+
+    executor.invokeAll(makeConsumers(3), (id, consumer) -> {
+      threads.put(id, Thread.currentThread());
+      try {
+        // only passes if all instances run at the same time
+        barrier.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    assertEquals(3, threads.size());
+    assertSame(Thread.currentThread(), threads.get("instance-0"));
+    assertNotSame(threads.get("instance-1"), threads.get("instance-2"));
+  }
+
+  @Test
+  public void testReturnsAfterAllInstances() {
+    executor = new FanOutExecutor("test", new FanOutSettings(2));
+    Map<String, Integer> processed = new ConcurrentHashMap<>();
+
+    for (int event = 0; event < 100; event++) {
+      int value = event;
+      executor.invokeAll(makeConsumers(4), (id, consumer) -> {
+        if (!id.equals("instance-0")) {
+          Thread.yield();
+        }
+        processed.merge(id, value, (previous, current) -> {
+          // events are processed in order by each instance
+          assertEquals(previous + 1, (int) current);
+          return current;
+        });
+      });
+      for (int instance = 0; instance < 4; instance++) {
+        assertEquals(value, (int) processed.get("instance-" + instance));
+      }
+    }
+  }
+
+  @Test
+  public void testFailingInstanceDoesNotBlockOthers() {
+    executor = new FanOutExecutor("test", new FanOutSettings(3));
+    Map<String, Boolean> processed = new ConcurrentHashMap<>();
+
+    executor.invokeAll(makeConsumers(3), (id, consumer) -> {
+      if (id.equals("instance-1")) {
+        throw new IllegalStateException("test");
+      }
+      processed.put(id, true);
+    });
+
+    assertEquals(2, processed.size());
+  }
+
+  @Test
+  public void testDisabledRunsOnCallingThread() {
+    executor = new FanOutExecutor("test", new FanOutSettings(1));
+    assertRunsOnCallingThread();
+  }
+
+  @Test
+  public void testShutdownRunsOnCallingThread() {
+    executor = new FanOutExecutor("test", new FanOutSettings(3));
+    executor.shutdown();
+    assertRunsOnCallingThread();
+  }
+
+  private void assertRunsOnCallingThread() {
+    Map<String, Thread> threads = new ConcurrentHashMap<>();
+    executor.invokeAll(makeConsumers(3), (id, consumer) -> threads.put(id,
+            Thread.currentThread()));
+
+    assertEquals(3, threads.size());
+    assertTrue(threads.values().stream().allMatch(thread -> thread == Thread.currentThread()));
+  }
+
+  private static Map<String, Object> makeConsumers(int count) {
+    Map<String, Object> consumers = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      consumers.put("instance-" + i, new Object());
+    }
+    return consumers;
+  }
+}
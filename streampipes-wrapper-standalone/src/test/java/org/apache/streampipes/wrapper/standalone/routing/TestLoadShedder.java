@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.container.monitoring.MetricsSettings;
+import org.apache.streampipes.container.monitoring.QueueStatistics;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestLoadShedder {
+
+  private static final int QUEUE_CAPACITY = 10;
+
+  private final TestQueue queue = new TestQueue();
+  private final ElementMetrics metrics = new ElementMetrics("test-element", "test",
+          new MetricsSettings(1));
+  private long lag;
+
+  @Test
+  public void testNonZeroLagThresholdByDefault() {
+    assertTrue(LoadSheddingSettings.sample(0.5).getLagThreshold() > 0);
+    assertTrue(LoadSheddingSettings.sample(0.5).isEnabled());
+  }
+
+  @Test
+  public void testNoOverloadSignalWithoutQueueAndLag() {
+    LoadShedder loadShedder = new LoadShedder("test", LoadSheddingSettings.sample(0), null, 0,
+            null, null);
+
+    assertFalse(loadShedder.hasOverloadSignal());
+  }
+
+  @Test
+  public void testAdmitWhileNotOverloaded() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.sample(0));
+    Runnable task = () -> { };
+    queue.depth = 7;
+
+    assertTrue(loadShedder.hasOverloadSignal());
+    assertSame(task, loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    assertFalse(metrics.isLoadSheddingActive());
+  }
+
+  @Test
+  public void testActivateAtQueueThreshold() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.sample(0));
+    queue.depth = 8;
+
+    assertNull(loadShedder.admit(makeEvent(Collections.emptyMap()), () -> { }));
+    assertTrue(metrics.isLoadSheddingActive());
+    assertEquals(1, metrics.getShedEvents());
+  }
+
+  @Test
+  public void testDeactivateBelowHalfOfQueueThreshold() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.sample(0));
+    Runnable task = () -> { };
+    queue.depth = 8;
+    loadShedder.admit(makeEvent(Collections.emptyMap()), task);
+
+    queue.depth = 4;
+    assertNull(loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    assertTrue(metrics.isLoadSheddingActive());
+
+    queue.depth = 3;
+    assertSame(task, loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    assertFalse(metrics.isLoadSheddingActive());
+
+    queue.depth = 7;
+    assertSame(task, loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    assertFalse(metrics.isLoadSheddingActive());
+  }
+
+  @Test
+  public void testActivateAndDeactivateAtLagThreshold() {
+    LoadShedder loadShedder = new LoadShedder("test",
+            LoadSheddingSettings.sample(0).withThresholds(0, 100), null, 0, () -> lag, metrics);
+    Runnable task = () -> { };
+
+    lag = 99;
+    assertSame(task, loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    lag = 100;
+    assertNull(loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    lag = 50;
+    assertNull(loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+    lag = 49;
+    assertSame(task, loadShedder.admit(makeEvent(Collections.emptyMap()), task));
+  }
+
+  @Test
+  public void testSamplePolicyKeepsFractionOfEvents() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.sample(0.5));
+    queue.depth = QUEUE_CAPACITY;
+    int admitted = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (loadShedder.admit(makeEvent(Collections.emptyMap()), () -> { }) != null) {
+        admitted++;
+      }
+    }
+
+    assertTrue("admitted " + admitted, admitted > 4500 && admitted < 5500);
+    assertEquals(10000 - admitted, metrics.getShedEvents());
+  }
+
+  @Test
+  public void testPriorityPolicyKeepsEventsWithMinPriority() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.priority("priority", 5));
+    queue.depth = QUEUE_CAPACITY;
+
+    assertTrue(admit(loadShedder, makeEvent(Collections.singletonMap("priority", 5))));
+    assertTrue(admit(loadShedder, makeEvent(Collections.singletonMap("priority", 7.5))));
+    assertTrue(admit(loadShedder, makeEvent(Collections.singletonMap("priority", "6"))));
+    assertFalse(admit(loadShedder, makeEvent(Collections.singletonMap("priority", 4))));
+    assertFalse(admit(loadShedder, makeEvent(Collections.singletonMap("priority", "high"))));
+    assertFalse(admit(loadShedder, makeEvent(Collections.emptyMap())));
+    assertEquals(3, metrics.getShedEvents());
+  }
+
+  @Test
+  public void testLatestByKeyPolicyProcessesLatestPendingEventOfEachKey() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.latestByKey("key"));
+    queue.depth = QUEUE_CAPACITY;
+    List<String> processed = new ArrayList<>();
+    List<Runnable> queued = new ArrayList<>();
+    for (String value : new String[]{"a1", "b1", "a2", "a3"}) {
+      Map<String, Object> rawEvent = new HashMap<>();
+      rawEvent.put("key", value.substring(0, 1));
+      queued.add(loadShedder.admit(makeEvent(rawEvent), () -> processed.add(value)));
+    }
+    queued.forEach(Runnable::run);
+
+    assertEquals(2, processed.size());
+    assertEquals("b1", processed.get(0));
+    assertEquals("a3", processed.get(1));
+    assertEquals(2, metrics.getShedEvents());
+  }
+
+  @Test
+  public void testAdmitUndecodableEvent() {
+    LoadShedder loadShedder = makeQueueShedder(LoadSheddingSettings.priority("priority", 5));
+    Runnable task = () -> { };
+    queue.depth = QUEUE_CAPACITY;
+
+    assertSame(task, loadShedder.admit(makeEvent(null), task));
+    assertEquals(0, metrics.getShedEvents());
+  }
+
+  private LoadShedder makeQueueShedder(LoadSheddingSettings settings) {
+    return new LoadShedder("test", settings.withThresholds(0.8, 0), queue, QUEUE_CAPACITY, null,
+            metrics);
+  }
+
+  private boolean admit(LoadShedder loadShedder, SharedEvent event) {
+    return loadShedder.admit(event, () -> { }) != null;
+  }
+
+  /**
+   * @param rawEvent the decoded event, or null if the event cannot be decoded.
+   */
+  private SharedEvent makeEvent(Map<String, Object> rawEvent) {
+    return new SharedEvent(new byte[0], new SpDataFormatDefinition() {
+      @Override
+      public Map<String, Object> toMap(byte[] event) throws SpRuntimeException {
+        if (rawEvent == null) {
+          throw new SpRuntimeException("Cannot decode event");
+        }
+        return rawEvent;
+      }
+
+      @Override
+      public byte[] fromMap(Map<String, Object> event) {
+        return new byte[0];
+      }
+    });
+  }
+
+  private static class TestQueue implements QueueStatistics {
+
+    private int depth;
+
+    @Override
+    public int getQueueDepth() {
+      return depth;
+    }
+
+    @Override
+    public long getDroppedTasks() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.streampipes.messaging.EventProducer;
+import org.apache.streampipes.model.grounding.TransportProtocol;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestOutputBatcher {
+
+  @Test
+  public void testPublishFullBatches() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(0);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(3, 1024, 10000, 100));
+    batcher.start();
+    for (int i = 0; i < 6; i++) {
+      batcher.add(event(i));
+    }
+    producer.awaitEvents(6);
+
+    assertEquals(2, producer.getBatchSizes().size());
+    assertEquals(3, (int) producer.getBatchSizes().get(0));
+    assertEquals(3, (int) producer.getBatchSizes().get(1));
+    batcher.stop();
+  }
+
+  @Test
+  public void testPublishPartialBatchAfterLinger() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(0);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(100, 1024, 5, 100));
+    batcher.start();
+    batcher.add(event(0));
+    producer.awaitEvents(1);
+
+    assertEquals(Collections.singletonList(1), producer.getBatchSizes());
+    batcher.stop();
+  }
+
+  @Test
+  public void testBatchByteLimit() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(0);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(100, 8, 10000, 100));
+    batcher.start();
+    for (int i = 0; i < 4; i++) {
+      batcher.add(event(i));
+    }
+    producer.awaitEvents(4);
+
+    // each event has 4 bytes
+    assertEquals(2, producer.getBatchSizes().size());
+    batcher.stop();
+  }
+
+  @Test
+  public void testStopPublishesBufferedEvents() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(5);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(5, 1024, 1, 100));
+    batcher.start();
+    for (int i = 0; i < 50; i++) {
+      batcher.add(event(i));
+    }
+    batcher.stop();
+
+    assertEquals(0, batcher.getBufferedEvents());
+    producer.assertPublishedInOrder(50);
+  }
+
+  @Test
+  public void testEventsAddedDuringStopAreNotLost() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(1);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(10, 1024, 1, 20));
+    batcher.start();
+    Thread collector = new Thread(() -> {
+      try {
+        for (int i = 0; i < 500; i++) {
+          batcher.add(event(i));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    collector.start();
+    while (producer.getPublishedEvents() < 50) {
+      Thread.sleep(1);
+    }
+    batcher.stop();
+    collector.join(10000);
+
+    producer.assertPublishedInOrder(500);
+  }
+
+  @Test
+  public void testPublishDirectlyAfterStop() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(0);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(10, 1024, 1, 20));
+    batcher.start();
+    for (int i = 0; i < 5; i++) {
+      batcher.add(event(i));
+    }
+    batcher.stop();
+    for (int i = 5; i < 10; i++) {
+      batcher.add(event(i));
+    }
+
+    producer.assertPublishedInOrder(10);
+  }
+
+  @Test
+  public void testPublishDirectlyWithoutPublisher() throws InterruptedException {
+    RecordingProducer producer = new RecordingProducer(0);
+    OutputBatcher batcher = new OutputBatcher("test", producer,
+            new OutputBatchSettings(10, 1024, 1, 20));
+    batcher.add(event(0));
+
+    producer.assertPublishedInOrder(1);
+  }
+
+  private static byte[] event(int value) {
+    return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8),
+            (byte) value};
+  }
+
+  private static int value(byte[] event) {
+    return ((event[0] & 0xff) << 24) | ((event[1] & 0xff) << 16) | ((event[2] & 0xff) << 8)
+            | (event[3] & 0xff);
+  }
+
+  private static class RecordingProducer implements EventProducer<TransportProtocol> {
+
+    private final long delayMs;
+    private final List<byte[]> events = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private boolean publishing;
+
+    RecordingProducer(long delayMs) {
+      this.delayMs = delayMs;
+    }
+
+    @Override
+    public void connect(TransportProtocol protocolSettings) {
+    }
+
+    @Override
+    public void publish(byte[] event) {
+      publish(Collections.singletonList(event));
+    }
+
+    @Override
+    public void publish(List<byte[]> batch) {
+      synchronized (this) {
+        assertTrue("producer used concurrently", !publishing);
+        publishing = true;
+      }
+      try {
+        if (delayMs > 0) {
+          Thread.sleep(delayMs);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (this) {
+        events.addAll(batch);
+        batchSizes.add(batch.size());
+        publishing = false;
+      }
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public Boolean isConnected() {
+      return true;
+    }
+
+    synchronized int getPublishedEvents() {
+      return events.size();
+    }
+
+    synchronized List<Integer> getBatchSizes() {
+      return new ArrayList<>(batchSizes);
+    }
+
+    void awaitEvents(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (getPublishedEvents() < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(count, getPublishedEvents());
+    }
+
+    synchronized void assertPublishedInOrder(int count) {
+      assertEquals(count, events.size());
+      for (int i = 0; i < count; i++) {
+        assertEquals(i, value(events.get(i)));
+      }
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
+import org.apache.streampipes.dataformat.SpDataFormatFactory;
+import org.apache.streampipes.dataformat.SpDataFormatManager;
+import org.apache.streampipes.messaging.BufferingConsumer;
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
+import org.apache.streampipes.messaging.EventConsumer;
+import org.apache.streampipes.messaging.EventProducer;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.messaging.SpProtocolDefinition;
+import org.apache.streampipes.messaging.SpProtocolDefinitionFactory;
+import org.apache.streampipes.messaging.SpProtocolManager;
+import org.apache.streampipes.model.grounding.SimpleTopicDefinition;
+import org.apache.streampipes.model.grounding.TransportFormat;
+import org.apache.streampipes.model.grounding.TransportProtocol;
+import org.apache.streampipes.wrapper.routing.RawDataProcessor;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestStandaloneSpInputCollector {
+
+  private static final String FORMAT_URI = "urn:streampipes:test:checkpoint-format";
+
+  static {
+    SpProtocolManager.INSTANCE.register(new CheckpointProtocolFactory());
+    SpDataFormatManager.INSTANCE.register(new NoopDataFormatFactory());
+  }
+
+  private final CheckpointConsumer messagingConsumer = new CheckpointConsumer();
+
+  @Test
+  public void testEnableCheckpointCommitsForSingleConsumer() throws SpRuntimeException {
+    StandaloneSpInputCollector<CheckpointProtocol> collector = makeCollector();
+    collector.registerConsumer("a", (rawEvent, sourceInfo) -> { });
+
+    assertTrue(collector.enableCheckpointCommits().isPresent());
+    assertTrue(collector.isCheckpointCommitsEnabled());
+    assertTrue(messagingConsumer.checkpointCommits);
+  }
+
+  @Test
+  public void testNoCheckpointCommitsForSharedConsumer() throws SpRuntimeException {
+    StandaloneSpInputCollector<CheckpointProtocol> collector = makeCollector();
+    collector.registerConsumer("a", (rawEvent, sourceInfo) -> { });
+    collector.registerConsumer("b", (rawEvent, sourceInfo) -> { });
+
+    assertFalse(collector.enableCheckpointCommits().isPresent());
+    assertFalse(messagingConsumer.checkpointCommits);
+  }
+
+  @Test
+  public void testDisableCheckpointCommitsWhenSecondConsumerRegisters()
+          throws SpRuntimeException {
+    StandaloneSpInputCollector<CheckpointProtocol> collector = makeCollector();
+    collector.registerConsumer("a", (rawEvent, sourceInfo) -> { });
+    collector.enableCheckpointCommits();
+
+    collector.registerConsumer("b", (rawEvent, sourceInfo) -> { });
+
+    assertFalse(collector.isCheckpointCommitsEnabled());
+    assertFalse(messagingConsumer.checkpointCommits);
+  }
+
+  @Test
+  public void testKeepCheckpointCommitsWhenSameConsumerRegistersAgain()
+          throws SpRuntimeException {
+    StandaloneSpInputCollector<CheckpointProtocol> collector = makeCollector();
+    RawDataProcessor processor = (rawEvent, sourceInfo) -> { };
+    collector.registerConsumer("a", processor);
+    collector.enableCheckpointCommits();
+
+    collector.registerConsumer("a", processor);
+
+    assertTrue(collector.isCheckpointCommitsEnabled());
+    assertTrue(messagingConsumer.checkpointCommits);
+  }
+
+  @Test
+  public void testShedLoadWhileConsumerQueueExceedsThreshold() throws SpRuntimeException {
+    StandaloneSpInputCollector<CheckpointProtocol> collector = makeCollector();
+    AtomicInteger processed = new AtomicInteger();
+    collector.registerConsumer("a", (rawEvent, sourceInfo) -> processed.incrementAndGet());
+    collector.enableLoadShedding("a", LoadSheddingSettings.sample(0).withThresholds(0.8, 0));
+
+    messagingConsumer.queueDepth = 8;
+    collector.onEvent(new byte[0]);
+    assertEquals(0, processed.get());
+
+    messagingConsumer.queueDepth = 3;
+    collector.onEvent(new byte[0]);
+    assertEquals(1, processed.get());
+  }
+
+  private StandaloneSpInputCollector<CheckpointProtocol> makeCollector()
+          throws SpRuntimeException {
+    CheckpointProtocolFactory.consumer = messagingConsumer;
+    return new StandaloneSpInputCollector<>(new CheckpointProtocol(),
+            new TransportFormat(FORMAT_URI), false);
+  }
+
+  public static class CheckpointProtocol extends TransportProtocol {
+
+    public CheckpointProtocol() {
+      super("localhost", new SimpleTopicDefinition("test-topic"));
+    }
+  }
+
+  private static class CheckpointProtocolFactory extends
+          SpProtocolDefinitionFactory<CheckpointProtocol> {
+
+    // the messaging consumer of the collector created next
+    private static CheckpointConsumer consumer;
+
+    @Override
+    public TransportProtocol getTransportProtocol() {
+      return new CheckpointProtocol();
+    }
+
+    @Override
+    public String getTransportProtocolClass() {
+      return CheckpointProtocol.class.getCanonicalName();
+    }
+
+    @Override
+    public SpProtocolDefinition<CheckpointProtocol> createInstance() {
+      CheckpointConsumer messagingConsumer = consumer;
+      return new SpProtocolDefinition<CheckpointProtocol>() {
+        @Override
+        public EventConsumer<CheckpointProtocol> getConsumer() {
+          return messagingConsumer;
+        }
+
+        @Override
+        public EventProducer<CheckpointProtocol> getProducer() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+  }
+
+  private static class CheckpointConsumer implements EventConsumer<CheckpointProtocol>,
+          CheckpointAwareConsumer, BufferingConsumer {
+
+    private boolean checkpointCommits;
+    private int queueDepth;
+
+    @Override
+    public void connect(CheckpointProtocol protocolSettings,
+                        InternalEventProcessor<byte[]> eventProcessor) {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public Boolean isConnected() {
+      return false;
+    }
+
+    @Override
+    public boolean enableCheckpointCommits() {
+      checkpointCommits = true;
+      return true;
+    }
+
+    @Override
+    public void disableCheckpointCommits() {
+      checkpointCommits = false;
+    }
+
+    @Override
+    public Map<String, Long> markCheckpoint() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public void commitCheckpoint(Map<String, Long> positions) {
+    }
+
+    @Override
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+      return 10;
+    }
+  }
+
+  private static class NoopDataFormatFactory extends SpDataFormatFactory {
+
+    @Override
+    public String getTransportFormatRdfUri() {
+      return FORMAT_URI;
+    }
+
+    @Override
+    public SpDataFormatDefinition createInstance() {
+      return new SpDataFormatDefinition() {
+        @Override
+        public Map<String, Object> toMap(byte[] event) {
+          return Collections.emptyMap();
+        }
+
+        @Override
+        public byte[] fromMap(Map<String, Object> event) {
+          return new byte[0];
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestQuantileSketch {
+
+  private static final double ACCURACY = 0.01;
+  private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+  @Test
+  public void testQuantilesAreWithinRelativeAccuracy() {
+    Random random = new Random(42);
+    double[] values = new double[100000];
+    for (int i = 0; i < values.length; i++) {
+      // spans several orders of magnitude, both signs and zero
+      values[i] = i % 100 == 0 ? 0 : (random.nextBoolean() ? 1 : -1)
+              * Math.exp(random.nextGaussian() * 3);
+    }
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    Arrays.stream(values).forEach(sketch::add);
+
+    assertQuantiles(values, sketch);
+  }
+
+  @Test
+  public void testMergedSketchEqualsSingleSketch() {
+    Random random = new Random(7);
+    double[] values = new double[20000];
+    QuantileSketch single = new QuantileSketch(ACCURACY);
+    QuantileSketch first = new QuantileSketch(ACCURACY);
+    QuantileSketch second = new QuantileSketch(ACCURACY);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1 + random.nextDouble() * 1e6;
+      single.add(values[i]);
+      (i % 2 == 0 ? first : second).add(values[i]);
+    }
+    first.merge(second);
+
+    assertEquals(single.getCount(), first.getCount());
+    for (double quantile : QUANTILES) {
+      assertEquals(single.getQuantile(quantile), first.getQuantile(quantile), 0);
+    }
+    assertQuantiles(values, first);
+  }
+
+  @Test
+  public void testEmptySketch() {
+    assertTrue(Double.isNaN(new QuantileSketch(ACCURACY).getQuantile(0.5)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSketchesOfDifferentAccuracyCannotBeMerged() {
+    new QuantileSketch(0.01).merge(new QuantileSketch(0.02));
+  }
+
+  private void assertQuantiles(double[] values, QuantileSketch sketch) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double quantile : QUANTILES) {
+      double exact = sorted[(int) (quantile * (sorted.length - 1))];
+      double estimate = sketch.getQuantile(quantile);
+      assertEquals("quantile " + quantile, exact, estimate, Math.abs(exact) * ACCURACY + 1e-12);
+    }
+  }
+}
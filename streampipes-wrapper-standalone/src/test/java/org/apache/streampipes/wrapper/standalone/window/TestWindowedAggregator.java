@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestWindowedAggregator {
+
+  private final List<WindowResult> results = new ArrayList<>();
+
+  @Test
+  public void testTumblingWindowsAreEmittedPerKey() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.tumbling(10));
+    aggregator.add("a", 1, 1);
+    aggregator.add("a", 5, 2);
+    aggregator.add("a", 12, 3);
+    aggregator.add("b", 3, 10);
+
+    aggregator.advanceWatermark(8);
+    assertTrue(results.isEmpty());
+
+    aggregator.advanceWatermark(9);
+    assertEquals(2, results.size());
+    assertWindow(find("a", 0), 0, 10, 3, 2);
+    assertWindow(find("b", 0), 0, 10, 10, 1);
+
+    aggregator.advanceWatermark(19);
+    assertEquals(3, results.size());
+    assertWindow(find("a", 10), 10, 20, 3, 1);
+    assertEquals(0, aggregator.getOpenPanes());
+  }
+
+  @Test
+  public void testSlidingWindowsMergeOverlappingPanes() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.sliding(10, 5));
+    aggregator.add(null, 1, 1);
+    aggregator.add(null, 6, 2);
+    aggregator.add(null, 11, 4);
+
+    aggregator.advanceWatermark(100);
+
+    assertEquals(4, results.size());
+    assertWindow(results.get(0), -5, 5, 1, 1);
+    assertWindow(results.get(1), 0, 10, 3, 2);
+    assertWindow(results.get(2), 5, 15, 6, 2);
+    assertWindow(results.get(3), 10, 20, 4, 1);
+    assertEquals(0, aggregator.getOpenPanes());
+  }
+
+  @Test
+  public void testLateValuesAreDropped() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.tumbling(10));
+    aggregator.add(null, 5, 1);
+    aggregator.advanceWatermark(9);
+    aggregator.add(null, 7, 100);
+    aggregator.add(null, 15, 2);
+    aggregator.advanceWatermark(19);
+
+    assertEquals(1, aggregator.getDroppedLateValues());
+    assertEquals(2, results.size());
+    assertWindow(results.get(0), 0, 10, 1, 1);
+    assertWindow(results.get(1), 10, 20, 2, 1);
+  }
+
+  @Test
+  public void testLateValuesOnlyUpdateOpenSlidingWindows() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.sliding(10, 5));
+    aggregator.add(null, 1, 1);
+    aggregator.add(null, 6, 2);
+    aggregator.advanceWatermark(9);
+    assertEquals(2, results.size());
+
+    // belongs to [0, 10), which has been emitted, and to [5, 15), which is still open
+    aggregator.add(null, 7, 10);
+    aggregator.add(null, 3, 100);
+    aggregator.advanceWatermark(100);
+
+    assertEquals(1, aggregator.getDroppedLateValues());
+    assertEquals(3, results.size());
+    assertWindow(results.get(2), 5, 15, 12, 2);
+  }
+
+  @Test
+  public void testSessionsAreMergedByBridgingValues() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.session(10));
+    aggregator.add("k", 0, 1);
+    aggregator.add("k", 30, 2);
+    aggregator.add("k", 15, 4);
+    assertEquals(3, aggregator.getOpenPanes());
+
+    // overlaps the sessions [15, 25) and [30, 40)
+    aggregator.add("k", 22, 8);
+    assertEquals(2, aggregator.getOpenPanes());
+
+    aggregator.advanceWatermark(100);
+
+    assertEquals(2, results.size());
+    assertWindow(results.get(0), 0, 10, 1, 1);
+    assertWindow(results.get(1), 15, 40, 14, 3);
+    assertEquals(0, aggregator.getOpenPanes());
+  }
+
+  @Test
+  public void testSessionIsExtendedBackwards() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.session(10));
+    aggregator.add(null, 20, 1);
+    aggregator.add(null, 12, 2);
+    aggregator.advanceWatermark(29);
+
+    assertEquals(1, results.size());
+    assertWindow(results.get(0), 12, 30, 3, 2);
+  }
+
+  @Test
+  public void testPanesExpireWithTheWatermark() {
+    WindowedAggregator aggregator = makeAggregator(WindowSpec.sliding(100, 10));
+    for (int i = 0; i < 10000; i++) {
+      aggregator.add(String.valueOf(i % 3), i, 1);
+      aggregator.advanceWatermark(i - 1);
+      // at most 11 panes of each key cover the open windows
+      assertTrue(aggregator.getOpenPanes() <= 3 * 11);
+    }
+    aggregator.advanceWatermark(Long.MAX_VALUE);
+    assertEquals(0, aggregator.getOpenPanes());
+
+    // every window of size 100 contains 100 values, apart from the first and last ones
+    results.stream()
+            .filter(result -> result.getStart() >= 0 && result.getEnd() <= 10000)
+            .forEach(result -> assertEquals(100, result.getValue(1) * 3, 3));
+  }
+
+  @Test
+  public void testPercentileOfWindow() {
+    WindowedAggregator aggregator = new WindowedAggregator(WindowSpec.tumbling(1000),
+            Arrays.asList(AggregateFunctions.percentile(50), AggregateFunctions.max()),
+            results::add);
+    for (int i = 1; i <= 999; i++) {
+      aggregator.add(null, i, i);
+    }
+    aggregator.advanceWatermark(999);
+
+    assertEquals(1, results.size());
+    assertEquals(500, results.get(0).getValue(0), 500 * 0.01);
+    assertEquals(999, results.get(0).getValue(1), 0);
+    assertEquals("p50", results.get(0).getValuesByName().keySet().iterator().next());
+  }
+
+  private WindowedAggregator makeAggregator(WindowSpec window) {
+    return new WindowedAggregator(window, Arrays.asList(AggregateFunctions.sum(),
+            AggregateFunctions.count()), results::add);
+  }
+
+  private WindowResult find(String key, long start) {
+    return results
+            .stream()
+            .filter(result -> key.equals(result.getKey()) && result.getStart() == start)
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No window of " + key + " at " + start));
+  }
+
+  private void assertWindow(WindowResult result, long start, long end, double sum, long count) {
+    assertEquals(start, result.getStart());
+    assertEquals(end, result.getEnd());
+    assertEquals(sum, result.getValue(0), 1e-9);
+    assertEquals(count, result.getValue(1), 0);
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.standalone.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventFactory;
+import org.apache.streampipes.wrapper.timer.TimerCallback;
+import org.apache.streampipes.wrapper.timer.TimerService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TestWindowedEventAggregation {
+
+  private final List<WindowResult> results = new ArrayList<>();
+  private final ManualTimerService timerService = new ManualTimerService();
+
+  @Test
+  public void testWatermarkFollowsEvents() {
+    WindowedEventAggregation aggregation = makeAggregation(100);
+    aggregation.onEvent(makeEvent(1000, 1));
+    aggregation.onEvent(makeEvent(1500, 2));
+    assertTrue(results.isEmpty());
+
+    // the watermark lags 100 ms behind the highest timestamp
+    aggregation.onEvent(makeEvent(2099, 4));
+    assertTrue(results.isEmpty());
+    aggregation.onEvent(makeEvent(2100, 8));
+
+    assertEquals(1, results.size());
+    assertEquals(1000, results.get(0).getStart());
+    assertEquals(3, results.get(0).getValue(0), 0);
+  }
+
+  @Test
+  public void testIdleTimerAdvancesWatermark() {
+    WindowedEventAggregation aggregation = makeAggregation(100);
+    aggregation.enableIdleWatermarks(timerService, 500);
+    aggregation.onEvent(makeEvent(1000, 1));
+    aggregation.onEvent(makeEvent(1500, 2));
+
+    // 500 ms after the last event, the watermark is at 1899
+    timerService.advanceTo(600);
+    assertTrue(results.isEmpty());
+
+    // 1000 ms after the last event, the watermark (2399) has passed the end of the window
+    timerService.advanceTo(1000);
+
+    assertEquals(1, results.size());
+    assertEquals(1000, results.get(0).getStart());
+    assertEquals(3, results.get(0).getValue(0), 0);
+    assertEquals(0, aggregation.getAggregator().getOpenPanes());
+  }
+
+  @Test
+  public void testIdleTimerWaitsForEventsToStop() {
+    WindowedEventAggregation aggregation = makeAggregation(0);
+    aggregation.enableIdleWatermarks(timerService, 500);
+    for (int time = 0; time < 5000; time += 100) {
+      timerService.advanceTo(time);
+      aggregation.onEvent(makeEvent(1000 + time / 10, 1));
+    }
+    // events are less than one interval apart, so only the events advance the watermark
+    assertTrue(results.isEmpty());
+  }
+
+  @Test
+  public void testDisablingRemovesTimer() {
+    WindowedEventAggregation aggregation = makeAggregation(0);
+    aggregation.enableIdleWatermarks(timerService, 500);
+    assertEquals(1, timerService.timers.size());
+    aggregation.disableIdleWatermarks();
+    assertEquals(0, timerService.timers.size());
+  }
+
+  private WindowedEventAggregation makeAggregation(long maxOutOfOrderness) {
+    WindowedAggregator aggregator = new WindowedAggregator(WindowSpec.tumbling(1000),
+            Collections.singletonList(AggregateFunctions.sum()), results::add);
+    return new WindowedEventAggregation(aggregator, "o::timestamp", "o::value", null,
+            maxOutOfOrderness);
+  }
+
+  private Event makeEvent(long timestamp, double value) {
+    Map<String, Object> event = new HashMap<>();
+    event.put("timestamp", timestamp);
+    event.put("value", value);
+    return EventFactory.fromMap(event);
+  }
+
+  private static class ManualTimerService implements TimerService {
+
+    private final TreeMap<Long, Map<String, TimerCallback>> timers = new TreeMap<>();
+    private long time;
+
+    void advanceTo(long time) {
+      while (!timers.isEmpty() && timers.firstKey() <= time) {
+        Map.Entry<Long, Map<String, TimerCallback>> due = timers.pollFirstEntry();
+        this.time = due.getKey();
+        due.getValue().forEach((key, callback) -> callback.onTimer(key, due.getKey()));
+      }
+      this.time = time;
+    }
+
+    @Override
+    public long currentProcessingTime() {
+      return time;
+    }
+
+    @Override
+    public long currentWatermark() {
+      return Long.MIN_VALUE;
+    }
+
+    @Override
+    public void advanceWatermark(long watermark) {
+    }
+
+    @Override
+    public void registerProcessingTimeTimer(String key, long timestamp, TimerCallback callback) {
+      timers.computeIfAbsent(timestamp, t -> new HashMap<>()).put(key, callback);
+    }
+
+    @Override
+    public void registerEventTimeTimer(String key, long timestamp, TimerCallback callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteProcessingTimeTimer(String key, long timestamp) {
+      Map<String, TimerCallback> callbacks = timers.get(timestamp);
+      if (callbacks != null) {
+        callbacks.remove(key);
+        if (callbacks.isEmpty()) {
+          timers.remove(timestamp);
+        }
+      }
+    }
+
+    @Override
+    public void deleteEventTimeTimer(String key, long timestamp) {
+    }
+  }
+}
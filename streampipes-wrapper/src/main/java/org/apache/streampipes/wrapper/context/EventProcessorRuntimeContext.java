@@ -19,6 +19,8 @@ package org.apache.streampipes.wrapper.context;
 
 import org.apache.streampipes.model.runtime.SchemaInfo;
 import org.apache.streampipes.model.runtime.SourceInfo;
+import org.apache.streampipes.wrapper.state.StateBackend;
+import org.apache.streampipes.wrapper.timer.TimerService;
 
 public interface EventProcessorRuntimeContext extends RuntimeContext {
 
@@ -26,4 +28,16 @@ public interface EventProcessorRuntimeContext extends RuntimeContext {
 
   SourceInfo getOutputSourceInfo();
 
+  /**
+   * @return the timer service of this instance, which allows registering processing-time and
+   * event-time callbacks.
+   */
+  TimerService getTimerService();
+
+  /**
+   * @return the state backend of this instance, which is restored from the latest checkpoint
+   * when it is accessed for the first time.
+   */
+  StateBackend getStateBackend();
+
 }
@@ -19,15 +19,25 @@ package org.apache.streampipes.wrapper.context;
 
 import org.apache.streampipes.model.runtime.SchemaInfo;
 import org.apache.streampipes.model.runtime.SourceInfo;
+import org.apache.streampipes.wrapper.state.HeapStateBackend;
+import org.apache.streampipes.wrapper.state.StateBackend;
+import org.apache.streampipes.wrapper.timer.SpTimerService;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 public class SpEventProcessorRuntimeContext extends SpRuntimeContext implements
         EventProcessorRuntimeContext, Serializable {
 
   private SchemaInfo outputSchemaInfo;
   private SourceInfo outputSourceInfo;
+  private transient volatile SpTimerService timerService;
+  private transient Executor timerExecutor;
+  private transient Supplier<StateBackend> stateBackendSupplier;
+  private transient StateBackend stateBackend;
 
   public SpEventProcessorRuntimeContext(List<SourceInfo> inputSourceInfo,
                                         List<SchemaInfo> inputSchemaInfo,
@@ -52,4 +62,66 @@ public class SpEventProcessorRuntimeContext extends SpRuntimeContext implements
   public SourceInfo getOutputSourceInfo() {
     return outputSourceInfo;
   }
+
+  /**
+   * Returns the timer service, which is created on first access so that pipeline elements which
+   * do not use timers do not pay for it.
+   */
+  @Override
+  public SpTimerService getTimerService() {
+    SpTimerService currentTimerService = timerService;
+    if (currentTimerService == null) {
+      synchronized (this) {
+        if (timerService == null) {
+          SpTimerService newTimerService = new SpTimerService();
+          newTimerService.setExecutor(timerExecutor);
+          timerService = newTimerService;
+        }
+        currentTimerService = timerService;
+      }
+    }
+    return currentTimerService;
+  }
+
+  /**
+   * @return the timer service if it has already been created by the pipeline element.
+   */
+  public Optional<SpTimerService> getCreatedTimerService() {
+    return Optional.ofNullable(timerService);
+  }
+
+  /**
+   * Sets the executor on which timers that become due while the instance is idle are fired, see
+   * {@link SpTimerService#setExecutor(Executor)}. Also applies to a timer service created later.
+   */
+  public synchronized void setTimerExecutor(Executor timerExecutor) {
+    this.timerExecutor = timerExecutor;
+    if (timerService != null) {
+      timerService.setExecutor(timerExecutor);
+    }
+  }
+
+  /**
+   * Returns the state backend, which is opened by the configured supplier on first access. If
+   * no supplier is configured, state is kept on the heap and not persisted.
+   */
+  @Override
+  public synchronized StateBackend getStateBackend() {
+    if (stateBackend == null) {
+      stateBackend = stateBackendSupplier != null ? stateBackendSupplier.get() :
+              new HeapStateBackend();
+    }
+    return stateBackend;
+  }
+
+  public synchronized void setStateBackendSupplier(Supplier<StateBackend> stateBackendSupplier) {
+    this.stateBackendSupplier = stateBackendSupplier;
+  }
+
+  /**
+   * @return the state backend if it has already been opened by the pipeline element.
+   */
+  public synchronized Optional<StateBackend> getOpenedStateBackend() {
+    return Optional.ofNullable(stateBackend);
+  }
 }
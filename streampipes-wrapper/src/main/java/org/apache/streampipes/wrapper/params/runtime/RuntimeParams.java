@@ -94,6 +94,14 @@ public abstract class RuntimeParams<B extends BindingParams<I>, I extends
     return runtimeContext;
   }
 
+  /**
+   * Creates an additional runtime context, e.g., for further engines of the same invocation
+   * which must not share per-instance state such as timers.
+   */
+  public RC createRuntimeContext() {
+    return makeRuntimeContext();
+  }
+
   public Boolean isSingletonEngine() {
     return singletonEngine;
   }
@@ -18,10 +18,29 @@
 package org.apache.streampipes.wrapper.routing;
 
 import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.container.monitoring.ElementMetrics;
+import org.apache.streampipes.dataformat.SpDataFormatDefinition;
 
 import java.util.Map;
 
 public interface RawDataProcessor {
 
   void process(Map<String, Object> rawEvent, String sourceInfo) throws SpRuntimeException;
+
+  /**
+   * Processes a raw event which was decoded from the given payload, which processors can reuse
+   * to encode output events derived from it.
+   */
+  default void process(Map<String, Object> rawEvent, String sourceInfo, byte[] payload,
+                       SpDataFormatDefinition dataFormatDefinition) throws SpRuntimeException {
+    process(rawEvent, sourceInfo);
+  }
+
+  /**
+   * @return the metrics to which the time spent on decoding and queueing events for this
+   * processor is recorded, or null.
+   */
+  default ElementMetrics getMetrics() {
+    return null;
+  }
 }
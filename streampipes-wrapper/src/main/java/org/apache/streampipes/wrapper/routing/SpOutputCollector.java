@@ -20,6 +20,7 @@ package org.apache.streampipes.wrapper.routing;
 
 import org.apache.streampipes.messaging.InternalEventProcessor;
 import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventFactory;
 
 import java.util.Map;
 
@@ -27,4 +28,13 @@ public interface SpOutputCollector extends PipelineElementCollector<InternalEven
         Object>>> {
 
   void collect(Event event);
+
+  /**
+   * Collects an output event given as map from the output runtime names to the raw values, e.g.,
+   * as produced by an external engine, so that collectors which encode maps do not need to build
+   * an {@link Event} first.
+   */
+  default void collectRaw(Map<String, Object> outputEvent) {
+    collect(EventFactory.fromMap(outputEvent));
+  }
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.model.graph.DataProcessorInvocation;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventProcessorBindingParams;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A data processor which calls external systems, e.g., for enrichment, without blocking the
+ * processing thread. Instead of emitting results to a collector, {@link #onEvent(Event)} returns
+ * a stage which completes with the result event.
+ *
+ * Async processors are run by an {@link AsyncEventProcessorAdapter}, which limits the number of
+ * events in flight and emits results in the configured {@link AsyncSettings.OutputMode}.
+ */
+public interface AsyncEventProcessor<B extends EventProcessorBindingParams> extends
+        PipelineElement<B, DataProcessorInvocation> {
+
+  void onInvocation(B parameters, EventProcessorRuntimeContext runtimeContext) throws
+          SpRuntimeException;
+
+  /**
+   * @return a stage which completes with the output event, or with null if no event should be
+   * emitted.
+   */
+  CompletionStage<Event> onEvent(Event event);
+
+  /**
+   * Called if the stage of an event did not complete within the timeout.
+   *
+   * @return an event to emit instead, or null to discard the event.
+   */
+  default Event onTimeout(Event event) {
+    return null;
+  }
+
+  default AsyncSettings getAsyncSettings() {
+    return AsyncSettings.fromDefault();
+  }
+}
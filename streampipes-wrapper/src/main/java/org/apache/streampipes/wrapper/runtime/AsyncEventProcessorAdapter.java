@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventProcessorBindingParams;
+import org.apache.streampipes.wrapper.routing.SpOutputCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs an {@link AsyncEventProcessor} as a regular {@link EventProcessor}, so that it can be used
+ * with any runtime, e.g., by supplying {@code () -> new AsyncEventProcessorAdapter<>(new
+ * MyAsyncProcessor())} as engine.
+ *
+ * At most {@link AsyncSettings#getCapacity()} events are in flight; if the limit is reached,
+ * {@link #onEvent(Event, SpOutputCollector)} waits until a result has been emitted. Results are
+ * emitted by the thread which completes the stage of an event (or, in ordered mode, the stage of
+ * the oldest pending event). Events whose stage does not complete within the timeout are passed
+ * to {@link AsyncEventProcessor#onTimeout(Event)} on a shared timer thread.
+ */
+public class AsyncEventProcessorAdapter<B extends EventProcessorBindingParams> implements
+        EventProcessor<B> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncEventProcessorAdapter.class);
+
+  private static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER = makeTimeoutScheduler();
+
+  private final AsyncEventProcessor<B> processor;
+  private final Deque<PendingEvent> pendingEvents = new ArrayDeque<>();
+
+  private AsyncSettings settings;
+  private Semaphore inFlight;
+
+  public AsyncEventProcessorAdapter(AsyncEventProcessor<B> processor) {
+    this.processor = processor;
+  }
+
+  @Override
+  public void onInvocation(B parameters, SpOutputCollector spOutputCollector,
+                           EventProcessorRuntimeContext runtimeContext) throws SpRuntimeException {
+    processor.onInvocation(parameters, runtimeContext);
+    this.settings = processor.getAsyncSettings();
+    this.inFlight = new Semaphore(settings.getCapacity());
+  }
+
+  @Override
+  public void onEvent(Event event, SpOutputCollector collector) throws SpRuntimeException {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SpRuntimeException("Interrupted while waiting for in-flight events", e);
+    }
+
+    PendingEvent pendingEvent = new PendingEvent(event, collector);
+    if (isOrdered()) {
+      synchronized (pendingEvents) {
+        pendingEvents.addLast(pendingEvent);
+      }
+    }
+
+    CompletionStage<Event> stage;
+    try {
+      stage = processor.onEvent(event);
+    } catch (RuntimeException e) {
+      onResult(pendingEvent, null, e);
+      return;
+    }
+
+    ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(() -> onTimeout(pendingEvent),
+            settings.getTimeoutMs(), TimeUnit.MILLISECONDS);
+    stage.whenComplete((result, error) -> {
+      timeout.cancel(false);
+      onResult(pendingEvent, result, error);
+    });
+  }
+
+  /**
+   * Waits until all events in flight have been emitted or timed out, then detaches the
+   * processor.
+   */
+  @Override
+  public void onDetach() throws SpRuntimeException {
+    if (inFlight != null) {
+      try {
+        if (inFlight.tryAcquire(settings.getCapacity(), settings.getTimeoutMs() * 2,
+                TimeUnit.MILLISECONDS)) {
+          inFlight.release(settings.getCapacity());
+        } else {
+          LOG.warn("Detaching async processor with events still in flight");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    processor.onDetach();
+  }
+
+  /**
+   * @return the number of events whose result has not been emitted yet.
+   */
+  public int getInFlightEvents() {
+    return inFlight != null ? settings.getCapacity() - inFlight.availablePermits() : 0;
+  }
+
+  private boolean isOrdered() {
+    return settings.getOutputMode() == AsyncSettings.OutputMode.ORDERED;
+  }
+
+  private void onResult(PendingEvent pendingEvent, Event result, Throwable error) {
+    if (pendingEvent.finish()) {
+      if (error != null) {
+        LOG.error("Async processing of event failed", error);
+        pendingEvent.complete(null);
+      } else {
+        pendingEvent.complete(result);
+      }
+      emit(pendingEvent);
+    }
+  }
+
+  private void onTimeout(PendingEvent pendingEvent) {
+    if (pendingEvent.finish()) {
+      Event result = null;
+      try {
+        result = processor.onTimeout(pendingEvent.input);
+      } catch (RuntimeException e) {
+        LOG.error("Could not handle timeout of event", e);
+      }
+      pendingEvent.complete(result);
+      emit(pendingEvent);
+    }
+  }
+
+  private void emit(PendingEvent completedEvent) {
+    if (isOrdered()) {
+      synchronized (pendingEvents) {
+        while (!pendingEvents.isEmpty() && pendingEvents.peekFirst().completed) {
+          emitResult(pendingEvents.pollFirst());
+        }
+      }
+    } else {
+      emitResult(completedEvent);
+    }
+  }
+
+  private void emitResult(PendingEvent pendingEvent) {
+    try {
+      if (pendingEvent.result != null) {
+        pendingEvent.collector.collect(pendingEvent.result);
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Could not emit result of async processing", e);
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  private static ScheduledThreadPoolExecutor makeTimeoutScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "sp-async-timeout");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private static class PendingEvent {
+
+    private final Event input;
+    private final SpOutputCollector collector;
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    private Event result;
+    private volatile boolean completed;
+
+    PendingEvent(Event input, SpOutputCollector collector) {
+      this.input = input;
+      this.collector = collector;
+    }
+
+    /**
+     * @return true for the first of result and timeout.
+     */
+    boolean finish() {
+      return finished.compareAndSet(false, true);
+    }
+
+    void complete(Event result) {
+      this.result = result;
+      this.completed = true;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of an {@link AsyncEventProcessor}. Processors can override the container-wide
+ * defaults of {@link #fromDefault()}.
+ */
+public class AsyncSettings {
+
+  public enum OutputMode {
+    /**
+     * Results are emitted in the order of the input events.
+     */
+    ORDERED,
+    /**
+     * Results are emitted as soon as they are available.
+     */
+    UNORDERED
+  }
+
+  private static final String CAPACITY_ENV = "SP_ASYNC_CAPACITY";
+  private static final String TIMEOUT_MS_ENV = "SP_ASYNC_TIMEOUT_MS";
+  private static final String OUTPUT_MODE_ENV = "SP_ASYNC_OUTPUT_MODE";
+
+  private static final int CAPACITY_DEFAULT = 100;
+  private static final long TIMEOUT_MS_DEFAULT = 10000;
+  private static final OutputMode OUTPUT_MODE_DEFAULT = OutputMode.ORDERED;
+
+  private final int capacity;
+  private final long timeoutMs;
+  private final OutputMode outputMode;
+
+  public AsyncSettings(int capacity, long timeoutMs, OutputMode outputMode) {
+    if (capacity <= 0 || timeoutMs <= 0) {
+      throw new IllegalArgumentException("Invalid async settings (capacity=" + capacity
+              + ", timeout=" + timeoutMs + ")");
+    }
+    this.capacity = capacity;
+    this.timeoutMs = timeoutMs;
+    this.outputMode = outputMode;
+  }
+
+  public static AsyncSettings fromDefault() {
+    return new AsyncSettings(
+            EnvironmentVariables.getInt(CAPACITY_ENV, CAPACITY_DEFAULT, 1),
+            EnvironmentVariables.getLong(TIMEOUT_MS_ENV, TIMEOUT_MS_DEFAULT, 1),
+            EnvironmentVariables.getEnum(OUTPUT_MODE_ENV, OutputMode.class, OUTPUT_MODE_DEFAULT));
+  }
+
+  /**
+   * Maximum number of events in flight; if reached, the processing thread waits until a result
+   * has been emitted.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public OutputMode getOutputMode() {
+    return outputMode;
+  }
+}
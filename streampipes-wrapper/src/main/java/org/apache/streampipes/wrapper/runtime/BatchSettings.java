@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+
+/**
+ * Settings of a {@link BatchingEventSink}. Sinks can override the container-wide defaults of
+ * {@link #fromDefault()}.
+ */
+public class BatchSettings {
+
+  private static final String MAX_EVENTS_ENV = "SP_SINK_BATCH_SIZE";
+  private static final String MAX_BYTES_ENV = "SP_SINK_BATCH_BYTES";
+  private static final String LINGER_MS_ENV = "SP_SINK_BATCH_LINGER_MS";
+  private static final String MAX_RETRIES_ENV = "SP_SINK_BATCH_RETRIES";
+  private static final String RETRY_BACKOFF_MS_ENV = "SP_SINK_BATCH_RETRY_BACKOFF_MS";
+
+  private static final int MAX_EVENTS_DEFAULT = 1000;
+  private static final long MAX_BYTES_DEFAULT = 0;
+  private static final long LINGER_MS_DEFAULT = 1000;
+  private static final int MAX_RETRIES_DEFAULT = 5;
+  private static final long RETRY_BACKOFF_MS_DEFAULT = 100;
+
+  private final int maxEvents;
+  private final long maxBytes;
+  private final long lingerMs;
+  private final int maxRetries;
+  private final long retryBackoffMs;
+
+  /**
+   * @param maxEvents the number of events which triggers a flush.
+   * @param maxBytes  the estimated size of a batch which triggers a flush, or 0 for no limit.
+   * @param lingerMs  the maximum time an event is buffered before it is flushed.
+   */
+  public BatchSettings(int maxEvents, long maxBytes, long lingerMs) {
+    this(maxEvents, maxBytes, lingerMs, MAX_RETRIES_DEFAULT, RETRY_BACKOFF_MS_DEFAULT);
+  }
+
+  /**
+   * @param maxRetries     the number of times a failed batch is written again before the sink
+   *                       fails.
+   * @param retryBackoffMs the delay before the first retry, which doubles with each retry.
+   */
+  public BatchSettings(int maxEvents, long maxBytes, long lingerMs, int maxRetries,
+                       long retryBackoffMs) {
+    if (maxEvents <= 0 || maxBytes < 0 || lingerMs <= 0 || maxRetries < 0
+            || retryBackoffMs < 0) {
+      throw new IllegalArgumentException("Invalid batch settings (events=" + maxEvents
+              + ", bytes=" + maxBytes + ", linger=" + lingerMs + ", retries=" + maxRetries
+              + ", backoff=" + retryBackoffMs + ")");
+    }
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+    this.lingerMs = lingerMs;
+    this.maxRetries = maxRetries;
+    this.retryBackoffMs = retryBackoffMs;
+  }
+
+  public static BatchSettings fromDefault() {
+    return new BatchSettings(
+            EnvironmentVariables.getInt(MAX_EVENTS_ENV, MAX_EVENTS_DEFAULT, 1),
+            EnvironmentVariables.getLong(MAX_BYTES_ENV, MAX_BYTES_DEFAULT, 0),
+            EnvironmentVariables.getLong(LINGER_MS_ENV, LINGER_MS_DEFAULT, 1),
+            EnvironmentVariables.getInt(MAX_RETRIES_ENV, MAX_RETRIES_DEFAULT, 0),
+            EnvironmentVariables.getLong(RETRY_BACKOFF_MS_ENV, RETRY_BACKOFF_MS_DEFAULT, 0));
+  }
+
+  public int getMaxEvents() {
+    return maxEvents;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public boolean hasByteLimit() {
+    return maxBytes > 0;
+  }
+
+  public long getLingerMs() {
+    return lingerMs;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public long getRetryBackoffMs() {
+    return retryBackoffMs;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.model.graph.DataSinkInvocation;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.context.EventSinkRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventSinkBindingParams;
+
+import java.util.List;
+
+/**
+ * A data sink which writes events in batches, e.g., to databases or APIs with bulk inserts.
+ * Instead of single events, {@link #onEvents(List)} receives a batch whenever the size, byte or
+ * linger limit of the {@link BatchSettings} is reached, and once more when the sink is detached.
+ *
+ * Batching sinks are run by a {@link BatchingEventSinkAdapter}, which owns the buffer and the
+ * flush thread.
+ */
+public interface BatchingEventSink<B extends EventSinkBindingParams> extends
+        PipelineElement<B, DataSinkInvocation> {
+
+  void onInvocation(B parameters, EventSinkRuntimeContext runtimeContext) throws
+          SpRuntimeException;
+
+  /**
+   * Writes a batch of events. Events are only considered delivered once this method returns;
+   * if it throws, the read positions of the batch are not committed.
+   */
+  void onEvents(List<Event> events) throws SpRuntimeException;
+
+  default BatchSettings getBatchSettings() {
+    return BatchSettings.fromDefault();
+  }
+
+  /**
+   * @return the estimated size of an event in bytes, which is only used if a byte limit is set.
+   * Defaults to the size of the JSON serialization of the event.
+   */
+  default long estimateSize(Event event) {
+    return BatchingEventSinkAdapter.estimateJsonSize(event.getRaw());
+  }
+}
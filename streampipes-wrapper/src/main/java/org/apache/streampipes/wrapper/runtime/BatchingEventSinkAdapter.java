@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.runtime;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.wrapper.context.EventSinkRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventSinkBindingParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs a {@link BatchingEventSink} as a regular {@link EventSink}, so that it can be used with
+ * any runtime, e.g., by supplying {@code () -> new BatchingEventSinkAdapter<>(new MySink())} as
+ * engine.
+ *
+ * Events are buffered until the size or byte limit is reached, in which case the batch is written
+ * by the thread which added the last event, or until the oldest buffered event has lingered for
+ * the configured time, in which case the batch is written by a flush thread of the adapter.
+ * Batches are written one at a time and in order; while a batch is written, adding events blocks.
+ * The remaining events are written when the sink is detached.
+ *
+ * A batch which cannot be written is retried with increasing delays, while adding events blocks.
+ * If it still fails after the configured number of retries, the sink fails: further events are
+ * rejected with an exception and nothing else is written.
+ *
+ * If consumers are registered via {@link #addCommitConsumer(CheckpointAwareConsumer)}, their
+ * read positions are taken when a batch is drained and committed after the batch has been
+ * written, which gives at-least-once delivery. Once the sink has failed, no further positions
+ * are committed, so that the failed events are read again after a restart.
+ */
+public class BatchingEventSinkAdapter<B extends EventSinkBindingParams> implements
+        EventSink<B> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BatchingEventSinkAdapter.class);
+
+  private final BatchingEventSink<B> sink;
+  private final List<CheckpointAwareConsumer> commitConsumers = new CopyOnWriteArrayList<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition bufferChanged = lock.newCondition();
+
+  private BatchSettings settings;
+  private List<Event> buffer = new ArrayList<>();
+  private long bufferedBytes;
+  private long firstBufferedAt;
+  private SpRuntimeException failure;
+
+  private Thread flushThread;
+  private volatile boolean running;
+
+  public BatchingEventSinkAdapter(BatchingEventSink<B> sink) {
+    this.sink = sink;
+  }
+
+  @Override
+  public void onInvocation(B parameters, EventSinkRuntimeContext runtimeContext) throws
+          SpRuntimeException {
+    sink.onInvocation(parameters, runtimeContext);
+    this.settings = sink.getBatchSettings();
+    this.running = true;
+    this.flushThread = new Thread(this::lingerLoop, "sp-sink-flush");
+    this.flushThread.setDaemon(true);
+    this.flushThread.start();
+  }
+
+  /**
+   * Commits the read positions of the consumer after each written batch. Must be called before
+   * the first event is added.
+   */
+  public void addCommitConsumer(CheckpointAwareConsumer consumer) {
+    commitConsumers.add(consumer);
+  }
+
+  @Override
+  public void onEvent(Event event) throws SpRuntimeException {
+    long size = settings.hasByteLimit() ? sink.estimateSize(event) : 0;
+    lock.lock();
+    try {
+      if (failure != null) {
+        throw new SpRuntimeException("Sink failed, as a batch could not be written", failure);
+      }
+      if (buffer.isEmpty()) {
+        firstBufferedAt = System.nanoTime();
+        bufferChanged.signal();
+      }
+      buffer.add(event);
+      bufferedBytes += size;
+      if (buffer.size() >= settings.getMaxEvents()
+              || (settings.hasByteLimit() && bufferedBytes >= settings.getMaxBytes())) {
+        flush();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops the flush thread, writes the remaining events and detaches the sink.
+   *
+   * @throws SpRuntimeException if the remaining events could not be written.
+   */
+  @Override
+  public void onDetach() throws SpRuntimeException {
+    running = false;
+    if (flushThread != null) {
+      lock.lock();
+      try {
+        bufferChanged.signal();
+      } finally {
+        lock.unlock();
+      }
+      try {
+        flushThread.join(settings.getLingerMs() * 2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    lock.lock();
+    try {
+      if (failure == null) {
+        flush();
+      }
+    } finally {
+      lock.unlock();
+      sink.onDetach();
+    }
+  }
+
+  /**
+   * @return the number of events which have not been written yet.
+   */
+  public int getBufferedEvents() {
+    lock.lock();
+    try {
+      return buffer.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void lingerLoop() {
+    lock.lock();
+    try {
+      while (running) {
+        if (buffer.isEmpty()) {
+          bufferChanged.await();
+          continue;
+        }
+        long remaining = firstBufferedAt + TimeUnit.MILLISECONDS.toNanos(settings.getLingerMs())
+                - System.nanoTime();
+        if (remaining > 0) {
+          bufferChanged.awaitNanos(remaining);
+        } else {
+          try {
+            flush();
+          } catch (SpRuntimeException e) {
+            // reported to the next caller of onEvent
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes the buffered events, retrying a failed batch; must be called while holding the lock.
+   *
+   * @throws SpRuntimeException if the batch could not be written, which fails the sink.
+   */
+  private void flush() throws SpRuntimeException {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    List<Event> batch = buffer;
+    Collection<Map<String, Long>> positions = markPositions();
+    buffer = new ArrayList<>(Math.min(batch.size(), settings.getMaxEvents()));
+    bufferedBytes = 0;
+
+    long backoffMs = settings.getRetryBackoffMs();
+    for (int attempt = 0; ; attempt++) {
+      try {
+        sink.onEvents(batch);
+        break;
+      } catch (RuntimeException e) {
+        if (attempt >= settings.getMaxRetries()) {
+          LOG.error("Could not write batch of {} events, failing the sink", batch.size(), e);
+          failure = new SpRuntimeException("Could not write batch of " + batch.size()
+                  + " events", e);
+          throw failure;
+        }
+        LOG.warn("Could not write batch of {} events, retrying in {} ms", batch.size(),
+                backoffMs, e);
+        try {
+          Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          failure = new SpRuntimeException("Interrupted while retrying a batch", e);
+          throw failure;
+        }
+        backoffMs *= 2;
+      }
+    }
+    commitPositions(positions);
+  }
+
+  private Collection<Map<String, Long>> markPositions() {
+    List<Map<String, Long>> positions = new ArrayList<>(commitConsumers.size());
+    commitConsumers.forEach(consumer -> positions.add(consumer.markCheckpoint()));
+    return positions;
+  }
+
+  private void commitPositions(Collection<Map<String, Long>> positions) {
+    int i = 0;
+    for (Map<String, Long> consumerPositions : positions) {
+      try {
+        commitConsumers.get(i++).commitCheckpoint(consumerPositions);
+      } catch (RuntimeException e) {
+        LOG.error("Could not commit read positions", e);
+      }
+    }
+  }
+
+  /**
+   * @return the approximate number of bytes of the JSON serialization of a raw event value.
+   */
+  static long estimateJsonSize(Object value) {
+    if (value == null) {
+      return 4;
+    } else if (value instanceof String) {
+      return ((String) value).length() + 2;
+    } else if (value instanceof Number) {
+      return 8;
+    } else if (value instanceof Boolean) {
+      return 5;
+    } else if (value instanceof Map) {
+      long size = 2;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += String.valueOf(entry.getKey()).length() + 4 + estimateJsonSize(entry.getValue());
+      }
+      return size;
+    } else if (value instanceof Collection) {
+      long size = 2;
+      for (Object item : (Collection<?>) value) {
+        size += estimateJsonSize(item) + 1;
+      }
+      return size;
+    } else {
+      return String.valueOf(value).length();
+    }
+  }
+}
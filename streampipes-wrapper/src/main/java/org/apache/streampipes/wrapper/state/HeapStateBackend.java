@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps all states as objects on the heap. Snapshots serialize all states on the processing
+ * thread and write them to a single file in the state directory asynchronously. Without a
+ * directory, state is not persisted at all.
+ */
+public class HeapStateBackend implements StateBackend {
+
+  private static final String CHECKPOINT_FILE = "heap-state.bin";
+  private static final String CHECKPOINT_TMP_FILE = "heap-state.bin.tmp";
+
+  private final Path directory;
+  private final Map<String, HeapKeyedState<?>> states = new HashMap<>();
+  private final Map<String, Map<String, byte[]>> restoredStates = new HashMap<>();
+  private long restoredCheckpointId = -1;
+
+  public HeapStateBackend() {
+    this.directory = null;
+  }
+
+  public HeapStateBackend(Path directory) throws IOException {
+    this.directory = directory;
+    Files.createDirectories(directory);
+    restore();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> KeyedState<V> getKeyedState(String name, StateSerializer<V> serializer) {
+    HeapKeyedState<?> state = states.get(name);
+    if (state == null) {
+      HeapKeyedState<V> newState = new HeapKeyedState<>(serializer);
+      Map<String, byte[]> restored = restoredStates.remove(name);
+      if (restored != null) {
+        restored.forEach((key, value) -> newState.values.put(key, serializer.deserialize(value)));
+      }
+      states.put(name, newState);
+      state = newState;
+    }
+    return (KeyedState<V>) state;
+  }
+
+  @Override
+  public StateSnapshot snapshot(long checkpointId) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(checkpointId);
+      out.writeInt(states.size() + restoredStates.size());
+      for (Map.Entry<String, HeapKeyedState<?>> state : states.entrySet()) {
+        writeState(out, state.getKey(), state.getValue().serialize());
+      }
+      // restored states which have not been accessed yet
+      for (Map.Entry<String, Map<String, byte[]>> state : restoredStates.entrySet()) {
+        writeState(out, state.getKey(), state.getValue());
+      }
+    }
+    byte[] snapshot = bytes.toByteArray();
+
+    return new StateSnapshot() {
+      @Override
+      public long getCheckpointId() {
+        return checkpointId;
+      }
+
+      @Override
+      public void persist() throws IOException {
+        if (directory == null) {
+          return;
+        }
+        Path tmpFile = directory.resolve(CHECKPOINT_TMP_FILE);
+        try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+          ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          channel.force(true);
+        }
+        Files.move(tmpFile, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+      }
+    };
+  }
+
+  @Override
+  public long getRestoredCheckpointId() {
+    return restoredCheckpointId;
+  }
+
+  @Override
+  public void close() {
+    states.clear();
+    restoredStates.clear();
+  }
+
+  private void restore() throws IOException {
+    Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+    if (!Files.exists(checkpointFile)) {
+      return;
+    }
+    try (InputStream file = Files.newInputStream(checkpointFile);
+         DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+      long checkpointId = in.readLong();
+      int stateCount = in.readInt();
+      for (int i = 0; i < stateCount; i++) {
+        String name = in.readUTF();
+        int entries = in.readInt();
+        Map<String, byte[]> values = new HashMap<>(entries * 2);
+        for (int j = 0; j < entries; j++) {
+          String key = new String(readBytes(in), StandardCharsets.UTF_8);
+          values.put(key, readBytes(in));
+        }
+        restoredStates.put(name, values);
+      }
+      restoredCheckpointId = checkpointId;
+    }
+  }
+
+  private static void writeState(DataOutputStream out, String name, Map<String, byte[]> values)
+          throws IOException {
+    out.writeUTF(name);
+    out.writeInt(values.size());
+    for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+      writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+      writeBytes(out, entry.getValue());
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static class HeapKeyedState<V> implements KeyedState<V> {
+
+    private final StateSerializer<V> serializer;
+    private final Map<String, V> values = new HashMap<>();
+
+    HeapKeyedState(StateSerializer<V> serializer) {
+      this.serializer = serializer;
+    }
+
+    @Override
+    public V get(String key) {
+      return values.get(key);
+    }
+
+    @Override
+    public void put(String key, V value) {
+      values.put(key, Objects.requireNonNull(value, "value"));
+    }
+
+    @Override
+    public void remove(String key) {
+      values.remove(key);
+    }
+
+    @Override
+    public int size() {
+      return values.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, V> action) {
+      // iterate over a copy, so that the action may modify the state
+      new ArrayList<>(values.entrySet()).forEach(entry -> action.accept(entry.getKey(),
+              entry.getValue()));
+    }
+
+    Map<String, byte[]> serialize() {
+      Map<String, byte[]> serialized = new HashMap<>(values.size() * 2);
+      values.forEach((key, value) -> serialized.put(key, serializer.serialize(value)));
+      return serialized;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A map from keys to values of a pipeline element instance, which is included in the
+ * checkpoints of the instance and restored on restart.
+ */
+public interface KeyedState<V> {
+
+  /**
+   * @return the value of the key or null if there is none.
+   */
+  V get(String key);
+
+  void put(String key, V value);
+
+  void remove(String key);
+
+  int size();
+
+  void forEach(BiConsumer<String, V> action);
+}
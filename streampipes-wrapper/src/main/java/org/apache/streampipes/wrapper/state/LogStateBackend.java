@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps all values in an append-only log file in the state directory, so that state is not
+ * limited by the heap: only the keys and the positions of their latest values are kept in
+ * memory, values are read from the file (and thus usually from the page cache) on access.
+ *
+ * A snapshot only flushes the write buffer and records the length of the log; persisting it
+ * syncs the log and writes the length to the checkpoint file. On restart, the log is truncated
+ * to the checkpointed length and the key index is rebuilt by scanning the log. Once more than
+ * half of the log consists of overwritten values, a snapshot rewrites the live values to a new
+ * log file.
+ */
+public class LogStateBackend implements StateBackend {
+
+  private static final String CHECKPOINT_FILE = "CHECKPOINT";
+  private static final String CHECKPOINT_TMP_FILE = "CHECKPOINT.tmp";
+  private static final String LOG_FILE_PREFIX = "state-";
+  private static final String LOG_FILE_SUFFIX = ".log";
+
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private static final long COMPACTION_MIN_BYTES = 8 * 1024 * 1024;
+  private static final int TOMBSTONE = -1;
+
+  // locations pack the position of a value (40 bits) and its length (24 bits)
+  private static final int LENGTH_BITS = 24;
+  private static final int MAX_VALUE_LENGTH = (1 << LENGTH_BITS) - 1;
+
+  private final Path directory;
+  private final Map<String, LogKeyedState<?>> states = new HashMap<>();
+  private final Map<String, Map<String, Long>> index = new HashMap<>();
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+  private FileChannel channel;
+  private long generation;
+  private long flushedLength;
+  private long garbageBytes;
+  private long restoredCheckpointId = -1;
+
+  public LogStateBackend(Path directory) throws IOException {
+    this.directory = directory;
+    Files.createDirectories(directory);
+    restore();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> KeyedState<V> getKeyedState(String name, StateSerializer<V> serializer) {
+    return (KeyedState<V>) states.computeIfAbsent(name, n -> new LogKeyedState<>(n,
+            index.computeIfAbsent(n, k -> new HashMap<>()), serializer));
+  }
+
+  @Override
+  public StateSnapshot snapshot(long checkpointId) throws IOException {
+    if (garbageBytes > length() / 2 && length() > COMPACTION_MIN_BYTES) {
+      compact();
+    }
+    flush();
+    FileChannel snapshotChannel = channel;
+    long snapshotGeneration = generation;
+    long snapshotLength = flushedLength;
+
+    return new StateSnapshot() {
+      @Override
+      public long getCheckpointId() {
+        return checkpointId;
+      }
+
+      @Override
+      public void persist() throws IOException {
+        snapshotChannel.force(false);
+        Path tmpFile = directory.resolve(CHECKPOINT_TMP_FILE);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+          out.writeLong(checkpointId);
+          out.writeLong(snapshotGeneration);
+          out.writeLong(snapshotLength);
+        }
+        Files.move(tmpFile, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        deleteLogFilesExcept(snapshotGeneration);
+      }
+    };
+  }
+
+  @Override
+  public long getRestoredCheckpointId() {
+    return restoredCheckpointId;
+  }
+
+  /**
+   * @return the current size of the log in bytes, including overwritten values.
+   */
+  public long length() {
+    return flushedLength + writeBuffer.position();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  private void restore() throws IOException {
+    Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+    long length = 0;
+    if (Files.exists(checkpointFile)) {
+      try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpointFile))) {
+        restoredCheckpointId = in.readLong();
+        generation = in.readLong();
+        length = in.readLong();
+      }
+    }
+    channel = openLog(generation);
+    // drop everything written after the checkpoint
+    channel.truncate(length);
+    scan(length);
+    deleteLogFilesExcept(generation);
+  }
+
+  private void scan(long length) throws IOException {
+    channel.position(0);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(channel), WRITE_BUFFER_SIZE));
+    long position = 0;
+    while (position < length) {
+      byte[] nameBytes = readBytes(in);
+      byte[] keyBytes = readBytes(in);
+      int valueLength = in.readInt();
+      position += 12 + nameBytes.length + keyBytes.length;
+      String name = new String(nameBytes, StandardCharsets.UTF_8);
+      String key = new String(keyBytes, StandardCharsets.UTF_8);
+      Map<String, Long> keys = index.computeIfAbsent(name, n -> new HashMap<>());
+      Long previous;
+      if (valueLength == TOMBSTONE) {
+        previous = keys.remove(key);
+        garbageBytes += entrySize(name, key, 0);
+      } else {
+        previous = keys.put(key, location(position, valueLength));
+        skipFully(in, valueLength);
+        position += valueLength;
+      }
+      if (previous != null) {
+        garbageBytes += entrySize(name, key, length(previous));
+      }
+    }
+    flushedLength = length;
+  }
+
+  /**
+   * Rewrites all live values to a new log file. The previous log file is deleted once a
+   * checkpoint of the new file has been persisted.
+   */
+  private void compact() throws IOException {
+    flush();
+    FileChannel previousChannel = channel;
+    Map<String, Map<String, Long>> previousIndex = new HashMap<>();
+    index.forEach((name, keys) -> previousIndex.put(name, new HashMap<>(keys)));
+
+    generation++;
+    channel = openLog(generation);
+    channel.truncate(0);
+    flushedLength = 0;
+    garbageBytes = 0;
+    for (Map.Entry<String, Map<String, Long>> state : previousIndex.entrySet()) {
+      Map<String, Long> keys = index.get(state.getKey());
+      for (Map.Entry<String, Long> entry : state.getValue().entrySet()) {
+        byte[] value = read(previousChannel, entry.getValue());
+        keys.put(entry.getKey(), append(state.getKey(), entry.getKey(), value));
+      }
+    }
+    previousChannel.close();
+  }
+
+  private long append(String name, String key, byte[] value) {
+    if (value != null && value.length > MAX_VALUE_LENGTH) {
+      throw new IllegalArgumentException("State values must not exceed " + MAX_VALUE_LENGTH
+              + " bytes, got " + value.length);
+    }
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int valueLength = value != null ? value.length : 0;
+    int entrySize = 12 + nameBytes.length + keyBytes.length + valueLength;
+    try {
+      if (entrySize > writeBuffer.remaining()) {
+        flush();
+      }
+      ByteBuffer buffer = entrySize <= writeBuffer.capacity() ? writeBuffer :
+              ByteBuffer.allocate(entrySize);
+      long valuePosition = length() + entrySize - valueLength;
+      buffer.putInt(nameBytes.length).put(nameBytes);
+      buffer.putInt(keyBytes.length).put(keyBytes);
+      buffer.putInt(value != null ? value.length : TOMBSTONE);
+      if (value != null) {
+        buffer.put(value);
+      }
+      if (buffer != writeBuffer) {
+        buffer.flip();
+        write(buffer);
+      }
+      return location(valuePosition, valueLength);
+    } catch (IOException e) {
+      throw new SpRuntimeException(e);
+    }
+  }
+
+  private byte[] read(FileChannel source, long location) throws IOException {
+    long position = location >>> LENGTH_BITS;
+    if (source == channel && position + length(location) > flushedLength) {
+      flush();
+    }
+    ByteBuffer value = ByteBuffer.allocate(length(location));
+    while (value.hasRemaining()) {
+      if (source.read(value, position + value.position()) < 0) {
+        throw new IOException("Unexpected end of state log in " + directory);
+      }
+    }
+    return value.array();
+  }
+
+  private void flush() throws IOException {
+    writeBuffer.flip();
+    write(writeBuffer);
+    writeBuffer.clear();
+  }
+
+  private void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      flushedLength += channel.write(buffer, flushedLength);
+    }
+  }
+
+  private FileChannel openLog(long generation) throws IOException {
+    return FileChannel.open(directory.resolve(LOG_FILE_PREFIX + generation + LOG_FILE_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  private void deleteLogFilesExcept(long generation) throws IOException {
+    String current = LOG_FILE_PREFIX + generation + LOG_FILE_SUFFIX;
+    try (DirectoryStream<Path> logFiles = Files.newDirectoryStream(directory,
+            LOG_FILE_PREFIX + "*" + LOG_FILE_SUFFIX)) {
+      for (Path logFile : logFiles) {
+        if (!logFile.getFileName().toString().equals(current)) {
+          Files.deleteIfExists(logFile);
+        }
+      }
+    }
+  }
+
+  private static long location(long position, int length) {
+    return (position << LENGTH_BITS) | length;
+  }
+
+  private static int length(long location) {
+    return (int) (location & MAX_VALUE_LENGTH);
+  }
+
+  /**
+   * @return the approximate size of a log entry, which is only used to decide on compaction.
+   */
+  private static long entrySize(String name, String key, int valueLength) {
+    return 12 + name.length() + key.length() + valueLength;
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void skipFully(DataInputStream in, int bytes) throws IOException {
+    int skipped = 0;
+    while (skipped < bytes) {
+      int n = in.skipBytes(bytes - skipped);
+      if (n <= 0) {
+        throw new IOException("Unexpected end of state log");
+      }
+      skipped += n;
+    }
+  }
+
+  private class LogKeyedState<V> implements KeyedState<V> {
+
+    private final String name;
+    private final Map<String, Long> keys;
+    private final StateSerializer<V> serializer;
+
+    LogKeyedState(String name, Map<String, Long> keys, StateSerializer<V> serializer) {
+      this.name = name;
+      this.keys = keys;
+      this.serializer = serializer;
+    }
+
+    @Override
+    public V get(String key) {
+      Long location = keys.get(key);
+      if (location == null) {
+        return null;
+      }
+      try {
+        return serializer.deserialize(read(channel, location));
+      } catch (IOException e) {
+        throw new SpRuntimeException(e);
+      }
+    }
+
+    @Override
+    public void put(String key, V value) {
+      byte[] bytes = serializer.serialize(Objects.requireNonNull(value, "value"));
+      Long previous = keys.put(key, append(name, key, bytes));
+      if (previous != null) {
+        garbageBytes += entrySize(name, key, length(previous));
+      }
+    }
+
+    @Override
+    public void remove(String key) {
+      Long previous = keys.remove(key);
+      if (previous != null) {
+        append(name, key, null);
+        garbageBytes += entrySize(name, key, length(previous)) + entrySize(name, key, 0);
+      }
+    }
+
+    @Override
+    public int size() {
+      return keys.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, V> action) {
+      // iterate over a copy, so that the action may modify the state
+      for (String key : new ArrayList<>(keys.keySet())) {
+        V value = get(key);
+        if (value != null) {
+          action.accept(key, value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import java.io.IOException;
+
+/**
+ * Holds the keyed states of a pipeline element instance. Backends are restored from the latest
+ * persisted checkpoint when they are opened and are not thread-safe, i.e., they must only be
+ * used from the processing thread of the instance (including timer callbacks).
+ */
+public interface StateBackend extends AutoCloseable {
+
+  /**
+   * @param name       the name of the state, unique within the pipeline element.
+   * @param serializer the serializer of the values, which must be compatible with the values
+   *                   stored in the restored checkpoint.
+   */
+  <V> KeyedState<V> getKeyedState(String name, StateSerializer<V> serializer);
+
+  /**
+   * Takes a snapshot of all states. Only the part which cannot be deferred is done in this
+   * method, the snapshot is written by {@link StateSnapshot#persist()}. At most one snapshot
+   * may be persisted at a time.
+   */
+  StateSnapshot snapshot(long checkpointId) throws IOException;
+
+  /**
+   * @return the id of the checkpoint the backend has been restored from or -1.
+   */
+  long getRestoredCheckpointId();
+
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class StateSerializers {
+
+  private StateSerializers() {
+
+  }
+
+  public static StateSerializer<String> strings() {
+    return new StateSerializer<String>() {
+      @Override
+      public byte[] serialize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public String deserialize(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+    };
+  }
+
+  public static StateSerializer<Long> longs() {
+    return new StateSerializer<Long>() {
+      @Override
+      public byte[] serialize(Long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+      }
+
+      @Override
+      public Long deserialize(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getLong();
+      }
+    };
+  }
+
+  public static StateSerializer<Double> doubles() {
+    return new StateSerializer<Double>() {
+      @Override
+      public byte[] serialize(Double value) {
+        return ByteBuffer.allocate(Double.BYTES).putDouble(value).array();
+      }
+
+      @Override
+      public Double deserialize(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getDouble();
+      }
+    };
+  }
+
+  /**
+   * @return a serializer based on Java serialization, which works for any serializable value,
+   * but is comparatively slow and verbose.
+   */
+  public static <V extends Serializable> StateSerializer<V> java() {
+    return new StateSerializer<V>() {
+      @Override
+      public byte[] serialize(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+          out.writeObject(value);
+        } catch (IOException e) {
+          throw new SpRuntimeException(e);
+        }
+        return bytes.toByteArray();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public V deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+          return (V) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+          throw new SpRuntimeException(e);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import org.apache.streampipes.commons.environment.EnvironmentVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Settings of the state backends and checkpoints of pipeline element instances. Checkpoints are
+ * disabled by default.
+ */
+public class StateSettings implements Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StateSettings.class);
+
+  public enum Backend {
+    /**
+     * {@link HeapStateBackend}
+     */
+    HEAP,
+    /**
+     * {@link LogStateBackend}
+     */
+    DISK
+  }
+
+  private static final String BACKEND_ENV = "SP_STATE_BACKEND";
+  private static final String DIRECTORY_ENV = "SP_STATE_DIR";
+  private static final String CHECKPOINT_INTERVAL_MS_ENV = "SP_STATE_CHECKPOINT_INTERVAL_MS";
+  private static final String RETENTION_MS_ENV = "SP_STATE_RETENTION_MS";
+
+  private static final String DIRECTORY_DEFAULT = Paths.get(System.getProperty("java.io.tmpdir"),
+          "streampipes-state").toString();
+  private static final long CHECKPOINT_INTERVAL_MS_DEFAULT = 0;
+  // the default offset retention of Kafka, after which the committed offsets are gone anyway
+  private static final long RETENTION_MS_DEFAULT = 7 * 24 * 60 * 60 * 1000L;
+
+  private final Backend backend;
+  private final String directory;
+  private final long checkpointIntervalMs;
+  private final long retentionMs;
+
+  /**
+   * @param checkpointIntervalMs the interval of periodic checkpoints, 0 disables checkpoints.
+   * @param retentionMs the time after its latest checkpoint after which the state of an instance
+   *                    is removed, 0 keeps state forever.
+   */
+  public StateSettings(Backend backend, String directory, long checkpointIntervalMs,
+                       long retentionMs) {
+    if (backend == null || directory == null || checkpointIntervalMs < 0 || retentionMs < 0) {
+      throw new IllegalArgumentException("Invalid state settings (backend=" + backend
+              + ", directory=" + directory + ", checkpointIntervalMs=" + checkpointIntervalMs
+              + ", retentionMs=" + retentionMs + ")");
+    }
+    this.backend = backend;
+    this.directory = directory;
+    this.checkpointIntervalMs = checkpointIntervalMs;
+    this.retentionMs = retentionMs;
+  }
+
+  public static StateSettings fromDefault() {
+    return new StateSettings(
+            EnvironmentVariables.getEnum(BACKEND_ENV, Backend.class, Backend.HEAP),
+            EnvironmentVariables.getString(DIRECTORY_ENV, DIRECTORY_DEFAULT),
+            EnvironmentVariables.getLong(CHECKPOINT_INTERVAL_MS_ENV,
+                    CHECKPOINT_INTERVAL_MS_DEFAULT, 0),
+            EnvironmentVariables.getLong(RETENTION_MS_ENV, RETENTION_MS_DEFAULT, 0));
+  }
+
+  /**
+   * Opens the state backend of a pipeline element instance and restores its latest checkpoint.
+   *
+   * @param instanceName a name which identifies the instance across restarts.
+   */
+  public StateBackend openBackend(String instanceName) throws IOException {
+    Path instanceDirectory = Paths.get(directory, instanceName.replaceAll("[^A-Za-z0-9._-]", "_"));
+    return backend == Backend.DISK ? new LogStateBackend(instanceDirectory) :
+            new HeapStateBackend(instanceDirectory);
+  }
+
+  /**
+   * Removes the state of instances which were not checkpointed within the retention period. The
+   * state of deleted pipelines is not removed otherwise, as the containers are not notified when
+   * a pipeline is deleted.
+   */
+  public void removeExpiredState() {
+    Path stateDirectory = Paths.get(directory);
+    if (retentionMs == 0 || !Files.isDirectory(stateDirectory)) {
+      return;
+    }
+    long expiry = System.currentTimeMillis() - retentionMs;
+    try (DirectoryStream<Path> instanceDirectories = Files.newDirectoryStream(stateDirectory)) {
+      for (Path instanceDirectory : instanceDirectories) {
+        try {
+          if (Files.isDirectory(instanceDirectory)
+                  && lastModified(instanceDirectory) < expiry) {
+            LOG.info("Removing expired state {}", instanceDirectory);
+            delete(instanceDirectory);
+          }
+        } catch (IOException e) {
+          LOG.warn("Could not remove expired state {}", instanceDirectory, e);
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Could not list the state in {}", stateDirectory, e);
+    }
+  }
+
+  private static long lastModified(Path instanceDirectory) throws IOException {
+    try (Stream<Path> paths = Files.walk(instanceDirectory)) {
+      long lastModified = 0;
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        lastModified = Math.max(lastModified, Files.getLastModifiedTime(path).toMillis());
+      }
+      return lastModified;
+    }
+  }
+
+  private static void delete(Path instanceDirectory) throws IOException {
+    try (Stream<Path> paths = Files.walk(instanceDirectory)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  public Backend getBackend() {
+    return backend;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public long getCheckpointIntervalMs() {
+    return checkpointIntervalMs;
+  }
+
+  public long getRetentionMs() {
+    return retentionMs;
+  }
+
+  public boolean isCheckpointingEnabled() {
+    return checkpointIntervalMs > 0;
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Timer service of a single pipeline element instance, backed by one {@link TimerWheel} per
+ * time domain.
+ *
+ * While processing-time timers are registered (see {@link #hasProcessingTimeTimers()}), the
+ * runtime wraps each call of the pipeline element in {@link #beginProcessing()} and
+ * {@link #endProcessing()}, which fires due processing-time timers on the processing thread
+ * before the event is processed. Otherwise, events are processed without taking the lock, and
+ * the runtime calls {@link #startPendingTicker()} afterwards, so that timers registered by the
+ * event start ticking only once it has been processed.
+ *
+ * While the instance is idle, a shared ticker thread detects due processing-time timers and
+ * hands them to the executor of the instance (see {@link #setExecutor(Executor)}), e.g., its
+ * execution stage, so that callbacks run on the thread processing its events. Without an
+ * executor, they run on a pooled callback thread, but never concurrently with event processing.
+ * The ticker itself never runs callbacks, so a slow callback only delays its own instance.
+ * Event-time timers fire within {@link #advanceWatermark(long)}, i.e., on the thread advancing
+ * the watermark.
+ */
+public class SpTimerService implements TimerService, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SpTimerService.class);
+
+  private static final long TICK_INTERVAL_MS = 10;
+
+  private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "sp-timer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private static final AtomicInteger CALLBACK_THREAD_COUNT = new AtomicInteger();
+
+  private static final ExecutorService CALLBACKS = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "sp-timer-callback-"
+            + CALLBACK_THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final AtomicBoolean firePending = new AtomicBoolean();
+  private volatile Executor executor = CALLBACKS;
+  private volatile boolean processingTimeTimersRegistered;
+  private volatile boolean tickerPending;
+
+  private final TimerWheel<RegisteredTimer> processingTimeTimers;
+  private final TimerWheel<RegisteredTimer> eventTimeTimers;
+  private final Map<TimerKey, TimerWheel.Timer<RegisteredTimer>> processingTimeIndex = new HashMap<>();
+  private final Map<TimerKey, TimerWheel.Timer<RegisteredTimer>> eventTimeIndex = new HashMap<>();
+
+  private long watermark = Long.MIN_VALUE;
+  private ScheduledFuture<?> tick;
+  private boolean closed;
+
+  public SpTimerService() {
+    this.processingTimeTimers = new TimerWheel<>(System.currentTimeMillis());
+    this.eventTimeTimers = new TimerWheel<>(0);
+  }
+
+  @Override
+  public long currentProcessingTime() {
+    return System.currentTimeMillis();
+  }
+
+  @Override
+  public long currentWatermark() {
+    lock.lock();
+    try {
+      return watermark;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void advanceWatermark(long watermark) {
+    lock.lock();
+    try {
+      if (watermark <= this.watermark) {
+        return;
+      }
+      this.watermark = watermark;
+      eventTimeTimers.advance(watermark, timer -> fire(eventTimeIndex, timer));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void registerProcessingTimeTimer(String key, long timestamp, TimerCallback callback) {
+    lock.lock();
+    try {
+      register(processingTimeTimers, processingTimeIndex, key, timestamp, callback);
+      processingTimeTimersRegistered = true;
+      if (lock.getHoldCount() > 1) {
+        // registered while processing an event or within a callback
+        startTicking();
+      } else {
+        // possibly registered by an event processed without the lock, which may still be running
+        tickerPending = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void registerEventTimeTimer(String key, long timestamp, TimerCallback callback) {
+    lock.lock();
+    try {
+      register(eventTimeTimers, eventTimeIndex, key, timestamp, callback);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void deleteProcessingTimeTimer(String key, long timestamp) {
+    lock.lock();
+    try {
+      delete(processingTimeTimers, processingTimeIndex, key, timestamp);
+      onProcessingTimeTimersRemoved();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void deleteEventTimeTimer(String key, long timestamp) {
+    lock.lock();
+    try {
+      delete(eventTimeTimers, eventTimeIndex, key, timestamp);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the executor on which processing-time timers that become due while the instance is idle
+   * are fired. The executor must not block the caller; if it rejects the task, the timers are
+   * fired before the next event or handed over again with the next tick.
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor != null ? executor : CALLBACKS;
+  }
+
+  /**
+   * @return true if processing-time timers are registered, which may fire while the instance is
+   * idle; events must then be processed between {@link #beginProcessing()} and
+   * {@link #endProcessing()}.
+   */
+  public boolean hasProcessingTimeTimers() {
+    return processingTimeTimersRegistered;
+  }
+
+  /**
+   * Excludes timer callbacks from other threads until {@link #endProcessing()} is called and
+   * fires all due processing-time timers on the calling thread.
+   */
+  public void beginProcessing() {
+    lock.lock();
+    if (processingTimeTimers.size() > 0) {
+      processingTimeTimers.advance(currentProcessingTime(),
+              timer -> fire(processingTimeIndex, timer));
+      onProcessingTimeTimersRemoved();
+    }
+    if (tickerPending) {
+      startTicking();
+    }
+  }
+
+  public void endProcessing() {
+    lock.unlock();
+  }
+
+  /**
+   * Starts ticking for processing-time timers which were registered without holding the lock,
+   * e.g., while an event was processed without {@link #beginProcessing()} or during the
+   * invocation of the pipeline element. Must be called once that processing is done.
+   */
+  public void startPendingTicker() {
+    if (tickerPending) {
+      lock.lock();
+      try {
+        startTicking();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  public int getRegisteredTimers() {
+    lock.lock();
+    try {
+      return processingTimeTimers.size() + eventTimeTimers.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      processingTimeTimersRegistered = false;
+      tickerPending = false;
+      stopTicking();
+      processingTimeIndex.clear();
+      eventTimeIndex.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void onTick() {
+    // skip this tick if the instance is currently processing an event or the due timers have
+    // already been handed over, they are then fired before the next event or with the next tick
+    if (lock.isLocked() || !firePending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::fireDueTimers);
+    } catch (RejectedExecutionException e) {
+      firePending.set(false);
+    }
+  }
+
+  private void fireDueTimers() {
+    firePending.set(false);
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      processingTimeTimers.advance(currentProcessingTime(),
+              timer -> fire(processingTimeIndex, timer));
+      onProcessingTimeTimersRemoved();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void onProcessingTimeTimersRemoved() {
+    if (processingTimeTimers.size() == 0) {
+      processingTimeTimersRegistered = false;
+      tickerPending = false;
+      stopTicking();
+    }
+  }
+
+  private void startTicking() {
+    tickerPending = false;
+    if (tick == null && !closed && processingTimeTimers.size() > 0) {
+      tick = TICKER.scheduleAtFixedRate(this::onTick, TICK_INTERVAL_MS, TICK_INTERVAL_MS,
+              TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void stopTicking() {
+    if (tick != null) {
+      tick.cancel(false);
+      tick = null;
+    }
+  }
+
+  private void register(TimerWheel<RegisteredTimer> wheel,
+                        Map<TimerKey, TimerWheel.Timer<RegisteredTimer>> index,
+                        String key,
+                        long timestamp,
+                        TimerCallback callback) {
+    Objects.requireNonNull(callback, "callback");
+    TimerKey timerKey = new TimerKey(key, timestamp);
+    TimerWheel.Timer<RegisteredTimer> previous = index.put(timerKey,
+            wheel.schedule(timestamp, new RegisteredTimer(timerKey, callback)));
+    if (previous != null) {
+      wheel.cancel(previous);
+    }
+  }
+
+  private void delete(TimerWheel<RegisteredTimer> wheel,
+                      Map<TimerKey, TimerWheel.Timer<RegisteredTimer>> index,
+                      String key,
+                      long timestamp) {
+    TimerWheel.Timer<RegisteredTimer> timer = index.remove(new TimerKey(key, timestamp));
+    if (timer != null) {
+      wheel.cancel(timer);
+    }
+  }
+
+  private void fire(Map<TimerKey, TimerWheel.Timer<RegisteredTimer>> index,
+                    TimerWheel.Timer<RegisteredTimer> timer) {
+    RegisteredTimer registeredTimer = timer.getPayload();
+    index.remove(registeredTimer.key, timer);
+    try {
+      registeredTimer.callback.onTimer(registeredTimer.key.key, registeredTimer.key.timestamp);
+    } catch (RuntimeException e) {
+      LOG.error("Timer callback for key {} and timestamp {} failed", registeredTimer.key.key,
+              registeredTimer.key.timestamp, e);
+    }
+  }
+
+  private static final class TimerKey {
+
+    private final String key;
+    private final long timestamp;
+
+    TimerKey(String key, long timestamp) {
+      this.key = key;
+      this.timestamp = timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TimerKey)) {
+        return false;
+      }
+      TimerKey other = (TimerKey) o;
+      return timestamp == other.timestamp && Objects.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hashCode(key) + Long.hashCode(timestamp);
+    }
+  }
+
+  private static final class RegisteredTimer {
+
+    private final TimerKey key;
+    private final TimerCallback callback;
+
+    RegisteredTimer(TimerKey key, TimerCallback callback) {
+      this.key = key;
+      this.callback = callback;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.timer;
+
+/**
+ * Allows pipeline elements to register callbacks for a point in processing time (wall-clock
+ * time) or event time. Event time is driven by watermarks, which the pipeline element advances
+ * itself, e.g., based on the timestamps of the incoming events.
+ *
+ * Timers are identified by their key and timestamp: registering the same key and timestamp
+ * again replaces the callback. Callbacks are never called concurrently with onEvent. Event-time
+ * callbacks and processing-time callbacks which are due when an event arrives are called on the
+ * processing thread of the instance. Processing-time callbacks which become due while the
+ * instance is idle are called on the worker thread of its execution stage if it has one (see
+ * SP_PROCESSING_QUEUE_CAPACITY), and otherwise on a shared callback thread.
+ */
+public interface TimerService {
+
+  long currentProcessingTime();
+
+  /**
+   * @return the current watermark or Long.MIN_VALUE if no watermark has been set yet.
+   */
+  long currentWatermark();
+
+  /**
+   * Advances the watermark and calls the callbacks of all event-time timers which are not after
+   * the new watermark. Watermarks which are not after the current one are ignored.
+   */
+  void advanceWatermark(long watermark);
+
+  void registerProcessingTimeTimer(String key, long timestamp, TimerCallback callback);
+
+  void registerEventTimeTimer(String key, long timestamp, TimerCallback callback);
+
+  void deleteProcessingTimeTimer(String key, long timestamp);
+
+  void deleteEventTimeTimer(String key, long timestamp);
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.timer;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel with a resolution of one time unit (e.g., one millisecond).
+ *
+ * Timers are kept in four levels of 256 slots each; the slot of a timer is determined by the
+ * bits of its deadline which differ from the current time, so that scheduling and cancelling
+ * take constant time. Timers of higher levels are moved to lower levels when the time reaches
+ * their slot. Timers further ahead than 2^32 units are kept in an overflow list. Advancing the
+ * time skips ranges without timers, so that large jumps (e.g., of a watermark) are cheap.
+ *
+ * The wheel is not thread-safe.
+ */
+public class TimerWheel<T> {
+
+  private static final int BITS = 8;
+  private static final int SLOTS = 1 << BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 4;
+
+  private final Slot<T>[][] slots;
+  private final Slot<T> overflow;
+  private final Slot<T> due;
+  private final int[] levelSizes = new int[LEVELS + 1];
+
+  private long time;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  public TimerWheel(long startTime) {
+    this.time = startTime;
+    // slots are created on first use, as most instances only register few timers, if any
+    this.slots = new Slot[LEVELS][SLOTS];
+    this.overflow = new Slot<>(LEVELS, levelSizes);
+    this.due = new Slot<>(-1, levelSizes);
+  }
+
+  /**
+   * Schedules a timer. Timers with a deadline which is not after the current time expire with
+   * the next call of {@link #advance(long, Consumer)}.
+   */
+  public Timer<T> schedule(long deadline, T payload) {
+    Timer<T> timer = new Timer<>(deadline, payload);
+    place(timer, false);
+    size++;
+    return timer;
+  }
+
+  /**
+   * @return false if the timer has already expired or been cancelled.
+   */
+  public boolean cancel(Timer<T> timer) {
+    if (timer.slot == null) {
+      return false;
+    }
+    timer.slot.remove(timer);
+    size--;
+    return true;
+  }
+
+  /**
+   * Advances the time and passes all timers whose deadline is not after the new time to the
+   * consumer, in the order of their deadlines. Timers which were already due when being
+   * scheduled expire first, in no particular order; this includes timers scheduled by the
+   * consumer for a time which has already passed, which expire with the next call.
+   */
+  public void advance(long targetTime, Consumer<Timer<T>> expired) {
+    expire(due, expired);
+    while (time < targetTime) {
+      int level = lowestOccupiedLevel();
+      if (level < 0) {
+        time = targetTime;
+        break;
+      }
+      long next = nextBoundary(level);
+      if (next > targetTime) {
+        time = targetTime;
+        break;
+      }
+      time = next;
+      cascade();
+      Slot<T> slot = slots[0][(int) (time & MASK)];
+      if (slot != null) {
+        expire(slot, expired);
+      }
+    }
+  }
+
+  public long getTime() {
+    return time;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private long nextBoundary(int level) {
+    if (level == 0) {
+      return time + 1;
+    }
+    long next = (time | ((1L << (BITS * level)) - 1)) + 1;
+    if (level == LEVELS) {
+      // skip directly to the block of the earliest overflow timer
+      long earliest = Long.MAX_VALUE;
+      for (Timer<T> timer = overflow.head; timer != null; timer = timer.next) {
+        earliest = Math.min(earliest, timer.deadline);
+      }
+      next = Math.max(next, earliest & ~((1L << (BITS * LEVELS)) - 1));
+    }
+    return next;
+  }
+
+  private int lowestOccupiedLevel() {
+    for (int level = 0; level <= LEVELS; level++) {
+      if (levelSizes[level] > 0) {
+        return level;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves the timers of the slots which begin at the current time to lower levels, starting
+   * with the highest level, so that timers can move down several levels at once.
+   */
+  private void cascade() {
+    int highestLevel = 0;
+    while (highestLevel < LEVELS && (time & ((1L << (BITS * (highestLevel + 1))) - 1)) == 0) {
+      highestLevel++;
+    }
+    for (int level = highestLevel; level >= 1; level--) {
+      Slot<T> slot = level == LEVELS ? overflow :
+              slots[level][(int) ((time >>> (BITS * level)) & MASK)];
+      Timer<T> timer = slot != null ? slot.head : null;
+      while (timer != null) {
+        Timer<T> next = timer.next;
+        slot.remove(timer);
+        place(timer, true);
+        timer = next;
+      }
+    }
+  }
+
+  private void place(Timer<T> timer, boolean cascading) {
+    long deadline = timer.deadline;
+    // while cascading, the level 0 slot of the current time is yet to expire
+    if (deadline < time || (deadline == time && !cascading)) {
+      due.add(timer);
+      return;
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = BITS * (level + 1);
+      if ((deadline >>> shift) == (time >>> shift)) {
+        int index = (int) ((deadline >>> (BITS * level)) & MASK);
+        if (slots[level][index] == null) {
+          slots[level][index] = new Slot<>(level, levelSizes);
+        }
+        slots[level][index].add(timer);
+        return;
+      }
+    }
+    overflow.add(timer);
+  }
+
+  private void expire(Slot<T> slot, Consumer<Timer<T>> expired) {
+    Timer<T> timer;
+    while ((timer = slot.head) != null) {
+      slot.remove(timer);
+      size--;
+      expired.accept(timer);
+    }
+  }
+
+  public static final class Timer<T> {
+
+    private final long deadline;
+    private final T payload;
+
+    private Slot<T> slot;
+    private Timer<T> previous;
+    private Timer<T> next;
+
+    private Timer(long deadline, T payload) {
+      this.deadline = deadline;
+      this.payload = payload;
+    }
+
+    public long getDeadline() {
+      return deadline;
+    }
+
+    public T getPayload() {
+      return payload;
+    }
+  }
+
+  private static final class Slot<S> {
+
+    private final int level;
+    private final int[] levelSizes;
+    private Timer<S> head;
+
+    Slot(int level, int[] levelSizes) {
+      this.level = level;
+      this.levelSizes = levelSizes;
+    }
+
+    void add(Timer<S> timer) {
+      timer.slot = this;
+      timer.previous = null;
+      timer.next = head;
+      if (head != null) {
+        head.previous = timer;
+      }
+      head = timer;
+      if (level >= 0) {
+        levelSizes[level]++;
+      }
+    }
+
+    void remove(Timer<S> timer) {
+      if (timer.previous != null) {
+        timer.previous.next = timer.next;
+      } else {
+        head = timer.next;
+      }
+      if (timer.next != null) {
+        timer.next.previous = timer.previous;
+      }
+      timer.slot = null;
+      timer.previous = null;
+      timer.next = null;
+      if (level >= 0) {
+        levelSizes[level]--;
+      }
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.InternalEventProcessor;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventFactory;
+import org.apache.streampipes.wrapper.context.EventProcessorRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventProcessorBindingParams;
+import org.apache.streampipes.wrapper.routing.SpOutputCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class TestAsyncEventProcessorAdapter {
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private ExecutorService clientExecutor;
+  private final AtomicInteger concurrentRequests = new AtomicInteger();
+  private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+  @Before
+  public void startStubServer() throws IOException {
+    serverExecutor = Executors.newCachedThreadPool();
+    clientExecutor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(serverExecutor);
+    server.createContext("/lookup", exchange -> {
+      int current = concurrentRequests.incrementAndGet();
+      maxConcurrentRequests.accumulateAndGet(current, Math::max);
+      try {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getQuery());
+        Thread.sleep(Long.parseLong(query.get("delay")));
+        byte[] response = ("value-" + query.get("id")).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(response);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        concurrentRequests.decrementAndGet();
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+
+  @After
+  public void stopStubServer() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+    clientExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testOrderedOutput() throws SpRuntimeException {
+    List<Event> results = run(new AsyncSettings(10, 5000, AsyncSettings.OutputMode.ORDERED),
+            10, id -> (10 - id) * 20);
+
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ids(results));
+    assertEquals("value-3", results.get(3).getFieldByRuntimeName("enriched").getAsPrimitive()
+            .getAsString());
+  }
+
+  @Test
+  public void testUnorderedOutput() throws SpRuntimeException {
+    List<Event> results = run(new AsyncSettings(10, 5000, AsyncSettings.OutputMode.UNORDERED),
+            5, id -> id == 0 ? 500 : 0);
+
+    assertEquals(5, results.size());
+    assertEquals(0, (int) ids(results).get(4));
+  }
+
+  @Test
+  public void testTimeout() throws SpRuntimeException {
+    List<Event> results = run(new AsyncSettings(10, 100, AsyncSettings.OutputMode.ORDERED),
+            3, id -> id == 1 ? 2000 : 0);
+
+    assertEquals(Arrays.asList(0, 1, 2), ids(results));
+    assertEquals("timeout", results.get(1).getFieldByRuntimeName("enriched").getAsPrimitive()
+            .getAsString());
+  }
+
+  @Test
+  public void testCapacity() throws SpRuntimeException {
+    List<Event> results = run(new AsyncSettings(3, 5000, AsyncSettings.OutputMode.UNORDERED),
+            12, id -> 50);
+
+    assertEquals(12, results.size());
+    assertTrue(maxConcurrentRequests.get() <= 3);
+  }
+
+  private List<Event> run(AsyncSettings settings, int eventCount, Delay delay) throws
+          SpRuntimeException {
+    List<Event> results = Collections.synchronizedList(new ArrayList<>());
+    AsyncEventProcessorAdapter<EventProcessorBindingParams> adapter =
+            new AsyncEventProcessorAdapter<>(new StubEnrichment(settings, delay));
+    SpOutputCollector collector = new ListCollector(results);
+
+    adapter.onInvocation(null, collector, null);
+    for (int i = 0; i < eventCount; i++) {
+      Map<String, Object> event = new HashMap<>();
+      event.put("id", i);
+      adapter.onEvent(EventFactory.fromMap(event), collector);
+    }
+    adapter.onDetach();
+
+    assertEquals(0, adapter.getInFlightEvents());
+    return new ArrayList<>(results);
+  }
+
+  private List<Integer> ids(List<Event> events) {
+    return events
+            .stream()
+            .map(e -> e.getFieldByRuntimeName("id").getAsPrimitive().getAsInt())
+            .collect(Collectors.toList());
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> parameters = new HashMap<>();
+    for (String parameter : query.split("&")) {
+      String[] keyValue = parameter.split("=");
+      parameters.put(keyValue[0], keyValue[1]);
+    }
+    return parameters;
+  }
+
+  private interface Delay {
+    long forId(int id);
+  }
+
+  private class StubEnrichment implements AsyncEventProcessor<EventProcessorBindingParams> {
+
+    private final AsyncSettings settings;
+    private final Delay delay;
+
+    StubEnrichment(AsyncSettings settings, Delay delay) {
+      this.settings = settings;
+      this.delay = delay;
+    }
+
+    @Override
+    public void onInvocation(EventProcessorBindingParams parameters,
+                             EventProcessorRuntimeContext runtimeContext) {
+    }
+
+    @Override
+    public CompletionStage<Event> onEvent(Event event) {
+      int id = event.getFieldByRuntimeName("id").getAsPrimitive().getAsInt();
+      return CompletableFuture.supplyAsync(() -> lookup(id), clientExecutor)
+              .thenApply(value -> {
+                event.addField("enriched", value);
+                return event;
+              });
+    }
+
+    @Override
+    public Event onTimeout(Event event) {
+      event.addField("enriched", "timeout");
+      return event;
+    }
+
+    @Override
+    public AsyncSettings getAsyncSettings() {
+      return settings;
+    }
+
+    @Override
+    public void onDetach() {
+    }
+
+    private String lookup(int id) {
+      try {
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/lookup?id=" + id
+                + "&delay=" + delay.forId(id));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try (InputStream in = connection.getInputStream()) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[256];
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+          }
+          return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }
+  }
+
+  private static class ListCollector implements SpOutputCollector {
+
+    private final List<Event> events;
+
+    ListCollector(List<Event> events) {
+      this.events = events;
+    }
+
+    @Override
+    public void collect(Event event) {
+      events.add(event);
+    }
+
+    @Override
+    public void registerConsumer(String routeId,
+                                 InternalEventProcessor<Map<String, Object>> consumer) {
+    }
+
+    @Override
+    public void unregisterConsumer(String routeId) {
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.streampipes.wrapper.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.streampipes.commons.exceptions.SpRuntimeException;
+import org.apache.streampipes.messaging.CheckpointAwareConsumer;
+import org.apache.streampipes.model.runtime.Event;
+import org.apache.streampipes.model.runtime.EventFactory;
+import org.apache.streampipes.wrapper.context.EventSinkRuntimeContext;
+import org.apache.streampipes.wrapper.params.binding.EventSinkBindingParams;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class TestBatchingEventSinkAdapter {
+
+  @Test
+  public void testSizeTriggeredFlush() throws SpRuntimeException {
+    StubSink sink = new StubSink(new BatchSettings(3, 0, 60000));
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+
+    addEvents(adapter, 0, 7);
+
+    assertEquals(2, sink.batches.size());
+    assertEquals(1, adapter.getBufferedEvents());
+
+    adapter.onDetach();
+    assertEquals(3, sink.batches.size());
+    assertEquals(range(0, 7), sink.writtenIds());
+  }
+
+  @Test
+  public void testLingerTriggeredFlush() throws Exception {
+    StubSink sink = new StubSink(new BatchSettings(1000, 0, 50));
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+
+    addEvents(adapter, 0, 5);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (sink.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(1, sink.batches.size());
+    assertEquals(0, adapter.getBufferedEvents());
+    adapter.onDetach();
+    assertEquals(range(0, 5), sink.writtenIds());
+  }
+
+  @Test
+  public void testByteTriggeredFlush() throws SpRuntimeException {
+    StubSink sink = new StubSink(new BatchSettings(1000, 10, 60000));
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+
+    addEvents(adapter, 0, 2);
+
+    assertEquals(2, sink.batches.size());
+    adapter.onDetach();
+  }
+
+  @Test
+  public void testCommitsAfterWrittenBatches() throws SpRuntimeException {
+    StubSink sink = new StubSink(new BatchSettings(2, 0, 60000));
+    StubConsumer consumer = new StubConsumer();
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+    adapter.addCommitConsumer(consumer);
+
+    for (int i = 0; i < 4; i++) {
+      addEvents(adapter, i, i + 1);
+      consumer.processed = i + 1;
+    }
+    assertEquals(Arrays.asList(1L, 3L), consumer.committed);
+
+    adapter.onDetach();
+    assertEquals(range(0, 4), sink.writtenIds());
+  }
+
+  @Test
+  public void testRetriesFailedBatch() throws SpRuntimeException {
+    StubSink sink = new StubSink(new BatchSettings(2, 0, 60000, 3, 1));
+    StubConsumer consumer = new StubConsumer();
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+    adapter.addCommitConsumer(consumer);
+
+    sink.failures = 2;
+    addEvents(adapter, 0, 1);
+    consumer.processed = 1;
+    addEvents(adapter, 1, 2);
+    consumer.processed = 2;
+    addEvents(adapter, 2, 4);
+    adapter.onDetach();
+
+    assertEquals(0, sink.failures);
+    assertEquals(range(0, 4), sink.writtenIds());
+    assertEquals(Arrays.asList(1L, 2L), consumer.committed);
+  }
+
+  @Test
+  public void testFailsAfterRetries() throws SpRuntimeException {
+    StubSink sink = new StubSink(new BatchSettings(2, 0, 60000, 1, 1));
+    StubConsumer consumer = new StubConsumer();
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter = start(sink);
+    adapter.addCommitConsumer(consumer);
+
+    addEvents(adapter, 0, 2);
+    sink.failing = true;
+    addEvents(adapter, 2, 3);
+    try {
+      addEvents(adapter, 3, 4);
+      fail("Expected the sink to fail");
+    } catch (SpRuntimeException e) {
+      // expected
+    }
+    sink.failing = false;
+    try {
+      addEvents(adapter, 4, 5);
+      fail("Expected events to be rejected after the sink failed");
+    } catch (SpRuntimeException e) {
+      // expected
+    }
+    adapter.onDetach();
+
+    assertEquals(range(0, 2), sink.writtenIds());
+    assertEquals(Collections.singletonList(0L), consumer.committed);
+    assertTrue(sink.detached);
+  }
+
+  private BatchingEventSinkAdapter<EventSinkBindingParams> start(StubSink sink) throws
+          SpRuntimeException {
+    BatchingEventSinkAdapter<EventSinkBindingParams> adapter =
+            new BatchingEventSinkAdapter<>(sink);
+    adapter.onInvocation(null, null);
+    return adapter;
+  }
+
+  private void addEvents(BatchingEventSinkAdapter<EventSinkBindingParams> adapter, int from,
+                         int to) throws SpRuntimeException {
+    for (int i = from; i < to; i++) {
+      Map<String, Object> event = new HashMap<>();
+      event.put("id", i);
+      adapter.onEvent(EventFactory.fromMap(event));
+    }
+  }
+
+  private List<Integer> range(int from, int to) {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      ids.add(i);
+    }
+    return ids;
+  }
+
+  private static class StubSink implements BatchingEventSink<EventSinkBindingParams> {
+
+    private final BatchSettings settings;
+    private final List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean failing;
+    private volatile int failures;
+    private volatile boolean detached;
+
+    StubSink(BatchSettings settings) {
+      this.settings = settings;
+    }
+
+    @Override
+    public void onInvocation(EventSinkBindingParams parameters,
+                             EventSinkRuntimeContext runtimeContext) {
+    }
+
+    @Override
+    public void onEvents(List<Event> events) {
+      if (failures > 0) {
+        failures--;
+        throw new SpRuntimeException("Stub sink failure");
+      }
+      if (failing) {
+        throw new SpRuntimeException("Stub sink failure");
+      }
+      batches.add(events);
+    }
+
+    @Override
+    public BatchSettings getBatchSettings() {
+      return settings;
+    }
+
+    @Override
+    public void onDetach() {
+      detached = true;
+    }
+
+    List<Integer> writtenIds() {
+      synchronized (batches) {
+        return batches
+                .stream()
+                .flatMap(List::stream)
+                .map(e -> e.getFieldByRuntimeName("id").getAsPrimitive().getAsInt())
+                .collect(Collectors.toList());
+      }
+    }
+  }
+
+  private static class StubConsumer implements CheckpointAwareConsumer {
+
+    private final List<Long> committed = new ArrayList<>();
+    private volatile long processed;
+
+    @Override
+    public boolean enableCheckpointCommits() {
+      return true;
+    }
+
+    @Override
+    public void disableCheckpointCommits() {
+    }
+
+    @Override
+    public Map<String, Long> markCheckpoint() {
+      return Collections.singletonMap("topic:0", processed);
+    }
+
+    @Override
+    public void commitCheckpoint(Map<String, Long> positions) {
+      committed.add(positions.get("topic:0"));
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class TestLogStateBackend {
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("sp-state-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Test
+  public void testRestoresLatestPersistedCheckpoint() throws IOException {
+    LogStateBackend backend = new LogStateBackend(directory);
+    KeyedState<Long> counts = backend.getKeyedState("counts", StateSerializers.longs());
+    counts.put("a", 1L);
+    counts.put("b", 2L);
+    counts.put("a", 3L);
+    counts.remove("b");
+    backend.snapshot(1).persist();
+
+    // not part of any checkpoint
+    counts.put("c", 4L);
+    backend.close();
+
+    LogStateBackend restored = new LogStateBackend(directory);
+    KeyedState<Long> restoredCounts = restored.getKeyedState("counts", StateSerializers.longs());
+    assertEquals(1, restored.getRestoredCheckpointId());
+    assertEquals(1, restoredCounts.size());
+    assertEquals(Long.valueOf(3), restoredCounts.get("a"));
+    assertNull(restoredCounts.get("b"));
+    assertNull(restoredCounts.get("c"));
+    restored.close();
+  }
+
+  @Test
+  public void testCompactsOverwrittenValues() throws IOException {
+    LogStateBackend backend = new LogStateBackend(directory);
+    KeyedState<String> values = backend.getKeyedState("values", StateSerializers.strings());
+    String value = new String(new char[1000]).replace('\0', 'x');
+    for (int i = 0; i < 20000; i++) {
+      values.put("key-" + (i % 100), value + i);
+    }
+    long length = backend.length();
+    backend.snapshot(1).persist();
+    backend.close();
+
+    LogStateBackend restored = new LogStateBackend(directory);
+    KeyedState<String> restoredValues = restored.getKeyedState("values", StateSerializers.strings());
+    assertEquals(100, restoredValues.size());
+    assertEquals(value + 19999, restoredValues.get("key-99"));
+    assertTrue(restored.length() < length / 10);
+    restored.close();
+  }
+}
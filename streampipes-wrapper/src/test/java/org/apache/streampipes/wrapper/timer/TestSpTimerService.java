@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TestSpTimerService {
+
+  private final SpTimerService timerService = new SpTimerService();
+
+  @After
+  public void tearDown() {
+    timerService.close();
+  }
+
+  @Test
+  public void testNoProcessingTimeTimers() {
+    assertFalse(timerService.hasProcessingTimeTimers());
+    timerService.registerEventTimeTimer("a", 10, (key, timestamp) -> { });
+    assertFalse(timerService.hasProcessingTimeTimers());
+  }
+
+  @Test
+  public void testDeleteLastTimer() {
+    long timestamp = timerService.currentProcessingTime() + 60000;
+    timerService.registerProcessingTimeTimer("a", timestamp, (key, time) -> { });
+    assertTrue(timerService.hasProcessingTimeTimers());
+
+    timerService.deleteProcessingTimeTimer("a", timestamp);
+    assertFalse(timerService.hasProcessingTimeTimers());
+  }
+
+  @Test
+  public void testFireWhileIdle() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(1);
+    timerService.beginProcessing();
+    try {
+      timerService.registerProcessingTimeTimer("a", timerService.currentProcessingTime(),
+              (key, timestamp) -> fired.countDown());
+    } finally {
+      timerService.endProcessing();
+    }
+
+    assertTrue(fired.await(5, TimeUnit.SECONDS));
+    awaitNoProcessingTimeTimers();
+  }
+
+  @Test
+  public void testNoCallbackWhileProcessing() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(1);
+    timerService.beginProcessing();
+    try {
+      timerService.registerProcessingTimeTimer("a", timerService.currentProcessingTime(),
+              (key, timestamp) -> fired.countDown());
+      assertFalse(fired.await(100, TimeUnit.MILLISECONDS));
+    } finally {
+      timerService.endProcessing();
+    }
+
+    assertTrue(fired.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testTimerRegisteredWithoutLockWaitsForPendingTicker() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(1);
+    // e.g., registered by an event processed without beginProcessing()
+    timerService.registerProcessingTimeTimer("a", timerService.currentProcessingTime(),
+            (key, timestamp) -> fired.countDown());
+    assertTrue(timerService.hasProcessingTimeTimers());
+    assertFalse(fired.await(100, TimeUnit.MILLISECONDS));
+
+    timerService.startPendingTicker();
+    assertTrue(fired.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFireDueTimersBeforeEvent() {
+    List<String> fired = new ArrayList<>();
+    long now = timerService.currentProcessingTime();
+    timerService.registerProcessingTimeTimer("a", now - 1, (key, timestamp) -> fired.add(key));
+    timerService.registerProcessingTimeTimer("b", now + 60000, (key, timestamp) -> fired.add(key));
+
+    timerService.beginProcessing();
+    try {
+      assertEquals(Arrays.asList("a"), fired);
+    } finally {
+      timerService.endProcessing();
+    }
+    assertTrue(timerService.hasProcessingTimeTimers());
+  }
+
+  @Test
+  public void testFireOnExecutor() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable,
+            "test-executor"));
+    try {
+      AtomicReference<String> threadName = new AtomicReference<>();
+      CountDownLatch fired = new CountDownLatch(1);
+      timerService.setExecutor(executor);
+      timerService.registerProcessingTimeTimer("a", timerService.currentProcessingTime(),
+              (key, timestamp) -> {
+                threadName.set(Thread.currentThread().getName());
+                fired.countDown();
+              });
+      timerService.startPendingTicker();
+
+      assertTrue(fired.await(5, TimeUnit.SECONDS));
+      assertEquals("test-executor", threadName.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEventTimeTimers() {
+    List<Long> fired = new ArrayList<>();
+    timerService.registerEventTimeTimer("a", 20, (key, timestamp) -> fired.add(timestamp));
+    timerService.registerEventTimeTimer("a", 10, (key, timestamp) -> fired.add(timestamp));
+    timerService.registerEventTimeTimer("b", 30, (key, timestamp) -> fired.add(timestamp));
+    timerService.deleteEventTimeTimer("b", 30);
+
+    timerService.advanceWatermark(15);
+    assertEquals(Arrays.asList(10L), fired);
+    timerService.advanceWatermark(40);
+    assertEquals(Arrays.asList(10L, 20L), fired);
+    assertEquals(40, timerService.currentWatermark());
+  }
+
+  private void awaitNoProcessingTimeTimers() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (timerService.hasProcessingTimeTimers() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertFalse(timerService.hasProcessingTimeTimers());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.streampipes.wrapper.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TestTimerWheel {
+
+  private static final long START = 1_600_000_000_000L;
+
+  @Test
+  public void testTimersExpireInOrderOfDeadline() {
+    TimerWheel<Long> wheel = new TimerWheel<>(START);
+    Random random = new Random(42);
+    List<Long> deadlines = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      // spread the deadlines over all levels, including the overflow list
+      long deadline = START + 1 + (long) (random.nextDouble() * (1L << random.nextInt(40)));
+      deadlines.add(deadline);
+      wheel.schedule(deadline, deadline);
+    }
+    deadlines.sort(Long::compare);
+
+    List<Long> expired = new ArrayList<>();
+    long time = START;
+    while (wheel.size() > 0) {
+      time += 1 + (long) (random.nextDouble() * (1L << random.nextInt(36)));
+      long currentTime = time;
+      wheel.advance(currentTime, timer -> {
+        assertTrue(timer.getDeadline() <= currentTime);
+        expired.add(timer.getPayload());
+      });
+      assertEquals(deadlines.stream().filter(d -> d <= currentTime).count(), expired.size());
+    }
+    assertEquals(deadlines, expired);
+  }
+
+  @Test
+  public void testCancelledTimersDoNotExpire() {
+    TimerWheel<String> wheel = new TimerWheel<>(START);
+    TimerWheel.Timer<String> first = wheel.schedule(START + 10, "first");
+    wheel.schedule(START + 300, "second");
+    TimerWheel.Timer<String> third = wheel.schedule(START + 70000, "third");
+
+    assertTrue(wheel.cancel(first));
+    assertFalse(wheel.cancel(first));
+    assertTrue(wheel.cancel(third));
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(START + 100000, timer -> expired.add(timer.getPayload()));
+    assertEquals(Arrays.asList("second"), expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testTimersInThePastExpireWithNextAdvance() {
+    TimerWheel<String> wheel = new TimerWheel<>(START);
+    wheel.advance(START + 1000, timer -> {
+    });
+    wheel.schedule(START, "past");
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(START + 1000, timer -> expired.add(timer.getPayload()));
+    assertEquals(Arrays.asList("past"), expired);
+  }
+}